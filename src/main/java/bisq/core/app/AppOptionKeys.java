@@ -22,8 +22,11 @@ public class AppOptionKeys {
     public static final String USER_DATA_DIR_KEY = "userDataDir";
     public static final String APP_DATA_DIR_KEY = "appDataDir";
     public static final String PROVIDERS = "providers";
+    public static final String PROVIDER_HEDGE_DELAY = "providerHedgeDelay";
     public static final String MAX_MEMORY = "maxMemory";
     public static final String DUMP_STATISTICS = "dumpStatistics";
+    public static final String OFFER_BATCH_SIZE = "offerBatchSize";
+    public static final String OFFER_BATCH_INTERVAL = "offerBatchInterval";
     public static final String IGNORE_DEV_MSG_KEY = "ignoreDevMsg";
     public static final String USE_DEV_PRIVILEGE_KEYS = "useDevPrivilegeKeys";
     public static final String USE_DEV_MODE = "useDevMode";
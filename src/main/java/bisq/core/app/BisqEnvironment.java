@@ -88,6 +88,13 @@ public class BisqEnvironment extends StandardEnvironment {
 
     public static final String LOG_LEVEL_DEFAULT = Level.INFO.levelStr;
 
+    // 10 offers every 3 sec. is about the rate we used before for refreshing the offers one by one
+    public static final String DEFAULT_OFFER_BATCH_SIZE = "10";
+    public static final String DEFAULT_OFFER_BATCH_INTERVAL = "3000";
+
+    // Most responses of the price nodes over Tor arrive within a few seconds
+    public static final String DEFAULT_PROVIDER_HEDGE_DELAY = "5000";
+
     public static final String BISQ_COMMANDLINE_PROPERTY_SOURCE_NAME = "bisqCommandLineProperties";
     public static final String BISQ_APP_DIR_PROPERTY_SOURCE_NAME = "bisqAppDirProperties";
     public static final String BISQ_DEFAULT_PROPERTY_SOURCE_NAME = "bisqDefaultProperties";
@@ -185,7 +192,7 @@ public class BisqEnvironment extends StandardEnvironment {
     protected final String userDataDir;
     protected final String appDataDir;
     protected final String btcNetworkDir, userAgent;
-    protected final String logLevel, providers;
+    protected final String logLevel, providers, providerHedgeDelay;
     @Getter
     @Setter
     protected boolean isBitcoinLocalhostNodeRunning;
@@ -194,8 +201,9 @@ public class BisqEnvironment extends StandardEnvironment {
 
     protected final String btcNodes, seedNodes, ignoreDevMsg, useDevPrivilegeKeys, useDevMode, useTorForBtc, rpcUser, rpcPassword,
             rpcPort, rpcBlockNotificationPort, dumpBlockchainData, fullDaoNode,
-            myAddress, banList, dumpStatistics, maxMemory, socks5ProxyBtcAddress,
-            socks5ProxyHttpAddress, useAllProvidedNodes, numConnectionForBtc, genesisTxId, genesisBlockHeight;
+            myAddress, banList, dumpStatistics, offerBatchSize, offerBatchInterval, maxMemory, socks5ProxyBtcAddress,
+            socks5ProxyHttpAddress, useAllProvidedNodes, numConnectionForBtc, genesisTxId, genesisBlockHeight,
+            scryptTargetDuration;
 
 
     public BisqEnvironment(OptionSet options) {
@@ -236,12 +244,21 @@ public class BisqEnvironment extends StandardEnvironment {
         dumpStatistics = commandLineProperties.containsProperty(AppOptionKeys.DUMP_STATISTICS) ?
                 (String) commandLineProperties.getProperty(AppOptionKeys.DUMP_STATISTICS) :
                 "";
+        offerBatchSize = commandLineProperties.containsProperty(AppOptionKeys.OFFER_BATCH_SIZE) ?
+                (String) commandLineProperties.getProperty(AppOptionKeys.OFFER_BATCH_SIZE) :
+                DEFAULT_OFFER_BATCH_SIZE;
+        offerBatchInterval = commandLineProperties.containsProperty(AppOptionKeys.OFFER_BATCH_INTERVAL) ?
+                (String) commandLineProperties.getProperty(AppOptionKeys.OFFER_BATCH_INTERVAL) :
+                DEFAULT_OFFER_BATCH_INTERVAL;
         maxMemory = commandLineProperties.containsProperty(AppOptionKeys.MAX_MEMORY) ?
                 (String) commandLineProperties.getProperty(AppOptionKeys.MAX_MEMORY) :
                 "";
         providers = commandLineProperties.containsProperty(AppOptionKeys.PROVIDERS) ?
                 (String) commandLineProperties.getProperty(AppOptionKeys.PROVIDERS) :
                 "";
+        providerHedgeDelay = commandLineProperties.containsProperty(AppOptionKeys.PROVIDER_HEDGE_DELAY) ?
+                (String) commandLineProperties.getProperty(AppOptionKeys.PROVIDER_HEDGE_DELAY) :
+                DEFAULT_PROVIDER_HEDGE_DELAY;
 
         //NetworkOptionKeys
         seedNodes = commandLineProperties.containsProperty(NetworkOptionKeys.SEED_NODES_KEY) ?
@@ -303,6 +320,9 @@ public class BisqEnvironment extends StandardEnvironment {
         numConnectionForBtc = commandLineProperties.containsProperty(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC) ?
                 (String) commandLineProperties.getProperty(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC) :
                 "9";
+        scryptTargetDuration = commandLineProperties.containsProperty(BtcOptionKeys.SCRYPT_TARGET_DURATION) ?
+                (String) commandLineProperties.getProperty(BtcOptionKeys.SCRYPT_TARGET_DURATION) :
+                "0";
 
         MutablePropertySources propertySources = this.getPropertySources();
         propertySources.addFirst(commandLineProperties);
@@ -430,10 +450,13 @@ public class BisqEnvironment extends StandardEnvironment {
                 setProperty(AppOptionKeys.USE_DEV_PRIVILEGE_KEYS, useDevPrivilegeKeys);
                 setProperty(AppOptionKeys.USE_DEV_MODE, useDevMode);
                 setProperty(AppOptionKeys.DUMP_STATISTICS, dumpStatistics);
+                setProperty(AppOptionKeys.OFFER_BATCH_SIZE, offerBatchSize);
+                setProperty(AppOptionKeys.OFFER_BATCH_INTERVAL, offerBatchInterval);
                 setProperty(AppOptionKeys.APP_NAME_KEY, appName);
                 setProperty(AppOptionKeys.MAX_MEMORY, maxMemory);
                 setProperty(AppOptionKeys.USER_DATA_DIR_KEY, userDataDir);
                 setProperty(AppOptionKeys.PROVIDERS, providers);
+                setProperty(AppOptionKeys.PROVIDER_HEDGE_DELAY, providerHedgeDelay);
 
                 setProperty(DaoOptionKeys.RPC_USER, rpcUser);
                 setProperty(DaoOptionKeys.RPC_PASSWORD, rpcPassword);
@@ -450,6 +473,7 @@ public class BisqEnvironment extends StandardEnvironment {
                 setProperty(BtcOptionKeys.USER_AGENT, userAgent);
                 setProperty(BtcOptionKeys.USE_ALL_PROVIDED_NODES, useAllProvidedNodes);
                 setProperty(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC, numConnectionForBtc);
+                setProperty(BtcOptionKeys.SCRYPT_TARGET_DURATION, scryptTargetDuration);
 
                 setProperty(UserAgent.NAME_KEY, appName);
                 setProperty(UserAgent.VERSION_KEY, Version.VERSION);
@@ -142,9 +142,25 @@ public abstract class BisqExecutable {
                 description("If set to true the trade statistics are stored as json file in the data dir.", false))
                 .withRequiredArg()
                 .ofType(boolean.class);
+        parser.accepts(AppOptionKeys.OFFER_BATCH_SIZE,
+                description("Min. number of own offers which are republished, refreshed or removed in one batch. " +
+                                "It grows with the square root of the number of offers",
+                        BisqEnvironment.DEFAULT_OFFER_BATCH_SIZE))
+                .withRequiredArg()
+                .ofType(int.class);
+        parser.accepts(AppOptionKeys.OFFER_BATCH_INTERVAL,
+                description("Delay in ms between the batches of own offers which are republished, refreshed or removed",
+                        BisqEnvironment.DEFAULT_OFFER_BATCH_INTERVAL))
+                .withRequiredArg()
+                .ofType(long.class);
         parser.accepts(AppOptionKeys.PROVIDERS,
                 description("Custom providers (comma separated)", false))
                 .withRequiredArg();
+        parser.accepts(AppOptionKeys.PROVIDER_HEDGE_DELAY,
+                description("Delay in ms after which we send the same request to a second provider. 0 disables it",
+                        BisqEnvironment.DEFAULT_PROVIDER_HEDGE_DELAY))
+                .withRequiredArg()
+                .ofType(long.class);
 
         //BtcOptionKeys
         parser.accepts(BtcOptionKeys.BASE_CURRENCY_NETWORK,
@@ -176,6 +192,12 @@ public abstract class BisqExecutable {
         parser.accepts(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC,
                 description("Number of connections to the Bitcoin network", "9"))
                 .withRequiredArg();
+        parser.accepts(BtcOptionKeys.SCRYPT_TARGET_DURATION,
+                description("If set the scrypt key derivation gets benchmarked at startup and new wallets are " +
+                        "encrypted with the strongest parameters which stay within that duration in ms. " +
+                        "0 uses the default parameters.", 0))
+                .withRequiredArg()
+                .ofType(int.class);
 
 
         //RpcOptionKeys
@@ -23,8 +23,8 @@ import bisq.core.btc.wallet.BsqWalletService;
 import bisq.core.btc.wallet.BtcWalletService;
 import bisq.core.btc.wallet.TradeWalletService;
 import bisq.core.btc.wallet.WalletsSetup;
+import bisq.core.crypto.KeyDerivationService;
 import bisq.core.provider.ProvidersRepository;
-import bisq.core.provider.fee.FeeProvider;
 import bisq.core.provider.fee.FeeService;
 import bisq.core.provider.price.PriceFeedService;
 
@@ -62,9 +62,11 @@ public class BitcoinModule extends AppModule {
         bindConstant().annotatedWith(named(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC)).to(environment.getRequiredProperty(BtcOptionKeys.NUM_CONNECTIONS_FOR_BTC));
         bindConstant().annotatedWith(named(BtcOptionKeys.USE_ALL_PROVIDED_NODES)).to(environment.getRequiredProperty(BtcOptionKeys.USE_ALL_PROVIDED_NODES));
         bindConstant().annotatedWith(named(BtcOptionKeys.USE_TOR_FOR_BTC)).to(environment.getRequiredProperty(BtcOptionKeys.USE_TOR_FOR_BTC));
+        bindConstant().annotatedWith(named(BtcOptionKeys.SCRYPT_TARGET_DURATION)).to(environment.getRequiredProperty(BtcOptionKeys.SCRYPT_TARGET_DURATION));
         String socks5DiscoverMode = environment.getProperty(BtcOptionKeys.SOCKS5_DISCOVER_MODE, String.class, "ALL");
         bind(String.class).annotatedWith(Names.named(BtcOptionKeys.SOCKS5_DISCOVER_MODE)).toInstance(socks5DiscoverMode);
         bindConstant().annotatedWith(named(AppOptionKeys.PROVIDERS)).to(environment.getRequiredProperty(AppOptionKeys.PROVIDERS));
+        bindConstant().annotatedWith(named(AppOptionKeys.PROVIDER_HEDGE_DELAY)).to(environment.getRequiredProperty(AppOptionKeys.PROVIDER_HEDGE_DELAY));
 
         bind(AddressEntryList.class).in(Singleton.class);
         bind(WalletsSetup.class).in(Singleton.class);
@@ -73,10 +75,10 @@ public class BitcoinModule extends AppModule {
         bind(TradeWalletService.class).in(Singleton.class);
         bind(BsqCoinSelector.class).in(Singleton.class);
         bind(BitcoinNodes.class).in(Singleton.class);
+        bind(KeyDerivationService.class).in(Singleton.class);
 
         bind(HttpClient.class).in(Singleton.class);
         bind(ProvidersRepository.class).in(Singleton.class);
-        bind(FeeProvider.class).in(Singleton.class);
         bind(PriceFeedService.class).in(Singleton.class);
         bind(FeeService.class).in(Singleton.class);
     }
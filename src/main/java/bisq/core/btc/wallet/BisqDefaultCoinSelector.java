@@ -22,21 +22,29 @@ import bisq.core.btc.Restrictions;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.InsufficientMoneyException;
 import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionConfidence;
 import org.bitcoinj.core.TransactionOutput;
 import org.bitcoinj.wallet.CoinSelection;
 import org.bitcoinj.wallet.CoinSelector;
 
-import java.math.BigInteger;
+import com.google.common.annotations.VisibleForTesting;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+
 /**
  * Used from org.bitcoinj.wallet.DefaultCoinSelector but added selectOutput method and changed static methods to
  * instance methods.
@@ -48,8 +56,14 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public abstract class BisqDefaultCoinSelector implements CoinSelector {
+    // Upper limit for the number of visited nodes in the branch and bound search for an exact match
+    private static final int MAX_EXACT_MATCH_TRIES = 100_000;
 
     protected final boolean permitForeignPendingTx;
+    // If set we first try to find a selection which matches the target exactly so that we don't need a change output.
+    // If there is none we fall back to the default selection.
+    @Setter
+    protected boolean preferExactMatch;
 
     public CoinSelection select(Coin target, Set<TransactionOutput> candidates) {
         return select(target, new ArrayList<>(candidates));
@@ -65,11 +79,18 @@ public abstract class BisqDefaultCoinSelector implements CoinSelector {
 
     @Override
     public CoinSelection select(Coin target, List<TransactionOutput> candidates) {
+        // If we spend all we don't need to sort
+        boolean spendAll = target.equals(NetworkParameters.MAX_MONEY);
+        if (preferExactMatch && !spendAll && target.isPositive()) {
+            CoinSelection exactMatch = selectExactMatch(target, candidates);
+            if (exactMatch != null)
+                return exactMatch;
+        }
+
         ArrayList<TransactionOutput> selected = new ArrayList<>();
         // Sort the inputs by age*value so we get the highest "coin days" spent.
         ArrayList<TransactionOutput> sortedOutputs = new ArrayList<>(candidates);
-        // If we spend all we don't need to sort
-        if (!target.equals(NetworkParameters.MAX_MONEY))
+        if (!spendAll)
             sortOutputs(sortedOutputs);
 
         // Now iterate over the sorted outputs until we have got as close to the target as possible or a little
@@ -83,9 +104,7 @@ public abstract class BisqDefaultCoinSelector implements CoinSelector {
                     break;
             }
 
-            if (output.getParentTransaction() != null &&
-                    isTxSpendable(output.getParentTransaction()) &&
-                    isTxOutputSpendable(output)) {
+            if (isSpendable(output)) {
                 selected.add(output);
                 total += output.getValue().value;
             }
@@ -118,26 +137,170 @@ public abstract class BisqDefaultCoinSelector implements CoinSelector {
 
     abstract boolean isTxOutputSpendable(TransactionOutput output);
 
+    // Sorts by coin days destroyed, then by value, then by parent tx hash to get a total ordering.
+    // The sort keys are computed once per output instead of in each comparison.
     protected void sortOutputs(ArrayList<TransactionOutput> outputs) {
-        Collections.sort(outputs, (a, b) -> {
-            int depth1 = a.getParentTransactionDepthInBlocks();
-            int depth2 = b.getParentTransactionDepthInBlocks();
-            Coin aValue = a.getValue();
-            Coin bValue = b.getValue();
-            BigInteger aCoinDepth = BigInteger.valueOf(aValue.value).multiply(BigInteger.valueOf(depth1));
-            BigInteger bCoinDepth = BigInteger.valueOf(bValue.value).multiply(BigInteger.valueOf(depth2));
-            int c1 = bCoinDepth.compareTo(aCoinDepth);
+        int size = outputs.size();
+        SortKey[] keys = new SortKey[size];
+        for (int i = 0; i < size; i++)
+            keys[i] = new SortKey(outputs.get(i));
+
+        Arrays.sort(keys);
+
+        for (int i = 0; i < size; i++)
+            outputs.set(i, keys[i].output);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Exact match
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Nullable
+    private CoinSelection selectExactMatch(Coin target, List<TransactionOutput> candidates) {
+        List<TransactionOutput> spendableOutputs = candidates.stream()
+                .filter(this::isSpendable)
+                .sorted(Comparator.comparingLong((TransactionOutput output) -> output.getValue().value).reversed())
+                .collect(Collectors.toList());
+        long[] values = new long[spendableOutputs.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = spendableOutputs.get(i).getValue().value;
+
+        boolean[] selection = findExactMatch(values, target.value);
+        if (selection == null)
+            return null;
+
+        List<TransactionOutput> selected = new ArrayList<>();
+        for (int i = 0; i < selection.length; i++) {
+            if (selection[i])
+                selected.add(spendableOutputs.get(i));
+        }
+        return new CoinSelection(target, selected);
+    }
+
+    /**
+     * Depth first branch and bound search for a subset of values which sums up exactly to the target.
+     *
+     * @param values Values sorted in descending order.
+     * @return Flags for the selected values or null if there is no exact match or the search limit was reached.
+     */
+    @VisibleForTesting
+    @Nullable
+    static boolean[] findExactMatch(long[] values, long target) {
+        int size = values.length;
+        // remaining[i] is the sum of all values from index i on
+        long[] remaining = new long[size + 1];
+        for (int i = size - 1; i >= 0; i--)
+            remaining[i] = remaining[i + 1] + values[i];
+        if (remaining[0] < target)
+            return null;
+
+        boolean[] selection = new boolean[size];
+        long total = 0;
+        int depth = 0;
+        for (int tries = 0; tries < MAX_EXACT_MATCH_TRIES; tries++) {
+            if (total == target)
+                return selection;
+
+            if (total > target || total + remaining[depth] < target || depth == size) {
+                // Backtrack to the last included value and continue with the branch where it is excluded
+                depth--;
+                while (depth >= 0 && !selection[depth])
+                    depth--;
+                if (depth < 0)
+                    return null;
+
+                selection[depth] = false;
+                total -= values[depth];
+            } else {
+                selection[depth] = true;
+                total += values[depth];
+            }
+            depth++;
+        }
+        return null;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean isSpendable(TransactionOutput output) {
+        return output.getParentTransaction() != null &&
+                isTxSpendable(output.getParentTransaction()) &&
+                isTxOutputSpendable(output);
+    }
+
+    private static final class SortKey implements Comparable<SortKey> {
+        private static final byte[] ZERO_HASH = new byte[32];
+
+        private final TransactionOutput output;
+        private final long value;
+        // value * depth as signed 128 bit number in two's complement. bitcoinj reports a depth of -1 for outputs of
+        // pending txs, so their coin depth is negative like at the BigInteger comparison we used before.
+        private final long coinDepthHigh;
+        private final long coinDepthLow;
+        // First 8 bytes of the parent tx hash as unsigned number, the full hash is only used if they are equal
+        private final long hashPrefix;
+        @Nullable
+        private final byte[] hash;
+
+        SortKey(TransactionOutput output) {
+            this.output = output;
+            value = output.getValue().value;
+            int depth = output.getParentTransactionDepthInBlocks();
+            long absDepth = Math.abs((long) depth);
+
+            // value and absDepth are not negative and absDepth has at most 32 bits, so we can multiply the two
+            // 32 bit halves of value separately
+            long lowProduct = (value & 0xFFFFFFFFL) * absDepth;
+            long highProduct = (value >>> 32) * absDepth;
+            long low = lowProduct + (highProduct << 32);
+            long high = (highProduct >>> 32) + (Long.compareUnsigned(low, lowProduct) < 0 ? 1 : 0);
+            if (depth < 0) {
+                // Negate the 128 bit number
+                low = ~low + 1;
+                high = ~high + (low == 0 ? 1 : 0);
+            }
+            coinDepthLow = low;
+            coinDepthHigh = high;
+
+            Sha256Hash parentTransactionHash = output.getParentTransactionHash();
+            hash = parentTransactionHash != null ? parentTransactionHash.getBytes() : null;
+            long prefix = 0;
+            if (hash != null) {
+                for (int i = 0; i < 8; i++)
+                    prefix = (prefix << 8) | (hash[i] & 0xFF);
+            }
+            hashPrefix = prefix;
+        }
+
+        @Override
+        public int compareTo(@NotNull SortKey other) {
+            // Highest coin depth first
+            int c1 = Long.compare(other.coinDepthHigh, coinDepthHigh);
+            if (c1 != 0) return c1;
+            c1 = Long.compareUnsigned(other.coinDepthLow, coinDepthLow);
             if (c1 != 0) return c1;
             // The "coin*days" destroyed are equal, sort by value alone to get the lowest transaction size.
-            int c2 = bValue.compareTo(aValue);
+            int c2 = Long.compare(other.value, value);
             if (c2 != 0) return c2;
             // They are entirely equivalent (possibly pending) so sort by hash to ensure a total ordering.
-            BigInteger aHash = a.getParentTransactionHash() != null ?
-                    a.getParentTransactionHash().toBigInteger() : BigInteger.ZERO;
-            BigInteger bHash = b.getParentTransactionHash() != null ?
-                    b.getParentTransactionHash().toBigInteger() : BigInteger.ZERO;
-            return aHash.compareTo(bHash);
-        });
-    }
+            int c3 = Long.compareUnsigned(hashPrefix, other.hashPrefix);
+            if (c3 != 0) return c3;
+            return compareHashes(hash, other.hash);
+        }
 
+        // Same ordering as comparing the hashes as positive big integers, a missing hash counts as zero
+        private static int compareHashes(@Nullable byte[] hash1, @Nullable byte[] hash2) {
+            byte[] a = hash1 != null ? hash1 : ZERO_HASH;
+            byte[] b = hash2 != null ? hash2 : ZERO_HASH;
+            for (int i = 0; i < a.length; i++) {
+                int c = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+                if (c != 0) return c;
+            }
+            return 0;
+        }
+    }
 }
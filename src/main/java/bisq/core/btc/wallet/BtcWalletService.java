@@ -22,6 +22,7 @@ import bisq.core.btc.AddressEntryException;
 import bisq.core.btc.AddressEntryList;
 import bisq.core.btc.InsufficientFundsException;
 import bisq.core.btc.Restrictions;
+import bisq.core.btc.exceptions.FeeEstimationException;
 import bisq.core.btc.exceptions.TransactionVerificationException;
 import bisq.core.btc.exceptions.WalletException;
 import bisq.core.provider.fee.FeeService;
@@ -33,6 +34,7 @@ import org.bitcoinj.core.Address;
 import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.InsufficientMoneyException;
+import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionConfidence;
 import org.bitcoinj.core.TransactionInput;
@@ -41,6 +43,7 @@ import org.bitcoinj.core.TransactionOutput;
 import org.bitcoinj.crypto.DeterministicKey;
 import org.bitcoinj.crypto.KeyCrypterScrypt;
 import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.CoinSelection;
 import org.bitcoinj.wallet.SendRequest;
 import org.bitcoinj.wallet.Wallet;
 
@@ -48,6 +51,7 @@ import javax.inject.Inject;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 
@@ -55,7 +59,9 @@ import org.spongycastle.crypto.params.KeyParameter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -756,7 +762,11 @@ public class BtcWalletService extends WalletService {
         try {
             Coin fee;
             int counter = 0;
-            int txSize = 0;
+            // We start with the estimated size so the first iteration usually already satisfies the fee requirement
+            int txSize = getEstimatedFeeTxSize(Sets.newHashSet(addressEntry.get().getAddress()),
+                    Address.fromBase58(params, toAddress),
+                    amount,
+                    addressEntry.get().getAddress());
             Transaction tx;
             Coin txFeeForWithdrawalPerByte = getTxFeeForWithdrawalPerByte();
             do {
@@ -768,7 +778,7 @@ public class BtcWalletService extends WalletService {
                 txSize = tx.bitcoinSerialize().length;
                 printTx("FeeEstimationTransaction", tx);
             }
-            while (feeEstimationNotSatisfied(counter, tx));
+            while (estimatedFeeNotSatisfied(counter, tx));
             if (counter == 10)
                 log.error("Could not calculate the fee. Tx=" + tx);
 
@@ -783,40 +793,30 @@ public class BtcWalletService extends WalletService {
     public Transaction getFeeEstimationTransactionForMultipleAddresses(Set<String> fromAddresses,
                                                                        Coin amount)
             throws AddressFormatException, AddressEntryException, InsufficientFundsException {
-        Set<AddressEntry> addressEntries = fromAddresses.stream()
-                .map(address -> {
-                    Optional<AddressEntry> addressEntryOptional = findAddressEntry(address, AddressEntry.Context.AVAILABLE);
-                    if (!addressEntryOptional.isPresent())
-                        addressEntryOptional = findAddressEntry(address, AddressEntry.Context.OFFER_FUNDING);
-                    if (!addressEntryOptional.isPresent())
-                        addressEntryOptional = findAddressEntry(address, AddressEntry.Context.TRADE_PAYOUT);
-                    if (!addressEntryOptional.isPresent())
-                        addressEntryOptional = findAddressEntry(address, AddressEntry.Context.ARBITRATOR);
-                    return addressEntryOptional;
-                })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
-        if (addressEntries.isEmpty())
-            throw new AddressEntryException("No Addresses for withdraw  found in our wallet");
+        Set<AddressEntry> addressEntries = getAddressEntriesForWithdrawal(fromAddresses);
 
         try {
+            // We use a dummy address for the output
+            AddressEntry dummyAddressEntry = getOrCreateAddressEntry(AddressEntry.Context.AVAILABLE);
             Coin fee;
             int counter = 0;
-            int txSize = 0;
+            // We start with the estimated size so the first iteration usually already satisfies the fee requirement
+            int txSize = getEstimatedFeeTxSize(walletsSetup.getAddressesFromAddressEntries(addressEntries),
+                    dummyAddressEntry.getAddress(),
+                    amount,
+                    addressEntries.iterator().next().getAddress());
             Transaction tx;
             Coin txFeeForWithdrawalPerByte = getTxFeeForWithdrawalPerByte();
             do {
                 counter++;
                 fee = txFeeForWithdrawalPerByte.multiply(txSize);
-                // We use a dummy address for the output
-                SendRequest sendRequest = getSendRequestForMultipleAddresses(fromAddresses, getOrCreateAddressEntry(AddressEntry.Context.AVAILABLE).getAddressString(), amount, fee, null, aesKey);
+                SendRequest sendRequest = getSendRequestForMultipleAddresses(fromAddresses, dummyAddressEntry.getAddressString(), amount, fee, null, aesKey);
                 wallet.completeTx(sendRequest);
                 tx = sendRequest.tx;
                 txSize = tx.bitcoinSerialize().length;
                 printTx("FeeEstimationTransactionForMultipleAddresses", tx);
             }
-            while (feeEstimationNotSatisfied(counter, tx));
+            while (estimatedFeeNotSatisfied(counter, tx));
             if (counter == 10)
                 log.error("Could not calculate the fee. Tx=" + tx);
 
@@ -828,6 +828,51 @@ public class BtcWalletService extends WalletService {
         }
     }
 
+    // The coin selection does not depend on the fee as the fee gets deducted from the amount, so one selection pass is
+    // enough to know the inputs and whether we get a change output.
+    private int getEstimatedFeeTxSize(Set<Address> fromAddresses, Address toAddress, Coin amount, Address changeAddress) {
+        try {
+            CoinSelection coinSelection = new BtcCoinSelector(fromAddresses).select(amount,
+                    wallet.calculateAllSpendCandidates(true, true));
+            List<Integer> inputSizes = coinSelection.gathered.stream()
+                    .map(output -> TxSizeEstimator.getEstimatedInputSize(output, wallet))
+                    .collect(Collectors.toList());
+            List<Integer> outputSizes = new ArrayList<>();
+            outputSizes.add(TxSizeEstimator.getEstimatedOutputSize(ScriptBuilder.createOutputScript(toAddress)));
+            if (coinSelection.valueGathered.compareTo(amount) > 0)
+                outputSizes.add(TxSizeEstimator.getEstimatedOutputSize(ScriptBuilder.createOutputScript(changeAddress)));
+            return TxSizeEstimator.getEstimatedTxSize(inputSizes, outputSizes);
+        } catch (IllegalArgumentException e) {
+            log.warn("Could not estimate tx size, we fall back to iterative fee calculation. " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Fee preview for {@link #sendFundsToMultipleReceivers}. The receivers get the exact amounts and the fee is paid
+     * on top from the inputs. No tx gets created or signed, the fee is derived from the estimated tx size.
+     */
+    public Coin getFeeEstimationForMultipleReceivers(Set<String> fromAddresses,
+                                                     Map<String, Coin> receivers,
+                                                     @Nullable String changeAddress)
+            throws AddressFormatException, AddressEntryException, InsufficientFundsException, FeeEstimationException {
+        checkArgument(!receivers.isEmpty(), "receivers must not be empty");
+        Set<AddressEntry> addressEntries = getAddressEntriesForWithdrawal(fromAddresses);
+        Set<Address> addresses = walletsSetup.getAddressesFromAddressEntries(addressEntries);
+        Address change = getChangeAddressForWithdrawal(addressEntries, changeAddress);
+
+        Map<Address, Coin> receiverAmounts = new LinkedHashMap<>();
+        for (Map.Entry<String, Coin> entry : receivers.entrySet())
+            receiverAmounts.put(Address.fromBase58(params, entry.getKey()), entry.getValue());
+
+        return MultipleReceiversFeeCalculator.calculateFee(receiverAmounts,
+                change,
+                new BtcCoinSelector(addresses),
+                wallet.calculateAllSpendCandidates(true, true),
+                wallet,
+                getTxFeeForWithdrawalPerByte());
+    }
+
     private boolean feeEstimationNotSatisfied(int counter, Transaction tx) {
         long targetFee = getTxFeeForWithdrawalPerByte().multiply(tx.bitcoinSerialize().length).value;
         return counter < 10 &&
@@ -835,6 +880,19 @@ public class BtcWalletService extends WalletService {
                         tx.getFee().value - targetFee > 1000);
     }
 
+    // The fee from the estimated size is a bit too high as the estimation assumes signatures of max. size. We accept
+    // that overpayment as otherwise a tx with many inputs would exceed the tolerance and need another signing pass.
+    // Our withdrawal inputs are P2PKH, so we have one signature per input.
+    private boolean estimatedFeeNotSatisfied(int counter, Transaction tx) {
+        Coin txFeeForWithdrawalPerByte = getTxFeeForWithdrawalPerByte();
+        long targetFee = txFeeForWithdrawalPerByte.multiply(tx.bitcoinSerialize().length).value;
+        long tolerance = Math.max(1000, txFeeForWithdrawalPerByte.multiply(
+                (long) TxSizeEstimator.MAX_OVERESTIMATION_PER_SIGNATURE * tx.getInputs().size()).value);
+        return counter < 10 &&
+                (tx.getFee().value < targetFee ||
+                        tx.getFee().value - targetFee > tolerance);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Withdrawal Send
@@ -873,6 +931,25 @@ public class BtcWalletService extends WalletService {
         return sendResult.tx.getHashAsString();
     }
 
+    /**
+     * Pays out to all receivers with one tx. The receivers get the exact amounts, the fee is paid on top from the
+     * inputs. Use {@link #getFeeEstimationForMultipleReceivers} for the fee.
+     */
+    public String sendFundsToMultipleReceivers(Set<String> fromAddresses,
+                                               Map<String, Coin> receivers,
+                                               Coin fee,
+                                               @Nullable String changeAddress,
+                                               @Nullable KeyParameter aesKey,
+                                               FutureCallback<Transaction> callback) throws AddressFormatException,
+            AddressEntryException, InsufficientMoneyException {
+        SendRequest request = getSendRequestForMultipleReceivers(fromAddresses, receivers, fee, changeAddress, aesKey);
+        Wallet.SendResult sendResult = wallet.sendCoins(request);
+        Futures.addCallback(sendResult.broadcastComplete, callback);
+
+        printTx("sendFundsToMultipleReceivers", sendResult.tx);
+        return sendResult.tx.getHashAsString();
+    }
+
     private SendRequest getSendRequest(String fromAddress,
                                        String toAddress,
                                        Coin amount,
@@ -925,6 +1002,43 @@ public class BtcWalletService extends WalletService {
         sendRequest.ensureMinRequiredFee = false;
         sendRequest.aesKey = aesKey;
         sendRequest.shuffleOutputs = false;
+        Set<AddressEntry> addressEntries = getAddressEntriesForWithdrawal(fromAddresses);
+        sendRequest.coinSelector = new BtcCoinSelector(walletsSetup.getAddressesFromAddressEntries(addressEntries));
+        sendRequest.changeAddress = getChangeAddressForWithdrawal(addressEntries, changeAddress);
+        return sendRequest;
+    }
+
+    private SendRequest getSendRequestForMultipleReceivers(Set<String> fromAddresses,
+                                                           Map<String, Coin> receivers,
+                                                           Coin fee,
+                                                           @Nullable String changeAddress,
+                                                           @Nullable KeyParameter aesKey) throws
+            AddressFormatException, AddressEntryException {
+        SendRequest sendRequest = SendRequest.forTx(getMultipleReceiversTx(params, receivers));
+        sendRequest.fee = fee;
+        sendRequest.feePerKb = Coin.ZERO;
+        sendRequest.ensureMinRequiredFee = false;
+        sendRequest.aesKey = aesKey;
+        sendRequest.shuffleOutputs = false;
+        Set<AddressEntry> addressEntries = getAddressEntriesForWithdrawal(fromAddresses);
+        sendRequest.coinSelector = new BtcCoinSelector(walletsSetup.getAddressesFromAddressEntries(addressEntries));
+        sendRequest.changeAddress = getChangeAddressForWithdrawal(addressEntries, changeAddress);
+        return sendRequest;
+    }
+
+    // The receivers get the exact amounts, the fee and the change are added by the wallet when completing the tx
+    static Transaction getMultipleReceiversTx(NetworkParameters params, Map<String, Coin> receivers)
+            throws AddressFormatException {
+        checkArgument(!receivers.isEmpty(), "receivers must not be empty");
+        Transaction tx = new Transaction(params);
+        receivers.forEach((address, amount) -> {
+            checkArgument(Restrictions.isAboveDust(amount), "The amount is too low (dust limit).");
+            tx.addOutput(amount, Address.fromBase58(params, address));
+        });
+        return tx;
+    }
+
+    private Set<AddressEntry> getAddressEntriesForWithdrawal(Set<String> fromAddresses) throws AddressEntryException {
         Set<AddressEntry> addressEntries = fromAddresses.stream()
                 .map(address -> {
                     Optional<AddressEntry> addressEntryOptional = findAddressEntry(address, AddressEntry.Context.AVAILABLE);
@@ -941,8 +1055,10 @@ public class BtcWalletService extends WalletService {
                 .collect(Collectors.toSet());
         if (addressEntries.isEmpty())
             throw new AddressEntryException("No Addresses for withdraw found in our wallet");
+        return addressEntries;
+    }
 
-        sendRequest.coinSelector = new BtcCoinSelector(walletsSetup.getAddressesFromAddressEntries(addressEntries));
+    private Address getChangeAddressForWithdrawal(Set<AddressEntry> addressEntries, @Nullable String changeAddress) {
         Optional<AddressEntry> addressEntryOptional = Optional.<AddressEntry>empty();
         AddressEntry changeAddressAddressEntry = null;
         if (changeAddress != null)
@@ -956,7 +1072,6 @@ public class BtcWalletService extends WalletService {
                 changeAddressAddressEntry = list.get(0);
         }
         checkNotNull(changeAddressAddressEntry, "change address must not be null");
-        sendRequest.changeAddress = changeAddressAddressEntry.getAddress();
-        return sendRequest;
+        return changeAddressAddressEntry.getAddress();
     }
 }
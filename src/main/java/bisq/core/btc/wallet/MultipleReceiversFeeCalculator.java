@@ -0,0 +1,98 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import bisq.core.btc.InsufficientFundsException;
+import bisq.core.btc.exceptions.FeeEstimationException;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.CoinSelection;
+import org.bitcoinj.wallet.CoinSelector;
+import org.bitcoinj.wallet.KeyBag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Calculates the fee of a tx which pays exact amounts to several receivers and takes the fee on top from the inputs.
+ * The fee is part of the coin selection target and the selected inputs determine the fee, so we repeat the selection
+ * until the fee covers the estimated size of the tx. That usually takes 1 or 2 passes. No tx gets created or signed.
+ */
+final class MultipleReceiversFeeCalculator {
+    static final int MAX_ITERATIONS = 10;
+
+    private MultipleReceiversFeeCalculator() {
+    }
+
+    /**
+     * @param keyBag Used to look up the redeem scripts of P2SH inputs.
+     * @return The smallest fee found which covers the estimated size of the tx with the selected inputs.
+     * @throws InsufficientFundsException If the candidates cannot cover the amounts and the fee.
+     * @throws FeeEstimationException     If the size of an input cannot be estimated or the fee does not converge.
+     */
+    static Coin calculateFee(Map<Address, Coin> receivers,
+                             Address changeAddress,
+                             CoinSelector coinSelector,
+                             List<TransactionOutput> candidates,
+                             @Nullable KeyBag keyBag,
+                             Coin txFeePerByte) throws InsufficientFundsException, FeeEstimationException {
+        Coin receiverAmount = Coin.ZERO;
+        List<Integer> outputSizes = new ArrayList<>();
+        for (Map.Entry<Address, Coin> entry : receivers.entrySet()) {
+            receiverAmount = receiverAmount.add(entry.getValue());
+            outputSizes.add(TxSizeEstimator.getEstimatedOutputSize(ScriptBuilder.createOutputScript(entry.getKey())));
+        }
+        int changeOutputSize = TxSizeEstimator.getEstimatedOutputSize(ScriptBuilder.createOutputScript(changeAddress));
+
+        Coin fee = Coin.ZERO;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            Coin target = receiverAmount.add(fee);
+            CoinSelection coinSelection = coinSelector.select(target, candidates);
+            if (coinSelection.valueGathered.compareTo(target) < 0)
+                throw new InsufficientFundsException("The fees for that transaction exceed the available funds.\n" +
+                        "Missing " + target.subtract(coinSelection.valueGathered).toFriendlyString());
+
+            List<Integer> inputSizes = new ArrayList<>();
+            for (TransactionOutput output : coinSelection.gathered) {
+                try {
+                    inputSizes.add(TxSizeEstimator.getEstimatedInputSize(output, keyBag));
+                } catch (IllegalArgumentException e) {
+                    throw new FeeEstimationException("Could not estimate the tx size. " + e.getMessage(), e);
+                }
+            }
+            Coin requiredFee = txFeePerByte.multiply(TxSizeEstimator.getEstimatedTxSize(inputSizes, outputSizes));
+            // We only get a change output if something is left after paying the receivers and the fee
+            if (coinSelection.valueGathered.subtract(receiverAmount).compareTo(requiredFee) > 0) {
+                List<Integer> outputSizesWithChange = new ArrayList<>(outputSizes);
+                outputSizesWithChange.add(changeOutputSize);
+                requiredFee = txFeePerByte.multiply(TxSizeEstimator.getEstimatedTxSize(inputSizes, outputSizesWithChange));
+            }
+            if (requiredFee.compareTo(fee) <= 0)
+                return fee;
+            fee = requiredFee;
+        }
+        throw new FeeEstimationException("The fee did not converge after " + MAX_ITERATIONS + " coin selections. " +
+                "Last fee=" + fee.toFriendlyString());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the durations of the phases of the wallet startup. Phases can run on different threads, the durations are
+ * kept in the order the phases have completed. The results can be read with getPhaseDurations, e.g. for exporting
+ * them as metrics.
+ */
+@Slf4j
+public class StartupTimeline {
+    public static final String TIME_TO_READY = "timeToReady";
+
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, Long> phaseDurations = new LinkedHashMap<>();
+
+    public <T> T measure(String phase, Callable<T> task) throws Exception {
+        long ts = System.currentTimeMillis();
+        try {
+            return task.call();
+        } finally {
+            add(phase, System.currentTimeMillis() - ts);
+        }
+    }
+
+    public void measure(String phase, Runnable task) {
+        long ts = System.currentTimeMillis();
+        try {
+            task.run();
+        } finally {
+            add(phase, System.currentTimeMillis() - ts);
+        }
+    }
+
+    public synchronized void add(String phase, long duration) {
+        log.debug("Startup phase {} took {} ms", phase, duration);
+        phaseDurations.put(phase, duration);
+    }
+
+    // Records the time since the timeline was created
+    public void onReady() {
+        add(TIME_TO_READY, System.currentTimeMillis() - startTime);
+        log.info("Wallet startup timeline: {}", this);
+    }
+
+    public synchronized Map<String, Long> getPhaseDurations() {
+        return new LinkedHashMap<>(phaseDurations);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        phaseDurations.forEach((phase, duration) -> sb.append(sb.length() > 0 ? ", " : "")
+                .append(phase).append("=").append(duration).append(" ms"));
+        return sb.toString();
+    }
+}
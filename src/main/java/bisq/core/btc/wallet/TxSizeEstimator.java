@@ -0,0 +1,138 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.KeyBag;
+import org.bitcoinj.wallet.RedeemData;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+/**
+ * Estimates the serialized size of a transaction from the script types of the connected outputs of its inputs and
+ * from its outputs without the need to sign it.
+ * <p/>
+ * We assume signatures of max. size (low-S DER encoded plus sighash flag) and compressed pub keys, so the result is
+ * an upper bound which is usually only 1 or 2 bytes per signature above the real size.
+ */
+public class TxSizeEstimator {
+    // DER encoded low-S signature (max. 71 bytes) plus the sighash flag
+    public static final int MAX_SIG_SIZE = 72;
+    public static final int COMPRESSED_PUB_KEY_SIZE = 33;
+    // Most signatures are 71 or 72 bytes, only a few are shorter
+    public static final int MAX_OVERESTIMATION_PER_SIGNATURE = 4;
+
+    // version (4) + lock time (4)
+    private static final int TX_OVERHEAD = 8;
+    // outpoint hash (32) + outpoint index (4) + sequence number (4)
+    private static final int INPUT_OVERHEAD = 40;
+    // value (8)
+    private static final int OUTPUT_OVERHEAD = 8;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Tx
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static int getEstimatedTxSize(Collection<Integer> inputSizes, Collection<Integer> outputSizes) {
+        return TX_OVERHEAD +
+                VarInt.sizeOf(inputSizes.size()) +
+                inputSizes.stream().mapToInt(Integer::intValue).sum() +
+                VarInt.sizeOf(outputSizes.size()) +
+                outputSizes.stream().mapToInt(Integer::intValue).sum();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Inputs
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param connectedOutput The output which gets spent by the input.
+     * @param keyBag          Used to look up the redeem script in case of a P2SH output. Can be null if the output is
+     *                        not P2SH.
+     */
+    public static int getEstimatedInputSize(TransactionOutput connectedOutput, @Nullable KeyBag keyBag) {
+        Script scriptPubKey = connectedOutput.getScriptPubKey();
+        Script redeemScript = null;
+        if (scriptPubKey.isPayToScriptHash() && keyBag != null) {
+            RedeemData redeemData = keyBag.findRedeemDataFromScriptHash(scriptPubKey.getPubKeyHash());
+            if (redeemData != null)
+                redeemScript = redeemData.redeemScript;
+        }
+        return getEstimatedInputSize(scriptPubKey, redeemScript);
+    }
+
+    public static int getEstimatedInputSize(Script scriptPubKey, @Nullable Script redeemScript) {
+        int scriptSigSize = getEstimatedScriptSigSize(scriptPubKey, redeemScript);
+        return INPUT_OVERHEAD + VarInt.sizeOf(scriptSigSize) + scriptSigSize;
+    }
+
+    private static int getEstimatedScriptSigSize(Script scriptPubKey, @Nullable Script redeemScript) {
+        if (scriptPubKey.isSentToAddress()) {
+            // <sig> <pubKey>
+            return getPushDataSize(MAX_SIG_SIZE) + getPushDataSize(COMPRESSED_PUB_KEY_SIZE);
+        } else if (scriptPubKey.isSentToRawPubKey()) {
+            // <sig>
+            return getPushDataSize(MAX_SIG_SIZE);
+        } else if (scriptPubKey.isSentToMultiSig()) {
+            // OP_0 <sig1> ... <sigM>
+            return 1 + scriptPubKey.getNumberOfSignaturesRequiredToSpend() * getPushDataSize(MAX_SIG_SIZE);
+        } else if (scriptPubKey.isPayToScriptHash()) {
+            if (redeemScript == null)
+                throw new IllegalArgumentException("Redeem script is required for estimating the size of a P2SH input.");
+            if (redeemScript.isPayToScriptHash())
+                throw new IllegalArgumentException("Nested P2SH redeem scripts are not supported.");
+            // <scriptSig for the redeem script> <serialized redeem script>
+            return getEstimatedScriptSigSize(redeemScript, null) + getPushDataSize(redeemScript.getProgram().length);
+        } else {
+            throw new IllegalArgumentException("Unsupported script type for size estimation: " + scriptPubKey);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Outputs
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static int getEstimatedOutputSize(Script scriptPubKey) {
+        int scriptSize = scriptPubKey.getProgram().length;
+        return OUTPUT_OVERHEAD + VarInt.sizeOf(scriptSize) + scriptSize;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Size of the push opcode(s) plus the data
+    private static int getPushDataSize(int dataSize) {
+        if (dataSize < 76)
+            return 1 + dataSize;
+        else if (dataSize <= 0xff)
+            return 2 + dataSize;
+        else if (dataSize <= 0xffff)
+            return 3 + dataSize;
+        else
+            return 5 + dataSize;
+    }
+}
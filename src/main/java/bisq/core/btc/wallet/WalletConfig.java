@@ -21,6 +21,7 @@ import bisq.core.app.BisqEnvironment;
 import bisq.core.btc.ProxySocketFactory;
 
 import bisq.common.app.Version;
+import bisq.common.util.Utilities;
 
 import org.bitcoinj.core.BlockChain;
 import org.bitcoinj.core.CheckpointManager;
@@ -28,6 +29,7 @@ import org.bitcoinj.core.Context;
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.core.PeerAddress;
 import org.bitcoinj.core.PeerGroup;
+import org.bitcoinj.core.StoredBlock;
 import org.bitcoinj.core.Utils;
 import org.bitcoinj.core.listeners.DownloadProgressTracker;
 import org.bitcoinj.core.listeners.PeerDataEventListener;
@@ -50,10 +52,13 @@ import org.bitcoinj.wallet.WalletProtobufSerializer;
 
 import com.runjva.sourceforge.jsocks.protocol.Socks5Proxy;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -62,6 +67,7 @@ import java.net.UnknownHostException;
 
 import java.nio.channels.FileLock;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -69,6 +75,7 @@ import java.io.InputStream;
 import java.io.RandomAccessFile;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import lombok.Getter;
@@ -140,6 +147,8 @@ public class WalletConfig extends AbstractIdleService {
 
     @Nullable
     private PeerDiscovery discovery;
+    @Getter
+    private final StartupTimeline startupTimeline = new StartupTimeline();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -372,37 +381,75 @@ public class WalletConfig extends AbstractIdleService {
             }
         }
         log.info("Wallet directory: {}", directory);
+        // Loading the wallet files, opening the block store and parsing the checkpoints do not depend on each other,
+        // so we run them in parallel. Only creating a new BSQ wallet and applying the checkpoint need the BTC wallet.
+        ListeningExecutorService executor = Utilities.getListeningExecutorService("WalletConfig.startUp", 3, 3, 60);
+        ListenableFuture<BlockStore> blockStoreFuture = null;
+        boolean blockStoreTaken = false;
+        boolean setupCompleted = false;
         try {
             File chainFile = new File(directory, spvChainFileName);
             boolean chainFileExists = chainFile.exists();
+            boolean useCheckpoints = checkpoints != null && (!chainFileExists || seed != null);
+
+            blockStoreFuture = executor.submit(() ->
+                    startupTimeline.measure("openBlockStore", () -> provideBlockStore(chainFile)));
+
+            ListenableFuture<CheckpointManager> checkpointManagerFuture = null;
+            if (useCheckpoints) {
+                InputStream checkpointsStream = checkpoints;
+                checkpointManagerFuture = executor.submit(() ->
+                        startupTimeline.measure("loadCheckpoints", () ->
+                                new CheckpointManager(params, new BufferedInputStream(checkpointsStream))));
+            }
 
             // BTC wallet
             vBtcWalletFile = new File(directory, btcWalletFileName);
             boolean shouldReplayWallet = (vBtcWalletFile.exists() && !chainFileExists) || seed != null;
-            BisqKeyChainGroup keyChainGroup;
-            if (seed != null)
-                keyChainGroup = new BisqKeyChainGroup(params, new BtcDeterministicKeyChain(seed), true);
-            else
-                keyChainGroup = new BisqKeyChainGroup(params, true);
-            vBtcWallet = createOrLoadWallet(vBtcWalletFile, shouldReplayWallet, keyChainGroup, false, seed);
 
-            vBtcWallet.allowSpendingUnconfirmedTransactions();
+            // An existing BSQ wallet can be loaded in parallel. At a restore or at first startup we need the seed of
+            // the BTC wallet for creating it.
+            ListenableFuture<Wallet> bsqWalletFuture = null;
+            if (BisqEnvironment.isBaseCurrencySupportingBsq()) {
+                vBsqWalletFile = new File(directory, bsqWalletFileName);
+                if (seed == null && vBsqWalletFile.exists()) {
+                    File bsqWalletFile = vBsqWalletFile;
+                    bsqWalletFuture = executor.submit(() -> {
+                        Context.propagate(context);
+                        return startupTimeline.measure("loadBsqWallet", () ->
+                                createOrLoadWallet(bsqWalletFile, shouldReplayWallet, null, true, null));
+                    });
+                }
+            }
 
+            BisqKeyChainGroup btcKeyChainGroup;
             if (seed != null)
-                keyChainGroup = new BisqKeyChainGroup(params, new BisqDeterministicKeyChain(seed), false);
+                btcKeyChainGroup = new BisqKeyChainGroup(params, new BtcDeterministicKeyChain(seed), true);
             else
-                keyChainGroup = new BisqKeyChainGroup(params, new BisqDeterministicKeyChain(vBtcWallet.getKeyChainSeed()), false);
+                btcKeyChainGroup = new BisqKeyChainGroup(params, true);
+            vBtcWallet = startupTimeline.measure("loadBtcWallet", () ->
+                    createOrLoadWallet(vBtcWalletFile, shouldReplayWallet, btcKeyChainGroup, false, seed));
+
+            vBtcWallet.allowSpendingUnconfirmedTransactions();
 
             // BSQ wallet
-            if (BisqEnvironment.isBaseCurrencySupportingBsq()) {
-                vBsqWalletFile = new File(directory, bsqWalletFileName);
-                vBsqWallet = createOrLoadWallet(vBsqWalletFile, shouldReplayWallet, keyChainGroup, true, seed);
+            if (bsqWalletFuture != null) {
+                vBsqWallet = bsqWalletFuture.get();
+            } else if (BisqEnvironment.isBaseCurrencySupportingBsq()) {
+                BisqKeyChainGroup bsqKeyChainGroup;
+                if (seed != null)
+                    bsqKeyChainGroup = new BisqKeyChainGroup(params, new BisqDeterministicKeyChain(seed), false);
+                else
+                    bsqKeyChainGroup = new BisqKeyChainGroup(params, new BisqDeterministicKeyChain(vBtcWallet.getKeyChainSeed()), false);
+                vBsqWallet = startupTimeline.measure("createBsqWallet", () ->
+                        createOrLoadWallet(vBsqWalletFile, shouldReplayWallet, bsqKeyChainGroup, true, seed));
             }
 
             // Initiate Bitcoin network objects (block store, blockchain and peer group)
-            vStore = provideBlockStore(chainFile);
+            vStore = blockStoreFuture.get();
+            blockStoreTaken = true;
             if (!chainFileExists || seed != null) {
-                if (checkpoints != null) {
+                if (checkpointManagerFuture != null) {
                     // Initialize the chain file with a checkpoint to speed up first-run sync.
                     long time;
 
@@ -412,6 +459,7 @@ public class WalletConfig extends AbstractIdleService {
                         if (chainFileExists) {
                             log.info("Deleting the chain file in preparation from restore.");
                             vStore.close();
+                            vStore = null;
                             if (!chainFile.delete())
                                 throw new IOException("Failed to delete chain file in preparation for restore.");
                             vStore = new SPVBlockStore(params, chainFile);
@@ -422,19 +470,20 @@ public class WalletConfig extends AbstractIdleService {
 
 
                     if (time > 0)
-                        CheckpointManager.checkpoint(params, checkpoints, vStore, time);
+                        applyCheckpoint(checkpointManagerFuture.get(), time);
                     else
                         log.warn("Creating a new uncheckpointed block store due to a wallet with a creation time of zero: this will result in a very slow chain sync");
                 } else if (chainFileExists) {
                     log.info("Deleting the chain file in preparation from restore.");
                     vStore.close();
+                    vStore = null;
                     if (!chainFile.delete())
                         throw new IOException("Failed to delete chain file in preparation for restore.");
                     vStore = new SPVBlockStore(params, chainFile);
                 }
             }
             vChain = new BlockChain(params, vStore);
-            vPeerGroup = createPeerGroup();
+            vPeerGroup = startupTimeline.measure("createPeerGroup", this::createPeerGroup);
 
             vPeerGroup.setBroadcastToAllPeers(true);
             if (minBroadcastConnections > 0)
@@ -463,6 +512,7 @@ public class WalletConfig extends AbstractIdleService {
             }
 
             onSetupCompleted();
+            setupCompleted = true;
 
             if (blockingStartup) {
                 vPeerGroup.start();
@@ -490,9 +540,72 @@ public class WalletConfig extends AbstractIdleService {
             }
         } catch (BlockStoreException e) {
             throw new IOException(e);
+        } catch (ExecutionException e) {
+            // Unwrap failures of the tasks we have run in parallel
+            Throwable cause = e.getCause();
+            if (cause instanceof BlockStoreException)
+                throw new IOException(cause);
+            else if (cause instanceof Exception)
+                throw (Exception) cause;
+            else
+                throw e;
+        } finally {
+            executor.shutdown();
+            // Otherwise the file lock of the block store would stay and the next startup would fail
+            if (!setupCompleted)
+                closeBlockStoreAfterFailure(blockStoreFuture, blockStoreTaken);
         }
     }
 
+    private void closeBlockStoreAfterFailure(@Nullable ListenableFuture<BlockStore> blockStoreFuture,
+                                             boolean blockStoreTaken) {
+        BlockStore store = vStore;
+        vStore = null;
+        if (blockStoreTaken) {
+            // The store from the future or the one which replaced it at a restore
+            if (store != null)
+                closeBlockStore(store);
+        } else if (blockStoreFuture != null) {
+            closeBlockStoreWhenOpened(blockStoreFuture);
+        }
+    }
+
+    // The block store is opened in parallel, so it might still get opened after the startup has failed
+    @VisibleForTesting
+    static void closeBlockStoreWhenOpened(ListenableFuture<BlockStore> blockStoreFuture) {
+        Futures.addCallback(blockStoreFuture, new FutureCallback<BlockStore>() {
+            @Override
+            public void onSuccess(BlockStore blockStore) {
+                closeBlockStore(blockStore);
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable t) {
+                // Nothing got opened
+            }
+        });
+    }
+
+    private static void closeBlockStore(BlockStore blockStore) {
+        try {
+            blockStore.close();
+            log.info("Closed block store after failed startup");
+        } catch (Throwable t) {
+            log.error("Could not close block store after failed startup. " + t.toString());
+        }
+    }
+
+    // Same as CheckpointManager.checkpoint but with the checkpoints already parsed
+    private void applyCheckpoint(CheckpointManager checkpointManager, long time) throws BlockStoreException {
+        // We go back a week to be safe against clock drift and to be sure the checkpoint is before the key creation
+        time -= 60 * 60 * 24 * 7;
+        checkArgument(time > 0);
+        log.info("Attempting to initialize a new block store with a checkpoint for time {} ({})", time, Utils.dateTimeFormat(time * 1000));
+        StoredBlock checkpoint = checkpointManager.getCheckpointBefore(time);
+        vStore.put(checkpoint);
+        vStore.setChainHead(checkpoint);
+    }
+
     void setPeerNodesForLocalHost() {
         try {
             setPeerNodes(new PeerAddress(InetAddress.getLocalHost(), params.getPort()));
@@ -504,8 +617,10 @@ public class WalletConfig extends AbstractIdleService {
         }
     }
 
+    // keyChainGroup is only used for creating a new wallet and can be null if the wallet file exists
     private Wallet createOrLoadWallet(File walletFile, boolean shouldReplayWallet,
-                                      BisqKeyChainGroup keyChainGroup, boolean isBsqWallet, DeterministicSeed restoreFromSeed)
+                                      @Nullable BisqKeyChainGroup keyChainGroup, boolean isBsqWallet,
+                                      @Nullable DeterministicSeed restoreFromSeed)
             throws Exception {
 
         if (restoreFromSeed != null)
@@ -513,8 +628,10 @@ public class WalletConfig extends AbstractIdleService {
 
         Wallet wallet;
         if (walletFile.exists()) {
-            wallet = loadWallet(walletFile, shouldReplayWallet, keyChainGroup.isUseBitcoinDeterministicKeyChain());
+            // The BTC wallet uses the bitcoin deterministic key chain, the BSQ wallet our own one
+            wallet = loadWallet(walletFile, shouldReplayWallet, !isBsqWallet);
         } else {
+            checkNotNull(keyChainGroup, "keyChainGroup must not be null if we create a new wallet");
             wallet = createWallet(keyChainGroup, isBsqWallet);
             wallet.freshReceiveKey();
             wallet.saveToFile(walletFile);
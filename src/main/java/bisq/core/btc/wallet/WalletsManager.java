@@ -18,6 +18,7 @@
 package bisq.core.btc.wallet;
 
 import bisq.core.app.BisqEnvironment;
+import bisq.core.crypto.KeyDerivationService;
 import bisq.core.crypto.ScryptUtil;
 import bisq.core.locale.Res;
 
@@ -47,17 +48,23 @@ public class WalletsManager {
     private final TradeWalletService tradeWalletService;
     private final BsqWalletService bsqWalletService;
     private final WalletsSetup walletsSetup;
+    private final KeyDerivationService keyDerivationService;
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public WalletsManager(BtcWalletService btcWalletService, TradeWalletService tradeWalletService, BsqWalletService bsqWalletService, WalletsSetup walletsSetup) {
+    public WalletsManager(BtcWalletService btcWalletService,
+                          TradeWalletService tradeWalletService,
+                          BsqWalletService bsqWalletService,
+                          WalletsSetup walletsSetup,
+                          KeyDerivationService keyDerivationService) {
         this.btcWalletService = btcWalletService;
         this.tradeWalletService = tradeWalletService;
         this.bsqWalletService = bsqWalletService;
         this.walletsSetup = walletsSetup;
+        this.keyDerivationService = keyDerivationService;
     }
 
     public void decryptWallets(KeyParameter aesKey) {
@@ -116,7 +123,12 @@ public class WalletsManager {
         if (areWalletsEncrypted() && btcWalletService.getKeyCrypter() != null)
             return (KeyCrypterScrypt) btcWalletService.getKeyCrypter();
         else
-            return ScryptUtil.getKeyCrypterScrypt();
+            return keyDerivationService.getKeyCrypterScrypt();
+    }
+
+    // Must be called from the user thread. The result of a derivation which got superseded by a newer one is discarded.
+    public void deriveKey(KeyCrypterScrypt keyCrypterScrypt, String password, ScryptUtil.DeriveKeyResultHandler resultHandler) {
+        keyDerivationService.deriveKey(keyCrypterScrypt, password, resultHandler);
     }
 
     public boolean checkAESKey(KeyParameter aesKey) {
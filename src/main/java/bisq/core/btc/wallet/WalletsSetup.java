@@ -24,6 +24,7 @@ import bisq.core.btc.BitcoinNodes;
 import bisq.core.btc.BitcoinNodes.BtcNode;
 import bisq.core.btc.BtcOptionKeys;
 import bisq.core.btc.RegTestHost;
+import bisq.core.crypto.KeyDerivationService;
 import bisq.core.user.Preferences;
 
 import bisq.network.Socks5MultiDiscovery;
@@ -82,7 +83,9 @@ import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -114,6 +117,7 @@ public class WalletsSetup {
     private final Socks5ProxyProvider socks5ProxyProvider;
     private final BisqEnvironment bisqEnvironment;
     private final BitcoinNodes bitcoinNodes;
+    private final KeyDerivationService keyDerivationService;
     private final String btcWalletFileName;
     private final int numConnectionForBtc;
     private final String userAgent;
@@ -139,6 +143,7 @@ public class WalletsSetup {
                         Socks5ProxyProvider socks5ProxyProvider,
                         BisqEnvironment bisqEnvironment,
                         BitcoinNodes bitcoinNodes,
+                        KeyDerivationService keyDerivationService,
                         @Named(BtcOptionKeys.USER_AGENT) String userAgent,
                         @Named(BtcOptionKeys.WALLET_DIR) File appDir,
                         @Named(BtcOptionKeys.USE_ALL_PROVIDED_NODES) String useAllProvidedNodes,
@@ -150,6 +155,7 @@ public class WalletsSetup {
         this.socks5ProxyProvider = socks5ProxyProvider;
         this.bisqEnvironment = bisqEnvironment;
         this.bitcoinNodes = bitcoinNodes;
+        this.keyDerivationService = keyDerivationService;
         this.numConnectionForBtc = numConnectionForBtc != null ? Integer.parseInt(numConnectionForBtc) : DEFAULT_CONNECTIONS;
         this.useAllProvidedNodes = "true".equals(useAllProvidedNodes);
         this.userAgent = userAgent;
@@ -218,10 +224,12 @@ public class WalletsSetup {
                 });
 
                 // Map to user thread
+                StartupTimeline startupTimeline = walletConfig.getStartupTimeline();
                 UserThread.execute(() -> {
-                    addressEntryList.onWalletReady(walletConfig.getBtcWallet());
+                    startupTimeline.measure("addressEntryList", () -> addressEntryList.onWalletReady(walletConfig.getBtcWallet()));
                     timeoutTimer.stop();
-                    setupCompletedHandlers.stream().forEach(Runnable::run);
+                    startupTimeline.measure("setupCompletedHandlers", () -> setupCompletedHandlers.stream().forEach(Runnable::run));
+                    startupTimeline.onReady();
                 });
 
                 // onSetupCompleted in walletAppKit is not the called on the last invocations, so we add a bit of delay
@@ -266,6 +274,7 @@ public class WalletsSetup {
     }
 
     public void shutDown() {
+        keyDerivationService.shutDown();
         if (walletConfig != null) {
             try {
                 walletConfig.stopAsync();
@@ -419,6 +428,11 @@ public class WalletsSetup {
         return walletConfig;
     }
 
+    // Durations of the startup phases in ms, e.g. for exporting as metrics. Empty if the wallets are not initialized.
+    public Map<String, Long> getStartupPhaseDurations() {
+        return walletConfig != null ? walletConfig.getStartupTimeline().getPhaseDurations() : new HashMap<>();
+    }
+
     public ReadOnlyIntegerProperty numPeersProperty() {
         return numPeers;
     }
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.crypto;
+
+import bisq.core.btc.BtcOptionKeys;
+
+import bisq.common.UserThread;
+import bisq.common.util.Utilities;
+
+import org.bitcoinj.crypto.KeyCrypterScrypt;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import org.spongycastle.crypto.params.KeyParameter;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * Derives the AES key from the wallet password with scrypt. All derivations run on one background thread and the
+ * results are mapped back to the user thread. If a newer derivation gets requested, a pending one which has not
+ * started yet is dropped and the result of a running one is discarded. A running scrypt derivation cannot be
+ * interrupted, so it still completes on the background thread.
+ * <p/>
+ * If the scryptTargetDuration option is set we measure the derivation time at startup on a separate thread, so an
+ * unlock does not wait for it. The highest cost parameter N which stays within that duration is used for newly
+ * encrypted wallets. Already encrypted wallets keep the parameters they have been encrypted with.
+ */
+@Slf4j
+public class KeyDerivationService {
+    public static final int DEFAULT_N = 32768;
+    public static final int DEFAULT_R = 8;
+    public static final int DEFAULT_P = 6;
+
+    // Lower bound is the scrypt recommendation for interactive logins, upper bound limits memory usage to 128 MB
+    static final int MIN_N = 16384;
+    static final int MAX_N = 131072;
+
+    interface Benchmark {
+        long run(int n, int r, int p);
+    }
+
+    private final ListeningExecutorService executor = Utilities.getListeningSingleThreadExecutor("KeyDerivationService");
+    private final Executor userThreadExecutor;
+    private final long targetDuration;
+    @Nullable
+    private final ListeningExecutorService calibrationExecutor;
+    // Completes with the cost parameter N for new wallets
+    @Nullable
+    private final ListenableFuture<Integer> calibration;
+    @Nullable
+    private volatile ListenableFuture<KeyParameter> pendingDerivation;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public KeyDerivationService(@Named(BtcOptionKeys.SCRYPT_TARGET_DURATION) int targetDuration) {
+        this(targetDuration, KeyDerivationService::benchmark, UserThread::execute);
+    }
+
+    KeyDerivationService(long targetDuration, Benchmark benchmark, Executor userThreadExecutor) {
+        this.targetDuration = targetDuration;
+        this.userThreadExecutor = userThreadExecutor;
+        if (targetDuration > 0) {
+            calibrationExecutor = Utilities.getListeningSingleThreadExecutor("KeyDerivationService.calibration");
+            calibration = calibrationExecutor.submit(() -> calibrate(benchmark));
+            // The thread terminates after the calibration
+            calibrationExecutor.shutdown();
+        } else {
+            calibrationExecutor = null;
+            calibration = null;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public KeyCrypterScrypt getKeyCrypterScrypt() {
+        return ScryptUtil.getKeyCrypterScrypt(getN(), DEFAULT_R, DEFAULT_P);
+    }
+
+    /**
+     * @return The cost parameter N for new wallets. If the calibration is still running we wait for it, so a new
+     * wallet does not get encrypted with the default parameters.
+     */
+    public int getN() {
+        if (calibration == null)
+            return DEFAULT_N;
+
+        if (!calibration.isDone())
+            log.info("We wait for the scrypt calibration to complete");
+        try {
+            // Each benchmark run is below the target duration except the last one, which is about 2 times the
+            // target as N gets doubled. So all runs together take about 4 times the target duration.
+            return calibration.get(4 * targetDuration + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DEFAULT_N;
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            log.warn("Scrypt calibration did not complete, we use the default N. " + e.toString());
+            return DEFAULT_N;
+        }
+    }
+
+    // Must be called from the user thread
+    public void deriveKey(KeyCrypterScrypt keyCrypterScrypt, String password, ScryptUtil.DeriveKeyResultHandler resultHandler) {
+        ListenableFuture<KeyParameter> previous = pendingDerivation;
+        if (previous != null) {
+            log.info("Cancel pending key derivation as a new one got requested");
+            // Scrypt does not check the interrupt flag, so we only prevent a queued derivation from starting
+            previous.cancel(false);
+        }
+
+        ListenableFuture<KeyParameter> future = executor.submit(() -> {
+            long start = System.currentTimeMillis();
+            KeyParameter aesKey = keyCrypterScrypt.deriveKey(password);
+            log.debug("Key derivation took {} msec", System.currentTimeMillis() - start);
+            return aesKey;
+        });
+        pendingDerivation = future;
+
+        Futures.addCallback(future, new FutureCallback<KeyParameter>() {
+            @Override
+            public void onSuccess(KeyParameter aesKey) {
+                userThreadExecutor.execute(() -> {
+                    // If a newer request was made in the meantime we ignore that result
+                    if (pendingDerivation == future) {
+                        pendingDerivation = null;
+                        resultHandler.handleResult(aesKey);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (!(throwable instanceof CancellationException))
+                    log.error("Key derivation failed. " + throwable.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @return Duration of one key derivation with the given parameters in ms. Runs on the calling thread.
+     */
+    public static long benchmark(int n, int r, int p) {
+        KeyCrypterScrypt keyCrypterScrypt = ScryptUtil.getKeyCrypterScrypt(n, r, p);
+        long start = System.currentTimeMillis();
+        keyCrypterScrypt.deriveKey("benchmark");
+        return System.currentTimeMillis() - start;
+    }
+
+    public void shutDown() {
+        executor.shutdownNow();
+        if (calibrationExecutor != null)
+            calibrationExecutor.shutdownNow();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private int calibrate(Benchmark benchmark) {
+        StringBuilder sb = new StringBuilder("Scrypt key derivation benchmark (r=" + DEFAULT_R + ", p=" + DEFAULT_P + "):");
+        int selectedN = MIN_N;
+        for (int candidate = MIN_N; candidate <= MAX_N; candidate <<= 1) {
+            if (Thread.currentThread().isInterrupted())
+                break;
+
+            long duration = benchmark.run(candidate, DEFAULT_R, DEFAULT_P);
+            sb.append("\nN=").append(candidate).append(": ").append(duration).append(" ms");
+            if (duration > targetDuration)
+                break;
+
+            selectedN = candidate;
+        }
+        log.info("{}\nWe use N={} for new wallets. Target duration: {} ms", sb.toString(), selectedN, targetDuration);
+        return selectedN;
+    }
+}
@@ -22,6 +22,8 @@ import bisq.common.util.Utilities;
 
 import com.google.protobuf.ByteString;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 import org.bitcoinj.crypto.KeyCrypterScrypt;
 import org.bitcoinj.wallet.Protos;
 
@@ -34,22 +36,33 @@ import org.slf4j.LoggerFactory;
 public class ScryptUtil {
     private static final Logger log = LoggerFactory.getLogger(ScryptUtil.class);
 
+    // Only used by deriveKeyWithScrypt. Creating a new executor for each call would leak a thread per unlock attempt.
+    private static final ListeningExecutorService executor = Utilities.getListeningSingleThreadExecutor("ScryptUtil:deriveKeyWithScrypt");
+
     public interface DeriveKeyResultHandler {
         void handleResult(KeyParameter aesKey);
     }
 
     public static KeyCrypterScrypt getKeyCrypterScrypt() {
+        return getKeyCrypterScrypt(KeyDerivationService.DEFAULT_N, KeyDerivationService.DEFAULT_R, KeyDerivationService.DEFAULT_P);
+    }
+
+    public static KeyCrypterScrypt getKeyCrypterScrypt(int n, int r, int p) {
         Protos.ScryptParameters scryptParameters = Protos.ScryptParameters.newBuilder()
-                .setP(6)
-                .setR(8)
-                .setN(32768)
+                .setP(p)
+                .setR(r)
+                .setN(n)
                 .setSalt(ByteString.copyFrom(KeyCrypterScrypt.randomSalt()))
                 .build();
         return new KeyCrypterScrypt(scryptParameters);
     }
 
+    /**
+     * @deprecated Use {@link bisq.core.btc.wallet.WalletsManager#deriveKey} which discards superseded derivations.
+     */
+    @Deprecated
     public static void deriveKeyWithScrypt(KeyCrypterScrypt keyCrypterScrypt, String password, DeriveKeyResultHandler resultHandler) {
-        Utilities.getThreadPoolExecutor("ScryptUtil:deriveKeyWithScrypt-%d", 1, 2, 5L).submit(() -> {
+        executor.submit(() -> {
             try {
                 log.debug("Doing key derivation");
                 long start = System.currentTimeMillis();
@@ -0,0 +1,182 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.filter;
+
+import bisq.core.payment.payload.PaymentAccountPayload;
+
+import bisq.network.p2p.NodeAddress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * The data of a Filter prepared for fast checks. The banned ids, currencies, payment methods and node addresses are
+ * kept in hash sets and the banned payment accounts are grouped by payment method id. The getter of a payment
+ * account filter is resolved once per payload class and getter name and cached as method handle, so a check does not
+ * need any reflective lookup.
+ * <p/>
+ * Instances are immutable, so they can be used from any thread.
+ */
+@Slf4j
+final class CompiledFilter {
+    static final CompiledFilter EMPTY = new CompiledFilter(null);
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+    // Shared by all filters as the payload classes and the getter names hardly change
+    private static final ClassValue<Map<String, Optional<MethodHandle>>> ACCESSORS_BY_CLASS =
+            new ClassValue<Map<String, Optional<MethodHandle>>>() {
+                @Override
+                protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final Set<String> bannedOfferIds;
+    private final Set<NodeAddress> bannedNodeAddresses;
+    private final Set<String> bannedCurrencies;
+    private final Set<String> bannedPaymentMethodIds;
+    private final Map<String, List<PaymentAccountFilter>> bannedPaymentAccountsByPaymentMethodId;
+
+    static CompiledFilter compile(@Nullable Filter filter) {
+        return filter != null ? new CompiledFilter(filter) : EMPTY;
+    }
+
+    private CompiledFilter(@Nullable Filter filter) {
+        if (filter == null) {
+            bannedOfferIds = Collections.emptySet();
+            bannedNodeAddresses = Collections.emptySet();
+            bannedCurrencies = Collections.emptySet();
+            bannedPaymentMethodIds = Collections.emptySet();
+            bannedPaymentAccountsByPaymentMethodId = Collections.emptyMap();
+            return;
+        }
+
+        bannedOfferIds = toSet(filter.getBannedOfferIds());
+        bannedCurrencies = toSet(filter.getBannedCurrencies());
+        bannedPaymentMethodIds = toSet(filter.getBannedPaymentMethods());
+
+        bannedNodeAddresses = new HashSet<>();
+        if (filter.getBannedNodeAddress() != null) {
+            filter.getBannedNodeAddress().forEach(fullAddress -> {
+                try {
+                    bannedNodeAddresses.add(new NodeAddress(fullAddress));
+                } catch (Throwable t) {
+                    log.warn("Invalid banned node address {} at filter. error={}", fullAddress, t.toString());
+                }
+            });
+        }
+
+        bannedPaymentAccountsByPaymentMethodId = new HashMap<>();
+        if (filter.getBannedPaymentAccounts() != null) {
+            filter.getBannedPaymentAccounts().forEach(paymentAccountFilter ->
+                    bannedPaymentAccountsByPaymentMethodId.computeIfAbsent(paymentAccountFilter.getPaymentMethodId(),
+                            key -> new ArrayList<>()).add(paymentAccountFilter));
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    boolean isOfferIdBanned(String offerId) {
+        return bannedOfferIds.contains(offerId);
+    }
+
+    boolean isNodeAddressBanned(NodeAddress nodeAddress) {
+        return bannedNodeAddresses.contains(nodeAddress);
+    }
+
+    boolean isCurrencyBanned(String currencyCode) {
+        return bannedCurrencies.contains(currencyCode);
+    }
+
+    boolean isPaymentMethodBanned(String paymentMethodId) {
+        return bannedPaymentMethodIds.contains(paymentMethodId);
+    }
+
+    /**
+     * @return The first payment account filter of the payment method of the payload whose getter returns the banned
+     * value or null if the payload is not banned.
+     */
+    @Nullable
+    PaymentAccountFilter getMatchingPaymentAccountFilter(PaymentAccountPayload paymentAccountPayload) {
+        List<PaymentAccountFilter> paymentAccountFilters =
+                bannedPaymentAccountsByPaymentMethodId.get(paymentAccountPayload.getPaymentMethodId());
+        if (paymentAccountFilters == null)
+            return null;
+
+        for (PaymentAccountFilter paymentAccountFilter : paymentAccountFilters) {
+            Optional<MethodHandle> accessor = getAccessor(paymentAccountPayload.getClass(),
+                    paymentAccountFilter.getGetMethodName());
+            if (!accessor.isPresent())
+                continue;
+
+            try {
+                Object value = (Object) accessor.get().invokeExact((Object) paymentAccountPayload);
+                if (paymentAccountFilter.getValue().equals(value))
+                    return paymentAccountFilter;
+            } catch (Throwable t) {
+                log.error("Calling {} at {} failed. error={}", paymentAccountFilter.getGetMethodName(),
+                        paymentAccountPayload.getClass().getSimpleName(), t.toString());
+            }
+        }
+        return null;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static Optional<MethodHandle> getAccessor(Class<?> payloadClass, String getMethodName) {
+        return ACCESSORS_BY_CLASS.get(payloadClass).computeIfAbsent(getMethodName, key -> {
+            try {
+                MethodHandle methodHandle = MethodHandles.publicLookup()
+                        .unreflect(payloadClass.getMethod(getMethodName))
+                        .asType(ACCESSOR_TYPE);
+                return Optional.of(methodHandle);
+            } catch (Throwable t) {
+                // We log only once per class and method name
+                log.error("Method {} of {} cannot be used for the payment account filter. error={}",
+                        getMethodName, payloadClass.getSimpleName(), t.toString());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static Set<String> toSet(@Nullable Collection<String> collection) {
+        return collection != null ? new HashSet<>(collection) : Collections.emptySet();
+    }
+}
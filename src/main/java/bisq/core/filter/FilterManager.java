@@ -57,8 +57,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import java.lang.reflect.Method;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,6 +88,8 @@ public class FilterManager {
     private final ProvidersRepository providersRepository;
     private boolean ignoreDevMsg;
     private final ObjectProperty<Filter> filterProperty = new SimpleObjectProperty<>();
+    // The checks are called very often (e.g. for each offer in the offer book), so we prepare the filter data once
+    private volatile CompiledFilter compiledFilter = CompiledFilter.EMPTY;
     private final List<Listener> listeners = new ArrayList<>();
 
     private final String pubKeyAsHex;
@@ -119,6 +119,8 @@ public class FilterManager {
         pubKeyAsHex = useDevPrivilegeKeys ?
                 DevEnv.DEV_PRIVILEGE_PUB_KEY :
                 "022ac7b7766b0aedff82962522c2c14fb8d1961dabef6e5cfd10edc679456a32f1";
+
+        filterProperty.addListener((observable, oldValue, newValue) -> compiledFilter = CompiledFilter.compile(newValue));
     }
 
     public void onAllServicesInitialized() {
@@ -323,51 +325,28 @@ public class FilterManager {
     }
 
     public boolean isCurrencyBanned(String currencyCode) {
-        return getFilter() != null &&
-                getFilter().getBannedCurrencies() != null &&
-                getFilter().getBannedCurrencies().stream()
-                        .anyMatch(e -> e.equals(currencyCode));
+        return compiledFilter.isCurrencyBanned(currencyCode);
     }
 
     public boolean isPaymentMethodBanned(PaymentMethod paymentMethod) {
-        return getFilter() != null &&
-                getFilter().getBannedPaymentMethods() != null &&
-                getFilter().getBannedPaymentMethods().stream()
-                        .anyMatch(e -> e.equals(paymentMethod.getId()));
+        return compiledFilter.isPaymentMethodBanned(paymentMethod.getId());
     }
 
     public boolean isOfferIdBanned(String offerId) {
-        return getFilter() != null &&
-                getFilter().getBannedOfferIds().stream()
-                        .anyMatch(e -> e.equals(offerId));
+        return compiledFilter.isOfferIdBanned(offerId);
     }
 
     public boolean isNodeAddressBanned(NodeAddress nodeAddress) {
-        return getFilter() != null &&
-                getFilter().getBannedNodeAddress().stream()
-                        .anyMatch(e -> e.equals(nodeAddress.getFullAddress()));
+        return compiledFilter.isNodeAddressBanned(nodeAddress);
     }
 
     public boolean isPeersPaymentAccountDataAreBanned(PaymentAccountPayload paymentAccountPayload,
                                                       PaymentAccountFilter[] appliedPaymentAccountFilter) {
-        return getFilter() != null &&
-                getFilter().getBannedPaymentAccounts().stream()
-                        .anyMatch(paymentAccountFilter -> {
-                            final boolean samePaymentMethodId = paymentAccountFilter.getPaymentMethodId().equals(
-                                    paymentAccountPayload.getPaymentMethodId());
-                            if (samePaymentMethodId) {
-                                try {
-                                    Method method = paymentAccountPayload.getClass().getMethod(paymentAccountFilter.getGetMethodName());
-                                    String result = (String) method.invoke(paymentAccountPayload);
-                                    appliedPaymentAccountFilter[0] = paymentAccountFilter;
-                                    return result.equals(paymentAccountFilter.getValue());
-                                } catch (Throwable e) {
-                                    log.error(e.getMessage());
-                                    return false;
-                                }
-                            } else {
-                                return false;
-                            }
-                        });
+        PaymentAccountFilter paymentAccountFilter = compiledFilter.getMatchingPaymentAccountFilter(paymentAccountPayload);
+        if (paymentAccountFilter == null)
+            return false;
+
+        appliedPaymentAccountFilter[0] = paymentAccountFilter;
+        return true;
     }
 }
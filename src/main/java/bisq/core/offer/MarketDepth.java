@@ -0,0 +1,47 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the aggregated offers of one market. Buy and sell refer to the direction of the offers. The levels
+ * are sorted from the best price for the taker on, and the cumulative values are summed up in that order. In fiat
+ * markets buy levels are sorted by descending, sell levels by ascending price. Altcoin prices are inverted (BTC per
+ * altcoin), so there it is the other way round.
+ */
+@Value
+public class MarketDepth {
+    @Value
+    public static class Level {
+        // Lower bound of the price bucket
+        private final long price;
+        private final long amount;
+        private final long volume;
+        private final int numOffers;
+        private final long cumulativeAmount;
+        private final long cumulativeVolume;
+    }
+
+    private final String currencyCode;
+    private final long bucketSize;
+    private final List<Level> buyLevels;
+    private final List<Level> sellLevels;
+}
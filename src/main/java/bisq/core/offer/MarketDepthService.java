@@ -0,0 +1,285 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.locale.CurrencyUtil;
+import bisq.core.monetary.Price;
+import bisq.core.monetary.Volume;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Aggregates the amount and volume of the offers per market, direction and price bucket. The depth gets updated
+ * incrementally when an offer is added or removed. At a price feed update only the market based offers of the
+ * currencies with a changed market price are moved to their new bucket.
+ * <p/>
+ * Offers without a price (market based offers without a market price) are not included.
+ * The API is expected to be called from the user thread like the OfferBookService listeners.
+ */
+@Slf4j
+public class MarketDepthService {
+    public interface Listener {
+        void onMarketDepthChanged(MarketDepth marketDepth);
+    }
+
+    private static class Level {
+        private long amount;
+        private long volume;
+        private int numOffers;
+    }
+
+    // What an offer has added to its bucket, so we can remove it again
+    private static class Contribution {
+        private final String currencyCode;
+        private final OfferPayload.Direction direction;
+        private final long bucket;
+        private final long amount;
+        private final long volume;
+
+        private Contribution(String currencyCode, OfferPayload.Direction direction, long bucket, long amount, long volume) {
+            this.currencyCode = currencyCode;
+            this.direction = direction;
+            this.bucket = bucket;
+            this.amount = amount;
+            this.volume = volume;
+        }
+    }
+
+    private static class Market {
+        private final Map<OfferPayload.Direction, NavigableMap<Long, Level>> levelsByDirection =
+                new EnumMap<>(OfferPayload.Direction.class);
+        private final Map<String, Offer> marketBasedOfferById = new HashMap<>();
+        private long bucketSize = 1;
+        // Market price used for the current buckets of the market based offers, NaN if there was none
+        private double marketPrice = Double.NaN;
+    }
+
+    private final OfferBookService offerBookService;
+    private final PriceFeedService priceFeedService;
+    private final Map<String, Contribution> contributionByOfferId = new HashMap<>();
+    private final Map<String, Market> marketByCurrencyCode = new HashMap<>();
+    private final Map<String, List<Listener>> listenersByCurrencyCode = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public MarketDepthService(OfferBookService offerBookService, PriceFeedService priceFeedService) {
+        this.offerBookService = offerBookService;
+        this.priceFeedService = priceFeedService;
+
+        offerBookService.getOffers().forEach(this::add);
+        offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
+            @Override
+            public void onAdded(Offer offer) {
+                add(offer);
+                notifyListeners(offer.getCurrencyCode());
+            }
+
+            @Override
+            public void onRemoved(Offer offer) {
+                remove(offer);
+                notifyListeners(offer.getCurrencyCode());
+            }
+        });
+        priceFeedService.updateCounterProperty().addListener((observable, oldValue, newValue) -> onPriceFeedUpdated());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public MarketDepth getMarketDepth(String currencyCode) {
+        Market market = marketByCurrencyCode.get(currencyCode);
+        if (market == null)
+            return new MarketDepth(currencyCode, 1, new ArrayList<>(), new ArrayList<>());
+
+        return new MarketDepth(currencyCode,
+                market.bucketSize,
+                getLevels(market, currencyCode, OfferPayload.Direction.BUY),
+                getLevels(market, currencyCode, OfferPayload.Direction.SELL));
+    }
+
+    /**
+     * Sets the width of the price buckets of a market in the smallest unit of the price. Default is 1, so each
+     * price is its own bucket.
+     */
+    public void setBucketSize(String currencyCode, long bucketSize) {
+        checkArgument(bucketSize > 0, "bucketSize must be positive");
+        Market market = getMarket(currencyCode);
+        if (market.bucketSize == bucketSize)
+            return;
+
+        market.bucketSize = bucketSize;
+        market.levelsByDirection.clear();
+        contributionByOfferId.values().removeIf(contribution -> contribution.currencyCode.equals(currencyCode));
+        offerBookService.getOffers(currencyCode).forEach(offer -> addContribution(market, offer));
+        notifyListeners(currencyCode);
+    }
+
+    /**
+     * The listener is called with a new snapshot after each change of the given market.
+     */
+    public void addListener(String currencyCode, Listener listener) {
+        listenersByCurrencyCode.computeIfAbsent(currencyCode, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeListener(String currencyCode, Listener listener) {
+        List<Listener> listeners = listenersByCurrencyCode.get(currencyCode);
+        if (listeners != null) {
+            listeners.remove(listener);
+            if (listeners.isEmpty())
+                listenersByCurrencyCode.remove(currencyCode);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void add(Offer offer) {
+        // The offer book replaces an offer with the same id
+        remove(offer);
+
+        Market market = getMarket(offer.getCurrencyCode());
+        if (offer.isUseMarketBasedPrice()) {
+            if (market.marketBasedOfferById.isEmpty())
+                market.marketPrice = getMarketPrice(offer.getCurrencyCode());
+            market.marketBasedOfferById.put(offer.getId(), offer);
+        }
+        addContribution(market, offer);
+    }
+
+    private void remove(Offer offer) {
+        removeContribution(offer.getId());
+        Market market = marketByCurrencyCode.get(offer.getCurrencyCode());
+        if (market != null)
+            market.marketBasedOfferById.remove(offer.getId());
+    }
+
+    private void onPriceFeedUpdated() {
+        marketByCurrencyCode.forEach((currencyCode, market) -> {
+            if (market.marketBasedOfferById.isEmpty())
+                return;
+
+            double marketPrice = getMarketPrice(currencyCode);
+            if (Double.compare(marketPrice, market.marketPrice) != 0) {
+                market.marketPrice = marketPrice;
+                market.marketBasedOfferById.values().forEach(offer -> {
+                    removeContribution(offer.getId());
+                    addContribution(market, offer);
+                });
+                notifyListeners(currencyCode);
+            }
+        });
+    }
+
+    private void addContribution(Market market, Offer offer) {
+        Price price = offer.getPrice();
+        if (price == null)
+            return;
+
+        long bucket = Math.floorDiv(price.getValue(), market.bucketSize) * market.bucketSize;
+        Volume volume = offer.getVolume();
+        Contribution contribution = new Contribution(offer.getCurrencyCode(),
+                offer.getDirection(),
+                bucket,
+                offer.getAmount().value,
+                volume != null ? volume.getValue() : 0);
+        Level level = market.levelsByDirection.computeIfAbsent(contribution.direction, key -> new TreeMap<>())
+                .computeIfAbsent(bucket, key -> new Level());
+        level.amount += contribution.amount;
+        level.volume += contribution.volume;
+        level.numOffers++;
+        contributionByOfferId.put(offer.getId(), contribution);
+    }
+
+    private void removeContribution(String offerId) {
+        Contribution contribution = contributionByOfferId.remove(offerId);
+        if (contribution == null)
+            return;
+
+        NavigableMap<Long, Level> levels = marketByCurrencyCode.get(contribution.currencyCode)
+                .levelsByDirection.get(contribution.direction);
+        Level level = levels.get(contribution.bucket);
+        level.amount -= contribution.amount;
+        level.volume -= contribution.volume;
+        level.numOffers--;
+        if (level.numOffers == 0)
+            levels.remove(contribution.bucket);
+    }
+
+    private List<MarketDepth.Level> getLevels(Market market, String currencyCode, OfferPayload.Direction direction) {
+        NavigableMap<Long, Level> levels = market.levelsByDirection.get(direction);
+        if (levels == null)
+            return new ArrayList<>();
+
+        List<MarketDepth.Level> result = new ArrayList<>(levels.size());
+        long cumulativeAmount = 0;
+        long cumulativeVolume = 0;
+        // Like at Offer.calculateMarketBasedPrice altcoin prices and directions are inverted
+        boolean descending = CurrencyUtil.isCryptoCurrency(currencyCode) ?
+                direction == OfferPayload.Direction.SELL :
+                direction == OfferPayload.Direction.BUY;
+        Map<Long, Level> sorted = descending ? levels.descendingMap() : levels;
+        for (Map.Entry<Long, Level> entry : sorted.entrySet()) {
+            Level level = entry.getValue();
+            cumulativeAmount += level.amount;
+            cumulativeVolume += level.volume;
+            result.add(new MarketDepth.Level(entry.getKey(), level.amount, level.volume, level.numOffers,
+                    cumulativeAmount, cumulativeVolume));
+        }
+        return result;
+    }
+
+    private Market getMarket(String currencyCode) {
+        return marketByCurrencyCode.computeIfAbsent(currencyCode, key -> new Market());
+    }
+
+    private double getMarketPrice(String currencyCode) {
+        MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
+        return marketPrice != null && marketPrice.isRecentExternalPriceAvailable() ? marketPrice.getPrice() : Double.NaN;
+    }
+
+    private void notifyListeners(String currencyCode) {
+        List<Listener> listeners = listenersByCurrencyCode.get(currencyCode);
+        if (listeners != null && !listeners.isEmpty()) {
+            MarketDepth marketDepth = getMarketDepth(currencyCode);
+            listeners.forEach(listener -> listener.onMarketDepthChanged(marketDepth));
+        }
+    }
+}
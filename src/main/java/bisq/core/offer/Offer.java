@@ -59,7 +59,6 @@ import java.util.Map;
 import java.util.Optional;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nullable;
@@ -106,9 +105,22 @@ public class Offer implements NetworkPayload, PersistablePayload {
     transient private StringProperty errorMessageProperty = new SimpleStringProperty();
     @JsonExclude
     @Nullable
-    @Setter
     transient private PriceFeedService priceFeedService;
 
+    // The currency code and the price are requested very often (e.g. by the comparators of the offer lists), so we
+    // cache them. Market based prices are calculated again once the market price of the offer's currency has changed.
+    @JsonExclude
+    @Nullable
+    transient private String currencyCode;
+    @JsonExclude
+    @Nullable
+    transient private Price price;
+    @JsonExclude
+    @Nullable
+    transient private MarketPrice marketPriceOfPrice;
+    @JsonExclude
+    transient private long marketPriceVersionOfPrice = -1;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -160,41 +172,58 @@ public class Offer implements NetworkPayload, PersistablePayload {
 
     @Nullable
     public Price getPrice() {
+        if (!offerPayload.isUseMarketBasedPrice()) {
+            if (price == null)
+                price = Price.valueOf(getCurrencyCode(), offerPayload.getPrice());
+            return price;
+        }
+
+        checkNotNull(priceFeedService, "priceFeed must not be null");
+        long marketPriceVersion = priceFeedService.getMarketPriceVersion(getCurrencyCode());
+        if (marketPriceVersionOfPrice != marketPriceVersion) {
+            marketPriceOfPrice = priceFeedService.getMarketPrice(getCurrencyCode());
+            price = marketPriceOfPrice != null && marketPriceOfPrice.isRecentExternalPriceAvailable() ?
+                    calculateMarketBasedPrice(marketPriceOfPrice) :
+                    null;
+            marketPriceVersionOfPrice = marketPriceVersion;
+        }
+
+        // The market price might get outdated without an update of the price feed
+        if (marketPriceOfPrice != null && marketPriceOfPrice.isRecentExternalPriceAvailable()) {
+            return price;
+        } else {
+            log.debug("We don't have a market price.\n" +
+                    "That case could only happen if you don't have a price feed.");
+            return null;
+        }
+    }
+
+    @Nullable
+    private Price calculateMarketBasedPrice(MarketPrice marketPrice) {
         String currencyCode = getCurrencyCode();
-        if (offerPayload.isUseMarketBasedPrice()) {
-            checkNotNull(priceFeedService, "priceFeed must not be null");
-            MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
-            if (marketPrice != null && marketPrice.isRecentExternalPriceAvailable()) {
-                double factor;
-                double marketPriceMargin = offerPayload.getMarketPriceMargin();
-                if (CurrencyUtil.isCryptoCurrency(currencyCode)) {
-                    factor = getDirection() == OfferPayload.Direction.SELL ?
-                            1 - marketPriceMargin : 1 + marketPriceMargin;
-                } else {
-                    factor = getDirection() == OfferPayload.Direction.BUY ?
-                            1 - marketPriceMargin : 1 + marketPriceMargin;
-                }
-                double marketPriceAsDouble = marketPrice.getPrice();
-                double targetPriceAsDouble = marketPriceAsDouble * factor;
-                try {
-                    int precision = CurrencyUtil.isCryptoCurrency(currencyCode) ?
-                            Altcoin.SMALLEST_UNIT_EXPONENT :
-                            Fiat.SMALLEST_UNIT_EXPONENT;
-                    double scaled = MathUtils.scaleUpByPowerOf10(targetPriceAsDouble, precision);
-                    final long roundedToLong = MathUtils.roundDoubleToLong(scaled);
-                    return Price.valueOf(currencyCode, roundedToLong);
-                } catch (Exception e) {
-                    log.error("Exception at getPrice / parseToFiat: " + e.toString() + "\n" +
-                            "That case should never happen.");
-                    return null;
-                }
-            } else {
-                log.debug("We don't have a market price.\n" +
-                        "That case could only happen if you don't have a price feed.");
-                return null;
-            }
+        boolean isCryptoCurrency = CurrencyUtil.isCryptoCurrency(currencyCode);
+        double factor;
+        double marketPriceMargin = offerPayload.getMarketPriceMargin();
+        if (isCryptoCurrency) {
+            factor = getDirection() == OfferPayload.Direction.SELL ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
         } else {
-            return Price.valueOf(currencyCode, offerPayload.getPrice());
+            factor = getDirection() == OfferPayload.Direction.BUY ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        }
+        double marketPriceAsDouble = marketPrice.getPrice();
+        double targetPriceAsDouble = marketPriceAsDouble * factor;
+        try {
+            int precision = isCryptoCurrency ?
+                    Altcoin.SMALLEST_UNIT_EXPONENT :
+                    Fiat.SMALLEST_UNIT_EXPONENT;
+            double scaled = MathUtils.scaleUpByPowerOf10(targetPriceAsDouble, precision);
+            final long roundedToLong = MathUtils.roundDoubleToLong(scaled);
+            return Price.valueOf(currencyCode, roundedToLong);
+        } catch (Exception e) {
+            log.error("Exception at getPrice / parseToFiat: " + e.toString() + "\n" +
+                    "That case should never happen.");
+            return null;
         }
     }
 
@@ -245,6 +274,12 @@ public class Offer implements NetworkPayload, PersistablePayload {
     // Setter
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    public void setPriceFeedService(@Nullable PriceFeedService priceFeedService) {
+        this.priceFeedService = priceFeedService;
+        // A market based price needs to be calculated with the new service
+        marketPriceVersionOfPrice = -1;
+    }
+
     public void setState(Offer.State state) {
         stateProperty().set(state);
     }
@@ -403,9 +438,11 @@ public class Offer implements NetworkPayload, PersistablePayload {
     }
 
     public String getCurrencyCode() {
-        return CurrencyUtil.isCryptoCurrency(offerPayload.getBaseCurrencyCode()) ?
-                offerPayload.getBaseCurrencyCode() :
-                offerPayload.getCounterCurrencyCode();
+        if (currencyCode == null)
+            currencyCode = CurrencyUtil.isCryptoCurrency(offerPayload.getBaseCurrencyCode()) ?
+                    offerPayload.getBaseCurrencyCode() :
+                    offerPayload.getCounterCurrencyCode();
+        return currencyCode;
     }
 
     public long getProtocolVersion() {
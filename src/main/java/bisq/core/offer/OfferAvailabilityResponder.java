@@ -0,0 +1,172 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.arbitration.Arbitrator;
+import bisq.core.exceptions.TradePriceOutOfToleranceException;
+import bisq.core.filter.FilterManager;
+import bisq.core.offer.messages.OfferAvailabilityRequest;
+import bisq.core.user.Preferences;
+import bisq.core.user.User;
+
+import bisq.network.p2p.NodeAddress;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decides how the maker responds to an OfferAvailabilityRequest. The open offer is found by the id index of the
+ * TradableList and its state is read directly, so reserving, taking or removing an offer is reflected at once.
+ * The ignored traders are kept as a set, which is rebuilt only when the list in the preferences changes. Banned nodes
+ * are checked by the FilterManager. Peers sending more than MAX_REQUESTS_PER_PEER requests within RATE_LIMIT_INTERVAL_MS get no
+ * response.
+ * <p/>
+ * Must be called from the user thread.
+ */
+@Slf4j
+class OfferAvailabilityResponder {
+    static final int MAX_REQUESTS_PER_PEER = 10;
+    static final long RATE_LIMIT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    // We remove the expired entries only if we have more peers, so we don't need to iterate the map at each request
+    private static final int MAX_PEERS_BEFORE_PRUNING = 1000;
+
+    private static class RequestWindow {
+        private long startTime;
+        private int numRequests;
+    }
+
+    private final Function<String, Optional<OpenOffer>> openOfferLookup;
+    private final Preferences preferences;
+    private final User user;
+    private final FilterManager filterManager;
+    private final LongSupplier clock;
+    private final Map<NodeAddress, RequestWindow> requestWindowByPeer = new HashMap<>();
+    private Set<String> ignoredTraders = new HashSet<>();
+    @Nullable
+    private List<String> ignoreTradersListOfSet;
+    private int ignoreTradersListSizeOfSet;
+
+    OfferAvailabilityResponder(Function<String, Optional<OpenOffer>> openOfferLookup,
+                               Preferences preferences,
+                               User user,
+                               FilterManager filterManager) {
+        this(openOfferLookup, preferences, user, filterManager, System::currentTimeMillis);
+    }
+
+    OfferAvailabilityResponder(Function<String, Optional<OpenOffer>> openOfferLookup,
+                               Preferences preferences,
+                               User user,
+                               FilterManager filterManager,
+                               LongSupplier clock) {
+        this.openOfferLookup = openOfferLookup;
+        this.preferences = preferences;
+        this.user = user;
+        this.filterManager = filterManager;
+        this.clock = clock;
+    }
+
+    /**
+     * @return The result we send to the taker or null if we don't respond to that request.
+     */
+    @Nullable
+    AvailabilityResult getAvailabilityResult(OfferAvailabilityRequest request, NodeAddress sender) {
+        if (filterManager.isNodeAddressBanned(sender)) {
+            log.warn("We got an OfferAvailabilityRequest from a banned node. sender={}", sender);
+            return null;
+        }
+
+        if (isRateLimited(sender)) {
+            log.warn("We got too many OfferAvailabilityRequests from {}. We ignore the request.", sender);
+            return null;
+        }
+
+        Optional<OpenOffer> openOfferOptional = openOfferLookup.apply(request.getOfferId());
+        if (!openOfferOptional.isPresent()) {
+            log.warn("handleOfferAvailabilityRequest: openOffer not found. That should never happen.");
+            return AvailabilityResult.OFFER_TAKEN;
+        }
+
+        OpenOffer openOffer = openOfferOptional.get();
+        if (openOffer.getState() != OpenOffer.State.AVAILABLE)
+            return AvailabilityResult.OFFER_TAKEN;
+
+        if (getIgnoredTraders().contains(sender.getHostNameWithoutPostFix()))
+            return AvailabilityResult.USER_IGNORED;
+
+        // TODO mediators not impl yet
+        List<Arbitrator> acceptedArbitrators = user.getAcceptedArbitrators();
+        if (acceptedArbitrators == null || acceptedArbitrators.isEmpty()) {
+            log.warn("acceptedArbitrators is null or empty: acceptedArbitrators=" + acceptedArbitrators);
+            return AvailabilityResult.NO_ARBITRATORS;
+        }
+
+        // Check also tradePrice to avoid failures after taker fee is paid caused by a too big difference
+        // in trade price between the peers. Also here poor connectivity might cause market price API connection
+        // losses and therefore an outdated market price.
+        try {
+            openOffer.getOffer().checkTradePriceTolerance(request.getTakersTradePrice());
+            return AvailabilityResult.AVAILABLE;
+        } catch (TradePriceOutOfToleranceException e) {
+            log.warn("Trade price check failed because takers price is outside out tolerance.");
+            return AvailabilityResult.PRICE_OUT_OF_TOLERANCE;
+        } catch (MarketPriceNotAvailableException e) {
+            log.warn(e.getMessage());
+            return AvailabilityResult.MARKET_PRICE_NOT_AVAILABLE;
+        } catch (Throwable e) {
+            log.warn("Trade price check failed. " + e.getMessage());
+            return AvailabilityResult.UNKNOWN_FAILURE;
+        }
+    }
+
+    private boolean isRateLimited(NodeAddress sender) {
+        long now = clock.getAsLong();
+        if (requestWindowByPeer.size() > MAX_PEERS_BEFORE_PRUNING)
+            requestWindowByPeer.values().removeIf(window -> now - window.startTime >= RATE_LIMIT_INTERVAL_MS);
+
+        RequestWindow window = requestWindowByPeer.computeIfAbsent(sender, key -> new RequestWindow());
+        if (window.numRequests == 0 || now - window.startTime >= RATE_LIMIT_INTERVAL_MS) {
+            window.startTime = now;
+            window.numRequests = 0;
+        }
+        window.numRequests++;
+        return window.numRequests > MAX_REQUESTS_PER_PEER;
+    }
+
+    // The preferences replace the list when the user changes it, so we only need to check if we got another list
+    private Set<String> getIgnoredTraders() {
+        List<String> ignoreTradersList = preferences.getIgnoreTradersList();
+        if (ignoreTradersList != ignoreTradersListOfSet ||
+                (ignoreTradersList != null && ignoreTradersList.size() != ignoreTradersListSizeOfSet)) {
+            ignoredTraders = ignoreTradersList != null ? new HashSet<>(ignoreTradersList) : new HashSet<>();
+            ignoreTradersListOfSet = ignoreTradersList;
+            ignoreTradersListSizeOfSet = ignoreTradersList != null ? ignoreTradersList.size() : 0;
+        }
+        return ignoredTraders;
+    }
+}
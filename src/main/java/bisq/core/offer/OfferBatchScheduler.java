@@ -0,0 +1,161 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Processes a list of items (e.g. open offers to republish, refresh or remove) in batches of a bounded size. Only the
+ * next batch is scheduled at any time, so we don't create a timer per item and the rate at which we send the
+ * P2P messages is limited to one batch per batchInterval.
+ * <p/>
+ * The batch size grows with the square root of the number of items, so the number of batches and the time to process
+ * all items grow sublinearly (e.g. 100 offers in 10 batches of 10, 400 offers in 20 batches of 20). The batch size is
+ * at least the configured one and at most MAX_BATCH_SIZE, unless a larger one is configured.
+ * <p/>
+ * Each offer is sent as its own message to each connected peer. The p2p Connection closes a connection after more
+ * than 200 messages per sec. or 1000 messages per 10 sec. Those limits include all other traffic on that connection,
+ * like the relayed offers and trade statistics of other peers. A batch of MAX_BATCH_SIZE messages every 1 sec. (the
+ * shortest interval we use) is 300 messages per 10 sec., so we stay below a third of the limit. At the default of 10
+ * offers every 3 sec. we send about 33 messages per 10 sec.
+ */
+@Slf4j
+class OfferBatchScheduler {
+    static final int MAX_BATCH_SIZE = 30;
+
+    interface Scheduler {
+        Timer runAfter(Runnable runnable, long delayMs);
+    }
+
+    /**
+     * A running batch job. Stopping it cancels the remaining batches and the complete handler.
+     */
+    class Job<T> {
+        private final List<T> items;
+        private final int jobBatchSize;
+        private final Consumer<T> handler;
+        @Nullable
+        private final Runnable completeHandler;
+        private int index;
+        private boolean stopped;
+        @Nullable
+        private Timer timer;
+
+        private Job(List<T> items, Consumer<T> handler, @Nullable Runnable completeHandler) {
+            this.items = items;
+            this.jobBatchSize = getBatchSize(items.size());
+            this.handler = handler;
+            this.completeHandler = completeHandler;
+        }
+
+        private void scheduleNextBatch(long delayMs) {
+            timer = scheduler.runAfter(this::runBatch, delayMs);
+        }
+
+        private void runBatch() {
+            timer = null;
+            if (stopped)
+                return;
+
+            int end = Math.min(index + jobBatchSize, items.size());
+            for (; index < end; index++) {
+                try {
+                    handler.accept(items.get(index));
+                } catch (Throwable t) {
+                    log.error("Processing of batch item failed. " + t.getMessage());
+                }
+            }
+
+            if (index < items.size()) {
+                scheduleNextBatch(batchIntervalMs);
+            } else if (completeHandler != null) {
+                completeHandler.run();
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        }
+
+        boolean isRunning() {
+            return !stopped && index < items.size();
+        }
+    }
+
+    private final int batchSize;
+    private final long batchIntervalMs;
+    private final Scheduler scheduler;
+
+    OfferBatchScheduler(int batchSize, long batchIntervalMs) {
+        this(batchSize, batchIntervalMs,
+                (runnable, delayMs) -> UserThread.runAfter(runnable, delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    OfferBatchScheduler(int batchSize, long batchIntervalMs, Scheduler scheduler) {
+        checkArgument(batchSize > 0, "batchSize must be positive");
+        checkArgument(batchIntervalMs >= 0, "batchIntervalMs must not be negative");
+        this.batchSize = batchSize;
+        this.batchIntervalMs = batchIntervalMs;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Schedules the processing of the given items. The list gets copied so it can change while the job is running.
+     *
+     * @param items           The items to process.
+     * @param initialDelayMs  Delay before the first batch.
+     * @param handler         Called for each item on the user thread.
+     * @param completeHandler Called after the last batch.
+     * @return The job which can be used to stop the processing.
+     */
+    <T> Job<T> schedule(List<T> items, long initialDelayMs, Consumer<T> handler, @Nullable Runnable completeHandler) {
+        Job<T> job = new Job<>(new ArrayList<>(items), handler, completeHandler);
+        job.scheduleNextBatch(initialDelayMs);
+        return job;
+    }
+
+    long getBatchIntervalMs() {
+        return batchIntervalMs;
+    }
+
+    int getBatchSize(int numItems) {
+        int sqrt = (int) Math.ceil(Math.sqrt(numItems));
+        return Math.max(batchSize, Math.min(sqrt, MAX_BATCH_SIZE));
+    }
+
+    int getNumBatches(int numItems) {
+        int batchSize = getBatchSize(numItems);
+        return (numItems + batchSize - 1) / batchSize;
+    }
+}
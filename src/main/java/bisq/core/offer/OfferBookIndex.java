@@ -0,0 +1,163 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.locale.CurrencyUtil;
+import bisq.core.monetary.Price;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.Nullable;
+
+/**
+ * Live index of the offers in the offer book, keyed by offer id and grouped by market (currency code) and direction.
+ * It holds one Offer instance per OfferPayload which gets updated incrementally when offers are added or removed.
+ * Those instances cache the price and must not be handed out to consumers, as the state of an Offer (e.g. its
+ * stateProperty or availability protocol) belongs to the view or protocol using it.
+ * <p/>
+ * The offers of a market side are sorted by price when requested. The price of market based offers changes with each
+ * price feed update and they have no price once the market price is outdated, so we sort again if there was a change
+ * of the offers, a new market price of that currency or a change of the availability of a recent market price since
+ * the last sorting.
+ * In fiat markets sell offers are sorted by ascending, buy offers by descending price. Altcoin prices are inverted
+ * (BTC per altcoin), so there it is the other way round. Offers without a price are at the end.
+ */
+class OfferBookIndex {
+    private static class MarketSide {
+        private final List<Offer> offers = new ArrayList<>();
+        private boolean sorted;
+        private long sortedAtPriceVersion;
+        private boolean sortedWithRecentPrice;
+    }
+
+    private final ToLongFunction<String> marketPriceVersion;
+    private final Predicate<String> isRecentMarketPriceAvailable;
+    private final Map<String, Offer> offerById = new LinkedHashMap<>();
+    private final Map<String, Map<OfferPayload.Direction, MarketSide>> marketSidesByCurrencyCode = new HashMap<>();
+
+    /**
+     * @param marketPriceVersion           Provides the version of the market price of a currency.
+     * @param isRecentMarketPriceAvailable Whether there is a market price of a currency which is not outdated.
+     *                                     A market price gets outdated without an update of its version.
+     */
+    OfferBookIndex(ToLongFunction<String> marketPriceVersion, Predicate<String> isRecentMarketPriceAvailable) {
+        this.marketPriceVersion = marketPriceVersion;
+        this.isRecentMarketPriceAvailable = isRecentMarketPriceAvailable;
+    }
+
+    /**
+     * @return The offer which got replaced by the given one or null.
+     */
+    @Nullable
+    synchronized Offer add(Offer offer) {
+        Offer previous = remove(offer.getId());
+        offerById.put(offer.getId(), offer);
+        MarketSide marketSide = marketSidesByCurrencyCode.computeIfAbsent(offer.getCurrencyCode(),
+                key -> new EnumMap<>(OfferPayload.Direction.class))
+                .computeIfAbsent(offer.getDirection(), key -> new MarketSide());
+        marketSide.offers.add(offer);
+        marketSide.sorted = false;
+        return previous;
+    }
+
+    @Nullable
+    synchronized Offer remove(String offerId) {
+        Offer offer = offerById.remove(offerId);
+        if (offer != null) {
+            Map<OfferPayload.Direction, MarketSide> marketSides = marketSidesByCurrencyCode.get(offer.getCurrencyCode());
+            MarketSide marketSide = marketSides.get(offer.getDirection());
+            marketSide.offers.remove(offer);
+            if (marketSide.offers.isEmpty()) {
+                marketSides.remove(offer.getDirection());
+                if (marketSides.isEmpty())
+                    marketSidesByCurrencyCode.remove(offer.getCurrencyCode());
+            }
+        }
+        return offer;
+    }
+
+    synchronized Optional<Offer> getOfferById(String offerId) {
+        return Optional.ofNullable(offerById.get(offerId));
+    }
+
+    synchronized List<Offer> getOffers() {
+        return new ArrayList<>(offerById.values());
+    }
+
+    synchronized List<Offer> getOffers(String currencyCode) {
+        List<Offer> result = new ArrayList<>();
+        Map<OfferPayload.Direction, MarketSide> marketSides = marketSidesByCurrencyCode.get(currencyCode);
+        if (marketSides != null)
+            marketSides.values().forEach(marketSide -> result.addAll(marketSide.offers));
+        return result;
+    }
+
+    synchronized List<Offer> getSortedOffers(String currencyCode, OfferPayload.Direction direction) {
+        Map<OfferPayload.Direction, MarketSide> marketSides = marketSidesByCurrencyCode.get(currencyCode);
+        MarketSide marketSide = marketSides != null ? marketSides.get(direction) : null;
+        if (marketSide == null)
+            return new ArrayList<>();
+
+        long priceVersion = marketPriceVersion.applyAsLong(currencyCode);
+        boolean recentPrice = isRecentMarketPriceAvailable.test(currencyCode);
+        if (!marketSide.sorted ||
+                marketSide.sortedAtPriceVersion != priceVersion ||
+                marketSide.sortedWithRecentPrice != recentPrice) {
+            sort(marketSide.offers, currencyCode, direction);
+            marketSide.sorted = true;
+            marketSide.sortedAtPriceVersion = priceVersion;
+            marketSide.sortedWithRecentPrice = recentPrice;
+        }
+        return new ArrayList<>(marketSide.offers);
+    }
+
+    synchronized Set<String> getCurrencyCodes() {
+        return new TreeSet<>(marketSidesByCurrencyCode.keySet());
+    }
+
+    synchronized int size() {
+        return offerById.size();
+    }
+
+    private static void sort(List<Offer> offers, String currencyCode, OfferPayload.Direction direction) {
+        // We look up the price only once per offer as it is calculated for market based offers
+        Map<Offer, Long> priceByOffer = new IdentityHashMap<>();
+        offers.forEach(offer -> {
+            Price price = offer.getPrice();
+            priceByOffer.put(offer, price != null ? price.getValue() : null);
+        });
+        boolean ascending = CurrencyUtil.isCryptoCurrency(currencyCode) ?
+                direction == OfferPayload.Direction.BUY :
+                direction == OfferPayload.Direction.SELL;
+        Comparator<Long> priceComparator = ascending ? Comparator.naturalOrder() : Collections.reverseOrder();
+        offers.sort(Comparator.comparing(priceByOffer::get, Comparator.nullsLast(priceComparator)));
+    }
+}
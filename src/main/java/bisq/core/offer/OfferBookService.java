@@ -18,7 +18,9 @@
 package bisq.core.offer;
 
 import bisq.core.app.AppOptionKeys;
+import bisq.core.provider.price.MarketPrice;
 import bisq.core.provider.price.PriceFeedService;
+import bisq.core.util.JsonStatisticsWriter;
 
 import bisq.network.p2p.BootstrapListener;
 import bisq.network.p2p.P2PService;
@@ -28,9 +30,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.common.UserThread;
 import bisq.common.handlers.ErrorMessageHandler;
 import bisq.common.handlers.ResultHandler;
-import bisq.common.storage.JsonFileManager;
 import bisq.common.storage.Storage;
-import bisq.common.util.Utilities;
 
 import com.google.inject.name.Named;
 
@@ -40,6 +40,9 @@ import java.io.File;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -49,10 +52,14 @@ import javax.annotation.Nullable;
 
 /**
  * Handles storage and retrieval of offers.
- * Uses an invalidation flag to only request the full offer map in case there was a change (anyone has added or removed an offer).
+ * The offers are kept in an OfferBookIndex which gets updated when anyone has added or removed an offer, so we don't
+ * need to scan the full P2P data map at each request. The Offer objects we return are new instances, as each user of
+ * an offer (e.g. a view or the availability check) sets its own state on it.
  */
 public class OfferBookService {
     private static final Logger log = LoggerFactory.getLogger(OfferBookService.class);
+    // Offers get added and removed frequently, so we write the dump at most once per interval
+    private static final long DUMP_INTERVAL = TimeUnit.SECONDS.toMillis(5);
 
     public interface OfferBookChangedListener {
         void onAdded(Offer offer);
@@ -63,7 +70,9 @@ public class OfferBookService {
     private final P2PService p2PService;
     private final PriceFeedService priceFeedService;
     private final List<OfferBookChangedListener> offerBookChangedListeners = new LinkedList<>();
-    private final JsonFileManager jsonFileManager;
+    @Nullable
+    private final JsonStatisticsWriter jsonStatisticsWriter;
+    private final OfferBookIndex offerBookIndex;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -77,31 +86,33 @@ public class OfferBookService {
                             @Named(AppOptionKeys.DUMP_STATISTICS) boolean dumpStatistics) {
         this.p2PService = p2PService;
         this.priceFeedService = priceFeedService;
-        jsonFileManager = new JsonFileManager(storageDir);
+        jsonStatisticsWriter = dumpStatistics ? new JsonStatisticsWriter(storageDir, DUMP_INTERVAL) : null;
+
+        offerBookIndex = new OfferBookIndex(priceFeedService::getMarketPriceVersion, currencyCode -> {
+            MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
+            return marketPrice != null && marketPrice.isRecentExternalPriceAvailable();
+        });
+        p2PService.getDataMap().values().stream()
+                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayload)
+                .forEach(data -> offerBookIndex.add(createOffer((OfferPayload) data.getProtectedStoragePayload())));
 
         p2PService.addHashSetChangedListener(new HashMapChangedListener() {
             @Override
             public void onAdded(ProtectedStorageEntry data) {
-                offerBookChangedListeners.stream().forEach(listener -> {
-                    if (data.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onAdded(offer);
-                    }
-                });
+                if (data.getProtectedStoragePayload() instanceof OfferPayload) {
+                    OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
+                    offerBookIndex.add(createOffer(offerPayload));
+                    offerBookChangedListeners.forEach(listener -> listener.onAdded(createOffer(offerPayload)));
+                }
             }
 
             @Override
             public void onRemoved(ProtectedStorageEntry data) {
-                offerBookChangedListeners.stream().forEach(listener -> {
-                    if (data.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onRemoved(offer);
-                    }
-                });
+                if (data.getProtectedStoragePayload() instanceof OfferPayload) {
+                    OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
+                    offerBookIndex.remove(offerPayload.getId());
+                    offerBookChangedListeners.forEach(listener -> listener.onRemoved(createOffer(offerPayload)));
+                }
             }
         });
 
@@ -171,20 +182,41 @@ public class OfferBookService {
     }
 
     public List<Offer> getOffers() {
-        return p2PService.getDataMap().values().stream()
-                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayload)
-                .map(data -> {
-                    OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                    Offer offer = new Offer(offerPayload);
-                    offer.setPriceFeedService(priceFeedService);
-                    return offer;
-                })
-                .collect(Collectors.toList());
+        return createOffers(offerBookIndex.getOffers());
+    }
+
+    public List<Offer> getOffers(String currencyCode) {
+        return createOffers(offerBookIndex.getOffers(currencyCode));
     }
 
-    public void removeOfferAtShutDown(OfferPayload offerPayload) {
+    /**
+     * @return The offers of the given market side sorted by price, the best price for the taker first. Offers without
+     * a price (market based offers without a recent market price) are at the end.
+     */
+    public List<Offer> getSortedOffers(String currencyCode, OfferPayload.Direction direction) {
+        return createOffers(offerBookIndex.getSortedOffers(currencyCode, direction));
+    }
+
+    public Optional<Offer> getOfferById(String offerId) {
+        return offerBookIndex.getOfferById(offerId).map(offer -> createOffer(offer.getOfferPayload()));
+    }
+
+    public Set<String> getCurrencyCodes() {
+        return offerBookIndex.getCurrencyCodes();
+    }
+
+    /**
+     * @return Whether the remove message was sent.
+     */
+    public boolean removeOfferAtShutDown(OfferPayload offerPayload) {
         log.debug("removeOfferAtShutDown " + offerPayload);
-        removeOffer(offerPayload, null, null);
+        return p2PService.removeData(offerPayload, true);
+    }
+
+    // Writes a pending statistics dump
+    public void shutDown() {
+        if (jsonStatisticsWriter != null)
+            jsonStatisticsWriter.shutDown();
     }
 
     public boolean isBootstrapped() {
@@ -200,10 +232,29 @@ public class OfferBookService {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private Offer createOffer(OfferPayload offerPayload) {
+        Offer offer = new Offer(offerPayload);
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
+
+    // The offers of the index are only used for its lookups and sorting, we don't share them
+    private List<Offer> createOffers(List<Offer> indexedOffers) {
+        return indexedOffers.stream()
+                .map(offer -> createOffer(offer.getOfferPayload()))
+                .collect(Collectors.toList());
+    }
+
     private void doDumpStatistics() {
+        if (jsonStatisticsWriter != null)
+            jsonStatisticsWriter.requestWrite("offers_statistics", this::getOfferForJsonList);
+    }
+
+    // The offers need the price feed service which is not thread safe, so we create the OfferForJson objects here
+    private List<OfferForJson> getOfferForJsonList() {
         // We filter the case that it is a MarketBasedPrice but the price is not available
         // That should only be possible if the price feed provider is not available
-        final List<OfferForJson> offerForJsonList = getOffers().stream()
+        return getOffers().stream()
                 .filter(offer -> !offer.isUseMarketBasedPrice() || priceFeedService.getMarketPrice(offer.getCurrencyCode()) != null)
                 .map(offer -> {
                     try {
@@ -226,6 +277,5 @@ public class OfferBookService {
                 })
                 .filter(e -> e != null)
                 .collect(Collectors.toList());
-        jsonFileManager.writeToDisc(Utilities.objectToJson(offerForJsonList), "offers_statistics");
     }
 }
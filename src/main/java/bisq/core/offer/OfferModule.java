@@ -17,6 +17,8 @@
 
 package bisq.core.offer;
 
+import bisq.core.app.AppOptionKeys;
+
 import bisq.common.app.AppModule;
 
 import org.springframework.core.env.Environment;
@@ -25,6 +27,8 @@ import com.google.inject.Singleton;
 
 import lombok.extern.slf4j.Slf4j;
 
+import static com.google.inject.name.Names.named;
+
 @Slf4j
 public class OfferModule extends AppModule {
 
@@ -36,5 +40,8 @@ public class OfferModule extends AppModule {
     protected final void configure() {
         bind(OpenOfferManager.class).in(Singleton.class);
         bind(OfferBookService.class).in(Singleton.class);
+        bind(MarketDepthService.class).in(Singleton.class);
+        bindConstant().annotatedWith(named(AppOptionKeys.OFFER_BATCH_SIZE)).to(environment.getRequiredProperty(AppOptionKeys.OFFER_BATCH_SIZE));
+        bindConstant().annotatedWith(named(AppOptionKeys.OFFER_BATCH_INTERVAL)).to(environment.getRequiredProperty(AppOptionKeys.OFFER_BATCH_INTERVAL));
     }
 }
@@ -17,10 +17,11 @@
 
 package bisq.core.offer;
 
+import bisq.core.app.AppOptionKeys;
 import bisq.core.btc.wallet.BsqWalletService;
 import bisq.core.btc.wallet.BtcWalletService;
 import bisq.core.btc.wallet.TradeWalletService;
-import bisq.core.exceptions.TradePriceOutOfToleranceException;
+import bisq.core.filter.FilterManager;
 import bisq.core.offer.messages.OfferAvailabilityRequest;
 import bisq.core.offer.messages.OfferAvailabilityResponse;
 import bisq.core.offer.placeoffer.PlaceOfferModel;
@@ -61,7 +62,6 @@ import javafx.collections.ObservableList;
 
 import java.io.File;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -84,6 +84,15 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     private static final long REPUBLISH_AGAIN_AT_STARTUP_DELAY_SEC = 30;
     private static final long REPUBLISH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
     private static final long REFRESH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+    // Removing offers is done by the user who waits for it, so we use a shorter interval than for republishing and
+    // refreshing. See OfferBatchScheduler for the throttle limits.
+    private static final long REMOVE_BATCH_INTERVAL_MS = 1000;
+    // At shut down we send all remove messages at once and wait for them to get out before the network node is
+    // closed. We wait 200 ms (what we used to wait per offer) per batch of the remove messages which were actually
+    // sent. As the batch size grows with the square root of the number of offers the wait grows sublinearly
+    // (e.g. 0.7 sec. for 10, 2.5 sec. for 100 and 6.5 sec. for 900 offers).
+    private static final long MIN_SHUT_DOWN_DELAY_MS = 500;
+    private static final long SHUT_DOWN_DELAY_PER_BATCH_MS = 200;
 
     private final KeyRing keyRing;
     private final User user;
@@ -96,8 +105,12 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     private final PriceFeedService priceFeedService;
     private final Preferences preferences;
     private final Storage<TradableList<OpenOffer>> openOfferTradableListStorage;
+    private final OfferBatchScheduler offerBatchScheduler, removeOffersBatchScheduler;
+    private final OfferAvailabilityResponder offerAvailabilityResponder;
     private boolean stopped;
     private Timer periodicRepublishOffersTimer, periodicRefreshOffersTimer, retryRepublishOffersTimer;
+    @Nullable
+    private OfferBatchScheduler.Job<OpenOffer> republishOffersJob, refreshOffersJob;
     private TradableList<OpenOffer> openOffers;
 
 
@@ -117,8 +130,11 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
                             ClosedTradableManager closedTradableManager,
                             PriceFeedService priceFeedService,
                             Preferences preferences,
+                            FilterManager filterManager,
                             PersistenceProtoResolver persistenceProtoResolver,
-                            @Named(Storage.STORAGE_DIR) File storageDir) {
+                            @Named(Storage.STORAGE_DIR) File storageDir,
+                            @Named(AppOptionKeys.OFFER_BATCH_SIZE) int offerBatchSize,
+                            @Named(AppOptionKeys.OFFER_BATCH_INTERVAL) long offerBatchInterval) {
         this.keyRing = keyRing;
         this.user = user;
         this.p2PService = p2PService;
@@ -131,6 +147,10 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         this.preferences = preferences;
 
         openOfferTradableListStorage = new Storage<>(storageDir, persistenceProtoResolver);
+        offerBatchScheduler = new OfferBatchScheduler(offerBatchSize, offerBatchInterval);
+        removeOffersBatchScheduler = new OfferBatchScheduler(offerBatchSize,
+                Math.min(offerBatchInterval, REMOVE_BATCH_INTERVAL_MS));
+        offerAvailabilityResponder = new OfferAvailabilityResponder(this::findOpenOffer, preferences, user, filterManager);
 
         // In case the app did get killed the shutDown from the modules is not called, so we use a shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -184,6 +204,8 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         stopPeriodicRefreshOffersTimer();
         stopPeriodicRepublishOffersTimer();
         stopRetryRepublishOffersTimer();
+        stopRepublishOffersJob();
+        offerBookService.shutDown();
 
         log.debug("remove all open offers at shutDown");
         // we remove own offers from offerbook when we go offline
@@ -191,9 +213,11 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
 
         final int size = openOffers != null ? openOffers.size() : 0;
         if (offerBookService.isBootstrapped() && size > 0) {
-            openOffers.forEach(openOffer -> offerBookService.removeOfferAtShutDown(openOffer.getOffer().getOfferPayload()));
+            long numRemoved = openOffers.stream()
+                    .filter(openOffer -> offerBookService.removeOfferAtShutDown(openOffer.getOffer().getOfferPayload()))
+                    .count();
             if (completeHandler != null)
-                UserThread.runAfter(completeHandler::run, size * 200 + 500, TimeUnit.MILLISECONDS);
+                UserThread.runAfter(completeHandler::run, getShutDownDelay((int) numRemoved), TimeUnit.MILLISECONDS);
         } else {
             if (completeHandler != null)
                 completeHandler.run();
@@ -205,14 +229,15 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     }
 
     public void removeOpenOffers(List<OpenOffer> openOffers, @Nullable Runnable completeHandler) {
-        final int size = openOffers.size();
-        // Copy list as we remove in the loop
-        List<OpenOffer> openOffersList = new ArrayList<>(openOffers);
-        openOffersList.forEach(openOffer -> removeOpenOffer(openOffer, () -> {
-        }, errorMessage -> {
-        }));
-        if (completeHandler != null)
-            UserThread.runAfter(completeHandler::run, size * 200 + 500, TimeUnit.MILLISECONDS);
+        // The scheduler copies the list as we remove in the loop
+        removeOffersBatchScheduler.schedule(openOffers,
+                0,
+                openOffer -> removeOpenOffer(openOffer, () -> {
+                }, errorMessage -> {
+                }),
+                completeHandler != null ?
+                        () -> UserThread.runAfter(completeHandler::run, MIN_SHUT_DOWN_DELAY_MS, TimeUnit.MILLISECONDS) :
+                        null);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -270,6 +295,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         stopPeriodicRefreshOffersTimer();
         stopPeriodicRepublishOffersTimer();
         stopRetryRepublishOffersTimer();
+        stopRepublishOffersJob();
 
         restart();
     }
@@ -418,11 +444,11 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     }
 
     public Optional<OpenOffer> findOpenOffer(String offerId) {
-        return openOffers.stream().filter(openOffer -> openOffer.getId().equals(offerId)).findAny();
+        return openOffers.getTradableById(offerId);
     }
 
     public Optional<OpenOffer> getOpenOfferById(String offerId) {
-        return openOffers.stream().filter(e -> e.getId().equals(offerId)).findFirst();
+        return openOffers.getTradableById(offerId);
     }
 
 
@@ -442,46 +468,10 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
                     return;
                 }
 
-                Optional<OpenOffer> openOfferOptional = findOpenOffer(message.offerId);
-                AvailabilityResult availabilityResult;
-                if (openOfferOptional.isPresent()) {
-                    if (openOfferOptional.get().getState() == OpenOffer.State.AVAILABLE) {
-                        final Offer offer = openOfferOptional.get().getOffer();
-                        if (!preferences.getIgnoreTradersList().stream().filter(i -> i.equals(offer.getMakerNodeAddress().getHostNameWithoutPostFix())).findAny().isPresent()) {
-                            availabilityResult = AvailabilityResult.AVAILABLE;
-
-                            // TODO mediators not impl yet
-                            List<NodeAddress> acceptedArbitrators = user.getAcceptedArbitratorAddresses();
-                            if (acceptedArbitrators != null && !acceptedArbitrators.isEmpty()) {
-                                // Check also tradePrice to avoid failures after taker fee is paid caused by a too big difference
-                                // in trade price between the peers. Also here poor connectivity might cause market price API connection
-                                // losses and therefore an outdated market price.
-                                try {
-                                    offer.checkTradePriceTolerance(message.getTakersTradePrice());
-                                } catch (TradePriceOutOfToleranceException e) {
-                                    log.warn("Trade price check failed because takers price is outside out tolerance.");
-                                    availabilityResult = AvailabilityResult.PRICE_OUT_OF_TOLERANCE;
-                                } catch (MarketPriceNotAvailableException e) {
-                                    log.warn(e.getMessage());
-                                    availabilityResult = AvailabilityResult.MARKET_PRICE_NOT_AVAILABLE;
-                                } catch (Throwable e) {
-                                    log.warn("Trade price check failed. " + e.getMessage());
-                                    availabilityResult = AvailabilityResult.UNKNOWN_FAILURE;
-                                }
-                            } else {
-                                log.warn("acceptedArbitrators is null or empty: acceptedArbitrators=" + acceptedArbitrators);
-                                availabilityResult = AvailabilityResult.NO_ARBITRATORS;
-                            }
-                        } else {
-                            availabilityResult = AvailabilityResult.USER_IGNORED;
-                        }
-                    } else {
-                        availabilityResult = AvailabilityResult.OFFER_TAKEN;
-                    }
-                } else {
-                    log.warn("handleOfferAvailabilityRequest: openOffer not found. That should never happen.");
-                    availabilityResult = AvailabilityResult.OFFER_TAKEN;
-                }
+                AvailabilityResult availabilityResult = offerAvailabilityResponder.getAvailabilityResult(message, sender);
+                if (availabilityResult == null)
+                    return;
+
                 try {
                     p2PService.sendEncryptedDirectMessage(sender,
                             message.getPubKeyRing(),
@@ -515,30 +505,24 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private void republishOffers() {
-        int size = openOffers.size();
-        final ArrayList<OpenOffer> openOffersList = new ArrayList<>(openOffers.getList());
-        Log.traceCall("Number of offer for republish: " + size);
+        Log.traceCall("Number of offer for republish: " + openOffers.size());
         if (!stopped) {
             stopPeriodicRefreshOffersTimer();
-            for (int i = 0; i < size; i++) {
-                // we delay to avoid reaching throttle limits
-
-                long delay = 700;
-                final long minDelay = (i + 1) * delay;
-                final long maxDelay = (i + 2) * delay;
-                final OpenOffer openOffer = openOffersList.get(i);
-                UserThread.runAfterRandomDelay(() -> {
-                    if (openOffers.contains(openOffer)) {
-                        String id = openOffer.getId();
-                        if (id != null && !openOffer.isDeactivated())
-                            republishOffer(openOffer);
-                        else
-                            log.warn("You have an offer with an invalid offer ID: offerID=" + id);
-                    }
-
-
-                }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
-            }
+            stopRepublishOffersJob();
+            // We send the offers in batches to avoid reaching throttle limits.
+            // The job works on a copy of our list, so we need to check if in the meantime the offer has been removed.
+            republishOffersJob = offerBatchScheduler.schedule(openOffers.getList(),
+                    offerBatchScheduler.getBatchIntervalMs(),
+                    openOffer -> {
+                        if (openOffers.contains(openOffer)) {
+                            String id = openOffer.getId();
+                            if (id != null && !openOffer.isDeactivated())
+                                republishOffer(openOffer);
+                            else
+                                log.warn("You have an offer with an invalid offer ID: offerID=" + id);
+                        }
+                    },
+                    null);
         } else {
             log.debug("We have stopped already. We ignore that republishOffers call.");
         }
@@ -593,25 +577,17 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         if (periodicRefreshOffersTimer == null)
             periodicRefreshOffersTimer = UserThread.runPeriodically(() -> {
                         if (!stopped) {
-                            int size = openOffers.size();
-                            Log.traceCall("Number of offer for refresh: " + size);
-
-                            //we clone our list as openOffers might change during our delayed call
-                            final ArrayList<OpenOffer> openOffersList = new ArrayList<>(openOffers.getList());
-                            for (int i = 0; i < size; i++) {
-                                // we delay to avoid reaching throttle limits
-                                // roughly 4 offers per second
-
-                                long delay = 300;
-                                final long minDelay = (i + 1) * delay;
-                                final long maxDelay = (i + 2) * delay;
-                                final OpenOffer openOffer = openOffersList.get(i);
-                                UserThread.runAfterRandomDelay(() -> {
-                                    // we need to check if in the meantime the offer has been removed
-                                    if (openOffers.contains(openOffer) && !openOffer.isDeactivated())
-                                        refreshOffer(openOffer);
-                                }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
-                            }
+                            Log.traceCall("Number of offer for refresh: " + openOffers.size());
+                            // If the previous refresh has not completed we continue with the new list
+                            stopRefreshOffersJob();
+                            // we need to check if in the meantime the offer has been removed
+                            refreshOffersJob = offerBatchScheduler.schedule(openOffers.getList(),
+                                    offerBatchScheduler.getBatchIntervalMs(),
+                                    openOffer -> {
+                                        if (openOffers.contains(openOffer) && !openOffer.isDeactivated())
+                                            refreshOffer(openOffer);
+                                    },
+                                    null);
                         } else {
                             log.debug("We have stopped already. We ignore that periodicRefreshOffersTimer.run call.");
                         }
@@ -650,6 +626,25 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
             periodicRefreshOffersTimer.stop();
             periodicRefreshOffersTimer = null;
         }
+        stopRefreshOffersJob();
+    }
+
+    private void stopRefreshOffersJob() {
+        if (refreshOffersJob != null) {
+            refreshOffersJob.stop();
+            refreshOffersJob = null;
+        }
+    }
+
+    private void stopRepublishOffersJob() {
+        if (republishOffersJob != null) {
+            republishOffersJob.stop();
+            republishOffersJob = null;
+        }
+    }
+
+    private long getShutDownDelay(int numRemovedOffers) {
+        return MIN_SHUT_DOWN_DELAY_MS + removeOffersBatchScheduler.getNumBatches(numRemovedOffers) * SHUT_DOWN_DELAY_PER_BATCH_MS;
     }
 
     private void stopPeriodicRepublishOffersTimer() {
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.payment;
+
+import bisq.core.payment.payload.PaymentAccountPayload;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+
+import bisq.common.crypto.Hash;
+import bisq.common.util.Utilities;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import lombok.EqualsAndHashCode;
+
+/**
+ * Cache of the witness hashes and of the found witnesses by payment account payload and signature pub key. Creating
+ * the hash needs several array concatenations and two hash functions, which is too expensive for calls for each offer
+ * row or trade limit check.
+ * <p/>
+ * The payload is compared by its content, so an edited payload is not found with its old hash. Only found witnesses
+ * are cached, as a witness can be added to the network later but is never removed. The cache gets invalidated if the
+ * payment accounts change. To limit the memory used by the payloads of our peers, we clear it if it gets too large.
+ */
+class AccountAgeWitnessCache {
+    static final int MAX_SIZE = 1000;
+
+    @EqualsAndHashCode(exclude = "signaturePubKeyBytes")
+    private static final class Key {
+        private final PaymentAccountPayload paymentAccountPayload;
+        private final P2PDataStorage.ByteArray signaturePubKey;
+        private final byte[] signaturePubKeyBytes;
+
+        private Key(PaymentAccountPayload paymentAccountPayload, byte[] signaturePubKeyBytes) {
+            this.paymentAccountPayload = paymentAccountPayload;
+            this.signaturePubKey = new P2PDataStorage.ByteArray(signaturePubKeyBytes);
+            this.signaturePubKeyBytes = signaturePubKeyBytes;
+        }
+    }
+
+    private final Map<Key, byte[]> hashByKey = new ConcurrentHashMap<>();
+    private final Map<Key, AccountAgeWitness> witnessByKey = new ConcurrentHashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    byte[] getHash(PaymentAccountPayload paymentAccountPayload, byte[] signaturePubKeyBytes) {
+        return getHash(new Key(paymentAccountPayload, signaturePubKeyBytes));
+    }
+
+    Optional<AccountAgeWitness> findWitness(PaymentAccountPayload paymentAccountPayload,
+                                            byte[] signaturePubKeyBytes,
+                                            Function<byte[], Optional<AccountAgeWitness>> witnessByHash) {
+        Key key = new Key(paymentAccountPayload, signaturePubKeyBytes);
+        AccountAgeWitness cached = witnessByKey.get(key);
+        if (cached != null)
+            return Optional.of(cached);
+
+        Optional<AccountAgeWitness> witnessOptional = witnessByHash.apply(getHash(key));
+        witnessOptional.ifPresent(witness -> put(witnessByKey, key, witness));
+        return witnessOptional;
+    }
+
+    void invalidate() {
+        hashByKey.clear();
+        witnessByKey.clear();
+    }
+
+    int size() {
+        return hashByKey.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private byte[] getHash(Key key) {
+        byte[] hash = hashByKey.get(key);
+        if (hash == null) {
+            hash = createHash(key.paymentAccountPayload, key.signaturePubKeyBytes);
+            put(hashByKey, key, hash);
+        }
+        return hash;
+    }
+
+    private static <V> void put(Map<Key, V> map, Key key, V value) {
+        if (map.size() >= MAX_SIZE)
+            map.clear();
+        map.put(key, value);
+    }
+
+    static byte[] createHash(PaymentAccountPayload paymentAccountPayload, byte[] signaturePubKeyBytes) {
+        byte[] accountInputDataWithSalt = Utilities.concatenateByteArrays(paymentAccountPayload.getAgeWitnessInputData(),
+                paymentAccountPayload.getSalt());
+        return Hash.getSha256Ripemd160hash(Utilities.concatenateByteArrays(accountInputDataWithSalt,
+                signaturePubKeyBytes));
+    }
+}
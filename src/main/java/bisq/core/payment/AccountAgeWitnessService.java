@@ -30,7 +30,6 @@ import bisq.network.p2p.storage.P2PDataStorage;
 
 import bisq.common.UserThread;
 import bisq.common.crypto.CryptoException;
-import bisq.common.crypto.Hash;
 import bisq.common.crypto.KeyRing;
 import bisq.common.crypto.PubKeyRing;
 import bisq.common.crypto.Sig;
@@ -42,6 +41,8 @@ import org.bitcoinj.core.Coin;
 
 import javax.inject.Inject;
 
+import javafx.collections.SetChangeListener;
+
 import java.security.PublicKey;
 
 import java.util.Arrays;
@@ -75,6 +76,7 @@ public class AccountAgeWitnessService {
     private final User user;
 
     private final Map<P2PDataStorage.ByteArray, AccountAgeWitness> accountAgeWitnessMap = new HashMap<>();
+    private final AccountAgeWitnessCache accountAgeWitnessCache = new AccountAgeWitnessCache();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -95,6 +97,9 @@ public class AccountAgeWitnessService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public void onAllServicesInitialized() {
+        user.getPaymentAccountsAsObservable().addListener((SetChangeListener<PaymentAccount>) change ->
+                accountAgeWitnessCache.invalidate());
+
         p2PService.getP2PDataStorage().addPersistableNetworkPayloadMapListener(payload -> {
             if (payload instanceof AccountAgeWitness)
                 addToMap((AccountAgeWitness) payload);
@@ -153,18 +158,19 @@ public class AccountAgeWitnessService {
     }
 
     public AccountAgeWitness getNewWitness(PaymentAccountPayload paymentAccountPayload, PubKeyRing pubKeyRing) {
-        byte[] accountInputDataWithSalt = getAccountInputDataWithSalt(paymentAccountPayload);
-        byte[] hash = Hash.getSha256Ripemd160hash(Utilities.concatenateByteArrays(accountInputDataWithSalt,
-                pubKeyRing.getSignaturePubKeyBytes()));
+        // The witness gets its own copy of the cached hash
+        byte[] hash = getWitnessHash(paymentAccountPayload, pubKeyRing).clone();
         return new AccountAgeWitness(hash, new Date().getTime());
     }
 
     public Optional<AccountAgeWitness> findWitness(PaymentAccountPayload paymentAccountPayload, PubKeyRing pubKeyRing) {
-        byte[] accountInputDataWithSalt = getAccountInputDataWithSalt(paymentAccountPayload);
-        byte[] hash = Hash.getSha256Ripemd160hash(Utilities.concatenateByteArrays(accountInputDataWithSalt,
-                pubKeyRing.getSignaturePubKeyBytes()));
+        return accountAgeWitnessCache.findWitness(paymentAccountPayload, pubKeyRing.getSignaturePubKeyBytes(),
+                this::getWitnessByHash);
+    }
 
-        return getWitnessByHash(hash);
+    // The hash is cached, so it must not be modified or handed out
+    private byte[] getWitnessHash(PaymentAccountPayload paymentAccountPayload, PubKeyRing pubKeyRing) {
+        return accountAgeWitnessCache.getHash(paymentAccountPayload, pubKeyRing.getSignaturePubKeyBytes());
     }
 
     public Optional<AccountAgeWitness> getWitnessByHash(byte[] hash) {
@@ -328,8 +334,7 @@ public class AccountAgeWitnessService {
         if (!verifyPeersCurrentDate(peersCurrentDate, errorMessageHandler))
             return false;
 
-        final byte[] peersAccountInputDataWithSalt = Utilities.concatenateByteArrays(peersPaymentAccountPayload.getAgeWitnessInputData(), peersPaymentAccountPayload.getSalt());
-        byte[] hash = Hash.getSha256Ripemd160hash(Utilities.concatenateByteArrays(peersAccountInputDataWithSalt, peersPubKeyRing.getSignaturePubKeyBytes()));
+        byte[] hash = getWitnessHash(peersPaymentAccountPayload, peersPubKeyRing);
 
         // Check if the hash in the witness data matches the hash derived from the data provided by the peer
         final byte[] peersWitnessHash = peersWitness.getHash();
@@ -0,0 +1,187 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.payment;
+
+import bisq.core.locale.Country;
+import bisq.core.locale.TradeCurrency;
+import bisq.core.offer.Offer;
+import bisq.core.payment.payload.PaymentMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import lombok.EqualsAndHashCode;
+
+import javax.annotation.Nullable;
+
+/**
+ * Index of the payment accounts by the offer properties they can be matched with: currency, payment method, country
+ * and bank id. It is rebuilt when the accounts change, so to find the accounts which are valid for an offer we only
+ * need a few lookups for the candidates instead of checking each account. The candidates are still checked with the
+ * ReceiptValidator, so the result is the same as with PaymentAccountUtil.isPaymentAccountValidForOffer.
+ * <p/>
+ * The index is not thread safe and is expected to be used from the user thread.
+ */
+public class PaymentAccountIndex {
+    // Same value as used in ReceiptPredicates.isMatchingCountryCodes for accounts without country
+    private static final String UNDEFINED_COUNTRY_CODE = "undefined";
+
+    // Accounts of that group can match offers with any of the payment methods of the group, see ReceiptPredicates
+    private enum Group {
+        PAYMENT_METHOD,
+        SEPA,
+        BANK
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String currencyCode;
+        private final Group group;
+        @Nullable
+        private final String paymentMethodId;
+        @Nullable
+        private final String countryCode;
+        @Nullable
+        private final String bankId;
+
+        private Key(String currencyCode, Group group, @Nullable String paymentMethodId,
+                    @Nullable String countryCode, @Nullable String bankId) {
+            this.currencyCode = currencyCode;
+            this.group = group;
+            this.paymentMethodId = paymentMethodId;
+            this.countryCode = countryCode;
+            this.bankId = bankId;
+        }
+    }
+
+    private final Map<Key, List<PaymentAccount>> paymentAccountsByKey = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public PaymentAccountIndex() {
+    }
+
+    public PaymentAccountIndex(Collection<PaymentAccount> paymentAccounts) {
+        setPaymentAccounts(paymentAccounts);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void setPaymentAccounts(@Nullable Collection<PaymentAccount> paymentAccounts) {
+        paymentAccountsByKey.clear();
+        if (paymentAccounts != null)
+            paymentAccounts.forEach(this::add);
+    }
+
+    public boolean isAnyPaymentAccountValidForOffer(Offer offer) {
+        return getCandidates(offer).stream()
+                .anyMatch(paymentAccount -> PaymentAccountUtil.isPaymentAccountValidForOffer(offer, paymentAccount));
+    }
+
+    public List<PaymentAccount> getPossiblePaymentAccounts(Offer offer) {
+        List<PaymentAccount> result = new ArrayList<>();
+        getCandidates(offer).forEach(paymentAccount -> {
+            if (PaymentAccountUtil.isPaymentAccountValidForOffer(offer, paymentAccount))
+                result.add(paymentAccount);
+        });
+        return result;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void add(PaymentAccount paymentAccount) {
+        PaymentMethod paymentMethod = paymentAccount.getPaymentMethod();
+        for (TradeCurrency tradeCurrency : paymentAccount.getTradeCurrencies()) {
+            String currencyCode = tradeCurrency.getCode();
+            if (!(paymentAccount instanceof CountryBasedPaymentAccount)) {
+                put(new Key(currencyCode, Group.PAYMENT_METHOD, paymentMethod.getId(), null, null), paymentAccount);
+                continue;
+            }
+
+            String countryCode = getCountryCode((CountryBasedPaymentAccount) paymentAccount);
+            put(new Key(currencyCode, Group.PAYMENT_METHOD, paymentMethod.getId(), countryCode, null), paymentAccount);
+            if (paymentAccount instanceof SepaAccount || paymentAccount instanceof SepaInstantAccount)
+                put(new Key(currencyCode, Group.SEPA, null, countryCode, null), paymentAccount);
+            if (paymentAccount instanceof BankAccount) {
+                String bankId = ((BankAccount) paymentAccount).getBankId();
+                if (bankId != null)
+                    put(new Key(currencyCode, Group.BANK, null, countryCode, bankId), paymentAccount);
+            }
+        }
+    }
+
+    private void put(Key key, PaymentAccount paymentAccount) {
+        List<PaymentAccount> paymentAccounts = paymentAccountsByKey.computeIfAbsent(key, k -> new ArrayList<>(1));
+        if (!paymentAccounts.contains(paymentAccount))
+            paymentAccounts.add(paymentAccount);
+    }
+
+    // All accounts which might be valid for the offer. An account can be found with several keys, so we use a set.
+    private Set<PaymentAccount> getCandidates(Offer offer) {
+        Set<PaymentAccount> candidates = new LinkedHashSet<>();
+        String currencyCode = offer.getCurrencyCode();
+        PaymentMethod paymentMethod = offer.getPaymentMethod();
+        String paymentMethodId = paymentMethod.getId();
+        addCandidates(candidates, new Key(currencyCode, Group.PAYMENT_METHOD, paymentMethodId, null, null));
+
+        List<String> acceptedCountryCodes = Optional.ofNullable(offer.getAcceptedCountryCodes())
+                .orElse(Collections.emptyList());
+        boolean isSepaOffer = paymentMethod.equals(PaymentMethod.SEPA) || paymentMethod.equals(PaymentMethod.SEPA_INSTANT);
+        boolean isBankOffer = paymentMethod.equals(PaymentMethod.SAME_BANK) ||
+                paymentMethod.equals(PaymentMethod.SPECIFIC_BANKS);
+        List<String> acceptedBankIds = isBankOffer ?
+                Optional.ofNullable(offer.getAcceptedBankIds()).orElse(Collections.emptyList()) :
+                Collections.emptyList();
+        for (String countryCode : acceptedCountryCodes) {
+            addCandidates(candidates, new Key(currencyCode, Group.PAYMENT_METHOD, paymentMethodId, countryCode, null));
+            if (isSepaOffer)
+                addCandidates(candidates, new Key(currencyCode, Group.SEPA, null, countryCode, null));
+            for (String bankId : acceptedBankIds) {
+                addCandidates(candidates, new Key(currencyCode, Group.BANK, null, countryCode, bankId));
+            }
+        }
+        return candidates;
+    }
+
+    private void addCandidates(Set<PaymentAccount> candidates, Key key) {
+        List<PaymentAccount> paymentAccounts = paymentAccountsByKey.get(key);
+        if (paymentAccounts != null)
+            candidates.addAll(paymentAccounts);
+    }
+
+    private static String getCountryCode(CountryBasedPaymentAccount paymentAccount) {
+        Country country = paymentAccount.getCountry();
+        return country != null ? country.code : UNDEFINED_COUNTRY_CODE;
+    }
+}
@@ -39,6 +39,11 @@ public class PaymentAccountUtil {
         return false;
     }
 
+    // Use that variant if called for many offers, e.g. for filtering the offer book
+    public static boolean isAnyPaymentAccountValidForOffer(Offer offer, PaymentAccountIndex paymentAccountIndex) {
+        return paymentAccountIndex.isAnyPaymentAccountValidForOffer(offer);
+    }
+
     public static ObservableList<PaymentAccount> getPossiblePaymentAccounts(Offer offer, Set<PaymentAccount> paymentAccounts) {
         ObservableList<PaymentAccount> result = FXCollections.observableArrayList();
         result.addAll(paymentAccounts.stream()
@@ -47,6 +52,10 @@ public class PaymentAccountUtil {
         return result;
     }
 
+    public static ObservableList<PaymentAccount> getPossiblePaymentAccounts(Offer offer, PaymentAccountIndex paymentAccountIndex) {
+        return FXCollections.observableArrayList(paymentAccountIndex.getPossiblePaymentAccounts(offer));
+    }
+
     // TODO might be used to show more details if we get payment methods updates with diff. limits
     public static String getInfoForMismatchingPaymentMethodLimits(Offer offer, PaymentAccount paymentAccount) {
         // dont translate atm as it is not used so far in the UI just for logs
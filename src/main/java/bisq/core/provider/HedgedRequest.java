@@ -0,0 +1,214 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * Sends a request to the providers in the given order and completes with the first valid response. If we don't have
+ * a response after hedgeDelayMs we send the same request to the next provider as well, so at most
+ * MAX_PARALLEL_REQUESTS requests are open at the same time. A failed request starts the request at the next provider
+ * at once. A hedgeDelayMs of 0 disables the parallel requests.
+ * <p/>
+ * All responses, also the late ones, are reported to the ProviderStats. The blocking http requests cannot be
+ * cancelled, so the responses which arrive after we have completed are only used for the stats.
+ * <p/>
+ * The request must be sent from the user thread. The responses arrive on the threads of the http requests, so we
+ * handle them on the user thread as well, as the timers and the ProviderStats are not thread safe.
+ * Use a new instance for each request.
+ */
+@Slf4j
+public class HedgedRequest<T> {
+    static final int MAX_PARALLEL_REQUESTS = 2;
+
+    interface Scheduler {
+        Timer runAfter(Runnable runnable, long delayMs);
+    }
+
+    private final Function<String, ListenableFuture<T>> requestFunction;
+    private final Predicate<T> resultValidator;
+    private final ProviderStats providerStats;
+    private final long hedgeDelayMs;
+    private final Scheduler scheduler;
+    private final LongSupplier clock;
+    private final Executor callbackExecutor;
+    private final SettableFuture<T> resultFuture = SettableFuture.create();
+
+    private List<String> pendingBaseUrls = new ArrayList<>();
+    private int numOpenRequests;
+    private boolean completed;
+    @Nullable
+    private Timer hedgeTimer;
+    @Nullable
+    private String respondingBaseUrl;
+
+    public HedgedRequest(Function<String, ListenableFuture<T>> requestFunction,
+                         Predicate<T> resultValidator,
+                         ProviderStats providerStats,
+                         long hedgeDelayMs) {
+        this(requestFunction, resultValidator, providerStats, hedgeDelayMs,
+                (runnable, delayMs) -> UserThread.runAfter(runnable, delayMs, TimeUnit.MILLISECONDS),
+                System::currentTimeMillis,
+                UserThread.getExecutor());
+    }
+
+    HedgedRequest(Function<String, ListenableFuture<T>> requestFunction,
+                  Predicate<T> resultValidator,
+                  ProviderStats providerStats,
+                  long hedgeDelayMs,
+                  Scheduler scheduler,
+                  LongSupplier clock,
+                  Executor callbackExecutor) {
+        this.requestFunction = requestFunction;
+        this.resultValidator = resultValidator;
+        this.providerStats = providerStats;
+        this.hedgeDelayMs = hedgeDelayMs;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param baseUrls The providers in the order we want to use them.
+     * @return The future of the first valid response. If all providers failed it fails with the error of the last one.
+     */
+    public SettableFuture<T> request(List<String> baseUrls) {
+        pendingBaseUrls = new ArrayList<>(baseUrls);
+        if (baseUrls.isEmpty()) {
+            completed = true;
+            resultFuture.setException(new IllegalStateException("We do not have any providers"));
+        } else {
+            sendNextRequest();
+        }
+        return resultFuture;
+    }
+
+    /**
+     * @return The base url of the provider which delivered the result or null if we have not completed successfully.
+     */
+    @Nullable
+    public String getRespondingBaseUrl() {
+        return respondingBaseUrl;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void sendNextRequest() {
+        if (completed || pendingBaseUrls.isEmpty() || numOpenRequests >= MAX_PARALLEL_REQUESTS)
+            return;
+
+        String baseUrl = pendingBaseUrls.remove(0);
+        numOpenRequests++;
+        stopHedgeTimer();
+        if (hedgeDelayMs > 0 && !pendingBaseUrls.isEmpty())
+            hedgeTimer = scheduler.runAfter(this::onHedgeDelayPassed, hedgeDelayMs);
+
+        long ts = clock.getAsLong();
+        ListenableFuture<T> future;
+        try {
+            future = requestFunction.apply(baseUrl);
+        } catch (Throwable t) {
+            onFailure(baseUrl, t);
+            return;
+        }
+
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(@Nullable T result) {
+                if (result != null && resultValidator.test(result))
+                    HedgedRequest.this.onSuccess(baseUrl, result, clock.getAsLong() - ts);
+                else
+                    HedgedRequest.this.onFailure(baseUrl, new IllegalStateException("Invalid response from provider " + baseUrl));
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                HedgedRequest.this.onFailure(baseUrl, throwable);
+            }
+        }, callbackExecutor);
+    }
+
+    private void onHedgeDelayPassed() {
+        hedgeTimer = null;
+        if (!completed) {
+            log.info("We did not get a response within {} ms. We send the request to another provider as well.",
+                    hedgeDelayMs);
+            sendNextRequest();
+        }
+    }
+
+    private void onSuccess(String baseUrl, T result, long latencyMs) {
+        providerStats.onSuccess(baseUrl, latencyMs);
+        numOpenRequests--;
+        if (completed) {
+            log.debug("We got a late response from provider {} after {} ms", baseUrl, latencyMs);
+            return;
+        }
+        completed = true;
+        stopHedgeTimer();
+        respondingBaseUrl = baseUrl;
+        resultFuture.set(result);
+    }
+
+    private void onFailure(String baseUrl, Throwable throwable) {
+        log.warn("Request to provider {} failed. error={}", baseUrl, throwable.toString());
+        providerStats.onFailure(baseUrl);
+        numOpenRequests--;
+        if (!completed && pendingBaseUrls.isEmpty() && numOpenRequests == 0) {
+            completed = true;
+            resultFuture.setException(throwable);
+        } else {
+            sendNextRequest();
+        }
+    }
+
+    private void stopHedgeTimer() {
+        if (hedgeTimer != null) {
+            hedgeTimer.stop();
+            hedgeTimer = null;
+        }
+    }
+}
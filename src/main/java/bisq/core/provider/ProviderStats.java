@@ -0,0 +1,138 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rolling latency and error score of the provider nodes. The score is the expected time until we get a valid
+ * response: the moving average of the latency plus a penalty for the moving average of the error rate. Providers we
+ * have not used yet get a default latency, so they are tried before providers which have been slow or failing.
+ * <p/>
+ * After CIRCUIT_BREAKER_THRESHOLD failures in a row we don't use a provider for a cool down period, which doubles
+ * with each further failure. After the cool down the next request is a probe: a success resets the provider, a
+ * failure opens the circuit again.
+ * <p/>
+ * Must be called from the user thread. The HedgedRequest reports the results on the user thread as well.
+ */
+@Slf4j
+public class ProviderStats {
+    static final int CIRCUIT_BREAKER_THRESHOLD = 3;
+    static final long MIN_COOL_DOWN_MS = TimeUnit.MINUTES.toMillis(1);
+    static final long MAX_COOL_DOWN_MS = TimeUnit.MINUTES.toMillis(16);
+    static final long UNKNOWN_LATENCY_MS = 3000;
+    static final long FAILURE_PENALTY_MS = 30_000;
+    // Weight of the latest sample at the moving averages
+    private static final double ALPHA = 0.3;
+
+    private static class Entry {
+        private double latencyMs = UNKNOWN_LATENCY_MS;
+        private double errorRate;
+        private int numFailuresInRow;
+        private long openUntil;
+
+        private double getScore() {
+            return latencyMs + errorRate * FAILURE_PENALTY_MS;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final Map<String, Entry> entryByBaseUrl = new HashMap<>();
+
+    public ProviderStats() {
+        this(System::currentTimeMillis);
+    }
+
+    ProviderStats(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void onSuccess(String baseUrl, long latencyMs) {
+        Entry entry = getEntry(baseUrl);
+        entry.latencyMs = ALPHA * latencyMs + (1 - ALPHA) * entry.latencyMs;
+        entry.errorRate = (1 - ALPHA) * entry.errorRate;
+        if (entry.openUntil != 0)
+            log.info("Provider {} responds again. We close the circuit breaker.", baseUrl);
+        entry.numFailuresInRow = 0;
+        entry.openUntil = 0;
+    }
+
+    public void onFailure(String baseUrl) {
+        Entry entry = getEntry(baseUrl);
+        entry.errorRate = ALPHA + (1 - ALPHA) * entry.errorRate;
+        entry.numFailuresInRow++;
+        if (entry.numFailuresInRow >= CIRCUIT_BREAKER_THRESHOLD) {
+            int exponent = Math.min(entry.numFailuresInRow - CIRCUIT_BREAKER_THRESHOLD, 10);
+            long coolDown = Math.min(MIN_COOL_DOWN_MS << exponent, MAX_COOL_DOWN_MS);
+            entry.openUntil = clock.getAsLong() + coolDown;
+            log.warn("Provider {} failed {} times in a row. We don't use it for the next {} sec.",
+                    baseUrl, entry.numFailuresInRow, coolDown / 1000);
+        }
+    }
+
+    public boolean isAvailable(String baseUrl) {
+        Entry entry = entryByBaseUrl.get(baseUrl);
+        return entry == null || clock.getAsLong() >= entry.openUntil;
+    }
+
+    public double getScore(String baseUrl) {
+        Entry entry = entryByBaseUrl.get(baseUrl);
+        return entry != null ? entry.getScore() : UNKNOWN_LATENCY_MS;
+    }
+
+    /**
+     * @param baseUrls The providers in the order we use if they have the same score.
+     * @return The available providers ordered by their score. If the circuit breaker is open for all providers we
+     * return all of them ordered by the end of their cool down, so a request can still be made.
+     */
+    public List<String> getRankedBaseUrls(List<String> baseUrls) {
+        List<String> available = baseUrls.stream()
+                .filter(this::isAvailable)
+                .sorted(Comparator.comparingDouble(this::getScore))
+                .collect(Collectors.toList());
+        if (!available.isEmpty() || baseUrls.isEmpty())
+            return available;
+
+        List<String> all = new ArrayList<>(baseUrls);
+        all.sort(Comparator.comparingLong(baseUrl -> getEntry(baseUrl).openUntil));
+        return all;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private Entry getEntry(String baseUrl) {
+        return entryByBaseUrl.computeIfAbsent(baseUrl, key -> new Entry());
+    }
+}
@@ -50,6 +50,10 @@ public class ProvidersRepository {
 
     private final String providersFromProgramArgs;
     private final boolean useLocalhostForP2P;
+    @Getter
+    private final long hedgeDelayMs;
+    @Getter
+    private final ProviderStats providerStats = new ProviderStats();
 
     private List<String> providerList;
     @Getter
@@ -67,10 +71,12 @@ public class ProvidersRepository {
     @Inject
     public ProvidersRepository(BisqEnvironment bisqEnvironment,
                                @Named(AppOptionKeys.PROVIDERS) String providers,
-                               @Named(NetworkOptionKeys.USE_LOCALHOST_FOR_P2P) boolean useLocalhostForP2P) {
+                               @Named(NetworkOptionKeys.USE_LOCALHOST_FOR_P2P) boolean useLocalhostForP2P,
+                               @Named(AppOptionKeys.PROVIDER_HEDGE_DELAY) long hedgeDelayMs) {
 
         this.providersFromProgramArgs = providers;
         this.useLocalhostForP2P = useLocalhostForP2P;
+        this.hedgeDelayMs = hedgeDelayMs;
 
         Collections.shuffle(DEFAULT_NODES);
 
@@ -106,6 +112,14 @@ public class ProvidersRepository {
         }
     }
 
+    /**
+     * @return The providers which are not banned, ordered by their latency and error score. Providers with an open
+     * circuit breaker are left out as long as we have others.
+     */
+    public List<String> getRankedProviderBaseUrls() {
+        return providerStats.getRankedBaseUrls(providerList);
+    }
+
     private void fillProviderList() {
         List<String> providers;
         if (providersFromProgramArgs == null || providersFromProgramArgs.isEmpty()) {
@@ -18,7 +18,6 @@
 package bisq.core.provider.fee;
 
 import bisq.core.provider.HttpClientProvider;
-import bisq.core.provider.ProvidersRepository;
 
 import bisq.network.http.HttpClient;
 
@@ -28,8 +27,6 @@ import bisq.common.util.Tuple2;
 import com.google.gson.Gson;
 import com.google.gson.internal.LinkedTreeMap;
 
-import com.google.inject.Inject;
-
 import java.io.IOException;
 
 import java.util.HashMap;
@@ -40,9 +37,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FeeProvider extends HttpClientProvider {
 
-    @Inject
-    public FeeProvider(HttpClient httpClient, ProvidersRepository providersRepository) {
-        super(httpClient, providersRepository.getBaseUrl(), false);
+    // Do not use Guice here as we might create multiple instances
+    public FeeProvider(HttpClient httpClient, String baseUrl) {
+        super(httpClient, baseUrl, false);
     }
 
     public Tuple2<Map<String, Long>, Map<String, Long>> getFees() throws IOException {
@@ -70,4 +67,8 @@ public class FeeProvider extends HttpClientProvider {
         }
         return new Tuple2<>(tsMap, map);
     }
+
+    public String getBaseUrl() {
+        return httpClient.getBaseUrl();
+    }
 }
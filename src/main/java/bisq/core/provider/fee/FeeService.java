@@ -18,6 +18,11 @@
 package bisq.core.provider.fee;
 
 import bisq.core.app.BisqEnvironment;
+import bisq.core.provider.HedgedRequest;
+import bisq.core.provider.ProvidersRepository;
+
+import bisq.network.Socks5ProxyProvider;
+import bisq.network.http.HttpClient;
 
 import bisq.common.UserThread;
 import bisq.common.handlers.FaultHandler;
@@ -39,6 +44,7 @@ import javafx.beans.property.SimpleIntegerProperty;
 import java.time.Instant;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -79,7 +85,10 @@ public class FeeService {
 
     public static final long MIN_PAUSE_BETWEEN_REQUESTS_IN_MIN = 2;
 
-    private final FeeProvider feeProvider;
+    private final Socks5ProxyProvider socks5ProxyProvider;
+    private final ProvidersRepository providersRepository;
+    // We use one http client per provider as the base url is set at the client
+    private final Map<String, FeeProvider> feeProviderByBaseUrl = new ConcurrentHashMap<>();
     private final String baseCurrencyCode;
     private long txFeePerByte;
     private Map<String, Long> timeStampMap;
@@ -94,8 +103,9 @@ public class FeeService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public FeeService(FeeProvider feeProvider) {
-        this.feeProvider = feeProvider;
+    public FeeService(Socks5ProxyProvider socks5ProxyProvider, ProvidersRepository providersRepository) {
+        this.socks5ProxyProvider = socks5ProxyProvider;
+        this.providersRepository = providersRepository;
         baseCurrencyCode = BisqEnvironment.getBaseCurrencyNetwork().getCurrencyCode();
 
         /* How to calculate:
@@ -145,8 +155,14 @@ public class FeeService {
         // We all requests only each 2 minutes
         if (now - lastRequest > MIN_PAUSE_BETWEEN_REQUESTS_IN_MIN * 60) {
             lastRequest = now;
-            FeeRequest feeRequest = new FeeRequest();
-            SettableFuture<Tuple2<Map<String, Long>, Map<String, Long>>> future = feeRequest.getFees(feeProvider);
+            // If a provider does not respond within the hedge delay we request the fees from the next provider as well
+            HedgedRequest<Tuple2<Map<String, Long>, Map<String, Long>>> hedgedRequest = new HedgedRequest<>(
+                    baseUrl -> new FeeRequest().getFees(getFeeProvider(baseUrl)),
+                    result -> result.first.get("bitcoinFeesTs") != null && result.second.get(baseCurrencyCode) != null,
+                    providersRepository.getProviderStats(),
+                    providersRepository.getHedgeDelayMs());
+            SettableFuture<Tuple2<Map<String, Long>, Map<String, Long>>> future =
+                    hedgedRequest.request(providersRepository.getRankedProviderBaseUrls());
             Futures.addCallback(future, new FutureCallback<Tuple2<Map<String, Long>, Map<String, Long>>>() {
                 @Override
                 public void onSuccess(@Nullable Tuple2<Map<String, Long>, Map<String, Long>> result) {
@@ -163,7 +179,8 @@ public class FeeService {
                         }
 
                         feeUpdateCounter.set(feeUpdateCounter.get() + 1);
-                        log.info("{} tx fee: txFeePerByte={}", baseCurrencyCode, txFeePerByte);
+                        log.info("{} tx fee: txFeePerByte={}, provider={}", baseCurrencyCode, txFeePerByte,
+                                hedgedRequest.getRespondingBaseUrl());
                         if (resultHandler != null)
                             resultHandler.run();
                     });
@@ -171,7 +188,7 @@ public class FeeService {
 
                 @Override
                 public void onFailure(@NotNull Throwable throwable) {
-                    log.warn("Could not load fees. feeProvider={}, error={}", feeProvider.toString(), throwable.toString());
+                    log.warn("Could not load fees from any provider. error={}", throwable.toString());
                     if (faultHandler != null)
                         UserThread.execute(() -> faultHandler.handleFault("Could not load fees", throwable));
                 }
@@ -185,6 +202,11 @@ public class FeeService {
         }
     }
 
+    private FeeProvider getFeeProvider(String baseUrl) {
+        return feeProviderByBaseUrl.computeIfAbsent(baseUrl,
+                key -> new FeeProvider(new HttpClient(socks5ProxyProvider), key));
+    }
+
     public Coin getTxFee(int sizeInBytes) {
         return getTxFeePerByte().multiply(sizeInBytes);
     }
@@ -0,0 +1,191 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Copy-on-write table of the market prices. Each update creates a new immutable snapshot, so readers never block and
+ * always see a consistent state of all prices. The version of the table and of each changed currency is increased
+ * with each update, so a cached value which depends on the price of one currency only needs to be calculated again
+ * if the version of that currency has changed.
+ * <p/>
+ * Listeners can subscribe to the changes of a single currency or of all currencies. They are only notified if the
+ * price of a currency has actually changed and are called on the thread of the update after the new snapshot is
+ * visible.
+ */
+public class MarketPriceTable {
+    public interface Listener {
+        void onMarketPriceChanged(String currencyCode, @Nullable MarketPrice marketPrice);
+    }
+
+    public static final class Snapshot {
+        @Getter
+        private final long version;
+        private final Map<String, MarketPrice> marketPriceByCurrencyCode;
+        private final Map<String, Long> versionByCurrencyCode;
+
+        private Snapshot(long version,
+                         Map<String, MarketPrice> marketPriceByCurrencyCode,
+                         Map<String, Long> versionByCurrencyCode) {
+            this.version = version;
+            this.marketPriceByCurrencyCode = marketPriceByCurrencyCode;
+            this.versionByCurrencyCode = versionByCurrencyCode;
+        }
+
+        @Nullable
+        public MarketPrice getMarketPrice(String currencyCode) {
+            return marketPriceByCurrencyCode.get(currencyCode);
+        }
+
+        /**
+         * @return The version at which the price of the currency was changed the last time or 0 if we never had a
+         * price for it.
+         */
+        public long getVersion(String currencyCode) {
+            return versionByCurrencyCode.getOrDefault(currencyCode, 0L);
+        }
+
+        public Map<String, MarketPrice> getMarketPrices() {
+            return Collections.unmodifiableMap(marketPriceByCurrencyCode);
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(0, new HashMap<>(), new HashMap<>());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, List<Listener>> listenersByCurrencyCode = new ConcurrentHashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nullable
+    public MarketPrice getMarketPrice(String currencyCode) {
+        return snapshot.getMarketPrice(currencyCode);
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    public long getVersion(String currencyCode) {
+        return snapshot.getVersion(currencyCode);
+    }
+
+    /**
+     * Applies all prices in one update.
+     *
+     * @return True if at least one price has changed.
+     */
+    public boolean putAll(Map<String, MarketPrice> marketPriceByCurrencyCode) {
+        Map<String, MarketPrice> changed = new LinkedHashMap<>();
+        synchronized (this) {
+            Snapshot current = snapshot;
+            marketPriceByCurrencyCode.forEach((currencyCode, marketPrice) -> {
+                if (!Objects.equals(current.getMarketPrice(currencyCode), marketPrice))
+                    changed.put(currencyCode, marketPrice);
+            });
+            if (!changed.isEmpty())
+                apply(current, changed);
+        }
+        notifyListeners(changed);
+        return !changed.isEmpty();
+    }
+
+    /**
+     * Sets the price if the condition is met by the current price of that currency. The check and the update are
+     * atomic.
+     *
+     * @return True if the price has changed.
+     */
+    public boolean putIf(String currencyCode, MarketPrice marketPrice, Predicate<MarketPrice> condition) {
+        Map<String, MarketPrice> changed;
+        synchronized (this) {
+            Snapshot current = snapshot;
+            MarketPrice currentMarketPrice = current.getMarketPrice(currencyCode);
+            if (!condition.test(currentMarketPrice) || marketPrice.equals(currentMarketPrice))
+                return false;
+
+            changed = Collections.singletonMap(currencyCode, marketPrice);
+            apply(current, changed);
+        }
+        notifyListeners(changed);
+        return true;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addListener(String currencyCode, Listener listener) {
+        listenersByCurrencyCode.computeIfAbsent(currencyCode, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeListener(String currencyCode, Listener listener) {
+        List<Listener> list = listenersByCurrencyCode.get(currencyCode);
+        if (list != null)
+            list.remove(listener);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Must be called while holding the lock
+    private void apply(Snapshot current, Map<String, MarketPrice> changed) {
+        long version = current.getVersion() + 1;
+        Map<String, MarketPrice> marketPrices = new HashMap<>(current.marketPriceByCurrencyCode);
+        Map<String, Long> versions = new HashMap<>(current.versionByCurrencyCode);
+        changed.forEach((currencyCode, marketPrice) -> {
+            marketPrices.put(currencyCode, marketPrice);
+            versions.put(currencyCode, version);
+        });
+        snapshot = new Snapshot(version, marketPrices, versions);
+    }
+
+    private void notifyListeners(Map<String, MarketPrice> changed) {
+        changed.forEach((currencyCode, marketPrice) -> {
+            List<Listener> list = listenersByCurrencyCode.get(currencyCode);
+            if (list != null)
+                list.forEach(listener -> listener.onMarketPriceChanged(currencyCode, marketPrice));
+            listeners.forEach(listener -> listener.onMarketPriceChanged(currencyCode, marketPrice));
+        });
+    }
+}
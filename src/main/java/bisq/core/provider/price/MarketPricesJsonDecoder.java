@@ -0,0 +1,126 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import bisq.common.util.MathUtils;
+import bisq.common.util.Tuple2;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decodes the response of the getAllMarketPrices request of the price nodes with a streaming parser. The market
+ * prices are created directly from the tokens, so we don't build a tree of boxed values first.
+ * <p/>
+ * Expected format:
+ * {"data":[{"currencyCode":"EUR","price":1.0,"timestampSec":1,...},...],"btcAverageTs":1,"poloniexTs":1,...}
+ * Unknown fields are skipped.
+ */
+@Slf4j
+final class MarketPricesJsonDecoder {
+    static final String BTC_AVERAGE_TS = "btcAverageTs";
+    static final String POLONIEX_TS = "poloniexTs";
+    static final String COINMARKETCAP_TS = "coinmarketcapTs";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private MarketPricesJsonDecoder() {
+    }
+
+    static Tuple2<Map<String, Long>, Map<String, MarketPrice>> decode(String json) throws IOException {
+        Map<String, Long> tsMap = new HashMap<>();
+        Map<String, MarketPrice> marketPriceMap = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (fieldName) {
+                    case "data":
+                        expect(token, JsonToken.START_ARRAY);
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (token == JsonToken.START_OBJECT)
+                                decodeMarketPrice(parser, marketPriceMap);
+                            else if (token == null)
+                                throw new IOException("Unexpected end of market prices response");
+                            else
+                                parser.skipChildren();
+                        }
+                        break;
+                    case BTC_AVERAGE_TS:
+                    case POLONIEX_TS:
+                    case COINMARKETCAP_TS:
+                        // json uses double for our timestamp long value
+                        tsMap.put(fieldName, (long) parser.getDoubleValue());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+
+        for (String key : new String[]{BTC_AVERAGE_TS, POLONIEX_TS, COINMARKETCAP_TS}) {
+            if (!tsMap.containsKey(key))
+                throw new IOException("Missing field " + key + " at market prices response");
+        }
+        return new Tuple2<>(tsMap, marketPriceMap);
+    }
+
+    // An invalid entry is only logged, like that we still get the prices of the other currencies
+    private static void decodeMarketPrice(JsonParser parser, Map<String, MarketPrice> marketPriceMap) throws IOException {
+        String currencyCode = null;
+        Double price = null;
+        Long timestampSec = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "currencyCode":
+                    currencyCode = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    break;
+                case "price":
+                    price = token.isNumeric() ? parser.getDoubleValue() : null;
+                    break;
+                case "timestampSec":
+                    timestampSec = token.isNumeric() ? MathUtils.doubleToLong(parser.getDoubleValue()) : null;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (currencyCode != null && price != null && timestampSec != null)
+            marketPriceMap.put(currencyCode, new MarketPrice(currencyCode, price, timestampSec, true));
+        else
+            log.error("Invalid market price entry. currencyCode={}, price={}, timestampSec={}",
+                    currencyCode, price, timestampSec);
+    }
+
+    private static void expect(JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected)
+            throw new IOException("Unexpected token at market prices response. Expected " + expected + " but got " + token);
+    }
+}
@@ -21,10 +21,12 @@ import bisq.core.app.BisqEnvironment;
 import bisq.core.locale.CurrencyUtil;
 import bisq.core.locale.TradeCurrency;
 import bisq.core.monetary.Price;
+import bisq.core.provider.HedgedRequest;
 import bisq.core.provider.ProvidersRepository;
 import bisq.core.trade.statistics.TradeStatistics2;
 import bisq.core.user.Preferences;
 
+import bisq.network.Socks5ProxyProvider;
 import bisq.network.http.HttpClient;
 
 import bisq.common.Timer;
@@ -48,13 +50,12 @@ import javafx.beans.property.StringProperty;
 
 import java.time.Instant;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
@@ -67,15 +68,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 @Slf4j
 public class PriceFeedService {
-    private final HttpClient httpClient;
+    private final Socks5ProxyProvider socks5ProxyProvider;
     private final ProvidersRepository providersRepository;
     private final Preferences preferences;
 
     private static final long PERIOD_SEC = 60;
 
-    private final Map<String, MarketPrice> cache = new HashMap<>();
+    // Written from the user thread, but the prices are read from other threads as well
+    private final MarketPriceTable cache = new MarketPriceTable();
     private final String baseCurrencyCode;
-    private PriceProvider priceProvider;
+    // We use one http client per provider as the base url is set at the client
+    private final Map<String, PriceProvider> priceProviderByBaseUrl = new ConcurrentHashMap<>();
     @Nullable
     private Consumer<Double> priceConsumer;
     @Nullable
@@ -90,7 +93,14 @@ public class PriceFeedService {
     @Nullable
     private String baseUrlOfRespondingProvider;
     @Nullable
+    private String baseUrlOfLastRespondingProvider;
+    @Nullable
+    private HedgedRequest<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> hedgedRequest;
+    @Nullable
     private Timer requestTimer;
+    // The provider returns the same result object if the data have not changed since the last request
+    @Nullable
+    private Tuple2<Map<String, Long>, Map<String, MarketPrice>> lastAppliedResult;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -98,16 +108,13 @@ public class PriceFeedService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public PriceFeedService(@SuppressWarnings("SameParameterValue") HttpClient httpClient,
+    public PriceFeedService(@SuppressWarnings("SameParameterValue") Socks5ProxyProvider socks5ProxyProvider,
                             @SuppressWarnings("SameParameterValue") ProvidersRepository providersRepository,
                             @SuppressWarnings("SameParameterValue") Preferences preferences) {
-        this.httpClient = httpClient;
+        this.socks5ProxyProvider = socks5ProxyProvider;
         this.providersRepository = providersRepository;
         this.preferences = preferences;
 
-        // Do not use Guice for PriceProvider as we might create multiple instances
-        this.priceProvider = new PriceProvider(httpClient, providersRepository.getBaseUrl());
-
         baseCurrencyCode = BisqEnvironment.getBaseCurrencyNetwork().getCurrencyCode();
     }
 
@@ -136,29 +143,30 @@ public class PriceFeedService {
     }
 
     public String getProviderNodeAddress() {
-        return httpClient.getBaseUrl();
+        return baseUrlOfLastRespondingProvider != null ? baseUrlOfLastRespondingProvider : providersRepository.getBaseUrl();
     }
 
     private void request(boolean repeatRequests) {
+        List<String> baseUrls = providersRepository.getRankedProviderBaseUrls();
         if (requestTs == 0)
-            log.info("request from provider {}",
-                    providersRepository.getBaseUrl());
+            log.info("request from providers {}", baseUrls);
         else
-            log.info("request from provider {} {} sec. after last request",
-                    providersRepository.getBaseUrl(),
+            log.info("request from providers {} {} sec. after last request",
+                    baseUrls,
                     (System.currentTimeMillis() - requestTs) / 1000d);
 
         requestTs = System.currentTimeMillis();
 
         baseUrlOfRespondingProvider = null;
 
-        requestAllPrices(priceProvider, () -> {
-            baseUrlOfRespondingProvider = priceProvider.getBaseUrl();
+        requestAllPrices(baseUrls, baseUrl -> {
+            baseUrlOfRespondingProvider = baseUrl;
+            baseUrlOfLastRespondingProvider = baseUrl;
 
             // At applyPriceToConsumer we also check if price is not exceeding max. age for price data.
             boolean success = applyPriceToConsumer();
             if (success) {
-                final MarketPrice marketPrice = cache.get(currencyCode);
+                final MarketPrice marketPrice = cache.getMarketPrice(currencyCode);
                 if (marketPrice != null)
                     log.info("Received new {} from provider {} after {} sec.",
                             marketPrice,
@@ -176,22 +184,8 @@ public class PriceFeedService {
                 retryWithNewProvider();
             }
         }, (errorMessage, throwable) -> {
-            if (throwable instanceof PriceRequestException) {
-                final String baseUrlOfFaultyRequest = ((PriceRequestException) throwable).priceProviderBaseUrl;
-                final String baseUrlOfCurrentRequest = priceProvider.getBaseUrl();
-                if (baseUrlOfFaultyRequest != null && baseUrlOfCurrentRequest.equals(baseUrlOfFaultyRequest)) {
-                    log.warn("We received an error: baseUrlOfCurrentRequest={}, baseUrlOfFaultyRequest={}",
-                            baseUrlOfCurrentRequest, baseUrlOfFaultyRequest);
-                    retryWithNewProvider();
-                } else {
-                    log.info("We received an error from an earlier request. We have started a new request already so we ignore that error. " +
-                                    "baseUrlOfCurrentRequest={}, baseUrlOfFaultyRequest={}",
-                            baseUrlOfCurrentRequest, baseUrlOfFaultyRequest);
-                }
-            } else {
-                log.warn("We received an error with throwable={}", throwable);
-                retryWithNewProvider();
-            }
+            log.warn("We received an error from all providers. Last error={}", throwable.toString());
+            retryWithNewProvider();
 
             if (faultHandler != null)
                 faultHandler.handleFault(errorMessage, throwable);
@@ -203,13 +197,10 @@ public class PriceFeedService {
 
             long delay = PERIOD_SEC + new Random().nextInt(5);
             requestTimer = UserThread.runAfter(() -> {
-                // If we have not received a result from the last request. We try a new provider.
-                if (baseUrlOfRespondingProvider == null) {
-                    final String oldBaseUrl = priceProvider.getBaseUrl();
-                    setNewPriceProvider();
-                    log.warn("We did not received a response from provider {}. " +
-                            "We select the new provider {} and use that for a new request.", oldBaseUrl, priceProvider.getBaseUrl());
-                }
+                // If we have not received a result from the last request we start a new one. The ranking of the
+                // providers is updated as soon as their requests fail or time out.
+                if (baseUrlOfRespondingProvider == null)
+                    log.warn("We did not received a response from the providers {}.", baseUrls);
                 request(true);
             }, delay);
         }
@@ -220,36 +211,50 @@ public class PriceFeedService {
         UserThread.runAfter(() -> {
             retryDelay = Math.min(retryDelay + 5, PERIOD_SEC);
 
-            final String oldBaseUrl = priceProvider.getBaseUrl();
-            setNewPriceProvider();
-            log.warn("We received an error at the request from provider {}. " +
-                    "We select the new provider {} and use that for a new request. retryDelay was {} sec.", oldBaseUrl, priceProvider.getBaseUrl(), retryDelay);
+            // The failed providers are ranked lower now or are skipped if their circuit breaker is open
+            log.warn("We received an error at the last request. We start a new request with the providers {}. " +
+                    "retryDelay was {} sec.", providersRepository.getRankedProviderBaseUrls(), retryDelay);
 
             request(true);
         }, retryDelay);
     }
 
-    private void setNewPriceProvider() {
-        providersRepository.selectNextProviderBaseUrl();
-        if (!providersRepository.getBaseUrl().isEmpty())
-            priceProvider = new PriceProvider(httpClient, providersRepository.getBaseUrl());
-        else
-            log.warn("We cannot create a new priceProvider because new base url is empty.");
-    }
-
     @Nullable
     public MarketPrice getMarketPrice(String currencyCode) {
-        return cache.getOrDefault(currencyCode, null);
+        return cache.getMarketPrice(currencyCode);
+    }
+
+    /**
+     * @return The version of the last change of the price of that currency. A value which depends only on that price
+     * needs to be calculated again only if the version has changed.
+     */
+    public long getMarketPriceVersion(String currencyCode) {
+        return cache.getVersion(currencyCode);
+    }
+
+    /**
+     * @return A consistent view of all market prices at the time of the call.
+     */
+    public MarketPriceTable.Snapshot getMarketPriceSnapshot() {
+        return cache.getSnapshot();
+    }
+
+    public void addMarketPriceListener(String currencyCode, MarketPriceTable.Listener listener) {
+        cache.addListener(currencyCode, listener);
+    }
+
+    public void removeMarketPriceListener(String currencyCode, MarketPriceTable.Listener listener) {
+        cache.removeListener(currencyCode, listener);
     }
 
     private void setBisqMarketPrice(String currencyCode, Price price) {
-        if (!cache.containsKey(currencyCode) || !cache.get(currencyCode).isExternallyProvidedPrice()) {
-            cache.put(currencyCode, new MarketPrice(currencyCode,
-                    MathUtils.scaleDownByPowerOf10(price.getValue(), CurrencyUtil.isCryptoCurrency(currencyCode) ? 8 : 4),
-                    0,
-                    false));
+        MarketPrice marketPrice = new MarketPrice(currencyCode,
+                MathUtils.scaleDownByPowerOf10(price.getValue(), CurrencyUtil.isCryptoCurrency(currencyCode) ? 8 : 4),
+                0,
+                false);
+        // We don't overwrite a price from the price feed
+        if (cache.putIf(currencyCode, marketPrice, current -> current == null || !current.isExternallyProvidedPrice()))
             updateCounter.set(updateCounter.get() + 1);
-        }
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -302,28 +307,9 @@ public class PriceFeedService {
             return new Date();
     }
 
-    public void applyLatestBisqMarketPrice(HashSet<TradeStatistics2> tradeStatisticsSet) {
-        // takes about 10 ms for 5000 items
-        Map<String, List<TradeStatistics2>> mapByCurrencyCode = new HashMap<>();
-        tradeStatisticsSet.forEach(e -> {
-            final List<TradeStatistics2> list;
-            final String currencyCode = e.getCurrencyCode();
-            if (mapByCurrencyCode.containsKey(currencyCode)) {
-                list = mapByCurrencyCode.get(currencyCode);
-            } else {
-                list = new ArrayList<>();
-                mapByCurrencyCode.put(currencyCode, list);
-            }
-            list.add(e);
-        });
-
-        mapByCurrencyCode.values().stream()
-                .filter(list -> !list.isEmpty())
-                .forEach(list -> {
-                    list.sort((o1, o2) -> o1.getTradeDate().compareTo(o2.getTradeDate()));
-                    TradeStatistics2 tradeStatistics = list.get(list.size() - 1);
-                    setBisqMarketPrice(tradeStatistics.getCurrencyCode(), tradeStatistics.getTradePrice());
-                });
+    // Applies the price of the latest trade of a currency
+    public void applyBisqMarketPrice(TradeStatistics2 latestTradeStatistics) {
+        setBisqMarketPrice(latestTradeStatistics.getCurrencyCode(), latestTradeStatistics.getTradePrice());
     }
 
 
@@ -335,10 +321,10 @@ public class PriceFeedService {
         boolean result = false;
         String errorMessage = null;
         if (currencyCode != null) {
-            final String baseUrl = priceProvider.getBaseUrl();
-            if (cache.containsKey(currencyCode)) {
+            final String baseUrl = getProviderNodeAddress();
+            MarketPrice marketPrice = cache.getMarketPrice(currencyCode);
+            if (marketPrice != null) {
                 try {
-                    MarketPrice marketPrice = cache.get(currencyCode);
                     if (marketPrice.isExternallyProvidedPrice()) {
                         if (marketPrice.isRecentPriceAvailable()) {
                             if (priceConsumer != null)
@@ -384,15 +370,29 @@ public class PriceFeedService {
         return result;
     }
 
-    private void requestAllPrices(PriceProvider provider, Runnable resultHandler, FaultHandler faultHandler) {
+    private void requestAllPrices(List<String> baseUrls, Consumer<String> resultHandler, FaultHandler faultHandler) {
         Log.traceCall();
-        PriceRequest priceRequest = new PriceRequest();
-        SettableFuture<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> future = priceRequest.requestAllPrices(provider);
+        // If a provider does not respond within the hedge delay we request the prices from the next provider as well
+        HedgedRequest<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> request = new HedgedRequest<>(
+                baseUrl -> new PriceRequest().requestAllPrices(getPriceProvider(baseUrl)),
+                result -> !result.second.isEmpty(),
+                providersRepository.getProviderStats(),
+                providersRepository.getHedgeDelayMs());
+        hedgedRequest = request;
+        SettableFuture<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> future = request.request(baseUrls);
         Futures.addCallback(future, new FutureCallback<Tuple2<Map<String, Long>, Map<String, MarketPrice>>>() {
             @Override
             public void onSuccess(@Nullable Tuple2<Map<String, Long>, Map<String, MarketPrice>> result) {
                 UserThread.execute(() -> {
                     checkNotNull(result, "Result must not be null at requestAllPrices");
+                    final String baseUrl = request.getRespondingBaseUrl();
+                    if (result == lastAppliedResult) {
+                        log.debug("Market prices from provider {} have not changed", baseUrl);
+                        resultHandler.accept(baseUrl);
+                        return;
+                    }
+
+                    lastAppliedResult = result;
                     timeStampMap = result.first;
                     epochInSecondAtLastRequest = timeStampMap.get("btcAverageTs");
                     final Map<String, MarketPrice> priceMap = result.second;
@@ -436,14 +436,27 @@ public class PriceFeedService {
                             throw new RuntimeException("baseCurrencyCode not defined. baseCurrencyCode=" + baseCurrencyCode);
                     }
 
-                    resultHandler.run();
+                    resultHandler.accept(baseUrl);
                 });
             }
 
             @Override
             public void onFailure(@NotNull Throwable throwable) {
-                UserThread.execute(() -> faultHandler.handleFault("Could not load marketPrices", throwable));
+                UserThread.execute(() -> {
+                    if (request == hedgedRequest) {
+                        faultHandler.handleFault("Could not load marketPrices", throwable);
+                    } else {
+                        log.info("We received an error from an earlier request. We have started a new request " +
+                                "already so we ignore that error. error={}", throwable.toString());
+                    }
+                });
             }
         });
     }
+
+    private PriceProvider getPriceProvider(String baseUrl) {
+        // Do not use Guice for PriceProvider as we might create multiple instances
+        return priceProviderByBaseUrl.computeIfAbsent(baseUrl,
+                key -> new PriceProvider(new HttpClient(socks5ProxyProvider), key));
+    }
 }
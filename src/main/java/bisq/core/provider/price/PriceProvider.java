@@ -22,56 +22,46 @@ import bisq.core.provider.HttpClientProvider;
 import bisq.network.http.HttpClient;
 
 import bisq.common.app.Version;
-import bisq.common.util.MathUtils;
 import bisq.common.util.Tuple2;
 
-import com.google.gson.Gson;
-import com.google.gson.internal.LinkedTreeMap;
-
 import java.io.IOException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 public class PriceProvider extends HttpClientProvider {
+    // The price nodes update their data only every minute, so we often get the same response again
+    @Nullable
+    private String lastResponse;
+    @Nullable
+    private Tuple2<Map<String, Long>, Map<String, MarketPrice>> lastResult;
 
     // Do not use Guice here as we might create multiple instances
     public PriceProvider(HttpClient httpClient, String baseUrl) {
         super(httpClient, baseUrl, false);
     }
 
-    public Tuple2<Map<String, Long>, Map<String, MarketPrice>> getAll() throws IOException {
-        Map<String, MarketPrice> marketPriceMap = new HashMap<>();
+    /**
+     * @return The timestamps of the price sources and the market prices. If the response has not changed since the
+     * last request we return the same (unmodified) result object again.
+     */
+    public synchronized Tuple2<Map<String, Long>, Map<String, MarketPrice>> getAll() throws IOException {
         String json = httpClient.requestWithGET("getAllMarketPrices", "User-Agent", "bisq/"
                 + Version.VERSION + ", uid:" + httpClient.getUid());
-        //noinspection unchecked
-        LinkedTreeMap<String, Object> map = new Gson().fromJson(json, LinkedTreeMap.class);
-        Map<String, Long> tsMap = new HashMap<>();
-        tsMap.put("btcAverageTs", ((Double) map.get("btcAverageTs")).longValue());
-        tsMap.put("poloniexTs", ((Double) map.get("poloniexTs")).longValue());
-        tsMap.put("coinmarketcapTs", ((Double) map.get("coinmarketcapTs")).longValue());
-
-        //noinspection unchecked
-        List<LinkedTreeMap<String, Object>> list = (ArrayList<LinkedTreeMap<String, Object>>) map.get("data");
-        list.forEach(treeMap -> {
-            try {
-                final String currencyCode = (String) treeMap.get("currencyCode");
-                final double price = (double) treeMap.get("price");
-                // json uses double for our timestampSec long value...
-                final long timestampSec = MathUtils.doubleToLong((double) treeMap.get("timestampSec"));
-                marketPriceMap.put(currencyCode, new MarketPrice(currencyCode, price, timestampSec, true));
-            } catch (Throwable t) {
-                log.error(t.toString());
-                t.printStackTrace();
-            }
+        if (lastResult != null && json.equals(lastResponse)) {
+            log.debug("Market prices have not changed since last request");
+            return lastResult;
+        }
 
-        });
-        return new Tuple2<>(tsMap, marketPriceMap);
+        Tuple2<Map<String, Long>, Map<String, MarketPrice>> result = MarketPricesJsonDecoder.decode(json);
+        lastResponse = json;
+        lastResult = new Tuple2<>(Collections.unmodifiableMap(result.first), Collections.unmodifiableMap(result.second));
+        return lastResult;
     }
 
     public String getBaseUrl() {
@@ -0,0 +1,436 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.storage.Storage;
+import bisq.common.util.Utilities;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Archive for closed or failed tradables. The tradables are partitioned by the month of their date, each partition
+ * is a TradableList persisted in its own file. At startup we only read a compact index with a TradableSummary per
+ * tradable. The partitions are loaded on demand, e.g. if a tradable is looked up by its id, and stay loaded
+ * afterwards. A change of a tradable only writes the partition it belongs to.
+ * <p/>
+ * Only the tradables of loaded partitions can change their state, so we refresh their summaries before we read the
+ * summaries and at shutdown. If the index is missing or cannot be read we rebuild it from the partitions.
+ * <p/>
+ * The owner has to call shutDown at the shutdown of the app.
+ */
+@Slf4j
+public class TradableArchive<T extends Tradable> {
+    private static final int INDEX_VERSION = 1;
+    private static final String INDEX_FILE_NAME = "index";
+    private static final Pattern PARTITION_FILE_NAME_PATTERN = Pattern.compile("\\d{4}-\\d{2}");
+
+    private final File storageDir;
+    private final File dir;
+    private final String legacyFileName;
+    private final PersistenceProtoResolver persistenceProtoResolver;
+    private final BiConsumer<T, Storage<TradableList<T>>> loadHandler;
+    private final int numMaxBackupFiles;
+    private final ListeningExecutorService executor;
+
+    private final Map<String, TradableSummary> summaryById = new LinkedHashMap<>();
+    private final Map<String, Partition> partitionByKey = new TreeMap<>();
+    @Nullable
+    private ObservableList<T> allTradables;
+
+    private class Partition {
+        private final String key;
+        private final Storage<TradableList<T>> storage;
+        @Nullable
+        private TradableList<T> tradableList;
+
+        private Partition(String key) {
+            this.key = key;
+            storage = new Storage<>(dir, persistenceProtoResolver);
+            storage.setNumMaxBackupFiles(numMaxBackupFiles);
+        }
+
+        private boolean isLoaded() {
+            return tradableList != null;
+        }
+
+        private TradableList<T> load() {
+            if (tradableList == null) {
+                long ts = System.currentTimeMillis();
+                tradableList = new TradableList<>(storage, key);
+                tradableList.forEach(tradable -> loadHandler.accept(tradable, storage));
+                log.info("Loading partition {} with {} tradables from {} took {} ms",
+                        key, tradableList.size(), dir, System.currentTimeMillis() - ts);
+                if (refreshSummaries(tradableList.getList()))
+                    writeIndex();
+            }
+            return tradableList;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param storageDir        The directory of the app storage.
+     * @param legacyFileName    File name of the list which held all tradables before we used the archive. The archive
+     *                          is stored in a directory with that name and an "_archive" suffix.
+     * @param loadHandler       Called for each tradable after it got loaded or added, for setting the transient
+     *                          fields. The storage is the one of the partition of the tradable.
+     * @param numMaxBackupFiles Max. number of backup files per partition.
+     */
+    public TradableArchive(File storageDir,
+                           String legacyFileName,
+                           PersistenceProtoResolver persistenceProtoResolver,
+                           BiConsumer<T, Storage<TradableList<T>>> loadHandler,
+                           int numMaxBackupFiles) {
+        this.storageDir = storageDir;
+        this.dir = new File(storageDir, legacyFileName + "_archive");
+        this.legacyFileName = legacyFileName;
+        this.persistenceProtoResolver = persistenceProtoResolver;
+        this.loadHandler = loadHandler;
+        this.numMaxBackupFiles = numMaxBackupFiles;
+        executor = Utilities.getListeningSingleThreadExecutor("TradableArchive-" + legacyFileName);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public synchronized void readPersisted() {
+        if (!dir.exists() && !dir.mkdirs())
+            log.error("Could not create directory {}", dir);
+
+        if (!readIndex())
+            rebuildIndex();
+
+        migrateLegacyList();
+    }
+
+    public synchronized boolean contains(String id) {
+        return summaryById.containsKey(id);
+    }
+
+    public synchronized void add(T tradable) {
+        String id = tradable.getId();
+        if (summaryById.containsKey(id)) {
+            log.warn("We have already archived a tradable with id {}", id);
+            return;
+        }
+
+        TradableSummary summary = TradableSummary.from(tradable);
+        Partition partition = getOrCreatePartition(getPartitionKey(summary.getDate()));
+        partition.load().add(tradable);
+        loadHandler.accept(tradable, partition.storage);
+        summaryById.put(id, summary);
+        if (allTradables != null)
+            allTradables.add(tradable);
+        writeIndex();
+    }
+
+    public synchronized Collection<TradableSummary> getSummaries() {
+        refreshLoadedSummaries();
+        return new ArrayList<>(summaryById.values());
+    }
+
+    public synchronized Optional<T> getTradableById(String id) {
+        TradableSummary summary = summaryById.get(id);
+        if (summary == null)
+            return Optional.empty();
+
+        return getOrCreatePartition(getPartitionKey(summary.getDate())).load().getTradableById(id);
+    }
+
+    /**
+     * Loads only the partitions which contain tradables matching the filter.
+     */
+    public synchronized Stream<T> getTradables(Predicate<TradableSummary> filter) {
+        refreshLoadedSummaries();
+        List<String> ids = summaryById.values().stream()
+                .filter(filter)
+                .map(TradableSummary::getId)
+                .collect(Collectors.toList());
+        return ids.stream()
+                .map(this::getTradableById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList())
+                .stream();
+    }
+
+    /**
+     * Loads all partitions at the first call. Added tradables get added to the returned list as well.
+     */
+    public synchronized ObservableList<T> getList() {
+        if (allTradables == null) {
+            ObservableList<T> list = FXCollections.observableArrayList();
+            partitionByKey.values().forEach(partition -> list.addAll(partition.load().getList()));
+            allTradables = list;
+        }
+        return allTradables;
+    }
+
+    public synchronized void shutDown() {
+        if (executor.isShutdown())
+            return;
+
+        refreshLoadedSummaries();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private Partition getOrCreatePartition(String key) {
+        return partitionByKey.computeIfAbsent(key, Partition::new);
+    }
+
+    private static String getPartitionKey(long date) {
+        return YearMonth.from(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC)).toString();
+    }
+
+    private void refreshLoadedSummaries() {
+        List<T> loadedTradables = partitionByKey.values().stream()
+                .filter(Partition::isLoaded)
+                .flatMap(partition -> partition.load().stream())
+                .collect(Collectors.toList());
+        if (refreshSummaries(loadedTradables))
+            writeIndex();
+    }
+
+    // Returns true if a summary has changed
+    private boolean refreshSummaries(Collection<T> tradables) {
+        boolean changed = false;
+        for (T tradable : tradables) {
+            TradableSummary summary = TradableSummary.from(tradable);
+            if (!summary.equals(summaryById.put(tradable.getId(), summary)))
+                changed = true;
+        }
+        return changed;
+    }
+
+    private boolean readIndex() {
+        File indexFile = new File(dir, INDEX_FILE_NAME);
+        if (!indexFile.exists())
+            return false;
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            int version = inputStream.readInt();
+            if (version != INDEX_VERSION) {
+                log.warn("Index {} has version {}, expected {}", indexFile, version, INDEX_VERSION);
+                return false;
+            }
+
+            int size = inputStream.readInt();
+            Map<String, TradableSummary> map = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                TradableSummary summary = TradableSummary.read(inputStream);
+                map.put(summary.getId(), summary);
+            }
+            summaryById.putAll(map);
+            map.values().forEach(summary -> getOrCreatePartition(getPartitionKey(summary.getDate())));
+            log.info("Read index of {} with {} tradables", dir, size);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not read index {}. We rebuild it. {}", indexFile, e.toString());
+            summaryById.clear();
+            partitionByKey.clear();
+            return false;
+        }
+    }
+
+    private void rebuildIndex() {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files) {
+            if (file.isFile() && PARTITION_FILE_NAME_PATTERN.matcher(file.getName()).matches())
+                refreshSummaries(getOrCreatePartition(file.getName()).load().getList());
+        }
+        log.info("Rebuilt index of {} with {} tradables", dir, summaryById.size());
+        writeIndex();
+    }
+
+    // Older versions have persisted all tradables in one file. We move them to the archive and rename the old file
+    // so it does not get imported again. The partitions and the index are written before we rename, otherwise a crash
+    // in between would lose the tradables. If we crash before the rename, the next start repeats the migration and
+    // skips the tradables which are already archived.
+    private void migrateLegacyList() {
+        File legacyFile = new File(storageDir, legacyFileName);
+        if (!legacyFile.exists())
+            return;
+
+        Storage<TradableList<T>> legacyStorage = new Storage<>(storageDir, persistenceProtoResolver);
+        TradableList<T> persisted = legacyStorage.initAndGetPersistedWithFileName(legacyFileName, 100);
+        if (persisted != null) {
+            Set<Partition> partitions = new HashSet<>();
+            persisted.forEach(tradable -> {
+                String id = tradable.getId();
+                if (summaryById.containsKey(id))
+                    return;
+
+                TradableSummary summary = TradableSummary.from(tradable);
+                Partition partition = getOrCreatePartition(getPartitionKey(summary.getDate()));
+                // The index might be older than the partition if we got killed while writing them
+                if (partition.load().containsId(id))
+                    return;
+
+                partition.load().add(tradable);
+                loadHandler.accept(tradable, partition.storage);
+                summaryById.put(id, summary);
+                partitions.add(partition);
+            });
+
+            boolean written = partitions.stream().allMatch(this::writePartitionNow) && writeIndexNow();
+            if (!written) {
+                log.error("Could not write the migrated tradables of {}. We keep the file for the next start.",
+                        legacyFileName);
+                return;
+            }
+            log.info("Migrated {} tradables of {} to {} partitions", persisted.size(), legacyFileName,
+                    partitions.size());
+        }
+
+        // We keep the old file as backup
+        File migratedFile = new File(storageDir, legacyFileName + "_migrated");
+        if (!legacyFile.renameTo(migratedFile))
+            log.error("Could not rename {} to {}", legacyFile, migratedFile);
+    }
+
+    private void writeIndex() {
+        if (executor.isShutdown())
+            return;
+
+        // We serialize on the calling thread and write on the executor
+        byte[] bytes = serializeIndex();
+        if (bytes != null)
+            executor.submit(() -> writeFile(new File(dir, INDEX_FILE_NAME), bytes));
+    }
+
+    // Writes the index on the executor, so it stays ordered with previous index writes, and blocks until it is written
+    private boolean writeIndexNow() {
+        byte[] bytes = serializeIndex();
+        return bytes != null && writeNow(new File(dir, INDEX_FILE_NAME), bytes);
+    }
+
+    // The partition is written in the format of Storage. The delayed write Storage has queued up for the added
+    // tradables writes the same content later.
+    private boolean writePartitionNow(Partition partition) {
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            ((PB.PersistableEnvelope) partition.load().toProtoMessage()).writeDelimitedTo(byteArrayOutputStream);
+            return writeNow(new File(dir, partition.key), byteArrayOutputStream.toByteArray());
+        } catch (IOException e) {
+            log.error("Could not serialize partition {} of {}. {}", partition.key, dir, e.toString());
+            return false;
+        }
+    }
+
+    private boolean writeNow(File file, byte[] bytes) {
+        if (executor.isShutdown())
+            return false;
+
+        try {
+            return executor.submit(() -> writeFile(file, bytes)).get(10, TimeUnit.SECONDS);
+        } catch (Throwable t) {
+            log.error("Could not write {}. {}", file, t.toString());
+            return false;
+        }
+    }
+
+    @Nullable
+    private byte[] serializeIndex() {
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(byteArrayOutputStream));
+            outputStream.writeInt(INDEX_VERSION);
+            outputStream.writeInt(summaryById.size());
+            for (TradableSummary summary : summaryById.values())
+                summary.write(outputStream);
+            outputStream.flush();
+            return byteArrayOutputStream.toByteArray();
+        } catch (IOException e) {
+            log.error("Could not serialize index of {}. {}", dir, e.toString());
+            return null;
+        }
+    }
+
+    private boolean writeFile(File file, byte[] bytes) {
+        File tempFile = new File(dir, file.getName() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), bytes);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not write {}. {}", file, e.toString());
+            return false;
+        }
+    }
+}
@@ -31,10 +31,14 @@ import io.bisq.generated.protobuffer.PB;
 import com.google.protobuf.Message;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -46,9 +50,16 @@ import javax.annotation.Nullable;
 
 @Slf4j
 public final class TradableList<T extends Tradable> implements PersistableEnvelope {
+    @Nullable
     transient final private Storage<TradableList<T>> storage;
+    // If set each tradable is persisted as its own record instead of persisting the whole list
+    @Nullable
+    transient final private TradableRecordStorage<T> recordStorage;
     @Getter
     private final ObservableList<T> list = FXCollections.observableArrayList();
+    // Index of the list by tradable id. It is updated by a listener on the list, so it stays consistent if the
+    // list is modified directly.
+    transient final private Map<String, T> tradableById = new HashMap<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -57,12 +68,22 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     public TradableList(Storage<TradableList<T>> storage, String fileName) {
         this.storage = storage;
+        this.recordStorage = null;
+        this.list.addListener(this::onListChanged);
 
         TradableList<T> persisted = storage.initAndGetPersisted(this, fileName, 50);
         if (persisted != null)
             list.addAll(persisted.getList());
     }
 
+    public TradableList(TradableRecordStorage<T> recordStorage) {
+        this.storage = null;
+        this.recordStorage = recordStorage;
+        this.list.addListener(this::onListChanged);
+
+        list.addAll(recordStorage.readAll());
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // PROTO BUFFER
@@ -70,6 +91,8 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     private TradableList(Storage<TradableList<T>> storage, List<T> list) {
         this.storage = storage;
+        this.recordStorage = null;
+        this.list.addListener(this::onListChanged);
         this.list.addAll(list);
     }
 
@@ -119,15 +142,23 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     public boolean add(T tradable) {
         boolean changed = list.add(tradable);
-        if (changed)
-            storage.queueUpForSave();
+        if (changed) {
+            if (recordStorage != null)
+                recordStorage.add(tradable);
+            else if (storage != null)
+                storage.queueUpForSave();
+        }
         return changed;
     }
 
     public boolean remove(T tradable) {
         boolean changed = list.remove(tradable);
-        if (changed)
-            storage.queueUpForSave();
+        if (changed) {
+            if (recordStorage != null)
+                recordStorage.remove(tradable);
+            else if (storage != null)
+                storage.queueUpForSave();
+        }
         return changed;
     }
 
@@ -146,4 +177,32 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     public boolean contains(T thing) {
         return list.contains(thing);
     }
+
+    public Optional<T> getTradableById(String id) {
+        return Optional.ofNullable(tradableById.get(id));
+    }
+
+    public boolean containsId(String id) {
+        return tradableById.containsKey(id);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onListChanged(ListChangeListener.Change<? extends T> change) {
+        while (change.next()) {
+            change.getRemoved().forEach(tradable -> {
+                String id = tradable.getId();
+                if (tradableById.get(id) == tradable) {
+                    tradableById.remove(id);
+                    // In case the list contains another tradable with the same id we index that one
+                    list.stream().filter(e -> e.getId().equals(id)).findFirst()
+                            .ifPresent(e -> tradableById.put(id, e));
+                }
+            });
+            change.getAddedSubList().forEach(tradable -> tradableById.putIfAbsent(tradable.getId(), tradable));
+        }
+    }
 }
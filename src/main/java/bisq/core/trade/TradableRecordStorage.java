@@ -0,0 +1,290 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.crypto.Hash;
+import bisq.common.proto.persistable.PersistableEnvelope;
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.util.Utilities;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Persists each tradable as its own record file in a directory instead of writing all tradables into one file.
+ * A change of one tradable only causes that record to be serialized and written.
+ * <p/>
+ * A record is a PersistableEnvelope holding a TradableList with a single tradable, so we can use the existing
+ * protobuf definitions. The file name is the hex encoded SHA256 hash of the tradable id, as the id of a trade is chosen
+ * by the maker of the offer and must not be used as a path. Changes are coalesced for the given delay,
+ * then serialized on the calling thread and written on a single writer thread, which also executes the deletes in
+ * the order they got requested. Records are written to a temp file first and renamed to guard against partial writes.
+ */
+@Slf4j
+public class TradableRecordStorage<T extends Tradable> {
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String MIGRATED_FILE_SUFFIX = "_migrated";
+
+    private final File dir;
+    private final PersistenceProtoResolver persistenceProtoResolver;
+    private final long delay;
+    private final ListeningExecutorService executor;
+
+    private final Map<String, T> tradableById = new HashMap<>();
+    private final Set<String> pendingIds = new LinkedHashSet<>();
+    @Nullable
+    private Timer saveTimer;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param storageDir The directory of the app storage.
+     * @param dirName    The name of the sub directory holding the records.
+     * @param delay      Delay in ms for coalescing changes before we write them.
+     */
+    public TradableRecordStorage(File storageDir, String dirName, PersistenceProtoResolver persistenceProtoResolver,
+                                 long delay) {
+        this.dir = new File(storageDir, dirName);
+        this.persistenceProtoResolver = persistenceProtoResolver;
+        this.delay = delay;
+        executor = Utilities.getListeningSingleThreadExecutor("TradableRecordStorage-" + dirName);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Reads all records. Records which cannot be parsed are logged and skipped, so one corrupted trade does not
+     * prevent the others from being loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> readAll() {
+        List<T> result = new ArrayList<>();
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.error("Could not create directory {}", dir);
+            return result;
+        }
+
+        File[] files = dir.listFiles();
+        if (files == null)
+            return result;
+
+        for (File file : files) {
+            if (!file.isFile())
+                continue;
+
+            if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                // Leftover from an interrupted write. The previous version of the record is still valid.
+                if (!file.delete())
+                    log.warn("Could not delete temp file {}", file);
+                continue;
+            }
+
+            try (InputStream inputStream = new FileInputStream(file)) {
+                PB.PersistableEnvelope proto = PB.PersistableEnvelope.parseDelimitedFrom(inputStream);
+                PersistableEnvelope envelope = persistenceProtoResolver.fromProto(proto);
+                if (envelope instanceof TradableList) {
+                    ((TradableList<T>) envelope).forEach(tradable -> {
+                        tradableById.put(tradable.getId(), tradable);
+                        result.add(tradable);
+                    });
+                } else {
+                    log.error("Record {} does not contain a TradableList", file);
+                }
+            } catch (Throwable t) {
+                log.error("Could not read record {}. {}", file, t.toString());
+            }
+        }
+        log.info("Read {} records from {}", result.size(), dir);
+        return result;
+    }
+
+    public synchronized void add(T tradable) {
+        tradableById.put(tradable.getId(), tradable);
+        queueUpForSave(tradable);
+    }
+
+    public synchronized void remove(T tradable) {
+        String id = tradable.getId();
+        if (tradableById.remove(id) != null) {
+            pendingIds.remove(id);
+            File file = getFile(id);
+            executor.submit(() -> {
+                if (file.exists() && !file.delete())
+                    log.error("Could not delete record {}", file);
+            });
+        }
+    }
+
+    /**
+     * Schedules the record of the given tradable for writing. Tradables which are not (anymore) stored here are
+     * ignored, e.g. a trade which has been moved to the closed trades.
+     */
+    public synchronized void queueUpForSave(T tradable) {
+        String id = tradable.getId();
+        if (!tradableById.containsKey(id))
+            return;
+
+        pendingIds.add(id);
+        if (saveTimer == null)
+            saveTimer = UserThread.runAfter(this::savePending, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes all pending changes and blocks until they are written.
+     *
+     * @return False if one of the pending records could not be written.
+     */
+    public boolean flush() {
+        List<ListenableFuture<Boolean>> writes = savePending();
+        try {
+            // We wait until all previously submitted writes are done
+            executor.submit(() -> {
+            }).get(10, TimeUnit.SECONDS);
+            for (Future<Boolean> write : writes) {
+                if (!write.get())
+                    return false;
+            }
+            return true;
+        } catch (Throwable t) {
+            log.error("Flushing records in {} failed. {}", dir, t.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Adds the tradables read from a file written by an older version, which persisted all tradables in that
+     * single file, to the given list backed by this storage. Tradables we already have a record of are skipped.
+     * Only after all records are written the legacy file gets renamed by appending "_migrated", so it does not get
+     * imported again. If the app gets killed before, the next start repeats the migration.
+     * <p/>
+     * Older versions only read the legacy file. After a downgrade they start without the migrated tradables, unless
+     * the user renames the "_migrated" file back. Changes applied after the migration are only in the records.
+     *
+     * @return True if the legacy file got renamed.
+     */
+    public boolean migrateLegacyFile(File legacyFile, List<T> legacyTradables, TradableList<T> tradableList) {
+        legacyTradables.stream()
+                .filter(tradable -> !tradableList.containsId(tradable.getId()))
+                .forEach(tradableList::add);
+
+        if (!flush()) {
+            log.error("Could not write the records of {}. We keep the file for the next start.", legacyFile);
+            return false;
+        }
+
+        File migratedFile = new File(legacyFile.getParentFile(), legacyFile.getName() + MIGRATED_FILE_SUFFIX);
+        if (!legacyFile.renameTo(migratedFile)) {
+            log.error("Could not rename {} to {}", legacyFile, migratedFile);
+            return false;
+        }
+        log.info("Migrated {} tradables of {} to records", legacyTradables.size(), legacyFile);
+        return true;
+    }
+
+    public void shutDown() {
+        if (!executor.isShutdown()) {
+            flush();
+            executor.shutdown();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private synchronized List<ListenableFuture<Boolean>> savePending() {
+        if (saveTimer != null) {
+            saveTimer.stop();
+            saveTimer = null;
+        }
+
+        List<ListenableFuture<Boolean>> writes = new ArrayList<>();
+        if (executor.isShutdown())
+            return writes;
+
+        pendingIds.forEach(id -> {
+            T tradable = tradableById.get(id);
+            // The tradable is serialized on the calling thread as it might get changed while we write
+            PB.PersistableEnvelope proto = PB.PersistableEnvelope.newBuilder()
+                    .setTradableList(PB.TradableList.newBuilder()
+                            .addTradable((PB.Tradable) tradable.toProtoMessage()))
+                    .build();
+            writes.add(executor.submit(() -> write(id, proto)));
+        });
+        pendingIds.clear();
+        return writes;
+    }
+
+    private boolean write(String id, PB.PersistableEnvelope proto) {
+        File file = getFile(id);
+        File tempFile = new File(dir, file.getName() + TEMP_FILE_SUFFIX);
+        try {
+            try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+                proto.writeDelimitedTo(outputStream);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not write record {}. {}", file, e.toString());
+            return false;
+        }
+    }
+
+    private File getFile(String id) {
+        return new File(dir, getFileName(id));
+    }
+
+    static String getFileName(String id) {
+        return Utilities.bytesAsHexString(Hash.getSha256Hash(id.getBytes(StandardCharsets.UTF_8)));
+    }
+}
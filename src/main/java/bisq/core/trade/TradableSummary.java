@@ -0,0 +1,83 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.core.offer.OpenOffer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import lombok.Value;
+
+/**
+ * Compact summary of an archived tradable which is kept in memory instead of the full object.
+ */
+@Value
+public class TradableSummary {
+    private final String id;
+    private final boolean trade;
+    private final long date;
+    // Trade amount for trades, offer amount for offers
+    private final long amount;
+    private final String currencyCode;
+    private final String state;
+    private final boolean fundsLockedIn;
+
+    public static TradableSummary from(Tradable tradable) {
+        if (tradable instanceof Trade) {
+            Trade trade = (Trade) tradable;
+            return new TradableSummary(trade.getId(),
+                    true,
+                    trade.getDate().getTime(),
+                    trade.getTradeAmountAsLong(),
+                    trade.getOffer().getCurrencyCode(),
+                    trade.getState().name(),
+                    trade.isFundsLockedIn());
+        } else {
+            String state = tradable instanceof OpenOffer ? ((OpenOffer) tradable).getState().name() : "";
+            return new TradableSummary(tradable.getId(),
+                    false,
+                    tradable.getDate().getTime(),
+                    tradable.getOffer().getAmount().value,
+                    tradable.getOffer().getCurrencyCode(),
+                    state,
+                    false);
+        }
+    }
+
+    void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeUTF(id);
+        outputStream.writeBoolean(trade);
+        outputStream.writeLong(date);
+        outputStream.writeLong(amount);
+        outputStream.writeUTF(currencyCode);
+        outputStream.writeUTF(state);
+        outputStream.writeBoolean(fundsLockedIn);
+    }
+
+    static TradableSummary read(DataInputStream inputStream) throws IOException {
+        return new TradableSummary(inputStream.readUTF(),
+                inputStream.readBoolean(),
+                inputStream.readLong(),
+                inputStream.readLong(),
+                inputStream.readUTF(),
+                inputStream.readUTF(),
+                inputStream.readBoolean());
+    }
+}
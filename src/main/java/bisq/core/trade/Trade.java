@@ -31,6 +31,7 @@ import bisq.core.payment.AccountAgeWitnessService;
 import bisq.core.proto.CoreProtoResolver;
 import bisq.core.trade.protocol.ProcessModel;
 import bisq.core.trade.protocol.TradeProtocol;
+import bisq.core.trade.protocol.TradeTimeline;
 import bisq.core.user.User;
 
 import bisq.network.p2p.DecryptedMessageWithPubKey;
@@ -337,6 +338,9 @@ public abstract class Trade implements Tradable, Model {
     transient final private Coin takerFee;
     @Getter // to set in constructor so not final but set at init
     transient private Storage<? extends TradableList> storage;
+    // Set if the trade is persisted as its own record. Otherwise we persist the list of the storage.
+    @Nullable
+    transient private TradableRecordStorage<Trade> recordStorage;
     @Getter // to set in constructor so not final but set at init
     transient private BtcWalletService btcWalletService;
 
@@ -359,6 +363,9 @@ public abstract class Trade implements Tradable, Model {
     transient private ObjectProperty<Coin> tradeAmountProperty;
     transient private ObjectProperty<Volume> tradeVolumeProperty;
     final transient private Set<DecryptedMessageWithPubKey> decryptedMessageWithPubKeySet = new HashSet<>();
+    // Spans of the executed task runs and tasks of this session
+    @Getter
+    transient final private TradeTimeline timeline = new TradeTimeline();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -478,6 +485,13 @@ public abstract class Trade implements Tradable, Model {
 
     public void setTransientFields(Storage<? extends TradableList> storage, BtcWalletService btcWalletService) {
         this.storage = storage;
+        this.recordStorage = null;
+        this.btcWalletService = btcWalletService;
+    }
+
+    public void setTransientFields(TradableRecordStorage<Trade> recordStorage, BtcWalletService btcWalletService) {
+        this.storage = null;
+        this.recordStorage = recordStorage;
         this.btcWalletService = btcWalletService;
     }
 
@@ -573,7 +587,9 @@ public abstract class Trade implements Tradable, Model {
     // Get called from taskRunner after each completed task
     @Override
     public void persist() {
-        if (storage != null)
+        if (recordStorage != null)
+            recordStorage.queueUpForSave(this);
+        else if (storage != null)
             storage.queueUpForSave();
     }
 
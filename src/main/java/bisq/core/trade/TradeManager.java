@@ -35,6 +35,7 @@ import bisq.core.trade.failed.FailedTradesManager;
 import bisq.core.trade.handlers.TradeResultHandler;
 import bisq.core.trade.messages.PayDepositRequest;
 import bisq.core.trade.messages.TradeMessage;
+import bisq.core.trade.protocol.TradeTaskMetrics;
 import bisq.core.trade.statistics.TradeStatisticsManager;
 import bisq.core.user.User;
 import bisq.core.util.Validator;
@@ -111,8 +112,11 @@ public class TradeManager implements PersistedDataHost {
     private final FilterManager filterManager;
     private final TradeStatisticsManager tradeStatisticsManager;
     private final AccountAgeWitnessService accountAgeWitnessService;
+    private final TradeTaskMetrics tradeTaskMetrics;
 
+    private final File storageDir;
     private final Storage<TradableList<Trade>> tradableListStorage;
+    private final TradableRecordStorage<Trade> tradableRecordStorage;
     private TradableList<Trade> tradableList;
     private final BooleanProperty pendingTradesInitialized = new SimpleBooleanProperty();
     private List<Trade> tradesForStatistics;
@@ -140,6 +144,7 @@ public class TradeManager implements PersistedDataHost {
                         TradeStatisticsManager tradeStatisticsManager,
                         PersistenceProtoResolver persistenceProtoResolver,
                         AccountAgeWitnessService accountAgeWitnessService,
+                        TradeTaskMetrics tradeTaskMetrics,
                         @Named(Storage.STORAGE_DIR) File storageDir) {
         this.user = user;
         this.keyRing = keyRing;
@@ -154,8 +159,13 @@ public class TradeManager implements PersistedDataHost {
         this.filterManager = filterManager;
         this.tradeStatisticsManager = tradeStatisticsManager;
         this.accountAgeWitnessService = accountAgeWitnessService;
+        this.tradeTaskMetrics = tradeTaskMetrics;
 
+        this.storageDir = storageDir;
+
+        // Only used for migrating the pending trades persisted in one file by older versions
         tradableListStorage = new Storage<>(storageDir, persistenceProtoResolver);
+        tradableRecordStorage = new TradableRecordStorage<>(storageDir, "PendingTrades_records", persistenceProtoResolver, 50);
 
         p2PService.addDecryptedDirectMessageListener(new DecryptedDirectMessageListener() {
             @Override
@@ -180,7 +190,7 @@ public class TradeManager implements PersistedDataHost {
                 if (networkEnvelop instanceof TradeMessage) {
                     log.trace("Received TradeMessage: " + networkEnvelop);
                     String tradeId = ((TradeMessage) networkEnvelop).getTradeId();
-                    Optional<Trade> tradeOptional = tradableList.stream().filter(e -> e.getId().equals(tradeId)).findAny();
+                    Optional<Trade> tradeOptional = tradableList.getTradableById(tradeId);
                     // The mailbox message will be removed inside the tasks after they are processed successfully
                     if (tradeOptional.isPresent())
                         tradeOptional.get().addDecryptedMessageWithPubKey(decryptedMessageWithPubKey);
@@ -191,13 +201,28 @@ public class TradeManager implements PersistedDataHost {
 
     @Override
     public void readPersisted() {
-        tradableList = new TradableList<>(tradableListStorage, "PendingTrades");
+        tradableList = new TradableList<>(tradableRecordStorage);
+        migrateLegacyPendingTrades();
         tradableList.forEach(trade -> {
-            trade.setTransientFields(tradableListStorage, btcWalletService);
+            trade.setTransientFields(tradableRecordStorage, btcWalletService);
             trade.getOffer().setPriceFeedService(priceFeedService);
         });
     }
 
+    // Older versions have persisted all pending trades in one file. We store each of them as its own record and
+    // rename the old file to PendingTrades_migrated afterwards so it does not get imported again. That breaks a
+    // downgrade: an older version starts without the pending trades unless the file gets renamed back.
+    private void migrateLegacyPendingTrades() {
+        File legacyFile = new File(storageDir, "PendingTrades");
+        if (!legacyFile.exists())
+            return;
+
+        TradableList<Trade> persisted = tradableListStorage.initAndGetPersistedWithFileName("PendingTrades", 50);
+        tradableRecordStorage.migrateLegacyFile(legacyFile,
+                persisted != null ? persisted.getList() : new ArrayList<>(),
+                tradableList);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Lifecycle
@@ -219,6 +244,10 @@ public class TradeManager implements PersistedDataHost {
     }
 
     public void shutDown() {
+        tradableRecordStorage.shutDown();
+        tradeStatisticsManager.shutDown();
+        closedTradableManager.shutDown();
+        failedTradesManager.shutDown();
     }
 
     private void initPendingTrades() {
@@ -309,6 +338,7 @@ public class TradeManager implements PersistedDataHost {
                         tradableListStorage,
                         btcWalletService);
 
+            trade.setTransientFields(tradableRecordStorage, btcWalletService);
             initTrade(trade, trade.getProcessModel().isUseSavingsWallet(), trade.getProcessModel().getFundsNeededForTradeAsLong());
             tradableList.add(trade);
             ((MakerTrade) trade).handleTakeOfferRequest(message, peerNodeAddress, errorMessage -> {
@@ -324,6 +354,7 @@ public class TradeManager implements PersistedDataHost {
     }
 
     private void initTrade(Trade trade, boolean useSavingsWallet, Coin fundsNeededForTrade) {
+        trade.getTimeline().setMetrics(tradeTaskMetrics);
         trade.init(p2PService,
                 btcWalletService,
                 bsqWalletService,
@@ -426,6 +457,7 @@ public class TradeManager implements PersistedDataHost {
                     tradableListStorage,
                     btcWalletService);
 
+        trade.setTransientFields(tradableRecordStorage, btcWalletService);
         trade.setTakerPaymentAccountId(paymentAccountId);
 
         initTrade(trade, useSavingsWallet, fundsNeededForTrade);
@@ -547,7 +579,7 @@ public class TradeManager implements PersistedDataHost {
     }
 
     public Optional<Trade> getTradeById(String tradeId) {
-        return tradableList.stream().filter(e -> e.getId().equals(tradeId)).findFirst();
+        return tradableList.getTradableById(tradeId);
     }
 
     public Stream<AddressEntry> getAddressEntriesForAvailableBalanceStream() {
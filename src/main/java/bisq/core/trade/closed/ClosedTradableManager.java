@@ -21,7 +21,9 @@ import bisq.core.btc.wallet.BtcWalletService;
 import bisq.core.offer.Offer;
 import bisq.core.provider.price.PriceFeedService;
 import bisq.core.trade.Tradable;
+import bisq.core.trade.TradableArchive;
 import bisq.core.trade.TradableList;
+import bisq.core.trade.TradableSummary;
 import bisq.core.trade.Trade;
 
 import bisq.common.crypto.KeyRing;
@@ -39,17 +41,21 @@ import javafx.collections.ObservableList;
 
 import java.io.File;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
+
 public class ClosedTradableManager implements PersistedDataHost {
-    private final Storage<TradableList<Tradable>> tradableListStorage;
-    private TradableList<Tradable> closedTradables;
+    private final TradableArchive<Tradable> closedTradables;
     private final KeyRing keyRing;
     private final PriceFeedService priceFeedService;
     private final BtcWalletService btcWalletService;
+    @Nullable
+    private List<Trade> closedTrades;
 
     @Inject
     public ClosedTradableManager(KeyRing keyRing, PriceFeedService priceFeedService,
@@ -59,49 +65,62 @@ public class ClosedTradableManager implements PersistedDataHost {
         this.keyRing = keyRing;
         this.priceFeedService = priceFeedService;
         this.btcWalletService = btcWalletService;
-        tradableListStorage = new Storage<>(storageDir, persistenceProtoResolver);
-        // The ClosedTrades object can become a few MB so we don't keep so many backups
-        tradableListStorage.setNumMaxBackupFiles(3);
-
+        // The closed trades are partitioned by month and loaded on demand. Partitions are small, but there can be
+        // many of them, so we don't keep so many backups.
+        closedTradables = new TradableArchive<>(storageDir, "ClosedTrades", persistenceProtoResolver,
+                this::onTradableLoaded, 3);
     }
 
     @Override
     public void readPersisted() {
-        closedTradables = new TradableList<>(tradableListStorage, "ClosedTrades");
-        closedTradables.forEach(tradable -> {
-            tradable.getOffer().setPriceFeedService(priceFeedService);
-            if (tradable instanceof Trade) {
-                Trade trade = (Trade) tradable;
-                trade.setTransientFields(tradableListStorage, btcWalletService);
-            }
-        });
+        closedTradables.readPersisted();
+    }
+
+    public void shutDown() {
+        closedTradables.shutDown();
     }
 
     public void add(Tradable tradable) {
         closedTradables.add(tradable);
+        closedTrades = null;
     }
 
     public boolean wasMyOffer(Offer offer) {
         return offer.isMyOffer(keyRing);
     }
 
+    // Loads all closed tradables at the first call
     public ObservableList<Tradable> getClosedTradables() {
         return closedTradables.getList();
     }
 
+    public Collection<TradableSummary> getClosedTradableSummaries() {
+        return closedTradables.getSummaries();
+    }
+
     public List<Trade> getClosedTrades() {
-        return ImmutableList.copyOf(getClosedTradables().stream()
-                .filter(e -> e instanceof Trade)
-                .map(e -> (Trade) e)
-                .collect(Collectors.toList()));
+        if (closedTrades == null) {
+            closedTrades = ImmutableList.copyOf(getClosedTradables().stream()
+                    .filter(e -> e instanceof Trade)
+                    .map(e -> (Trade) e)
+                    .collect(Collectors.toList()));
+        }
+        return closedTrades;
     }
 
     public Optional<Tradable> getTradableById(String id) {
-        return closedTradables.stream().filter(e -> e.getId().equals(id)).findFirst();
+        return closedTradables.getTradableById(id);
     }
 
     public Stream<Trade> getLockedTradesStream() {
-        return getClosedTrades().stream()
+        return closedTradables.getTradables(summary -> summary.isTrade() && summary.isFundsLockedIn())
+                .map(e -> (Trade) e)
                 .filter(Trade::isFundsLockedIn);
     }
+
+    private void onTradableLoaded(Tradable tradable, Storage<TradableList<Tradable>> storage) {
+        tradable.getOffer().setPriceFeedService(priceFeedService);
+        if (tradable instanceof Trade)
+            ((Trade) tradable).setTransientFields(storage, btcWalletService);
+    }
 }
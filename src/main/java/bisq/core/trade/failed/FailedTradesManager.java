@@ -20,7 +20,9 @@ package bisq.core.trade.failed;
 import bisq.core.btc.wallet.BtcWalletService;
 import bisq.core.offer.Offer;
 import bisq.core.provider.price.PriceFeedService;
+import bisq.core.trade.TradableArchive;
 import bisq.core.trade.TradableList;
+import bisq.core.trade.TradableSummary;
 import bisq.core.trade.Trade;
 
 import bisq.common.crypto.KeyRing;
@@ -36,6 +38,7 @@ import javafx.collections.ObservableList;
 
 import java.io.File;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -44,11 +47,10 @@ import org.slf4j.LoggerFactory;
 
 public class FailedTradesManager implements PersistedDataHost {
     private static final Logger log = LoggerFactory.getLogger(FailedTradesManager.class);
-    private TradableList<Trade> failedTrades;
+    private final TradableArchive<Trade> failedTrades;
     private final KeyRing keyRing;
     private final PriceFeedService priceFeedService;
     private final BtcWalletService btcWalletService;
-    private final Storage<TradableList<Trade>> tradableListStorage;
 
     @Inject
     public FailedTradesManager(KeyRing keyRing, PriceFeedService priceFeedService,
@@ -58,22 +60,21 @@ public class FailedTradesManager implements PersistedDataHost {
         this.keyRing = keyRing;
         this.priceFeedService = priceFeedService;
         this.btcWalletService = btcWalletService;
-        tradableListStorage = new Storage<>(storageDir, persistenceProtoResolver);
-
+        failedTrades = new TradableArchive<>(storageDir, "FailedTrades", persistenceProtoResolver,
+                this::onTradeLoaded, 3);
     }
 
     @Override
     public void readPersisted() {
-        this.failedTrades = new TradableList<>(tradableListStorage, "FailedTrades");
-        failedTrades.forEach(e -> e.getOffer().setPriceFeedService(priceFeedService));
-        failedTrades.forEach(trade -> {
-            trade.getOffer().setPriceFeedService(priceFeedService);
-            trade.setTransientFields(tradableListStorage, btcWalletService);
-        });
+        failedTrades.readPersisted();
+    }
+
+    public void shutDown() {
+        failedTrades.shutDown();
     }
 
     public void add(Trade trade) {
-        if (!failedTrades.contains(trade))
+        if (!failedTrades.contains(trade.getId()))
             failedTrades.add(trade);
     }
 
@@ -81,16 +82,26 @@ public class FailedTradesManager implements PersistedDataHost {
         return offer.isMyOffer(keyRing);
     }
 
+    // Loads all failed trades at the first call
     public ObservableList<Trade> getFailedTrades() {
         return failedTrades.getList();
     }
 
+    public Collection<TradableSummary> getFailedTradeSummaries() {
+        return failedTrades.getSummaries();
+    }
+
     public Optional<Trade> getTradeById(String id) {
-        return failedTrades.stream().filter(e -> e.getId().equals(id)).findFirst();
+        return failedTrades.getTradableById(id);
     }
 
     public Stream<Trade> getLockedTradesStream() {
-        return failedTrades.stream()
+        return failedTrades.getTradables(TradableSummary::isFundsLockedIn)
                 .filter(Trade::isFundsLockedIn);
     }
+
+    private void onTradeLoaded(Trade trade, Storage<TradableList<Trade>> storage) {
+        trade.getOffer().setPriceFeedService(priceFeedService);
+        trade.setTransientFields(storage, btcWalletService);
+    }
 }
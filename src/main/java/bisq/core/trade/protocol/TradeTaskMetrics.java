@@ -0,0 +1,158 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.protocol;
+
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Value;
+
+/**
+ * Aggregated durations of the completed spans of the trades of this session. We keep them per task (keyed by protocol
+ * and task class), per task run (keyed by protocol) and per trade. The duration of a trade is the sum of its task
+ * runs, and the stats per protocol aggregate these trade durations. So they show the latency a protocol adds to a
+ * trade and not only the latency of one run.
+ * <p/>
+ * TradeManager sets the metrics on the timeline of each trade it initializes.
+ */
+public class TradeTaskMetrics {
+    // We only keep the stats of the latest trades per protocol
+    static final int MAX_TRADES = 1000;
+
+    @Value
+    public static class Stats {
+        private final long count;
+        private final long failed;
+        private final long totalDuration;
+        private final long maxDuration;
+
+        public long getAverageDuration() {
+            return count > 0 ? totalDuration / count : 0;
+        }
+
+        private Stats add(TradeTimeline.Span span) {
+            return new Stats(count + 1,
+                    failed + (span.isSuccess() ? 0 : 1),
+                    totalDuration + span.getDuration(),
+                    Math.max(maxDuration, span.getDuration()));
+        }
+
+        // Adds the stats of the runs of one trade as one entry
+        private Stats addTrade(Stats trade) {
+            return new Stats(count + 1,
+                    failed + (trade.failed > 0 ? 1 : 0),
+                    totalDuration + trade.totalDuration,
+                    Math.max(maxDuration, trade.totalDuration));
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", failed=" + failed + ", avg=" + getAverageDuration() + " ms, max=" +
+                    maxDuration + " ms, total=" + totalDuration + " ms";
+        }
+    }
+
+    private static final Stats EMPTY = new Stats(0, 0, 0, 0);
+
+    private final Map<String, Stats> statsByTask = new TreeMap<>();
+    private final Map<String, Stats> statsByRun = new TreeMap<>();
+    // Stats of the task runs of each trade, keyed by protocol and trade id
+    private final Map<String, Map<String, Stats>> statsByTradeByProtocol = new TreeMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public TradeTaskMetrics() {
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public synchronized void add(TradeTimeline.Span span) {
+        String protocol = span.getProtocol();
+        if (span.getKind() == TradeTimeline.Kind.TASK) {
+            String key = protocol + "." + span.getName();
+            statsByTask.put(key, statsByTask.getOrDefault(key, EMPTY).add(span));
+        } else {
+            statsByRun.put(protocol, statsByRun.getOrDefault(protocol, EMPTY).add(span));
+            Map<String, Stats> statsByTrade = statsByTradeByProtocol.computeIfAbsent(protocol,
+                    key -> new LinkedHashMap<String, Stats>() {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Stats> eldest) {
+                            return size() > MAX_TRADES;
+                        }
+                    });
+            statsByTrade.put(span.getTradeId(), statsByTrade.getOrDefault(span.getTradeId(), EMPTY).add(span));
+        }
+    }
+
+    public synchronized Map<String, Stats> getStatsByTask() {
+        return new TreeMap<>(statsByTask);
+    }
+
+    public synchronized Map<String, Stats> getStatsByRun() {
+        return new TreeMap<>(statsByRun);
+    }
+
+    /**
+     * @return The stats of the task runs of each trade, keyed by trade id.
+     */
+    public synchronized Map<String, Stats> getStatsByTrade() {
+        Map<String, Stats> result = new HashMap<>();
+        statsByTradeByProtocol.values().forEach(statsByTrade ->
+                statsByTrade.forEach((tradeId, stats) -> result.merge(tradeId, stats, (a, b) ->
+                        new Stats(a.count + b.count, a.failed + b.failed, a.totalDuration + b.totalDuration,
+                                Math.max(a.maxDuration, b.maxDuration)))));
+        return result;
+    }
+
+    /**
+     * @return The stats of the trades per protocol. Each trade counts once with the sum of its task runs.
+     */
+    public synchronized Map<String, Stats> getStatsByProtocol() {
+        Map<String, Stats> result = new TreeMap<>();
+        statsByTradeByProtocol.forEach((protocol, statsByTrade) -> result.put(protocol,
+                statsByTrade.values().stream().reduce(EMPTY, Stats::addTrade)));
+        return result;
+    }
+
+    public synchronized String dump() {
+        StringBuilder sb = new StringBuilder("Trade protocols:");
+        getStatsByProtocol().forEach((protocol, stats) -> sb.append("\n  ").append(protocol).append(": ").append(stats));
+        sb.append("\nTrade task runs:");
+        statsByRun.forEach((protocol, stats) -> sb.append("\n  ").append(protocol).append(": ").append(stats));
+        sb.append("\nTrade tasks:");
+        statsByTask.forEach((task, stats) -> sb.append("\n  ").append(task).append(": ").append(stats));
+        return sb.toString();
+    }
+
+    public synchronized void reset() {
+        statsByTask.clear();
+        statsByRun.clear();
+        statsByTradeByProtocol.clear();
+    }
+}
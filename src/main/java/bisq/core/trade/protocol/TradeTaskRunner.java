@@ -26,7 +26,20 @@ import bisq.common.taskrunner.TaskRunner;
 public class TradeTaskRunner extends TaskRunner<Trade> {
 
     public TradeTaskRunner(Trade sharedModel, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
+        this(sharedModel, TradeTimeline.start(TradeTimeline.Kind.RUN, "Run", sharedModel), resultHandler, errorMessageHandler);
+    }
+
+    // The span covers the whole run of the tasks, so we end it in the handlers
+    private TradeTaskRunner(Trade sharedModel, TradeTimeline.Span span, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
         //noinspection unchecked
-        super(sharedModel, (Class<Trade>) sharedModel.getClass().getSuperclass().getSuperclass(), resultHandler, errorMessageHandler);
+        super(sharedModel, (Class<Trade>) sharedModel.getClass().getSuperclass().getSuperclass(),
+                () -> {
+                    TradeTimeline.end(span, true);
+                    resultHandler.handleResult();
+                },
+                errorMessage -> {
+                    TradeTimeline.end(span, false);
+                    errorMessageHandler.handleErrorMessage(errorMessage);
+                });
     }
 }
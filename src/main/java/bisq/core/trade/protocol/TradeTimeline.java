@@ -0,0 +1,143 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.protocol;
+
+import bisq.core.trade.Trade;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.text.SimpleDateFormat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Timeline of the task runs and tasks which have been executed for a trade. Each of them is recorded as a span with
+ * its start time and duration, tagged with the trade id, the role (class of the trade) and the protocol class.
+ * Completed spans are also added to the TradeTaskMetrics, if they are set. The timeline is not persisted and only
+ * covers the current session.
+ */
+@Slf4j
+public class TradeTimeline {
+    private static final int MAX_SPANS = 500;
+
+    private final LinkedList<Span> spans = new LinkedList<>();
+    @Setter
+    @Nullable
+    private volatile TradeTaskMetrics metrics;
+
+    public enum Kind {
+        RUN,
+        TASK
+    }
+
+    @Getter
+    public static class Span {
+        @Getter(AccessLevel.NONE)
+        private final TradeTimeline timeline;
+        private final Kind kind;
+        private final String name;
+        private final String tradeId;
+        private final String role;
+        private final String protocol;
+        private final long startTime;
+        private final long startNanos;
+        // -1 as long as the span is not completed
+        private volatile long duration = -1;
+        private volatile boolean success;
+
+        private Span(TradeTimeline timeline, Kind kind, String name, String tradeId, String role, String protocol) {
+            this.timeline = timeline;
+            this.kind = kind;
+            this.name = name;
+            this.tradeId = tradeId;
+            this.role = role;
+            this.protocol = protocol;
+            startTime = System.currentTimeMillis();
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(startTime)) + " " +
+                    (kind == Kind.RUN ? "" : "  ") + name + " " +
+                    (duration < 0 ? "running" : duration + " ms" + (success ? "" : " (failed)"));
+        }
+    }
+
+    public static Span start(Kind kind, String name, Trade trade) {
+        String protocol = trade.getTradeProtocol() != null ? trade.getTradeProtocol().getClass().getSimpleName() : "";
+        return start(trade.getTimeline(), kind, name, trade.getId(), trade.getClass().getSimpleName(), protocol);
+    }
+
+    @VisibleForTesting
+    static Span start(TradeTimeline timeline, Kind kind, String name, String tradeId, String role, String protocol) {
+        Span span = new Span(timeline, kind, name, tradeId, role, protocol);
+        timeline.add(span);
+        return span;
+    }
+
+    public static void end(Span span, boolean success) {
+        // A task might report its result more than once, we only count the first one
+        if (span.duration >= 0)
+            return;
+
+        span.success = success;
+        span.duration = (System.nanoTime() - span.startNanos) / 1_000_000;
+        log.debug("{} {} of trade {} took {} ms", span.kind, span.name, span.tradeId, span.duration);
+        TradeTaskMetrics metrics = span.timeline.metrics;
+        if (metrics != null)
+            metrics.add(span);
+    }
+
+    private synchronized void add(Span span) {
+        spans.add(span);
+        if (spans.size() > MAX_SPANS)
+            spans.removeFirst();
+    }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized String dump() {
+        StringBuilder sb = new StringBuilder();
+        if (!spans.isEmpty()) {
+            Span first = spans.getFirst();
+            sb.append("Timeline of trade ").append(first.tradeId).append(" (").append(first.role).append(")");
+        }
+        String protocol = null;
+        for (Span span : spans) {
+            if (!span.protocol.equals(protocol)) {
+                protocol = span.protocol;
+                sb.append("\n").append(protocol).append(":");
+            }
+            sb.append("\n  ").append(span);
+        }
+        return sb.toString();
+    }
+}
@@ -19,6 +19,7 @@ package bisq.core.trade.protocol.tasks;
 
 import bisq.core.trade.Trade;
 import bisq.core.trade.protocol.ProcessModel;
+import bisq.core.trade.protocol.TradeTimeline;
 
 import bisq.common.taskrunner.Task;
 import bisq.common.taskrunner.TaskRunner;
@@ -29,22 +30,34 @@ import lombok.extern.slf4j.Slf4j;
 public abstract class TradeTask extends Task<Trade> {
     protected final ProcessModel processModel;
     protected final Trade trade;
+    // The task runner creates the task right before running it. Tasks can complete asynchronously, e.g. after a
+    // message got sent, so the span ends when the task reports its result.
+    private final TradeTimeline.Span span;
 
     protected TradeTask(TaskRunner taskHandler, Trade trade) {
         super(taskHandler, trade);
 
         this.trade = trade;
         processModel = trade.getProcessModel();
+        span = TradeTimeline.start(TradeTimeline.Kind.TASK, getClass().getSimpleName(), trade);
+    }
+
+    @Override
+    protected void complete() {
+        TradeTimeline.end(span, true);
+        super.complete();
     }
 
     @Override
     protected void failed() {
+        TradeTimeline.end(span, false);
         trade.setErrorMessage(errorMessage);
         super.failed();
     }
 
     @Override
     protected void failed(String message) {
+        TradeTimeline.end(span, false);
         appendToErrorMessage(message);
         trade.setErrorMessage(errorMessage);
         super.failed();
@@ -52,6 +65,7 @@ public abstract class TradeTask extends Task<Trade> {
 
     @Override
     protected void failed(Throwable t) {
+        TradeTimeline.end(span, false);
         t.printStackTrace();
         appendExceptionToErrorMessage(t);
         trade.setErrorMessage(errorMessage);
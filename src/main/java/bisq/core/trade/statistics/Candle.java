@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import lombok.Getter;
+
+/**
+ * Open, high, low and close price and the traded amounts of one market in one time interval. Prices are the long
+ * values of the trade prices, amount is in satoshi and volume in the smallest unit of the counter currency.
+ * <p/>
+ * Trades can arrive in any order, so we keep the dates of the first and last trade for open and close.
+ */
+@Getter
+public class Candle {
+    private final long intervalStart;
+    private long open;
+    private long high;
+    private long low;
+    private long close;
+    private long amount;
+    private long volume;
+    private int numTrades;
+    private long firstTradeDate;
+    private long lastTradeDate;
+
+    Candle(long intervalStart) {
+        this.intervalStart = intervalStart;
+    }
+
+    Candle copy() {
+        Candle copy = new Candle(intervalStart);
+        copy.open = open;
+        copy.high = high;
+        copy.low = low;
+        copy.close = close;
+        copy.amount = amount;
+        copy.volume = volume;
+        copy.numTrades = numTrades;
+        copy.firstTradeDate = firstTradeDate;
+        copy.lastTradeDate = lastTradeDate;
+        return copy;
+    }
+
+    void add(long tradeDate, long price, long tradeAmount, long tradeVolume) {
+        if (numTrades == 0) {
+            open = high = low = close = price;
+            firstTradeDate = lastTradeDate = tradeDate;
+        } else {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            if (tradeDate < firstTradeDate) {
+                firstTradeDate = tradeDate;
+                open = price;
+            }
+            if (tradeDate >= lastTradeDate) {
+                lastTradeDate = tradeDate;
+                close = price;
+            }
+        }
+        amount += tradeAmount;
+        volume += tradeVolume;
+        numTrades++;
+    }
+
+    @Override
+    public String toString() {
+        return "Candle{" +
+                "\n     intervalStart=" + intervalStart +
+                ",\n     open=" + open +
+                ",\n     high=" + high +
+                ",\n     low=" + low +
+                ",\n     close=" + close +
+                ",\n     amount=" + amount +
+                ",\n     volume=" + volume +
+                ",\n     numTrades=" + numTrades +
+                "\n}";
+    }
+}
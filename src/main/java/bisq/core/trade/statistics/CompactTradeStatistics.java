@@ -0,0 +1,335 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+
+import com.google.common.io.BaseEncoding;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Append-only columnar representation of trade statistics for read heavy use cases like charts and market statistics.
+ * Currency codes and payment methods are dictionary encoded and numeric values are kept in primitive arrays. Offer
+ * ids are stored as bytes in one pool with an open addressing index, deposit tx ids and hashes as raw bytes. A
+ * TradeStatistics2 object is only created when requested by its index. Range scans by currency and trade date run
+ * over the primitive arrays without creating any objects.
+ * <p/>
+ * An item needs about 200 bytes after trimToSize, where a TradeStatistics2 object with its strings and arrays
+ * needs about 500 bytes.
+ */
+public class CompactTradeStatistics {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int HASH_LENGTH = 20;
+    private static final int DEPOSIT_TX_ID_LENGTH = 32;
+    // Offer ids have about 50 characters
+    private static final int AVERAGE_OFFER_ID_LENGTH = 64;
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+    private static final OfferPayload.Direction[] DIRECTIONS = OfferPayload.Direction.values();
+
+    // Shared dictionary for currency codes and payment method ids
+    private final Map<String, Integer> codeIndexByCode = new HashMap<>();
+    private final List<String> codes = new ArrayList<>();
+    // The currency code depends only on the base and counter currency, so we resolve it once per pair
+    private final Map<Long, Integer> currencyCodeIndexByPair = new HashMap<>();
+    // Only few items have extra data, so we keep them in a sparse map
+    private final Map<Integer, Map<String, String>> extraDataMapByIndex = new HashMap<>();
+    // Hashes with an unexpected length
+    private final Map<Integer, byte[]> irregularHashByIndex = new HashMap<>();
+    // Deposit tx ids which are not a lower case hex string of 32 bytes (e.g. empty if there was no deposit tx)
+    private final Map<Integer, String> irregularDepositTxIdByIndex = new HashMap<>();
+
+    private int size;
+    private byte[] directions = new byte[INITIAL_CAPACITY];
+    private int[] baseCurrencies = new int[INITIAL_CAPACITY];
+    private int[] counterCurrencies = new int[INITIAL_CAPACITY];
+    private int[] currencyCodes = new int[INITIAL_CAPACITY];
+    private int[] paymentMethods = new int[INITIAL_CAPACITY];
+    private long[] offerDates = new long[INITIAL_CAPACITY];
+    private boolean[] offerUseMarketBasedPrices = new boolean[INITIAL_CAPACITY];
+    private double[] offerMarketPriceMargins = new double[INITIAL_CAPACITY];
+    private long[] offerAmounts = new long[INITIAL_CAPACITY];
+    private long[] offerMinAmounts = new long[INITIAL_CAPACITY];
+    private long[] tradePrices = new long[INITIAL_CAPACITY];
+    private long[] tradeAmounts = new long[INITIAL_CAPACITY];
+    private long[] tradeDates = new long[INITIAL_CAPACITY];
+    private byte[] depositTxIds = new byte[INITIAL_CAPACITY * DEPOSIT_TX_ID_LENGTH];
+    private byte[] hashes = new byte[INITIAL_CAPACITY * HASH_LENGTH];
+
+    // The UTF-8 bytes of the offer id of item i are at offerIdStarts[i] until the start of item i + 1
+    private int[] offerIdStarts = new int[INITIAL_CAPACITY];
+    private byte[] offerIdPool = new byte[INITIAL_CAPACITY * AVERAGE_OFFER_ID_LENGTH];
+    private int offerIdPoolSize;
+    // Open addressing hash table of item index + 1 by offer id, 0 is an empty slot. At most half full.
+    private int[] offerIdTable = new int[INITIAL_CAPACITY * 2];
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return False if an item with the same offer id has already been added
+     */
+    public synchronized boolean add(TradeStatistics2 tradeStatistics) {
+        String offerId = tradeStatistics.getOfferId();
+        byte[] offerIdBytes = offerId.getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(offerId.hashCode(), offerIdBytes);
+        if (offerIdTable[slot] != 0)
+            return false;
+
+        ensureCapacity(size + 1, offerIdPoolSize + offerIdBytes.length);
+        int index = size;
+        directions[index] = (byte) tradeStatistics.getDirection().ordinal();
+        baseCurrencies[index] = getCodeIndex(tradeStatistics.getBaseCurrency());
+        counterCurrencies[index] = getCodeIndex(tradeStatistics.getCounterCurrency());
+        long pair = ((long) baseCurrencies[index] << 32) | counterCurrencies[index];
+        currencyCodes[index] = currencyCodeIndexByPair.computeIfAbsent(pair,
+                key -> getCodeIndex(tradeStatistics.getCurrencyCode()));
+        paymentMethods[index] = getCodeIndex(tradeStatistics.getOfferPaymentMethod());
+        offerDates[index] = tradeStatistics.getOfferDate();
+        offerUseMarketBasedPrices[index] = tradeStatistics.isOfferUseMarketBasedPrice();
+        offerMarketPriceMargins[index] = tradeStatistics.getOfferMarketPriceMargin();
+        offerAmounts[index] = tradeStatistics.getOfferAmount();
+        offerMinAmounts[index] = tradeStatistics.getOfferMinAmount();
+        tradePrices[index] = tradeStatistics.getTradePriceValue();
+        tradeAmounts[index] = tradeStatistics.getTradeAmountValue();
+        tradeDates[index] = tradeStatistics.getTradeDate().getTime();
+
+        String depositTxId = tradeStatistics.getDepositTxId();
+        if (depositTxId != null && depositTxId.length() == DEPOSIT_TX_ID_LENGTH * 2 && HEX.canDecode(depositTxId))
+            System.arraycopy(HEX.decode(depositTxId), 0, depositTxIds, index * DEPOSIT_TX_ID_LENGTH, DEPOSIT_TX_ID_LENGTH);
+        else
+            irregularDepositTxIdByIndex.put(index, depositTxId);
+
+        byte[] hash = tradeStatistics.getHash();
+        if (hash.length == HASH_LENGTH)
+            System.arraycopy(hash, 0, hashes, index * HASH_LENGTH, HASH_LENGTH);
+        else
+            irregularHashByIndex.put(index, hash.clone());
+
+        if (tradeStatistics.getExtraDataMap() != null)
+            extraDataMapByIndex.put(index, tradeStatistics.getExtraDataMap());
+
+        offerIdStarts[index] = offerIdPoolSize;
+        System.arraycopy(offerIdBytes, 0, offerIdPool, offerIdPoolSize, offerIdBytes.length);
+        offerIdPoolSize += offerIdBytes.length;
+
+        size++;
+        offerIdTable[slot] = size;
+        if (size * 2 > offerIdTable.length)
+            rehash(offerIdTable.length * 2);
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean containsOfferId(String offerId) {
+        return getIndex(offerId) >= 0;
+    }
+
+    /**
+     * @return A new TradeStatistics2 object created from the columns. The hash is taken over so it does not get
+     * calculated again.
+     */
+    public synchronized TradeStatistics2 get(int index) {
+        checkIndex(index);
+        byte[] hash = irregularHashByIndex.containsKey(index) ?
+                irregularHashByIndex.get(index).clone() :
+                Arrays.copyOfRange(hashes, index * HASH_LENGTH, (index + 1) * HASH_LENGTH);
+        String depositTxId = irregularDepositTxIdByIndex.containsKey(index) ?
+                irregularDepositTxIdByIndex.get(index) :
+                HEX.encode(depositTxIds, index * DEPOSIT_TX_ID_LENGTH, DEPOSIT_TX_ID_LENGTH);
+        return new TradeStatistics2(DIRECTIONS[directions[index]],
+                codes.get(baseCurrencies[index]),
+                codes.get(counterCurrencies[index]),
+                codes.get(paymentMethods[index]),
+                offerDates[index],
+                offerUseMarketBasedPrices[index],
+                offerMarketPriceMargins[index],
+                offerAmounts[index],
+                offerMinAmounts[index],
+                getOfferId(index),
+                tradePrices[index],
+                tradeAmounts[index],
+                tradeDates[index],
+                depositTxId,
+                hash,
+                extraDataMapByIndex.get(index));
+    }
+
+    @Nullable
+    public synchronized TradeStatistics2 getByOfferId(String offerId) {
+        int index = getIndex(offerId);
+        return index >= 0 ? get(index) : null;
+    }
+
+    /**
+     * Calls the consumer with the index of all items of the given currency with a trade date in the given range
+     * (from inclusive, to exclusive) in the order they have been added.
+     */
+    public synchronized void forEachIndex(String currencyCode, long from, long to, IntConsumer consumer) {
+        Integer codeIndex = codeIndexByCode.get(currencyCode);
+        if (codeIndex == null)
+            return;
+
+        int code = codeIndex;
+        for (int i = 0; i < size; i++) {
+            if (currencyCodes[i] == code && tradeDates[i] >= from && tradeDates[i] < to)
+                consumer.accept(i);
+        }
+    }
+
+    public synchronized List<TradeStatistics2> getTradeStatistics(String currencyCode, long from, long to) {
+        List<TradeStatistics2> result = new ArrayList<>();
+        forEachIndex(currencyCode, from, to, index -> result.add(get(index)));
+        return result;
+    }
+
+    public synchronized String getCurrencyCode(int index) {
+        checkIndex(index);
+        return codes.get(currencyCodes[index]);
+    }
+
+    public synchronized long getTradePrice(int index) {
+        checkIndex(index);
+        return tradePrices[index];
+    }
+
+    public synchronized long getTradeAmount(int index) {
+        checkIndex(index);
+        return tradeAmounts[index];
+    }
+
+    public synchronized long getTradeDate(int index) {
+        checkIndex(index);
+        return tradeDates[index];
+    }
+
+    /**
+     * Releases the unused capacity of the columns. To be called after a bulk load.
+     */
+    public synchronized void trimToSize() {
+        resize(size, offerIdPoolSize);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private int getCodeIndex(String code) {
+        return codeIndexByCode.computeIfAbsent(code, key -> {
+            codes.add(key);
+            return codes.size() - 1;
+        });
+    }
+
+    private String getOfferId(int index) {
+        int start = offerIdStarts[index];
+        return new String(offerIdPool, start, getOfferIdEnd(index) - start, StandardCharsets.UTF_8);
+    }
+
+    private int getOfferIdEnd(int index) {
+        return index + 1 < size ? offerIdStarts[index + 1] : offerIdPoolSize;
+    }
+
+    // Returns -1 if not found
+    private int getIndex(String offerId) {
+        int slot = findSlot(offerId.hashCode(), offerId.getBytes(StandardCharsets.UTF_8));
+        return offerIdTable[slot] - 1;
+    }
+
+    // Returns the slot of the given offer id or the empty slot where it would be added
+    private int findSlot(int hashCode, byte[] offerIdBytes) {
+        int mask = offerIdTable.length - 1;
+        int slot = spread(hashCode) & mask;
+        while (offerIdTable[slot] != 0 && !offerIdEquals(offerIdTable[slot] - 1, offerIdBytes))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private boolean offerIdEquals(int index, byte[] offerIdBytes) {
+        int start = offerIdStarts[index];
+        int length = getOfferIdEnd(index) - start;
+        if (length != offerIdBytes.length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (offerIdPool[start + i] != offerIdBytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void rehash(int tableSize) {
+        offerIdTable = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = spread(getOfferId(i).hashCode()) & mask;
+            while (offerIdTable[slot] != 0)
+                slot = (slot + 1) & mask;
+            offerIdTable[slot] = i + 1;
+        }
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds. size=" + size);
+    }
+
+    private void ensureCapacity(int capacity, int offerIdPoolCapacity) {
+        if (capacity > directions.length || offerIdPoolCapacity > offerIdPool.length)
+            resize(Math.max(capacity, directions.length * 2), Math.max(offerIdPoolCapacity, offerIdPool.length * 2));
+    }
+
+    private void resize(int capacity, int offerIdPoolCapacity) {
+        directions = Arrays.copyOf(directions, capacity);
+        baseCurrencies = Arrays.copyOf(baseCurrencies, capacity);
+        counterCurrencies = Arrays.copyOf(counterCurrencies, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+        paymentMethods = Arrays.copyOf(paymentMethods, capacity);
+        offerDates = Arrays.copyOf(offerDates, capacity);
+        offerUseMarketBasedPrices = Arrays.copyOf(offerUseMarketBasedPrices, capacity);
+        offerMarketPriceMargins = Arrays.copyOf(offerMarketPriceMargins, capacity);
+        offerAmounts = Arrays.copyOf(offerAmounts, capacity);
+        offerMinAmounts = Arrays.copyOf(offerMinAmounts, capacity);
+        tradePrices = Arrays.copyOf(tradePrices, capacity);
+        tradeAmounts = Arrays.copyOf(tradeAmounts, capacity);
+        tradeDates = Arrays.copyOf(tradeDates, capacity);
+        depositTxIds = Arrays.copyOf(depositTxIds, capacity * DEPOSIT_TX_ID_LENGTH);
+        hashes = Arrays.copyOf(hashes, capacity * HASH_LENGTH);
+        offerIdStarts = Arrays.copyOf(offerIdStarts, capacity);
+        offerIdPool = Arrays.copyOf(offerIdPool, offerIdPoolCapacity);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candle series per market (currency code) at several resolutions, updated incrementally for each added trade.
+ * Each series is a sorted map from the interval start to the candle, so adding a trade and looking up the candles of
+ * a time range is O(log n) in the number of intervals. Intervals are in UTC, weeks start at Monday.
+ */
+public class MarketCandles {
+    public enum Resolution {
+        HOUR,
+        DAY,
+        WEEK,
+        MONTH;
+
+        public long getIntervalStart(long date) {
+            switch (this) {
+                case HOUR:
+                    return date - Math.floorMod(date, TimeUnit.HOURS.toMillis(1));
+                case DAY:
+                    return date - Math.floorMod(date, TimeUnit.DAYS.toMillis(1));
+                case WEEK:
+                    return toStartOfDay(getLocalDate(date).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+                case MONTH:
+                    return toStartOfDay(getLocalDate(date).withDayOfMonth(1));
+                default:
+                    throw new IllegalStateException("Unhandled resolution " + this);
+            }
+        }
+
+        private static LocalDate getLocalDate(long date) {
+            return Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC).toLocalDate();
+        }
+
+        private static long toStartOfDay(LocalDate localDate) {
+            return localDate.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+    }
+
+    private final Map<String, Map<Resolution, NavigableMap<Long, Candle>>> seriesByCurrencyCode = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public synchronized void add(TradeStatistics2 tradeStatistics) {
+        add(tradeStatistics.getCurrencyCode(),
+                tradeStatistics.getTradeDate().getTime(),
+                tradeStatistics.getTradePrice().getValue(),
+                tradeStatistics.getTradeAmount().value,
+                tradeStatistics.getTradeVolume().getValue());
+    }
+
+    public synchronized void add(String currencyCode, long tradeDate, long price, long amount, long volume) {
+        Map<Resolution, NavigableMap<Long, Candle>> seriesByResolution = seriesByCurrencyCode.computeIfAbsent(currencyCode,
+                key -> new EnumMap<>(Resolution.class));
+        for (Resolution resolution : Resolution.values()) {
+            long intervalStart = resolution.getIntervalStart(tradeDate);
+            seriesByResolution.computeIfAbsent(resolution, key -> new TreeMap<>())
+                    .computeIfAbsent(intervalStart, Candle::new)
+                    .add(tradeDate, price, amount, volume);
+        }
+    }
+
+    /**
+     * @return Copies of the candles of the intervals overlapping the given range (from inclusive, to exclusive),
+     * sorted by interval start. Intervals without trades are not included.
+     */
+    public synchronized List<Candle> getCandles(String currencyCode, Resolution resolution, long from, long to) {
+        List<Candle> result = new ArrayList<>();
+        Map<Resolution, NavigableMap<Long, Candle>> seriesByResolution = seriesByCurrencyCode.get(currencyCode);
+        if (seriesByResolution != null && seriesByResolution.containsKey(resolution) && from < to) {
+            seriesByResolution.get(resolution)
+                    .subMap(resolution.getIntervalStart(from), true, to, false)
+                    .values()
+                    .forEach(candle -> result.add(candle.copy()));
+        }
+        return result;
+    }
+
+    public synchronized Set<String> getCurrencyCodes() {
+        return new HashSet<>(seriesByCurrencyCode.keySet());
+    }
+}
@@ -32,7 +32,6 @@ import bisq.common.app.Capabilities;
 import bisq.common.crypto.Hash;
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.util.JsonExclude;
-import bisq.common.util.Utilities;
 
 import io.bisq.generated.protobuffer.PB;
 
@@ -154,7 +153,8 @@ public final class TradeStatistics2 implements LazyProcessedPayload, Persistable
         if (hash == null)
             // We create hash from all fields excluding hash itself. We use json as simple data serialisation.
             // tradeDate is different for both peers so we ignore it for hash.
-            this.hash = Hash.getSha256Ripemd160hash(Utilities.objectToJson(this).getBytes());
+            // TradeStatisticsJsonEncoder writes the same json as Utilities.objectToJson but without reflection.
+            this.hash = Hash.getSha256Ripemd160hash(TradeStatisticsJsonEncoder.toJson(this).getBytes());
         else
             this.hash = hash;
     }
@@ -251,6 +251,15 @@ public final class TradeStatistics2 implements LazyProcessedPayload, Persistable
         return Coin.valueOf(tradeAmount);
     }
 
+    // Raw values as used for the hash
+    long getTradePriceValue() {
+        return tradePrice;
+    }
+
+    long getTradeAmountValue() {
+        return tradeAmount;
+    }
+
     public Volume getTradeVolume() {
         if (getTradePrice().getMonetary() instanceof Altcoin)
             return new Volume(new AltcoinExchangeRate((Altcoin) getTradePrice().getMonetary()).coinToAltcoin(getTradeAmount()));
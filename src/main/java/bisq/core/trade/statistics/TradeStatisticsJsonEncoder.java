@@ -0,0 +1,153 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.common.util.Utilities;
+
+import java.util.Map;
+
+/**
+ * Writes the same json as Utilities.objectToJson (Gson with pretty printing) for TradeStatistics2, but without
+ * reflection. The json is used for the hash of the object, so the output must stay byte-identical to the Gson
+ * output: fields in declaration order, null fields omitted, tradeDate excluded, html-safe string escaping and
+ * 2 spaces indentation. Any change of the fields in TradeStatistics2 needs to be reflected here (covered by
+ * TradeStatisticsJsonEncoderTest).
+ */
+final class TradeStatisticsJsonEncoder {
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++)
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        REPLACEMENT_CHARS['<'] = "\\u003c";
+        REPLACEMENT_CHARS['>'] = "\\u003e";
+        REPLACEMENT_CHARS['&'] = "\\u0026";
+        REPLACEMENT_CHARS['='] = "\\u003d";
+        REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private TradeStatisticsJsonEncoder() {
+    }
+
+    static String toJson(TradeStatistics2 tradeStatistics) {
+        // Gson throws at NaN and infinite values, we leave that case to Gson to keep the same behaviour
+        if (Double.isNaN(tradeStatistics.getOfferMarketPriceMargin()) ||
+                Double.isInfinite(tradeStatistics.getOfferMarketPriceMargin()))
+            return Utilities.objectToJson(tradeStatistics);
+
+        StringBuilder sb = new StringBuilder(512);
+        sb.append('{');
+        boolean first = true;
+        if (tradeStatistics.getDirection() != null)
+            first = appendString(sb, true, "direction", tradeStatistics.getDirection().name());
+        first = appendString(sb, first, "baseCurrency", tradeStatistics.getBaseCurrency());
+        first = appendString(sb, first, "counterCurrency", tradeStatistics.getCounterCurrency());
+        first = appendString(sb, first, "offerPaymentMethod", tradeStatistics.getOfferPaymentMethod());
+        // From here on we always have a preceding field
+        appendRaw(sb, first, "offerDate").append(tradeStatistics.getOfferDate());
+        appendRaw(sb, false, "offerUseMarketBasedPrice").append(tradeStatistics.isOfferUseMarketBasedPrice());
+        appendRaw(sb, false, "offerMarketPriceMargin").append(Double.toString(tradeStatistics.getOfferMarketPriceMargin()));
+        appendRaw(sb, false, "offerAmount").append(tradeStatistics.getOfferAmount());
+        appendRaw(sb, false, "offerMinAmount").append(tradeStatistics.getOfferMinAmount());
+        appendString(sb, false, "offerId", tradeStatistics.getOfferId());
+        appendRaw(sb, false, "tradePrice").append(tradeStatistics.getTradePriceValue());
+        appendRaw(sb, false, "tradeAmount").append(tradeStatistics.getTradeAmountValue());
+        appendString(sb, false, "depositTxId", tradeStatistics.getDepositTxId());
+
+        byte[] hash = tradeStatistics.getHash();
+        if (hash != null) {
+            appendRaw(sb, false, "hash").append('[');
+            if (hash.length > 0) {
+                for (int i = 0; i < hash.length; i++) {
+                    if (i > 0)
+                        sb.append(',');
+                    sb.append("\n    ").append(hash[i]);
+                }
+                sb.append("\n  ");
+            }
+            sb.append(']');
+        }
+
+        Map<String, String> extraDataMap = tradeStatistics.getExtraDataMap();
+        if (extraDataMap != null) {
+            appendRaw(sb, false, "extraDataMap").append('{');
+            boolean firstEntry = true;
+            for (Map.Entry<String, String> entry : extraDataMap.entrySet()) {
+                if (entry.getValue() == null)
+                    continue;
+                sb.append(firstEntry ? "\n    " : ",\n    ");
+                appendEscaped(sb, String.valueOf(entry.getKey()));
+                sb.append(": ");
+                appendEscaped(sb, entry.getValue());
+                firstEntry = false;
+            }
+            if (!firstEntry)
+                sb.append("\n  ");
+            sb.append('}');
+        }
+
+        sb.append("\n}");
+        return sb.toString();
+    }
+
+    // Returns the new value of the first flag
+    private static boolean appendString(StringBuilder sb, boolean first, String name, String value) {
+        if (value == null)
+            return first;
+
+        appendEscaped(appendRaw(sb, first, name), value);
+        return false;
+    }
+
+    private static StringBuilder appendRaw(StringBuilder sb, boolean first, String name) {
+        sb.append(first ? "\n  \"" : ",\n  \"").append(name).append("\": ");
+        return sb;
+    }
+
+    // Same escaping as the Gson JsonWriter with html safe escaping (the Gson default)
+    private static void appendEscaped(StringBuilder sb, String value) {
+        sb.append('"');
+        int length = value.length();
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null)
+                    continue;
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            sb.append(value, last, i).append(replacement);
+            last = i + 1;
+        }
+        sb.append(value, last, length).append('"');
+    }
+}
@@ -23,6 +23,7 @@ import bisq.core.locale.CurrencyUtil;
 import bisq.core.locale.Res;
 import bisq.core.provider.price.PriceFeedService;
 import bisq.core.trade.Trade;
+import bisq.core.util.JsonStatisticsWriter;
 
 import bisq.network.p2p.P2PService;
 import bisq.network.p2p.storage.HashMapChangedListener;
@@ -30,9 +31,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
 import bisq.common.UserThread;
-import bisq.common.storage.JsonFileManager;
 import bisq.common.storage.Storage;
-import bisq.common.util.Utilities;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -43,6 +42,7 @@ import javafx.collections.ObservableSet;
 import java.io.File;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,10 +52,15 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 public class TradeStatisticsManager {
+    // New statistics can arrive in bursts, so we write the dump at most once per interval
+    private static final long DUMP_INTERVAL = TimeUnit.SECONDS.toMillis(5);
 
     static TradeStatistics2 ConvertToTradeStatistics2(TradeStatistics tradeStatistics) {
         return new TradeStatistics2(tradeStatistics.getDirection(),
@@ -76,12 +81,17 @@ public class TradeStatisticsManager {
                 tradeStatistics.getExtraDataMap());
     }
 
-    private final JsonFileManager jsonFileManager;
+    @Nullable
+    private final JsonStatisticsWriter jsonStatisticsWriter;
     private final P2PService p2PService;
     private final PriceFeedService priceFeedService;
-    private final boolean dumpStatistics;
     private final ObservableSet<TradeStatistics2> observableTradeStatisticsSet = FXCollections.observableSet();
-    private final HashSet<TradeStatistics2> tradeStatisticsSet = new HashSet<>();
+    // Maker and taker might both publish the statistics of a trade, so we use the offer IDs of the compact store to
+    // detect duplicates. The store is also used for the range queries by currency and trade date.
+    private final CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+    private final Map<String, TradeStatistics2> latestTradeStatisticsByCurrencyCode = new HashMap<>();
+    @Getter
+    private final MarketCandles marketCandles = new MarketCandles();
 
     @Inject
     public TradeStatisticsManager(P2PService p2PService,
@@ -90,22 +100,22 @@ public class TradeStatisticsManager {
                                   @Named(AppOptionKeys.DUMP_STATISTICS) boolean dumpStatistics) {
         this.p2PService = p2PService;
         this.priceFeedService = priceFeedService;
-        this.dumpStatistics = dumpStatistics;
-        jsonFileManager = new JsonFileManager(storageDir);
+        jsonStatisticsWriter = dumpStatistics ? new JsonStatisticsWriter(storageDir, DUMP_INTERVAL) : null;
     }
 
     public void onAllServicesInitialized() {
-        if (dumpStatistics) {
-            ArrayList<CurrencyTuple> fiatCurrencyList = new ArrayList<>(CurrencyUtil.getAllSortedFiatCurrencies().stream()
+        if (jsonStatisticsWriter != null) {
+            jsonStatisticsWriter.requestWrite("fiat_currency_list", () -> CurrencyUtil.getAllSortedFiatCurrencies().stream()
                     .map(e -> new CurrencyTuple(e.getCode(), e.getName(), 8))
                     .collect(Collectors.toList()));
-            jsonFileManager.writeToDisc(Utilities.objectToJson(fiatCurrencyList), "fiat_currency_list");
 
-            ArrayList<CurrencyTuple> cryptoCurrencyList = new ArrayList<>(CurrencyUtil.getAllSortedCryptoCurrencies().stream()
-                    .map(e -> new CurrencyTuple(e.getCode(), e.getName(), 8))
-                    .collect(Collectors.toList()));
-            cryptoCurrencyList.add(0, new CurrencyTuple(Res.getBaseCurrencyCode(), Res.getBaseCurrencyName(), 8));
-            jsonFileManager.writeToDisc(Utilities.objectToJson(cryptoCurrencyList), "crypto_currency_list");
+            jsonStatisticsWriter.requestWrite("crypto_currency_list", () -> {
+                List<CurrencyTuple> cryptoCurrencyList = CurrencyUtil.getAllSortedCryptoCurrencies().stream()
+                        .map(e -> new CurrencyTuple(e.getCode(), e.getName(), 8))
+                        .collect(Collectors.toList());
+                cryptoCurrencyList.add(0, new CurrencyTuple(Res.getBaseCurrencyCode(), Res.getBaseCurrencyName(), 8));
+                return cryptoCurrencyList;
+            });
         }
 
         p2PService.getP2PDataStorage().addPersistableNetworkPayloadMapListener(payload -> {
@@ -117,6 +127,7 @@ public class TradeStatisticsManager {
             if (e instanceof TradeStatistics2)
                 addToMap((TradeStatistics2) e, false);
         });
+        compactTradeStatistics.trimToSize();
 
         //TODO can be removed after version older than v0.6.0 are not used anymore
         // We listen to TradeStatistics objects from old clients as well and convert them into TradeStatistics2 objects
@@ -135,13 +146,18 @@ public class TradeStatisticsManager {
             }
         });
 
-        priceFeedService.applyLatestBisqMarketPrice(tradeStatisticsSet);
+        latestTradeStatisticsByCurrencyCode.values().forEach(priceFeedService::applyBisqMarketPrice);
         dump();
 
         // print all currencies sorted by nr. of trades
         // printAllCurrencyStats();
     }
 
+    public void shutDown() {
+        if (jsonStatisticsWriter != null)
+            jsonStatisticsWriter.shutDown();
+    }
+
     public void publishTradeStatistics(List<Trade> trades) {
         for (int i = 0; i < trades.size(); i++) {
             Trade trade = trades.get(i);
@@ -165,16 +181,16 @@ public class TradeStatisticsManager {
     }
 
     public void addToMap(TradeStatistics2 tradeStatistics, boolean storeLocally) {
-        if (!tradeStatisticsSet.contains(tradeStatistics)) {
-            boolean itemAlreadyAdded = tradeStatisticsSet.stream().filter(e -> (e.getOfferId().equals(tradeStatistics.getOfferId()))).findAny().isPresent();
+        if (!observableTradeStatisticsSet.contains(tradeStatistics)) {
+            boolean itemAlreadyAdded = !compactTradeStatistics.add(tradeStatistics);
             if (!itemAlreadyAdded) {
-                tradeStatisticsSet.add(tradeStatistics);
                 observableTradeStatisticsSet.add(tradeStatistics);
+                marketCandles.add(tradeStatistics);
 
-                tradeStatistics.getTradePrice().getValue();
-
+                boolean isLatest = updateLatestTradeStatistics(tradeStatistics);
                 if (storeLocally) {
-                    priceFeedService.applyLatestBisqMarketPrice(tradeStatisticsSet);
+                    if (isLatest)
+                        priceFeedService.applyBisqMarketPrice(tradeStatistics);
                     dump();
                 }
             } else {
@@ -187,25 +203,56 @@ public class TradeStatisticsManager {
         return observableTradeStatisticsSet;
     }
 
+    /**
+     * @return The trade statistics of the given currency with a trade date in the given range (from inclusive, to
+     * exclusive) in the order they have been added. The range scan runs over the compact store, only the matching
+     * items get created.
+     */
+    public List<TradeStatistics2> getTradeStatistics(String currencyCode, Date from, Date to) {
+        return compactTradeStatistics.getTradeStatistics(currencyCode, from.getTime(), to.getTime());
+    }
+
+    /**
+     * @return The number of trades of the given currency with a trade date in the given range (from inclusive, to
+     * exclusive). No objects get created.
+     */
+    public int getNumTrades(String currencyCode, Date from, Date to) {
+        int[] numTrades = new int[1];
+        compactTradeStatistics.forEachIndex(currencyCode, from.getTime(), to.getTime(), index -> numTrades[0]++);
+        return numTrades[0];
+    }
+
+    // Returns true if the tradeStatistics is the latest of its currency
+    private boolean updateLatestTradeStatistics(TradeStatistics2 tradeStatistics) {
+        String currencyCode = tradeStatistics.getCurrencyCode();
+        TradeStatistics2 latest = latestTradeStatisticsByCurrencyCode.get(currencyCode);
+        if (latest == null || tradeStatistics.getTradeDate().getTime() > latest.getTradeDate().getTime()) {
+            latestTradeStatisticsByCurrencyCode.put(currencyCode, tradeStatistics);
+            return true;
+        }
+        return false;
+    }
+
     private void dump() {
-        if (dumpStatistics) {
+        if (jsonStatisticsWriter != null) {
             // We store the statistics as json so it is easy for further processing (e.g. for web based services)
             // TODO This is just a quick solution for storing to one file.
             // 1 statistic entry has 500 bytes as json.
-            // Need a more scalable solution later when we get more volume.
+            // The json objects are created and streamed to the file on the writer thread, so we only copy the
+            // references here.
             // The flag will only be activated by dedicated nodes, so it should not be too critical for the moment, but needs to
             // get improved. Maybe a LevelDB like DB...? Could be impl. in a headless version only.
-            List<TradeStatisticsForJson> list = tradeStatisticsSet.stream().map(TradeStatisticsForJson::new).collect(Collectors.toList());
-            list.sort((o1, o2) -> (o1.tradeDate < o2.tradeDate ? 1 : (o1.tradeDate == o2.tradeDate ? 0 : -1)));
-            TradeStatisticsForJson[] array = new TradeStatisticsForJson[list.size()];
-            list.toArray(array);
-            jsonFileManager.writeToDisc(Utilities.objectToJson(array), "trade_statistics");
+            jsonStatisticsWriter.requestWrite("trade_statistics", () -> {
+                List<TradeStatistics2> list = new ArrayList<>(observableTradeStatisticsSet);
+                list.sort(Comparator.comparing(TradeStatistics2::getTradeDate).reversed());
+                return list;
+            }, TradeStatisticsForJson::new);
         }
     }
 
     private void printAllCurrencyStats() {
         Map<String, Set<TradeStatistics2>> map1 = new HashMap<>();
-        for (TradeStatistics2 tradeStatistics : tradeStatisticsSet) {
+        for (TradeStatistics2 tradeStatistics : observableTradeStatisticsSet) {
             if (CurrencyUtil.isFiatCurrency(tradeStatistics.getCounterCurrency())) {
                 final String counterCurrency = CurrencyUtil.getNameAndCode(tradeStatistics.getCounterCurrency());
                 if (!map1.containsKey(counterCurrency))
@@ -222,7 +269,7 @@ public class TradeStatisticsManager {
         log.error(sb1.toString());
 
         Map<String, Set<TradeStatistics2>> map2 = new HashMap<>();
-        for (TradeStatistics2 tradeStatistics : tradeStatisticsSet) {
+        for (TradeStatistics2 tradeStatistics : observableTradeStatisticsSet) {
             if (CurrencyUtil.isCryptoCurrency(tradeStatistics.getBaseCurrency())) {
                 final String code = CurrencyUtil.getNameAndCode(tradeStatistics.getBaseCurrency());
                 if (!map2.containsKey(code))
@@ -24,6 +24,7 @@ import bisq.core.filter.Filter;
 import bisq.core.locale.LanguageUtil;
 import bisq.core.locale.TradeCurrency;
 import bisq.core.payment.PaymentAccount;
+import bisq.core.payment.PaymentAccountIndex;
 
 import bisq.network.p2p.NodeAddress;
 
@@ -67,6 +68,8 @@ public final class User implements PersistedDataHost {
 
     private ObservableSet<PaymentAccount> paymentAccountsAsObservable;
     private ObjectProperty<PaymentAccount> currentPaymentAccountProperty;
+    // Rebuilt at each change of the payment accounts
+    private final PaymentAccountIndex paymentAccountIndex = new PaymentAccountIndex();
 
     private UserPayload userPayload = new UserPayload();
 
@@ -91,6 +94,7 @@ public final class User implements PersistedDataHost {
         checkNotNull(userPayload.getAcceptedLanguageLocaleCodes(), "userPayload.getAcceptedLanguageLocaleCodes() must not be null");
         paymentAccountsAsObservable = FXCollections.observableSet(userPayload.getPaymentAccounts());
         currentPaymentAccountProperty = new SimpleObjectProperty<>(userPayload.getCurrentPaymentAccount());
+        paymentAccountIndex.setPaymentAccounts(paymentAccountsAsObservable);
         userPayload.setAccountId(String.valueOf(Math.abs(keyRing.getPubKeyRing().hashCode())));
 
         // language setup
@@ -102,6 +106,7 @@ public final class User implements PersistedDataHost {
 
         paymentAccountsAsObservable.addListener((SetChangeListener<PaymentAccount>) change -> {
             userPayload.setPaymentAccounts(new HashSet<>(paymentAccountsAsObservable));
+            paymentAccountIndex.setPaymentAccounts(paymentAccountsAsObservable);
             persist();
         });
         currentPaymentAccountProperty.addListener((ov) -> {
@@ -358,6 +363,10 @@ public final class User implements PersistedDataHost {
         return paymentAccountsAsObservable;
     }
 
+    public PaymentAccountIndex getPaymentAccountIndex() {
+        return paymentAccountIndex;
+    }
+
     @Nullable
     public Arbitrator getRegisteredArbitrator() {
         return userPayload.getRegisteredArbitrator();
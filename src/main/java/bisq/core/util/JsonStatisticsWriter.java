@@ -0,0 +1,194 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.util;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.util.Utilities;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the json files of the statistics dumps (used by web based services). The items are streamed to a temp file
+ * which gets renamed once complete, so readers never see a partially written file and we never hold the whole json
+ * in memory. Write requests for the same file are coalesced: a file is written at most once per interval, with the
+ * latest state at the time of writing.
+ * <p/>
+ * Like the Gson based Utilities.objectToJson we serialize public fields and skip null values.
+ * The API must be called from the user thread. Snapshots are taken on the user thread, the items get mapped to their
+ * json object and written on a separate thread. The owner has to call shutDown from its shutDown, which writes the
+ * pending requests.
+ */
+@Slf4j
+public class JsonStatisticsWriter {
+    private static final String JSON_FILE_SUFFIX = ".json";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.PUBLIC_ONLY)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    interface Scheduler {
+        Timer runAfter(Runnable runnable, long delayMs);
+    }
+
+    private final File dir;
+    private final long minInterval;
+    private final Scheduler scheduler;
+    private final LongSupplier clock;
+    private final ListeningExecutorService executor;
+    private final Map<String, Timer> timerByFileName = new HashMap<>();
+    private final Map<String, Long> lastWriteTimeByFileName = new HashMap<>();
+    private final Map<String, Runnable> pendingWriteByFileName = new HashMap<>();
+
+    /**
+     * @param dir         The directory of the json files.
+     * @param minInterval Min. interval in ms between 2 writes of the same file.
+     */
+    public JsonStatisticsWriter(File dir, long minInterval) {
+        this(dir, minInterval, (runnable, delayMs) -> UserThread.runAfter(runnable, delayMs, TimeUnit.MILLISECONDS),
+                System::currentTimeMillis);
+    }
+
+    JsonStatisticsWriter(File dir, long minInterval, Scheduler scheduler, LongSupplier clock) {
+        this.dir = dir;
+        this.minInterval = minInterval;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        executor = Utilities.getListeningSingleThreadExecutor("JsonStatisticsWriter");
+
+        if (!dir.exists() && !dir.mkdirs())
+            log.warn("Could not create directory {}", dir);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Requests a write of the given file. If the file has been written within the interval the write gets delayed
+     * and later requests only replace the pending one.
+     *
+     * @param snapshotSupplier Called on the user thread at the time of writing. Must return a list which does not
+     *                         get changed afterwards.
+     * @param mapper           Maps the items to the objects we write as json. Called on the writer thread, so it
+     *                         must not access state owned by the user thread. Items mapped to null are skipped.
+     */
+    public <T> void requestWrite(String fileName, Supplier<List<T>> snapshotSupplier, Function<T, Object> mapper) {
+        pendingWriteByFileName.put(fileName, () -> {
+            List<T> items = snapshotSupplier.get();
+            executor.submit(() -> write(fileName, items, mapper));
+        });
+
+        if (timerByFileName.containsKey(fileName))
+            return;
+
+        long delay = lastWriteTimeByFileName.getOrDefault(fileName, 0L) + minInterval - clock.getAsLong();
+        if (delay > 0)
+            timerByFileName.put(fileName, scheduler.runAfter(() -> writePending(fileName), delay));
+        else
+            writePending(fileName);
+    }
+
+    public <T> void requestWrite(String fileName, Supplier<List<T>> snapshotSupplier) {
+        requestWrite(fileName, snapshotSupplier, item -> item);
+    }
+
+    /**
+     * Writes the pending requests without waiting for their interval and blocks until all writes are done.
+     */
+    public void shutDown() {
+        if (!executor.isShutdown()) {
+            new ArrayList<>(pendingWriteByFileName.keySet()).forEach(this::writePending);
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void writePending(String fileName) {
+        Timer timer = timerByFileName.remove(fileName);
+        if (timer != null)
+            timer.stop();
+
+        Runnable pendingWrite = pendingWriteByFileName.remove(fileName);
+        if (pendingWrite != null && !executor.isShutdown()) {
+            lastWriteTimeByFileName.put(fileName, clock.getAsLong());
+            pendingWrite.run();
+        }
+    }
+
+    private <T> void write(String fileName, List<T> items, Function<T, Object> mapper) {
+        long ts = System.currentTimeMillis();
+        File file = new File(dir, fileName + JSON_FILE_SUFFIX);
+        File tempFile = new File(dir, fileName + TEMP_FILE_SUFFIX);
+        try {
+            try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(tempFile, JsonEncoding.UTF8)) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartArray();
+                for (T item : items) {
+                    Object json = mapper.apply(item);
+                    if (json != null)
+                        OBJECT_MAPPER.writeValue(generator, json);
+                }
+                generator.writeEndArray();
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Writing {} items to {} took {} ms", items.size(), file, System.currentTimeMillis() - ts);
+        } catch (Throwable t) {
+            log.error("Could not write {}. {}", file, t.toString());
+            // The previous version of the file is still valid
+            if (tempFile.exists() && !tempFile.delete())
+                log.warn("Could not delete temp file {}", tempFile);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.script.ScriptBuilder;
+
+import java.math.BigInteger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BisqDefaultCoinSelectorTest {
+    private static final long MAX_MONEY = NetworkParameters.MAX_MONEY.value;
+
+    // The comparator used before the sort keys were introduced
+    private static final Comparator<TransactionOutput> BIG_INTEGER_COMPARATOR = (a, b) -> {
+        int depth1 = a.getParentTransactionDepthInBlocks();
+        int depth2 = b.getParentTransactionDepthInBlocks();
+        Coin aValue = a.getValue();
+        Coin bValue = b.getValue();
+        BigInteger aCoinDepth = BigInteger.valueOf(aValue.value).multiply(BigInteger.valueOf(depth1));
+        BigInteger bCoinDepth = BigInteger.valueOf(bValue.value).multiply(BigInteger.valueOf(depth2));
+        int c1 = bCoinDepth.compareTo(aCoinDepth);
+        if (c1 != 0) return c1;
+        int c2 = bValue.compareTo(aValue);
+        if (c2 != 0) return c2;
+        BigInteger aHash = a.getParentTransactionHash() != null ?
+                a.getParentTransactionHash().toBigInteger() : BigInteger.ZERO;
+        BigInteger bHash = b.getParentTransactionHash() != null ?
+                b.getParentTransactionHash().toBigInteger() : BigInteger.ZERO;
+        return aHash.compareTo(bHash);
+    };
+
+    private final NetworkParameters params = MainNetParams.get();
+    private final Random random = new Random(42);
+
+    @Before
+    public void setup() {
+        Context.propagate(new Context(params));
+    }
+
+    @Test
+    public void testSortOrderMatchesBigIntegerComparator() {
+        BisqDefaultCoinSelector coinSelector = new BisqDefaultCoinSelector() {
+            @Override
+            boolean isTxOutputSpendable(TransactionOutput output) {
+                return true;
+            }
+        };
+
+        for (int round = 0; round < 20; round++) {
+            List<TransactionOutput> outputs = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                long value = randomValue();
+                int depth = randomDepth();
+                // Several outputs of the same tx are equal in all sort criteria
+                addTx(outputs, depth, value, value, randomValue());
+                // Same coin depth with a different value
+                if (value % 2 == 0 && depth >= 0 && depth <= Integer.MAX_VALUE / 2)
+                    addTx(outputs, depth * 2, value / 2);
+                // Same value and depth but another tx
+                addTx(outputs, depth, value);
+            }
+            Collections.shuffle(outputs, random);
+
+            ArrayList<TransactionOutput> sorted = new ArrayList<>(outputs);
+            coinSelector.sortOutputs(sorted);
+            List<TransactionOutput> expected = new ArrayList<>(outputs);
+            expected.sort(BIG_INTEGER_COMPARATOR);
+
+            assertEquals(expected, sorted);
+        }
+    }
+
+    @Test
+    public void testSortOrderAtCoinDepthOverflow() {
+        BisqDefaultCoinSelector coinSelector = new BisqDefaultCoinSelector() {
+            @Override
+            boolean isTxOutputSpendable(TransactionOutput output) {
+                return true;
+            }
+        };
+        // The products are above 2^63 and differ only in the low bits
+        List<TransactionOutput> outputs = new ArrayList<>();
+        addTx(outputs, Integer.MAX_VALUE, MAX_MONEY);
+        addTx(outputs, Integer.MAX_VALUE, MAX_MONEY - 1);
+        addTx(outputs, Integer.MAX_VALUE - 1, MAX_MONEY);
+        addTx(outputs, 1 << 30, MAX_MONEY);
+        addTx(outputs, 1 << 12, 1L << 51);
+        addTx(outputs, 1 << 13, 1L << 50);
+        addTx(outputs, 0, MAX_MONEY);
+        addTx(outputs, -1, MAX_MONEY);
+        addTx(outputs, -1, MAX_MONEY - 1);
+        Collections.shuffle(outputs, random);
+
+        ArrayList<TransactionOutput> sorted = new ArrayList<>(outputs);
+        coinSelector.sortOutputs(sorted);
+        List<TransactionOutput> expected = new ArrayList<>(outputs);
+        expected.sort(BIG_INTEGER_COMPARATOR);
+
+        assertEquals(expected, sorted);
+    }
+
+    @Test
+    public void testSortOrderOfPendingOutputs() {
+        BisqDefaultCoinSelector coinSelector = new BisqDefaultCoinSelector() {
+            @Override
+            boolean isTxOutputSpendable(TransactionOutput output) {
+                return true;
+            }
+        };
+        // bitcoinj reports a depth of -1 for pending outputs, so they come after all confirmed and unconfirmed
+        // outputs, the ones with the lowest value first
+        List<TransactionOutput> outputs = new ArrayList<>();
+        addTx(outputs, -1, 30_000);
+        addTx(outputs, -1, 10_000);
+        addTx(outputs, -1, MAX_MONEY);
+        addTx(outputs, -1, 20_000, 20_000);
+        addTx(outputs, 0, 5_000);
+        addTx(outputs, 0, MAX_MONEY);
+        addTx(outputs, 1, 1);
+        addTx(outputs, 1000, 40_000);
+        Collections.shuffle(outputs, random);
+
+        ArrayList<TransactionOutput> sorted = new ArrayList<>(outputs);
+        coinSelector.sortOutputs(sorted);
+        List<TransactionOutput> expected = new ArrayList<>(outputs);
+        expected.sort(BIG_INTEGER_COMPARATOR);
+
+        assertEquals(expected, sorted);
+        long[] pendingValues = sorted.subList(4, sorted.size()).stream()
+                .mapToLong(output -> output.getValue().value)
+                .toArray();
+        assertArrayEquals(new long[]{10_000, 20_000, 20_000, 30_000, MAX_MONEY}, pendingValues);
+    }
+
+    @Test
+    public void testFindExactMatch() {
+        long[] values = {50_000, 30_000, 20_000, 10_000};
+
+        assertArrayEquals(new boolean[]{true, false, false, false},
+                BisqDefaultCoinSelector.findExactMatch(values, 50_000));
+        assertArrayEquals(new boolean[]{false, true, false, true},
+                BisqDefaultCoinSelector.findExactMatch(values, 40_000));
+        assertArrayEquals(new boolean[]{true, true, true, true},
+                BisqDefaultCoinSelector.findExactMatch(values, 110_000));
+
+        assertNull(BisqDefaultCoinSelector.findExactMatch(values, 45_000));
+        assertNull(BisqDefaultCoinSelector.findExactMatch(values, 120_000));
+        assertNull(BisqDefaultCoinSelector.findExactMatch(new long[]{}, 10_000));
+    }
+
+    @Test
+    public void testFindExactMatchSumsUpToTarget() {
+        long[] values = new long[40];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (values.length - i) * 1_000L + 7;
+
+        long target = values[3] + values[17] + values[38];
+        boolean[] selection = BisqDefaultCoinSelector.findExactMatch(values, target);
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (selection[i])
+                total += values[i];
+        }
+        assertEquals(target, total);
+    }
+
+    private long randomValue() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return MAX_MONEY - random.nextInt(1000);
+            case 1:
+                return 1 + random.nextInt(1_000_000);
+            case 2:
+                return 1L << (20 + random.nextInt(31));
+            default:
+                return 1 + (random.nextLong() & Long.MAX_VALUE) % MAX_MONEY;
+        }
+    }
+
+    private int randomDepth() {
+        switch (random.nextInt(5)) {
+            case 0:
+                return 0;
+            case 1:
+                return -1;
+            case 2:
+                return Integer.MAX_VALUE - random.nextInt(1000);
+            case 3:
+                return random.nextInt(1_000_000);
+            default:
+                return random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    // A negative depth adds a pending tx
+    private void addTx(List<TransactionOutput> outputs, int depth, long... values) {
+        Transaction tx = new Transaction(params);
+        byte[] scriptSig = new byte[8];
+        random.nextBytes(scriptSig);
+        tx.addInput(new TransactionInput(params, tx, scriptSig));
+        for (long value : values)
+            tx.addOutput(Coin.valueOf(value), ScriptBuilder.createOpReturnScript(new byte[]{1}));
+        TransactionConfidence confidence = tx.getConfidence();
+        if (depth < 0) {
+            confidence.setConfidenceType(TransactionConfidence.ConfidenceType.PENDING);
+        } else {
+            confidence.setConfidenceType(TransactionConfidence.ConfidenceType.BUILDING);
+            confidence.setDepthInBlocks(depth);
+        }
+        outputs.addAll(tx.getOutputs());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import bisq.core.btc.InsufficientFundsException;
+import bisq.core.btc.exceptions.FeeEstimationException;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.CoinSelection;
+import org.bitcoinj.wallet.CoinSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultipleReceiversFeeCalculatorTest {
+    private static final Coin FEE_PER_BYTE = Coin.valueOf(50);
+
+    private final NetworkParameters params = MainNetParams.get();
+    private final Address changeAddress = new ECKey().toAddress(params);
+    private int numSelections;
+
+    @Test
+    public void testFeeWithChange() throws Exception {
+        Map<Address, Coin> receivers = createReceivers(Coin.MILLICOIN, Coin.MILLICOIN.multiply(2), Coin.MILLICOIN.multiply(3));
+        List<TransactionOutput> candidates = Arrays.asList(createP2PKHOutput(Coin.COIN), createP2PKHOutput(Coin.COIN));
+
+        Coin fee = MultipleReceiversFeeCalculator.calculateFee(receivers, changeAddress, selectInOrder(), candidates,
+                null, FEE_PER_BYTE);
+
+        // One input is enough, the receivers and the change get an output
+        assertEquals(getFee(1, 3, true), fee);
+    }
+
+    @Test
+    public void testFeeRequiresAnotherInput() throws Exception {
+        Coin amount = Coin.MILLICOIN.multiply(5);
+        Map<Address, Coin> receivers = createReceivers(amount.subtract(Coin.MILLICOIN), Coin.MILLICOIN);
+        // The first input covers the amounts but not the fee
+        List<TransactionOutput> candidates = Arrays.asList(createP2PKHOutput(amount.add(Coin.valueOf(1000))),
+                createP2PKHOutput(Coin.COIN));
+
+        Coin fee = MultipleReceiversFeeCalculator.calculateFee(receivers, changeAddress, selectInOrder(), candidates,
+                null, FEE_PER_BYTE);
+
+        assertEquals(getFee(2, 2, true), fee);
+        assertEquals(3, numSelections);
+    }
+
+    @Test
+    public void testNoChangeOutputIfAmountAndFeeAreMatchedExactly() throws Exception {
+        Map<Address, Coin> receivers = createReceivers(Coin.MILLICOIN);
+        Coin feeWithoutChange = getFee(1, 1, false);
+        List<TransactionOutput> candidates = Collections.singletonList(
+                createP2PKHOutput(Coin.MILLICOIN.add(feeWithoutChange)));
+
+        Coin fee = MultipleReceiversFeeCalculator.calculateFee(receivers, changeAddress, selectInOrder(), candidates,
+                null, FEE_PER_BYTE);
+
+        assertEquals(feeWithoutChange, fee);
+        assertEquals(2, numSelections);
+    }
+
+    @Test(expected = InsufficientFundsException.class)
+    public void testInsufficientFunds() throws Exception {
+        MultipleReceiversFeeCalculator.calculateFee(createReceivers(Coin.COIN, Coin.COIN), changeAddress,
+                selectInOrder(), Collections.singletonList(createP2PKHOutput(Coin.COIN)), null, FEE_PER_BYTE);
+    }
+
+    @Test(expected = FeeEstimationException.class)
+    public void testUnsupportedInput() throws Exception {
+        TransactionOutput opReturnOutput = createOutput(Coin.COIN, ScriptBuilder.createOpReturnScript(new byte[]{1}));
+        MultipleReceiversFeeCalculator.calculateFee(createReceivers(Coin.MILLICOIN), changeAddress, selectInOrder(),
+                Collections.singletonList(opReturnOutput), null, FEE_PER_BYTE);
+    }
+
+    @Test
+    public void testFeeDoesNotConverge() throws Exception {
+        List<TransactionOutput> candidates = new ArrayList<>();
+        for (int i = 0; i < MultipleReceiversFeeCalculator.MAX_ITERATIONS + 1; i++)
+            candidates.add(createP2PKHOutput(Coin.COIN));
+        // Each selection takes one more input than the one before, so the fee never covers the selected inputs
+        CoinSelector growingSelector = (target, outputs) -> {
+            numSelections++;
+            List<TransactionOutput> gathered = new ArrayList<>(outputs.subList(0, numSelections));
+            return new CoinSelection(Coin.COIN.multiply(numSelections), gathered);
+        };
+
+        try {
+            MultipleReceiversFeeCalculator.calculateFee(createReceivers(Coin.MILLICOIN), changeAddress,
+                    growingSelector, candidates, null, FEE_PER_BYTE);
+        } catch (FeeEstimationException e) {
+            assertEquals(MultipleReceiversFeeCalculator.MAX_ITERATIONS, numSelections);
+            return;
+        }
+        throw new AssertionError("Expected FeeEstimationException");
+    }
+
+    @Test
+    public void testMultipleReceiversTx() throws Exception {
+        Address address1 = new ECKey().toAddress(params);
+        Address address2 = new ECKey().toAddress(params);
+        Map<String, Coin> receivers = new LinkedHashMap<>();
+        receivers.put(address1.toBase58(), Coin.MILLICOIN);
+        receivers.put(address2.toBase58(), Coin.CENT);
+
+        Transaction tx = BtcWalletService.getMultipleReceiversTx(params, receivers);
+
+        // The receivers get the exact amounts, the fee is not deducted
+        assertEquals(2, tx.getOutputs().size());
+        assertEquals(address1, tx.getOutput(0).getAddressFromP2PKHScript(params));
+        assertEquals(Coin.MILLICOIN, tx.getOutput(0).getValue());
+        assertEquals(address2, tx.getOutput(1).getAddressFromP2PKHScript(params));
+        assertEquals(Coin.CENT, tx.getOutput(1).getValue());
+        assertTrue(tx.getInputs().isEmpty());
+    }
+
+    // Gathers the candidates in the given order until the target is reached
+    private CoinSelector selectInOrder() {
+        return (target, candidates) -> {
+            numSelections++;
+            List<TransactionOutput> gathered = new ArrayList<>();
+            Coin valueGathered = Coin.ZERO;
+            for (TransactionOutput output : candidates) {
+                if (valueGathered.compareTo(target) >= 0)
+                    break;
+                gathered.add(output);
+                valueGathered = valueGathered.add(output.getValue());
+            }
+            return new CoinSelection(valueGathered, gathered);
+        };
+    }
+
+    private Coin getFee(int numInputs, int numReceivers, boolean withChange) {
+        List<Integer> inputSizes = new ArrayList<>();
+        for (int i = 0; i < numInputs; i++)
+            inputSizes.add(TxSizeEstimator.getEstimatedInputSize(createP2PKHOutput(Coin.COIN), null));
+        List<Integer> outputSizes = new ArrayList<>();
+        int outputSize = TxSizeEstimator.getEstimatedOutputSize(ScriptBuilder.createOutputScript(changeAddress));
+        for (int i = 0; i < numReceivers; i++)
+            outputSizes.add(outputSize);
+        if (withChange)
+            outputSizes.add(outputSize);
+        return FEE_PER_BYTE.multiply(TxSizeEstimator.getEstimatedTxSize(inputSizes, outputSizes));
+    }
+
+    private Map<Address, Coin> createReceivers(Coin... amounts) {
+        Map<Address, Coin> receivers = new LinkedHashMap<>();
+        for (Coin amount : amounts)
+            receivers.put(new ECKey().toAddress(params), amount);
+        return receivers;
+    }
+
+    private TransactionOutput createP2PKHOutput(Coin value) {
+        return createOutput(value, ScriptBuilder.createOutputScript(new ECKey().toAddress(params)));
+    }
+
+    private TransactionOutput createOutput(Coin value, Script scriptPubKey) {
+        Transaction fundingTx = new Transaction(params);
+        fundingTx.addInput(new TransactionInput(params, fundingTx, new byte[]{}));
+        fundingTx.addOutput(value, scriptPubKey);
+        return fundingTx.getOutput(0);
+    }
+}
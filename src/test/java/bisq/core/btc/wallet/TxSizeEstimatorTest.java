@@ -0,0 +1,157 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class TxSizeEstimatorTest {
+    private final NetworkParameters params = MainNetParams.get();
+
+    @Test
+    public void testP2PKHInputs() {
+        for (int numInputs = 1; numInputs <= 20; numInputs++) {
+            Transaction tx = new Transaction(params);
+            List<ECKey> keys = new ArrayList<>();
+            List<Integer> inputSizes = new ArrayList<>();
+            for (int i = 0; i < numInputs; i++) {
+                ECKey key = new ECKey();
+                TransactionOutput connectedOutput = getFundingOutput(ScriptBuilder.createOutputScript(key.toAddress(params)));
+                tx.addInput(connectedOutput);
+                keys.add(key);
+                inputSizes.add(TxSizeEstimator.getEstimatedInputSize(connectedOutput, null));
+            }
+            List<Integer> outputSizes = addP2PKHOutputs(tx, 2);
+
+            for (int i = 0; i < numInputs; i++) {
+                TransactionInput input = tx.getInput(i);
+                ECKey key = keys.get(i);
+                TransactionSignature signature = tx.calculateSignature(i, key, input.getConnectedOutput().getScriptPubKey(),
+                        Transaction.SigHash.ALL, false);
+                input.setScriptSig(ScriptBuilder.createInputScript(signature, key));
+            }
+
+            assertEstimation(tx, inputSizes, outputSizes, numInputs);
+        }
+    }
+
+    @Test
+    public void testP2PKInputs() {
+        Transaction tx = new Transaction(params);
+        ECKey key = new ECKey();
+        TransactionOutput connectedOutput = getFundingOutput(ScriptBuilder.createOutputScript(key));
+        tx.addInput(connectedOutput);
+        List<Integer> inputSizes = ImmutableList.of(TxSizeEstimator.getEstimatedInputSize(connectedOutput, null));
+        List<Integer> outputSizes = addP2PKHOutputs(tx, 1);
+
+        TransactionSignature signature = tx.calculateSignature(0, key, connectedOutput.getScriptPubKey(),
+                Transaction.SigHash.ALL, false);
+        tx.getInput(0).setScriptSig(ScriptBuilder.createInputScript(signature));
+
+        assertEstimation(tx, inputSizes, outputSizes, 1);
+    }
+
+    @Test
+    public void testP2SHMultiSigInputs() {
+        // Covers the 2-of-2 and 2-of-3 multisig deposit tx outputs used in trades
+        for (int numKeys = 2; numKeys <= 3; numKeys++) {
+            Transaction tx = new Transaction(params);
+            List<ECKey> keys = new ArrayList<>();
+            for (int i = 0; i < numKeys; i++)
+                keys.add(new ECKey());
+            Script redeemScript = ScriptBuilder.createMultiSigOutputScript(2, keys);
+            TransactionOutput connectedOutput = getFundingOutput(ScriptBuilder.createP2SHOutputScript(redeemScript));
+            tx.addInput(connectedOutput);
+            List<Integer> inputSizes = ImmutableList.of(TxSizeEstimator.getEstimatedInputSize(connectedOutput.getScriptPubKey(), redeemScript));
+            List<Integer> outputSizes = addP2PKHOutputs(tx, 2);
+
+            List<TransactionSignature> signatures = new ArrayList<>();
+            for (int i = 0; i < 2; i++)
+                signatures.add(tx.calculateSignature(0, keys.get(i), redeemScript, Transaction.SigHash.ALL, false));
+            tx.getInput(0).setScriptSig(ScriptBuilder.createP2SHMultiSigInputScript(signatures, redeemScript));
+
+            assertEstimation(tx, inputSizes, outputSizes, 2);
+        }
+    }
+
+    @Test
+    public void testBareMultiSigInputs() {
+        Transaction tx = new Transaction(params);
+        List<ECKey> keys = ImmutableList.of(new ECKey(), new ECKey(), new ECKey());
+        Script scriptPubKey = ScriptBuilder.createMultiSigOutputScript(2, keys);
+        TransactionOutput connectedOutput = getFundingOutput(scriptPubKey);
+        tx.addInput(connectedOutput);
+        List<Integer> inputSizes = ImmutableList.of(TxSizeEstimator.getEstimatedInputSize(connectedOutput, null));
+        List<Integer> outputSizes = addP2PKHOutputs(tx, 1);
+
+        List<TransactionSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+            signatures.add(tx.calculateSignature(0, keys.get(i), scriptPubKey, Transaction.SigHash.ALL, false));
+        tx.getInput(0).setScriptSig(ScriptBuilder.createMultiSigInputScript(signatures));
+
+        assertEstimation(tx, inputSizes, outputSizes, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testP2SHWithoutRedeemScript() {
+        Script redeemScript = ScriptBuilder.createMultiSigOutputScript(2, ImmutableList.of(new ECKey(), new ECKey()));
+        TxSizeEstimator.getEstimatedInputSize(ScriptBuilder.createP2SHOutputScript(redeemScript), null);
+    }
+
+    private TransactionOutput getFundingOutput(Script scriptPubKey) {
+        Transaction fundingTx = new Transaction(params);
+        fundingTx.addInput(new TransactionInput(params, fundingTx, new byte[]{}));
+        fundingTx.addOutput(Coin.COIN, scriptPubKey);
+        return fundingTx.getOutput(0);
+    }
+
+    private List<Integer> addP2PKHOutputs(Transaction tx, int numOutputs) {
+        List<Integer> outputSizes = new ArrayList<>();
+        for (int i = 0; i < numOutputs; i++) {
+            Script script = ScriptBuilder.createOutputScript(new ECKey().toAddress(params));
+            tx.addOutput(Coin.CENT, script);
+            outputSizes.add(TxSizeEstimator.getEstimatedOutputSize(script));
+        }
+        return outputSizes;
+    }
+
+    private void assertEstimation(Transaction tx, List<Integer> inputSizes, List<Integer> outputSizes, int numSignatures) {
+        int estimatedSize = TxSizeEstimator.getEstimatedTxSize(inputSizes, outputSizes);
+        int size = tx.bitcoinSerialize().length;
+        assertTrue("Estimated size " + estimatedSize + " must not be below real size " + size, estimatedSize >= size);
+        assertTrue("Estimated size " + estimatedSize + " deviates too much from real size " + size,
+                estimatedSize - size <= TxSizeEstimator.MAX_OVERESTIMATION_PER_SIGNATURE * numSignatures);
+    }
+}
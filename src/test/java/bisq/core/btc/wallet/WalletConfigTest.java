@@ -0,0 +1,67 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Test;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class WalletConfigTest {
+
+    @Test
+    public void testBlockStoreOpenedAfterFailureGetsClosed() throws Exception {
+        SettableFuture<BlockStore> blockStoreFuture = SettableFuture.create();
+        // The wallet loading has failed while the block store is still being opened
+        WalletConfig.closeBlockStoreWhenOpened(blockStoreFuture);
+
+        BlockStore blockStore = mock(BlockStore.class);
+        blockStoreFuture.set(blockStore);
+        verify(blockStore).close();
+    }
+
+    @Test
+    public void testBlockStoreOpenedBeforeFailureGetsClosed() throws Exception {
+        BlockStore blockStore = mock(BlockStore.class);
+        WalletConfig.closeBlockStoreWhenOpened(Futures.immediateFuture(blockStore));
+        verify(blockStore).close();
+    }
+
+    @Test
+    public void testFailedBlockStoreOpening() {
+        SettableFuture<BlockStore> blockStoreFuture = SettableFuture.create();
+        WalletConfig.closeBlockStoreWhenOpened(blockStoreFuture);
+        // Must not throw
+        blockStoreFuture.setException(new BlockStoreException("locked"));
+    }
+
+    @Test
+    public void testCloseFailureIsNotPropagated() throws Exception {
+        BlockStore blockStore = mock(BlockStore.class);
+        doThrow(new BlockStoreException("failed")).when(blockStore).close();
+        WalletConfig.closeBlockStoreWhenOpened(Futures.immediateFuture(blockStore));
+        verify(blockStore).close();
+    }
+}
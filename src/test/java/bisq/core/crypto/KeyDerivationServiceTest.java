@@ -0,0 +1,145 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.crypto;
+
+import org.bitcoinj.crypto.KeyCrypterException;
+import org.bitcoinj.crypto.KeyCrypterScrypt;
+
+import org.spongycastle.crypto.params.KeyParameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyDerivationServiceTest {
+    private KeyDerivationService service;
+
+    @After
+    public void tearDown() {
+        if (service != null)
+            service.shutDown();
+    }
+
+    @Test
+    public void testCalibrationSelectsHighestNWithinTarget() {
+        List<Integer> benchmarkedNs = Collections.synchronizedList(new ArrayList<>());
+        // 16, 32, 65 and 131 ms for the candidates
+        service = new KeyDerivationService(70, (n, r, p) -> {
+            benchmarkedNs.add(n);
+            return n / 1000;
+        }, Runnable::run);
+
+        assertEquals(65536, service.getN());
+        assertEquals(65536, service.getKeyCrypterScrypt().getScryptParameters().getN());
+        assertEquals(KeyDerivationService.DEFAULT_P, service.getKeyCrypterScrypt().getScryptParameters().getP());
+        // We stop at the first N above the target
+        assertEquals(4, benchmarkedNs.size());
+    }
+
+    @Test
+    public void testNoCalibrationWithoutTarget() {
+        AtomicInteger numBenchmarks = new AtomicInteger();
+        service = new KeyDerivationService(0, (n, r, p) -> {
+            numBenchmarks.incrementAndGet();
+            return 0;
+        }, Runnable::run);
+
+        assertEquals(KeyDerivationService.DEFAULT_N, service.getN());
+        assertEquals(0, numBenchmarks.get());
+    }
+
+    @Test
+    public void testNewWalletWaitsForCalibration() throws Exception {
+        CountDownLatch calibrationStarted = new CountDownLatch(1);
+        service = new KeyDerivationService(1000, (n, r, p) -> {
+            calibrationStarted.countDown();
+            sleep(100);
+            return n == KeyDerivationService.MIN_N ? 10 : 2000;
+        }, Runnable::run);
+
+        assertTrue(calibrationStarted.await(5, TimeUnit.SECONDS));
+        // The calibration is still running, we must not get the default N
+        assertEquals(KeyDerivationService.MIN_N, service.getN());
+    }
+
+    @Test
+    public void testDerivationDoesNotWaitForCalibration() throws Exception {
+        CountDownLatch releaseCalibration = new CountDownLatch(1);
+        service = new KeyDerivationService(1000, (n, r, p) -> {
+            await(releaseCalibration);
+            return 0;
+        }, Runnable::run);
+
+        CountDownLatch derived = new CountDownLatch(1);
+        service.deriveKey(ScryptUtil.getKeyCrypterScrypt(16, 1, 1), "password", aesKey -> derived.countDown());
+
+        assertTrue(derived.await(5, TimeUnit.SECONDS));
+        releaseCalibration.countDown();
+    }
+
+    @Test
+    public void testSupersededDerivationIsDiscarded() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        KeyCrypterScrypt slowKeyCrypter = new KeyCrypterScrypt(ScryptUtil.getKeyCrypterScrypt(16, 1, 1).getScryptParameters()) {
+            @Override
+            public KeyParameter deriveKey(CharSequence password) throws KeyCrypterException {
+                await(releaseFirst);
+                return super.deriveKey(password);
+            }
+        };
+        service = new KeyDerivationService(0, (n, r, p) -> 0, Runnable::run);
+
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch secondDerived = new CountDownLatch(1);
+        service.deriveKey(slowKeyCrypter, "first", aesKey -> results.add("first"));
+        service.deriveKey(ScryptUtil.getKeyCrypterScrypt(16, 1, 1), "second", aesKey -> {
+            results.add("second");
+            secondDerived.countDown();
+        });
+        releaseFirst.countDown();
+
+        assertTrue(secondDerived.await(5, TimeUnit.SECONDS));
+        // Derivations run in order on one thread, so the first one has completed before the second one
+        assertEquals(Collections.singletonList("second"), results);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
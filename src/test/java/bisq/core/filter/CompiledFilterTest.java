@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.filter;
+
+import bisq.core.payment.payload.PaymentMethod;
+import bisq.core.payment.payload.PerfectMoneyAccountPayload;
+
+import bisq.network.p2p.NodeAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledFilterTest {
+
+    @Test
+    public void testBannedIds() {
+        Filter filter = new Filter(Arrays.asList("offer1", "offer2"),
+                Arrays.asList("banned.onion:9999", "invalid"),
+                new ArrayList<>(),
+                Collections.singletonList("XMR"),
+                Collections.singletonList(PaymentMethod.PERFECT_MONEY_ID),
+                null,
+                null,
+                null,
+                false,
+                null);
+        CompiledFilter compiledFilter = CompiledFilter.compile(filter);
+
+        assertTrue(compiledFilter.isOfferIdBanned("offer2"));
+        assertFalse(compiledFilter.isOfferIdBanned("offer3"));
+        assertTrue(compiledFilter.isNodeAddressBanned(new NodeAddress("banned.onion:9999")));
+        assertFalse(compiledFilter.isNodeAddressBanned(new NodeAddress("banned.onion:8888")));
+        assertTrue(compiledFilter.isCurrencyBanned("XMR"));
+        assertFalse(compiledFilter.isCurrencyBanned("EUR"));
+        assertTrue(compiledFilter.isPaymentMethodBanned(PaymentMethod.PERFECT_MONEY_ID));
+        assertFalse(compiledFilter.isPaymentMethodBanned(PaymentMethod.SEPA_ID));
+    }
+
+    @Test
+    public void testNoFilter() {
+        CompiledFilter compiledFilter = CompiledFilter.compile(null);
+        assertSame(CompiledFilter.EMPTY, compiledFilter);
+        assertFalse(compiledFilter.isOfferIdBanned("offer1"));
+        assertFalse(compiledFilter.isCurrencyBanned("XMR"));
+        assertNull(compiledFilter.getMatchingPaymentAccountFilter(createPayload("123")));
+    }
+
+    @Test
+    public void testBannedPaymentAccounts() {
+        PaymentAccountFilter unknownMethod = new PaymentAccountFilter(PaymentMethod.PERFECT_MONEY_ID,
+                "getUnknown", "123");
+        PaymentAccountFilter bannedAccountNr = new PaymentAccountFilter(PaymentMethod.PERFECT_MONEY_ID,
+                "getAccountNr", "123");
+        PaymentAccountFilter otherPaymentMethod = new PaymentAccountFilter(PaymentMethod.SEPA_ID,
+                "getAccountNr", "456");
+        CompiledFilter compiledFilter = CompiledFilter.compile(createFilter(
+                Arrays.asList(unknownMethod, bannedAccountNr, otherPaymentMethod)));
+
+        assertSame(bannedAccountNr, compiledFilter.getMatchingPaymentAccountFilter(createPayload("123")));
+        assertNull(compiledFilter.getMatchingPaymentAccountFilter(createPayload("456")));
+    }
+
+    @Test
+    public void testManyBannedPaymentAccounts() {
+        List<PaymentAccountFilter> paymentAccountFilters = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            paymentAccountFilters.add(new PaymentAccountFilter(PaymentMethod.PERFECT_MONEY_ID, "getAccountNr", "banned" + i));
+        }
+        CompiledFilter compiledFilter = CompiledFilter.compile(createFilter(paymentAccountFilters));
+
+        int numBanned = 0;
+        for (int i = 0; i < 200; i++) {
+            String accountNr = i % 2 == 0 ? "banned" + i / 2 : "account" + i;
+            if (compiledFilter.getMatchingPaymentAccountFilter(createPayload(accountNr)) != null)
+                numBanned++;
+        }
+        assertEquals(100, numBanned);
+        assertSame(paymentAccountFilters.get(42),
+                compiledFilter.getMatchingPaymentAccountFilter(createPayload("banned42")));
+    }
+
+    private static Filter createFilter(List<PaymentAccountFilter> paymentAccountFilters) {
+        return new Filter(new ArrayList<>(),
+                new ArrayList<>(),
+                paymentAccountFilters,
+                null,
+                null,
+                null,
+                null,
+                null,
+                false,
+                null);
+    }
+
+    private static PerfectMoneyAccountPayload createPayload(String accountNr) {
+        PerfectMoneyAccountPayload payload = new PerfectMoneyAccountPayload(PaymentMethod.PERFECT_MONEY_ID, "id");
+        payload.setAccountNr(accountNr);
+        return payload;
+    }
+}
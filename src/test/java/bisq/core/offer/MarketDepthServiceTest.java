@@ -0,0 +1,184 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.monetary.Price;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import org.bitcoinj.core.Coin;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarketDepthServiceTest {
+    private final IntegerProperty updateCounter = new SimpleIntegerProperty(0);
+    private PriceFeedService priceFeedService;
+    private MarketDepthService marketDepthService;
+    private OfferBookService.OfferBookChangedListener offerBookChangedListener;
+
+    @Before
+    public void setup() {
+        OfferBookService offerBookService = mock(OfferBookService.class);
+        priceFeedService = mock(PriceFeedService.class);
+        when(offerBookService.getOffers()).thenReturn(Collections.singletonList(
+                mockOffer("1", OfferPayload.Direction.SELL, false, 1000, 1)));
+        when(priceFeedService.updateCounterProperty()).thenReturn(updateCounter);
+
+        marketDepthService = new MarketDepthService(offerBookService, priceFeedService);
+        ArgumentCaptor<OfferBookService.OfferBookChangedListener> captor =
+                ArgumentCaptor.forClass(OfferBookService.OfferBookChangedListener.class);
+        verify(offerBookService).addOfferBookChangedListener(captor.capture());
+        offerBookChangedListener = captor.getValue();
+    }
+
+    @Test
+    public void testAggregation() {
+        offerBookChangedListener.onAdded(mockOffer("2", OfferPayload.Direction.SELL, false, 1100, 2));
+        offerBookChangedListener.onAdded(mockOffer("3", OfferPayload.Direction.SELL, false, 1000, 3));
+        offerBookChangedListener.onAdded(mockOffer("4", OfferPayload.Direction.BUY, false, 900, 4));
+        offerBookChangedListener.onAdded(mockOffer("5", OfferPayload.Direction.BUY, false, 950, 5));
+
+        MarketDepth marketDepth = marketDepthService.getMarketDepth("EUR");
+        assertEquals(2, marketDepth.getSellLevels().size());
+        MarketDepth.Level bestSell = marketDepth.getSellLevels().get(0);
+        assertEquals(1000, bestSell.getPrice());
+        assertEquals(4, bestSell.getAmount());
+        assertEquals(2, bestSell.getNumOffers());
+        assertEquals(6, marketDepth.getSellLevels().get(1).getCumulativeAmount());
+
+        assertEquals(950, marketDepth.getBuyLevels().get(0).getPrice());
+        assertEquals(900, marketDepth.getBuyLevels().get(1).getPrice());
+        assertEquals(9, marketDepth.getBuyLevels().get(1).getCumulativeAmount());
+
+        offerBookChangedListener.onRemoved(mockOffer("3", OfferPayload.Direction.SELL, false, 1000, 3));
+        bestSell = marketDepthService.getMarketDepth("EUR").getSellLevels().get(0);
+        assertEquals(1, bestSell.getAmount());
+        assertEquals(1, bestSell.getNumOffers());
+
+        offerBookChangedListener.onRemoved(mockOffer("1", OfferPayload.Direction.SELL, false, 1000, 1));
+        assertEquals(1, marketDepthService.getMarketDepth("EUR").getSellLevels().size());
+        assertTrue(marketDepthService.getMarketDepth("USD").getSellLevels().isEmpty());
+    }
+
+    @Test
+    public void testMarketBasedOffersMoveAtPriceUpdate() {
+        Offer marketBasedOffer = mockOffer("2", OfferPayload.Direction.SELL, true, 1200, 2);
+        offerBookChangedListener.onAdded(marketBasedOffer);
+        List<MarketDepth> updates = new ArrayList<>();
+        marketDepthService.addListener("EUR", updates::add);
+
+        Price newPrice = mockPrice(900);
+        when(marketBasedOffer.getPrice()).thenReturn(newPrice);
+        // The market price of the feed did not change, so we don't touch the offer
+        updateCounter.set(1);
+        assertEquals(0, updates.size());
+        assertEquals(1200, marketDepthService.getMarketDepth("EUR").getSellLevels().get(1).getPrice());
+
+        when(priceFeedService.getMarketPrice("EUR")).thenReturn(
+                new MarketPrice("EUR", 9000, Instant.now().getEpochSecond(), true));
+        updateCounter.set(2);
+        assertEquals(1, updates.size());
+        List<MarketDepth.Level> sellLevels = updates.get(0).getSellLevels();
+        assertEquals(2, sellLevels.size());
+        assertEquals(900, sellLevels.get(0).getPrice());
+        assertEquals(2, sellLevels.get(0).getAmount());
+        assertEquals(1000, sellLevels.get(1).getPrice());
+    }
+
+    @Test
+    public void testBucketSize() {
+        OfferBookService offerBookService = mock(OfferBookService.class);
+        PriceFeedService priceFeedService = mock(PriceFeedService.class);
+        List<Offer> offers = new ArrayList<>();
+        offers.add(mockOffer("1", OfferPayload.Direction.SELL, false, 1001, 1));
+        offers.add(mockOffer("2", OfferPayload.Direction.SELL, false, 1099, 2));
+        offers.add(mockOffer("3", OfferPayload.Direction.SELL, false, 1100, 4));
+        when(offerBookService.getOffers()).thenReturn(offers);
+        when(offerBookService.getOffers("EUR")).thenReturn(offers);
+        when(priceFeedService.updateCounterProperty()).thenReturn(updateCounter);
+        MarketDepthService marketDepthService = new MarketDepthService(offerBookService, priceFeedService);
+
+        assertEquals(3, marketDepthService.getMarketDepth("EUR").getSellLevels().size());
+        marketDepthService.setBucketSize("EUR", 100);
+        List<MarketDepth.Level> levels = marketDepthService.getMarketDepth("EUR").getSellLevels();
+        assertEquals(2, levels.size());
+        assertEquals(1000, levels.get(0).getPrice());
+        assertEquals(3, levels.get(0).getAmount());
+        assertEquals(1100, levels.get(1).getPrice());
+        assertEquals(7, levels.get(1).getCumulativeAmount());
+    }
+
+    @Test
+    public void testAltcoinLevelsSortedByInvertedPrice() {
+        offerBookChangedListener.onAdded(mockOffer("2", "XMR", OfferPayload.Direction.SELL, false, 1000, 1));
+        offerBookChangedListener.onAdded(mockOffer("3", "XMR", OfferPayload.Direction.SELL, false, 1100, 2));
+        offerBookChangedListener.onAdded(mockOffer("4", "XMR", OfferPayload.Direction.BUY, false, 900, 3));
+        offerBookChangedListener.onAdded(mockOffer("5", "XMR", OfferPayload.Direction.BUY, false, 950, 4));
+
+        // Altcoin prices are in BTC, so the best sell level has the highest and the best buy level the lowest price
+        MarketDepth marketDepth = marketDepthService.getMarketDepth("XMR");
+        assertEquals(1100, marketDepth.getSellLevels().get(0).getPrice());
+        assertEquals(1000, marketDepth.getSellLevels().get(1).getPrice());
+        assertEquals(3, marketDepth.getSellLevels().get(1).getCumulativeAmount());
+        assertEquals(900, marketDepth.getBuyLevels().get(0).getPrice());
+        assertEquals(950, marketDepth.getBuyLevels().get(1).getPrice());
+        assertEquals(7, marketDepth.getBuyLevels().get(1).getCumulativeAmount());
+    }
+
+    private static Offer mockOffer(String id, OfferPayload.Direction direction, boolean useMarketBasedPrice,
+                                   long price, long amount) {
+        return mockOffer(id, "EUR", direction, useMarketBasedPrice, price, amount);
+    }
+
+    private static Offer mockOffer(String id, String currencyCode, OfferPayload.Direction direction,
+                                   boolean useMarketBasedPrice, long price, long amount) {
+        Offer offer = mock(Offer.class);
+        when(offer.getId()).thenReturn(id);
+        when(offer.getCurrencyCode()).thenReturn(currencyCode);
+        when(offer.getDirection()).thenReturn(direction);
+        when(offer.isUseMarketBasedPrice()).thenReturn(useMarketBasedPrice);
+        Price mockedPrice = mockPrice(price);
+        when(offer.getPrice()).thenReturn(mockedPrice);
+        when(offer.getAmount()).thenReturn(Coin.valueOf(amount));
+        return offer;
+    }
+
+    private static Price mockPrice(long value) {
+        Price price = mock(Price.class);
+        when(price.getValue()).thenReturn(value);
+        return price;
+    }
+}
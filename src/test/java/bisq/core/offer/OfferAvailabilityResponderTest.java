@@ -0,0 +1,166 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.arbitration.Arbitrator;
+import bisq.core.filter.FilterManager;
+import bisq.core.offer.messages.OfferAvailabilityRequest;
+import bisq.core.user.Preferences;
+import bisq.core.user.User;
+
+import bisq.network.p2p.NodeAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({OpenOffer.class, Preferences.class, User.class, Arbitrator.class,
+        OfferAvailabilityRequest.class})
+public class OfferAvailabilityResponderTest {
+    private final Map<String, OpenOffer> openOfferById = new HashMap<>();
+    private final AtomicLong now = new AtomicLong(1000);
+    private Preferences preferences;
+    private FilterManager filterManager;
+    private OfferAvailabilityResponder responder;
+
+    @Before
+    public void setup() {
+        preferences = mock(Preferences.class);
+        User user = mock(User.class);
+        when(user.getAcceptedArbitrators()).thenReturn(Collections.singletonList(mock(Arbitrator.class)));
+        filterManager = mock(FilterManager.class);
+        responder = new OfferAvailabilityResponder(offerId -> Optional.ofNullable(openOfferById.get(offerId)),
+                preferences, user, filterManager, now::get);
+    }
+
+    @Test
+    public void testOfferState() {
+        addOpenOffer("1", OpenOffer.State.AVAILABLE);
+        addOpenOffer("2", OpenOffer.State.RESERVED);
+        NodeAddress sender = new NodeAddress("taker.onion:9999");
+
+        assertEquals(AvailabilityResult.AVAILABLE, responder.getAvailabilityResult(createRequest("1"), sender));
+        assertEquals(AvailabilityResult.OFFER_TAKEN, responder.getAvailabilityResult(createRequest("2"), sender));
+        assertEquals(AvailabilityResult.OFFER_TAKEN, responder.getAvailabilityResult(createRequest("3"), sender));
+
+        // A change of the state is reflected at once
+        when(openOfferById.get("1").getState()).thenReturn(OpenOffer.State.RESERVED);
+        assertEquals(AvailabilityResult.OFFER_TAKEN, responder.getAvailabilityResult(createRequest("1"), sender));
+    }
+
+    @Test
+    public void testIgnoredTrader() {
+        addOpenOffer("1", OpenOffer.State.AVAILABLE);
+        NodeAddress sender = new NodeAddress("taker.onion:9999");
+        assertEquals(AvailabilityResult.AVAILABLE, responder.getAvailabilityResult(createRequest("1"), sender));
+
+        when(preferences.getIgnoreTradersList()).thenReturn(new ArrayList<>(Arrays.asList("other", "taker")));
+        assertEquals(AvailabilityResult.USER_IGNORED, responder.getAvailabilityResult(createRequest("1"), sender));
+    }
+
+    @Test
+    public void testBannedNode() {
+        addOpenOffer("1", OpenOffer.State.AVAILABLE);
+        NodeAddress banned = new NodeAddress("banned.onion:9999");
+        when(filterManager.isNodeAddressBanned(banned)).thenReturn(true);
+
+        assertNull(responder.getAvailabilityResult(createRequest("1"), new NodeAddress("banned.onion:9999")));
+        assertEquals(AvailabilityResult.AVAILABLE,
+                responder.getAvailabilityResult(createRequest("1"), new NodeAddress("taker.onion:9999")));
+
+        when(filterManager.isNodeAddressBanned(banned)).thenReturn(false);
+        assertEquals(AvailabilityResult.AVAILABLE,
+                responder.getAvailabilityResult(createRequest("1"), new NodeAddress("banned.onion:9999")));
+    }
+
+    @Test
+    public void testRateLimit() {
+        addOpenOffer("1", OpenOffer.State.AVAILABLE);
+        NodeAddress sender = new NodeAddress("taker.onion:9999");
+        for (int i = 0; i < OfferAvailabilityResponder.MAX_REQUESTS_PER_PEER; i++) {
+            assertEquals(AvailabilityResult.AVAILABLE, responder.getAvailabilityResult(createRequest("1"), sender));
+        }
+        assertNull(responder.getAvailabilityResult(createRequest("1"), sender));
+        // Other peers are not affected
+        assertEquals(AvailabilityResult.AVAILABLE,
+                responder.getAvailabilityResult(createRequest("1"), new NodeAddress("other.onion:9999")));
+
+        now.addAndGet(OfferAvailabilityResponder.RATE_LIMIT_INTERVAL_MS);
+        assertEquals(AvailabilityResult.AVAILABLE, responder.getAvailabilityResult(createRequest("1"), sender));
+    }
+
+    @Test
+    public void testBurstOfRequests() {
+        int numOffers = 100;
+        for (int i = 0; i < numOffers; i++) {
+            addOpenOffer(String.valueOf(i), i % 10 == 0 ? OpenOffer.State.RESERVED : OpenOffer.State.AVAILABLE);
+        }
+        List<String> ignoreTradersList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ignoreTradersList.add("ignored" + i);
+        }
+        when(preferences.getIgnoreTradersList()).thenReturn(ignoreTradersList);
+
+        int numRequests = 500;
+        List<OfferAvailabilityRequest> requests = new ArrayList<>();
+        List<NodeAddress> senders = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            requests.add(createRequest(String.valueOf(i % numOffers)));
+            senders.add(new NodeAddress("taker" + (i % 100) + ".onion:9999"));
+        }
+
+        int numAvailable = 0;
+        for (int i = 0; i < numRequests; i++) {
+            AvailabilityResult result = responder.getAvailabilityResult(requests.get(i), senders.get(i));
+            if (result == AvailabilityResult.AVAILABLE)
+                numAvailable++;
+        }
+        assertEquals(450, numAvailable);
+    }
+
+    private void addOpenOffer(String offerId, OpenOffer.State state) {
+        OpenOffer openOffer = mock(OpenOffer.class);
+        when(openOffer.getState()).thenReturn(state);
+        when(openOffer.getOffer()).thenReturn(mock(Offer.class));
+        openOfferById.put(offerId, openOffer);
+    }
+
+    private static OfferAvailabilityRequest createRequest(String offerId) {
+        OfferAvailabilityRequest request = mock(OfferAvailabilityRequest.class);
+        when(request.getOfferId()).thenReturn(offerId);
+        return request;
+    }
+}
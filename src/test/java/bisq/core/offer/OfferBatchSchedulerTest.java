@@ -0,0 +1,117 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.common.Timer;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class OfferBatchSchedulerTest {
+    private final LinkedList<Runnable> scheduled = new LinkedList<>();
+    private final List<Long> delays = new ArrayList<>();
+
+    private OfferBatchScheduler createScheduler(int batchSize, long batchIntervalMs) {
+        return new OfferBatchScheduler(batchSize, batchIntervalMs, (runnable, delayMs) -> {
+            scheduled.add(runnable);
+            delays.add(delayMs);
+            return mock(Timer.class);
+        });
+    }
+
+    @Test
+    public void testBatches() {
+        OfferBatchScheduler scheduler = createScheduler(2, 100);
+        List<Integer> items = new ArrayList<>(asList(1, 2, 3, 4, 5));
+        List<Integer> processed = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        OfferBatchScheduler.Job<Integer> job = scheduler.schedule(items, 10, processed::add, completed::incrementAndGet);
+
+        // Changes of the list don't affect the running job
+        items.clear();
+
+        // Only one batch is scheduled at a time
+        assertEquals(1, scheduled.size());
+        scheduled.poll().run();
+        assertEquals(asList(1, 2), processed);
+        assertTrue(job.isRunning());
+
+        scheduled.poll().run();
+        scheduled.poll().run();
+        assertEquals(asList(1, 2, 3, 4, 5), processed);
+        assertTrue(scheduled.isEmpty());
+        assertEquals(asList(10L, 100L, 100L), delays);
+        assertEquals(1, completed.get());
+        assertFalse(job.isRunning());
+    }
+
+    @Test
+    public void testStop() {
+        OfferBatchScheduler scheduler = createScheduler(2, 100);
+        List<Integer> processed = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        OfferBatchScheduler.Job<Integer> job = scheduler.schedule(asList(1, 2, 3), 0, processed::add,
+                completed::incrementAndGet);
+        scheduled.poll().run();
+        job.stop();
+        scheduled.forEach(Runnable::run);
+
+        assertEquals(asList(1, 2), processed);
+        assertEquals(0, completed.get());
+        assertFalse(job.isRunning());
+    }
+
+    @Test
+    public void testNumBatches() {
+        OfferBatchScheduler scheduler = createScheduler(10, 100);
+        assertEquals(0, scheduler.getNumBatches(0));
+        assertEquals(1, scheduler.getNumBatches(10));
+        assertEquals(2, scheduler.getNumBatches(11));
+        assertEquals(10, scheduler.getNumBatches(100));
+    }
+
+    @Test
+    public void testBatchSizeGrowsSublinearly() {
+        OfferBatchScheduler scheduler = createScheduler(10, 100);
+        assertEquals(10, scheduler.getBatchSize(50));
+        assertEquals(20, scheduler.getBatchSize(400));
+        assertEquals(20, scheduler.getNumBatches(400));
+        assertEquals(OfferBatchScheduler.MAX_BATCH_SIZE, scheduler.getBatchSize(10000));
+
+        // A larger configured batch size is used as it is
+        assertEquals(50, createScheduler(50, 100).getBatchSize(10000));
+
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 400; i++)
+            items.add(i);
+        List<Integer> processed = new ArrayList<>();
+        scheduler.schedule(items, 0, processed::add, null);
+        scheduled.poll().run();
+        assertEquals(20, processed.size());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.monetary.Price;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OfferBookIndexTest {
+    private final AtomicLong eurPriceVersion = new AtomicLong();
+    private final AtomicBoolean recentEurPrice = new AtomicBoolean(true);
+
+    @Test
+    public void testAddAndRemove() {
+        OfferBookIndex index = new OfferBookIndex(this::getPriceVersion, currencyCode -> recentEurPrice.get());
+        Offer offer1 = mockOffer("1", "EUR", OfferPayload.Direction.BUY, 100L);
+        Offer offer2 = mockOffer("2", "USD", OfferPayload.Direction.SELL, 100L);
+        index.add(offer1);
+        index.add(offer2);
+
+        assertEquals(2, index.size());
+        assertSame(offer1, index.getOfferById("1").get());
+        assertEquals(asList("EUR", "USD"), asList(index.getCurrencyCodes().toArray()));
+
+        // Same offer id replaces the old offer
+        Offer offer1Replacement = mockOffer("1", "EUR", OfferPayload.Direction.BUY, 120L);
+        assertSame(offer1, index.add(offer1Replacement));
+        assertEquals(1, index.getOffers("EUR").size());
+        assertSame(offer1Replacement, index.getOffers("EUR").get(0));
+
+        assertSame(offer2, index.remove("2"));
+        assertFalse(index.getOfferById("2").isPresent());
+        assertTrue(index.getOffers("USD").isEmpty());
+        assertEquals(1, index.getCurrencyCodes().size());
+    }
+
+    @Test
+    public void testSortedByPrice() {
+        OfferBookIndex index = new OfferBookIndex(this::getPriceVersion, currencyCode -> recentEurPrice.get());
+        index.add(mockOffer("s1", "EUR", OfferPayload.Direction.SELL, 120L));
+        index.add(mockOffer("s2", "EUR", OfferPayload.Direction.SELL, null));
+        index.add(mockOffer("s3", "EUR", OfferPayload.Direction.SELL, 100L));
+        index.add(mockOffer("b1", "EUR", OfferPayload.Direction.BUY, 90L));
+        index.add(mockOffer("b2", "EUR", OfferPayload.Direction.BUY, 95L));
+
+        assertEquals(asList("s3", "s1", "s2"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+        assertEquals(asList("b2", "b1"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.BUY)));
+
+        index.add(mockOffer("s4", "EUR", OfferPayload.Direction.SELL, 110L));
+        assertEquals(asList("s3", "s4", "s1", "s2"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+    }
+
+    @Test
+    public void testSortedAgainAfterPriceUpdate() {
+        OfferBookIndex index = new OfferBookIndex(this::getPriceVersion, currencyCode -> recentEurPrice.get());
+        Offer marketBasedOffer = mockOffer("s1", "EUR", OfferPayload.Direction.SELL, 120L);
+        index.add(marketBasedOffer);
+        index.add(mockOffer("s2", "EUR", OfferPayload.Direction.SELL, 110L));
+        assertEquals(asList("s2", "s1"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+
+        Price price = mockPrice(100L);
+        when(marketBasedOffer.getPrice()).thenReturn(price);
+        // Without a price update we keep the sorting
+        assertEquals(asList("s2", "s1"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+
+        eurPriceVersion.incrementAndGet();
+        assertEquals(asList("s1", "s2"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+    }
+
+    @Test
+    public void testSortedAgainAfterPriceGotOutdated() {
+        OfferBookIndex index = new OfferBookIndex(this::getPriceVersion, currencyCode -> recentEurPrice.get());
+        Offer marketBasedOffer = mockOffer("s1", "EUR", OfferPayload.Direction.SELL, 100L);
+        index.add(marketBasedOffer);
+        index.add(mockOffer("s2", "EUR", OfferPayload.Direction.SELL, 110L));
+        assertEquals(asList("s1", "s2"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+
+        // The market price got older than the max. age without a new price from the feed
+        when(marketBasedOffer.getPrice()).thenReturn(null);
+        recentEurPrice.set(false);
+        assertEquals(asList("s2", "s1"), getIds(index.getSortedOffers("EUR", OfferPayload.Direction.SELL)));
+    }
+
+    @Test
+    public void testAltcoinSortedByInvertedPrice() {
+        OfferBookIndex index = new OfferBookIndex(this::getPriceVersion, currencyCode -> recentEurPrice.get());
+        index.add(mockOffer("s1", "XMR", OfferPayload.Direction.SELL, 120L));
+        index.add(mockOffer("s2", "XMR", OfferPayload.Direction.SELL, 100L));
+        index.add(mockOffer("s3", "XMR", OfferPayload.Direction.SELL, null));
+        index.add(mockOffer("b1", "XMR", OfferPayload.Direction.BUY, 95L));
+        index.add(mockOffer("b2", "XMR", OfferPayload.Direction.BUY, 90L));
+
+        // Altcoin prices are in BTC, so the best sell offer has the highest and the best buy offer the lowest price
+        assertEquals(asList("s1", "s2", "s3"), getIds(index.getSortedOffers("XMR", OfferPayload.Direction.SELL)));
+        assertEquals(asList("b2", "b1"), getIds(index.getSortedOffers("XMR", OfferPayload.Direction.BUY)));
+    }
+
+    private long getPriceVersion(String currencyCode) {
+        return "EUR".equals(currencyCode) ? eurPriceVersion.get() : 0;
+    }
+
+    private static List<String> getIds(List<Offer> offers) {
+        return offers.stream().map(Offer::getId).collect(Collectors.toList());
+    }
+
+    private static Offer mockOffer(String id, String currencyCode, OfferPayload.Direction direction, Long price) {
+        Offer offer = mock(Offer.class);
+        when(offer.getId()).thenReturn(id);
+        when(offer.getCurrencyCode()).thenReturn(currencyCode);
+        when(offer.getDirection()).thenReturn(direction);
+        Price mockedPrice = price != null ? mockPrice(price) : null;
+        when(offer.getPrice()).thenReturn(mockedPrice);
+        return offer;
+    }
+
+    private static Price mockPrice(long value) {
+        Price price = mock(Price.class);
+        when(price.getValue()).thenReturn(value);
+        return price;
+    }
+}
@@ -17,15 +17,32 @@
 
 package bisq.core.offer;
 
+import bisq.core.monetary.Price;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
@@ -51,4 +68,76 @@ public class OfferTest {
         Offer offer = new Offer(payload);
         assertTrue(offer.isRange());
     }
+
+    @Test
+    public void testMarketBasedPriceIsCalculatedOncePerMarketPriceVersion() {
+        AtomicLong priceVersion = new AtomicLong(1);
+        PriceFeedService priceFeedService = mockPriceFeedService(priceVersion);
+        when(priceFeedService.getMarketPrice("EUR")).thenReturn(createMarketPrice(10000));
+        Offer offer = createMarketBasedOffer(priceFeedService, 0.01);
+
+        Price price = offer.getPrice();
+        assertEquals(99000000, price.getValue());
+        assertSame(price, offer.getPrice());
+        verify(priceFeedService, times(1)).getMarketPrice("EUR");
+
+        when(priceFeedService.getMarketPrice("EUR")).thenReturn(createMarketPrice(20000));
+        // Without an update of the price feed we keep the price
+        assertSame(price, offer.getPrice());
+
+        priceVersion.set(2);
+        assertEquals(198000000, offer.getPrice().getValue());
+        verify(priceFeedService, times(2)).getMarketPrice("EUR");
+
+        when(priceFeedService.getMarketPrice("EUR")).thenReturn(null);
+        priceVersion.set(3);
+        assertNull(offer.getPrice());
+    }
+
+    // Sorting uses the cached prices, they are only calculated again after a price update
+    @Test
+    public void testSortingCalculatesPricesOncePerPriceUpdate() {
+        AtomicLong priceVersion = new AtomicLong(1);
+        PriceFeedService priceFeedService = mockPriceFeedService(priceVersion);
+        when(priceFeedService.getMarketPrice("EUR")).thenReturn(createMarketPrice(10000));
+        Random random = new Random(1);
+        List<Offer> offers = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            offers.add(createMarketBasedOffer(priceFeedService, random.nextInt(1000) / 10000d));
+
+        Comparator<Offer> comparator = Comparator.comparing(offer -> offer.getPrice().getValue());
+        for (int i = 0; i < 3; i++)
+            new ArrayList<>(offers).sort(comparator);
+        verify(priceFeedService, times(offers.size())).getMarketPrice("EUR");
+
+        priceVersion.incrementAndGet();
+        List<Offer> sorted = new ArrayList<>(offers);
+        sorted.sort(comparator);
+        verify(priceFeedService, times(2 * offers.size())).getMarketPrice("EUR");
+        for (int i = 1; i < sorted.size(); i++)
+            assertTrue(sorted.get(i - 1).getPrice().getValue() <= sorted.get(i).getPrice().getValue());
+    }
+
+    private static PriceFeedService mockPriceFeedService(AtomicLong priceVersion) {
+        PriceFeedService priceFeedService = mock(PriceFeedService.class);
+        when(priceFeedService.getMarketPriceVersion("EUR")).thenAnswer(invocation -> priceVersion.get());
+        return priceFeedService;
+    }
+
+    private static MarketPrice createMarketPrice(double price) {
+        return new MarketPrice("EUR", price, Instant.now().getEpochSecond(), true);
+    }
+
+    private static Offer createMarketBasedOffer(PriceFeedService priceFeedService, double marketPriceMargin) {
+        OfferPayload payload = mock(OfferPayload.class);
+        when(payload.getBaseCurrencyCode()).thenReturn("BTC");
+        when(payload.getCounterCurrencyCode()).thenReturn("EUR");
+        when(payload.getDirection()).thenReturn(OfferPayload.Direction.BUY);
+        when(payload.isUseMarketBasedPrice()).thenReturn(true);
+        when(payload.getMarketPriceMargin()).thenReturn(marketPriceMargin);
+
+        Offer offer = new Offer(payload);
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.payment;
+
+import bisq.core.payment.payload.PaymentMethod;
+import bisq.core.payment.payload.PerfectMoneyAccountPayload;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AccountAgeWitnessCacheTest {
+    private static final byte[] PUB_KEY = new byte[]{1, 2, 3};
+
+    @Test
+    public void testHashIsCached() {
+        AccountAgeWitnessCache cache = new AccountAgeWitnessCache();
+        PerfectMoneyAccountPayload payload = createPayload("123");
+
+        byte[] hash = cache.getHash(payload, PUB_KEY);
+        assertArrayEquals(AccountAgeWitnessCache.createHash(payload, PUB_KEY), hash);
+        assertSame(hash, cache.getHash(payload, PUB_KEY));
+        // Other pub key
+        assertFalse(Arrays.equals(hash, cache.getHash(payload, new byte[]{4, 5, 6})));
+
+        // An edited payload gets a new hash
+        payload.setAccountNr("456");
+        byte[] editedHash = cache.getHash(payload, PUB_KEY);
+        assertFalse(Arrays.equals(hash, editedHash));
+        assertArrayEquals(AccountAgeWitnessCache.createHash(payload, PUB_KEY), editedHash);
+
+        cache.invalidate();
+        assertNotSame(editedHash, cache.getHash(payload, PUB_KEY));
+    }
+
+    @Test
+    public void testOnlyFoundWitnessIsCached() {
+        AccountAgeWitnessCache cache = new AccountAgeWitnessCache();
+        PerfectMoneyAccountPayload payload = createPayload("123");
+        AtomicInteger numLookups = new AtomicInteger();
+
+        assertFalse(cache.findWitness(payload, PUB_KEY, hash -> {
+            numLookups.incrementAndGet();
+            return Optional.empty();
+        }).isPresent());
+
+        // The witness got published in the meantime
+        AccountAgeWitness witness = new AccountAgeWitness(cache.getHash(payload, PUB_KEY), 1000);
+        assertSame(witness, cache.findWitness(payload, PUB_KEY, hash -> {
+            numLookups.incrementAndGet();
+            return Optional.of(witness);
+        }).get());
+        assertSame(witness, cache.findWitness(payload, PUB_KEY, hash -> {
+            numLookups.incrementAndGet();
+            return Optional.empty();
+        }).get());
+        assertEquals(2, numLookups.get());
+    }
+
+    @Test
+    public void testMaxSize() {
+        AccountAgeWitnessCache cache = new AccountAgeWitnessCache();
+        for (int i = 0; i < AccountAgeWitnessCache.MAX_SIZE + 10; i++) {
+            cache.getHash(createPayload("account" + i), PUB_KEY);
+        }
+        assertTrue(cache.size() <= AccountAgeWitnessCache.MAX_SIZE);
+    }
+
+    private static PerfectMoneyAccountPayload createPayload(String accountNr) {
+        PerfectMoneyAccountPayload payload = new PerfectMoneyAccountPayload(PaymentMethod.PERFECT_MONEY_ID, "id");
+        payload.setAccountNr(accountNr);
+        return payload;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.payment;
+
+import bisq.core.locale.Country;
+import bisq.core.locale.FiatCurrency;
+import bisq.core.locale.Region;
+import bisq.core.offer.Offer;
+import bisq.core.payment.payload.BankAccountPayload;
+import bisq.core.payment.payload.PaymentMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PaymentAccountIndexTest {
+    private static final Region EUROPE = new Region("EU", "Europe");
+
+    @Before
+    public void setup() {
+        // The payment methods are created lazily
+        PaymentMethod.getAllValues();
+    }
+
+    @Test
+    public void testSameResultAsValidator() {
+        List<PaymentAccount> accounts = new ArrayList<>();
+        accounts.add(createSepaAccount("EUR", "DE"));
+        accounts.add(createSepaAccount("EUR", "AT"));
+        accounts.add(createNationalBankAccount("EUR", "DE", "bank1"));
+        accounts.add(createNationalBankAccount("USD", "DE", "bank2"));
+        accounts.add(createPerfectMoneyAccount("USD"));
+        PaymentAccountIndex index = new PaymentAccountIndex(accounts);
+
+        List<Offer> offers = new ArrayList<>();
+        offers.add(createOffer("EUR", PaymentMethod.SEPA, Arrays.asList("DE", "FR"), null));
+        offers.add(createOffer("EUR", PaymentMethod.SEPA_INSTANT, Collections.singletonList("AT"), null));
+        offers.add(createOffer("EUR", PaymentMethod.SEPA, Collections.singletonList("FR"), null));
+        offers.add(createOffer("USD", PaymentMethod.SEPA, Collections.singletonList("DE"), null));
+        offers.add(createOffer("EUR", PaymentMethod.NATIONAL_BANK, Collections.singletonList("DE"), null));
+        offers.add(createOffer("EUR", PaymentMethod.SAME_BANK, Collections.singletonList("DE"),
+                Collections.singletonList("bank1")));
+        offers.add(createOffer("EUR", PaymentMethod.SAME_BANK, Collections.singletonList("DE"),
+                Collections.singletonList("bank2")));
+        offers.add(createOffer("USD", PaymentMethod.PERFECT_MONEY, null, null));
+        offers.add(createOffer("EUR", PaymentMethod.PERFECT_MONEY, null, null));
+
+        int numValid = 0;
+        for (Offer offer : offers) {
+            List<PaymentAccount> expected = accounts.stream()
+                    .filter(account -> PaymentAccountUtil.isPaymentAccountValidForOffer(offer, account))
+                    .collect(Collectors.toList());
+            assertEquals(new HashSet<>(expected), new HashSet<>(index.getPossiblePaymentAccounts(offer)));
+            assertEquals(!expected.isEmpty(), index.isAnyPaymentAccountValidForOffer(offer));
+            numValid += expected.size();
+        }
+        assertEquals(5, numValid);
+    }
+
+    @Test
+    public void testSetPaymentAccounts() {
+        PaymentAccountIndex index = new PaymentAccountIndex();
+        Offer offer = createOffer("USD", PaymentMethod.PERFECT_MONEY, null, null);
+        assertFalse(index.isAnyPaymentAccountValidForOffer(offer));
+
+        index.setPaymentAccounts(Collections.singletonList(createPerfectMoneyAccount("USD")));
+        assertTrue(index.isAnyPaymentAccountValidForOffer(offer));
+
+        index.setPaymentAccounts(null);
+        assertFalse(index.isAnyPaymentAccountValidForOffer(offer));
+    }
+
+    @Test
+    public void testSameResultAsUtilForManyOffers() {
+        List<PaymentAccount> accounts = new ArrayList<>();
+        String[] countryCodes = {"DE", "AT", "FR", "ES", "IT", "NL", "BE", "PT", "IE", "FI"};
+        for (int i = 0; i < 50; i++) {
+            accounts.add(createSepaAccount("EUR", countryCodes[i % countryCodes.length]));
+            accounts.add(createNationalBankAccount("EUR", countryCodes[i % countryCodes.length], "bank" + i));
+        }
+        List<Offer> offers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Every 11th offer accepts only a country we have no account for
+            String acceptedCountryCode = i % 11 == 0 ? "GR" : countryCodes[i % countryCodes.length];
+            offers.add(createOffer(i % 3 == 0 ? "USD" : "EUR",
+                    i % 2 == 0 ? PaymentMethod.SEPA : PaymentMethod.NATIONAL_BANK,
+                    Collections.singletonList(acceptedCountryCode),
+                    null));
+        }
+        PaymentAccountIndex index = new PaymentAccountIndex(accounts);
+        HashSet<PaymentAccount> accountSet = new HashSet<>(accounts);
+
+        int numValid = 0;
+        for (Offer offer : offers) {
+            assertEquals(new HashSet<>(PaymentAccountUtil.getPossiblePaymentAccounts(offer, accountSet)),
+                    new HashSet<>(index.getPossiblePaymentAccounts(offer)));
+            boolean anyValid = PaymentAccountUtil.isAnyPaymentAccountValidForOffer(offer, accounts);
+            assertEquals(anyValid, index.isAnyPaymentAccountValidForOffer(offer));
+            if (anyValid)
+                numValid++;
+        }
+        assertTrue(numValid > 0);
+        assertTrue(numValid < offers.size());
+    }
+
+    private static Offer createOffer(String currencyCode, PaymentMethod paymentMethod,
+                                     List<String> acceptedCountryCodes, List<String> acceptedBankIds) {
+        Offer offer = mock(Offer.class);
+        when(offer.getCurrencyCode()).thenReturn(currencyCode);
+        when(offer.getPaymentMethod()).thenReturn(paymentMethod);
+        when(offer.getAcceptedCountryCodes()).thenReturn(acceptedCountryCodes);
+        when(offer.getAcceptedBankIds()).thenReturn(acceptedBankIds);
+        if (acceptedBankIds != null)
+            when(offer.getBankId()).thenReturn(acceptedBankIds.get(0));
+        return offer;
+    }
+
+    private static SepaAccount createSepaAccount(String currencyCode, String countryCode) {
+        SepaAccount account = new SepaAccount();
+        account.init();
+        account.setSingleTradeCurrency(createCurrency(currencyCode));
+        account.setCountry(new Country(countryCode, countryCode, EUROPE));
+        account.setBic("BIC" + countryCode);
+        return account;
+    }
+
+    private static NationalBankAccount createNationalBankAccount(String currencyCode, String countryCode, String bankId) {
+        NationalBankAccount account = new NationalBankAccount();
+        account.init();
+        account.setSingleTradeCurrency(createCurrency(currencyCode));
+        account.setCountry(new Country(countryCode, countryCode, EUROPE));
+        ((BankAccountPayload) account.getPaymentAccountPayload()).setBankId(bankId);
+        return account;
+    }
+
+    private static PerfectMoneyAccount createPerfectMoneyAccount(String currencyCode) {
+        PerfectMoneyAccount account = new PerfectMoneyAccount();
+        account.init();
+        account.setSingleTradeCurrency(createCurrency(currencyCode));
+        return account;
+    }
+
+    private static FiatCurrency createCurrency(String currencyCode) {
+        return new FiatCurrency(Currency.getInstance(currencyCode), Locale.US);
+    }
+}
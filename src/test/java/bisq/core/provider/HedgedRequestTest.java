@@ -0,0 +1,249 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider;
+
+import bisq.common.Timer;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class HedgedRequestTest {
+    private static final long HEDGE_DELAY_MS = 5000;
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    // The callbacks of the requests which would be executed on the user thread
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private final Map<String, SettableFuture<String>> requestByBaseUrl = new LinkedHashMap<>();
+    private ProviderStats providerStats;
+
+    @Before
+    public void setup() {
+        providerStats = new ProviderStats(now::get);
+    }
+
+    @Test
+    public void testFirstProviderResponds() throws Exception {
+        SettableFuture<String> future = createHedgedRequest(HEDGE_DELAY_MS).request(Arrays.asList("a", "b"));
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(requestByBaseUrl.keySet()));
+
+        now.addAndGet(100);
+        requestByBaseUrl.get("a").set("result a");
+        runCallbacks();
+        assertEquals("result a", future.get());
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(requestByBaseUrl.keySet()));
+    }
+
+    @Test
+    public void testHedgeAfterDelay() throws Exception {
+        HedgedRequest<String> hedgedRequest = createHedgedRequest(HEDGE_DELAY_MS);
+        SettableFuture<String> future = hedgedRequest.request(Arrays.asList("slow", "fast", "other"));
+        assertEquals(1, scheduled.size());
+
+        now.addAndGet(HEDGE_DELAY_MS);
+        runScheduled();
+        assertEquals(Arrays.asList("slow", "fast"), new ArrayList<>(requestByBaseUrl.keySet()));
+        // We have already 2 open requests, so we don't hedge again
+        runScheduled();
+        assertEquals(2, requestByBaseUrl.size());
+
+        now.addAndGet(500);
+        requestByBaseUrl.get("fast").set("result fast");
+        runCallbacks();
+        assertEquals("result fast", future.get());
+        assertEquals("fast", hedgedRequest.getRespondingBaseUrl());
+
+        // The late response is only used for the stats
+        now.addAndGet(20_000);
+        requestByBaseUrl.get("slow").set("result slow");
+        runCallbacks();
+        assertEquals("result fast", future.get());
+        assertTrue(providerStats.getScore("fast") < providerStats.getScore("slow"));
+        assertEquals(Arrays.asList("fast", "other", "slow"),
+                providerStats.getRankedBaseUrls(Arrays.asList("slow", "fast", "other")));
+    }
+
+    @Test
+    public void testFailoverWithoutHedging() throws Exception {
+        SettableFuture<String> future = createHedgedRequest(0).request(Arrays.asList("a", "b", "c"));
+        assertTrue(scheduled.isEmpty());
+
+        requestByBaseUrl.get("a").setException(new IOException("timeout"));
+        runCallbacks();
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(requestByBaseUrl.keySet()));
+
+        // An invalid response counts as failure
+        requestByBaseUrl.get("b").set("");
+        runCallbacks();
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(requestByBaseUrl.keySet()));
+
+        requestByBaseUrl.get("c").set("result c");
+        runCallbacks();
+        assertEquals("result c", future.get());
+    }
+
+    @Test
+    public void testResponsesAreHandledOnCallbackExecutor() throws Exception {
+        HedgedRequest<String> hedgedRequest = createHedgedRequest(0);
+        SettableFuture<String> future = hedgedRequest.request(Arrays.asList("a", "b"));
+
+        // The http requests complete on their own threads
+        Thread thread = new Thread(() -> requestByBaseUrl.get("a").setException(new IOException("error a")));
+        thread.start();
+        thread.join();
+        // Nothing gets handled on the request thread, so we don't fail over to the next provider yet
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(requestByBaseUrl.keySet()));
+        assertEquals(1, callbacks.size());
+        runCallbacks();
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(requestByBaseUrl.keySet()));
+
+        thread = new Thread(() -> requestByBaseUrl.get("b").set("result b"));
+        thread.start();
+        thread.join();
+        assertFalse(future.isDone());
+        runCallbacks();
+        assertEquals("result b", future.get());
+        assertEquals("b", hedgedRequest.getRespondingBaseUrl());
+    }
+
+    @Test
+    public void testAllProvidersFail() throws Exception {
+        HedgedRequest<String> hedgedRequest = createHedgedRequest(HEDGE_DELAY_MS);
+        SettableFuture<String> future = hedgedRequest.request(Arrays.asList("a", "b"));
+        runScheduled();
+        requestByBaseUrl.get("a").setException(new IOException("error a"));
+        runCallbacks();
+        assertFalse(future.isDone());
+        requestByBaseUrl.get("b").setException(new IOException("error b"));
+        runCallbacks();
+
+        try {
+            future.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals("error b", e.getCause().getMessage());
+        }
+        assertNull(hedgedRequest.getRespondingBaseUrl());
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        List<String> baseUrls = Arrays.asList("a", "b");
+        for (int i = 0; i < ProviderStats.CIRCUIT_BREAKER_THRESHOLD - 1; i++) {
+            providerStats.onFailure("a");
+        }
+        assertTrue(providerStats.isAvailable("a"));
+        assertEquals(Arrays.asList("b", "a"), providerStats.getRankedBaseUrls(baseUrls));
+
+        providerStats.onFailure("a");
+        assertFalse(providerStats.isAvailable("a"));
+        assertEquals(Collections.singletonList("b"), providerStats.getRankedBaseUrls(baseUrls));
+
+        // After the cool down we probe the provider again. Another failure doubles the cool down.
+        now.addAndGet(ProviderStats.MIN_COOL_DOWN_MS);
+        assertTrue(providerStats.isAvailable("a"));
+        providerStats.onFailure("a");
+        now.addAndGet(ProviderStats.MIN_COOL_DOWN_MS);
+        assertFalse(providerStats.isAvailable("a"));
+        now.addAndGet(ProviderStats.MIN_COOL_DOWN_MS);
+        assertTrue(providerStats.isAvailable("a"));
+
+        providerStats.onSuccess("a", 1000);
+        for (int i = 0; i < ProviderStats.CIRCUIT_BREAKER_THRESHOLD - 1; i++) {
+            providerStats.onFailure("a");
+        }
+        assertTrue(providerStats.isAvailable("a"));
+    }
+
+    @Test
+    public void testAllCircuitsOpen() {
+        for (int i = 0; i < ProviderStats.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            providerStats.onFailure("a");
+        }
+        now.addAndGet(1000);
+        for (int i = 0; i < ProviderStats.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            providerStats.onFailure("b");
+        }
+        // We still get the providers, ordered by the end of their cool down
+        assertEquals(Arrays.asList("a", "b"), providerStats.getRankedBaseUrls(Arrays.asList("b", "a")));
+    }
+
+    @Test
+    public void testTimeToFirstResponse() throws Exception {
+        // The first provider does not respond within 60 sec., the second one after 2 sec.
+        SettableFuture<String> future = createHedgedRequest(HEDGE_DELAY_MS).request(Arrays.asList("slow", "fast"));
+        long startTs = now.get();
+        now.addAndGet(HEDGE_DELAY_MS);
+        runScheduled();
+        now.addAndGet(2000);
+        requestByBaseUrl.get("fast").set("result fast");
+        runCallbacks();
+
+        assertEquals("result fast", future.get());
+        assertEquals(HEDGE_DELAY_MS + 2000, now.get() - startTs);
+    }
+
+    private HedgedRequest<String> createHedgedRequest(long hedgeDelayMs) {
+        return new HedgedRequest<>(baseUrl -> {
+            SettableFuture<String> future = SettableFuture.create();
+            requestByBaseUrl.put(baseUrl, future);
+            return future;
+        },
+                result -> !result.isEmpty(),
+                providerStats,
+                hedgeDelayMs,
+                (runnable, delayMs) -> {
+                    scheduled.add(runnable);
+                    return mock(Timer.class);
+                },
+                now::get,
+                callbacks::add);
+    }
+
+    private void runCallbacks() {
+        List<Runnable> runnables = new ArrayList<>(callbacks);
+        callbacks.clear();
+        runnables.forEach(Runnable::run);
+    }
+
+    private void runScheduled() {
+        List<Runnable> runnables = new ArrayList<>(scheduled);
+        scheduled.clear();
+        runnables.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class MarketPriceTableTest {
+
+    @Test
+    public void testVersionsAndListeners() {
+        MarketPriceTable table = new MarketPriceTable();
+        List<String> eurChanges = new ArrayList<>();
+        List<String> allChanges = new ArrayList<>();
+        table.addListener("EUR", (currencyCode, marketPrice) -> eurChanges.add(currencyCode));
+        table.addListener((currencyCode, marketPrice) -> allChanges.add(currencyCode));
+
+        Map<String, MarketPrice> prices = new HashMap<>();
+        prices.put("EUR", createMarketPrice("EUR", 1));
+        prices.put("XMR", createMarketPrice("XMR", 1));
+        assertTrue(table.putAll(prices));
+        assertEquals(1, table.getVersion());
+        assertEquals(1, table.getVersion("EUR"));
+        assertEquals(1, table.getVersion("XMR"));
+        assertEquals(0, table.getVersion("USD"));
+        assertNull(table.getMarketPrice("USD"));
+
+        // An update of XMR does not change the version of EUR and does not notify the EUR listener
+        prices.put("XMR", createMarketPrice("XMR", 2));
+        assertTrue(table.putAll(prices));
+        assertEquals(2, table.getVersion());
+        assertEquals(1, table.getVersion("EUR"));
+        assertEquals(2, table.getVersion("XMR"));
+        assertEquals(Collections.singletonList("EUR"), eurChanges);
+        assertEquals(3, allChanges.size());
+
+        // Same prices are no change
+        assertFalse(table.putAll(prices));
+        assertEquals(2, table.getVersion());
+        assertEquals(3, allChanges.size());
+    }
+
+    @Test
+    public void testPutIf() {
+        MarketPriceTable table = new MarketPriceTable();
+        MarketPrice bisqPrice = new MarketPrice("EUR", 1, 0, false);
+        assertTrue(table.putIf("EUR", bisqPrice, current -> current == null || !current.isExternallyProvidedPrice()));
+        table.putAll(Collections.singletonMap("EUR", createMarketPrice("EUR", 2)));
+
+        // We don't overwrite the external price
+        assertFalse(table.putIf("EUR", bisqPrice, current -> current == null || !current.isExternallyProvidedPrice()));
+        assertEquals(2, table.getMarketPrice("EUR").getPrice(), 0);
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByUpdates() {
+        MarketPriceTable table = new MarketPriceTable();
+        table.putAll(Collections.singletonMap("EUR", createMarketPrice("EUR", 1)));
+        MarketPriceTable.Snapshot snapshot = table.getSnapshot();
+
+        table.putAll(Collections.singletonMap("EUR", createMarketPrice("EUR", 2)));
+        assertEquals(1, snapshot.getMarketPrice("EUR").getPrice(), 0);
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(2, table.getMarketPrice("EUR").getPrice(), 0);
+    }
+
+    // Writers update the prices while readers check that each snapshot is consistent
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        MarketPriceTable table = new MarketPriceTable();
+        int numUpdates = 2000;
+        int numCryptoWriters = 3;
+        int numReaders = 4;
+
+        AtomicInteger numEurNotifications = new AtomicInteger();
+        AtomicInteger numNotifications = new AtomicInteger();
+        table.addListener("EUR", (currencyCode, marketPrice) -> numEurNotifications.incrementAndGet());
+        table.addListener((currencyCode, marketPrice) -> numNotifications.incrementAndGet());
+
+        ExecutorService executor = Executors.newFixedThreadPool(1 + numCryptoWriters + numReaders);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger numSnapshots = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        // EUR and USD are always updated together
+        writers.add(executor.submit(() -> {
+            await(startLatch);
+            for (int i = 1; i <= numUpdates; i++) {
+                Map<String, MarketPrice> prices = new HashMap<>();
+                prices.put("EUR", createMarketPrice("EUR", i));
+                prices.put("USD", createMarketPrice("USD", i));
+                table.putAll(prices);
+            }
+        }));
+        for (int w = 0; w < numCryptoWriters; w++) {
+            String currencyCode = "ALT" + w;
+            writers.add(executor.submit(() -> {
+                await(startLatch);
+                for (int i = 1; i <= numUpdates; i++) {
+                    table.putIf(currencyCode, createMarketPrice(currencyCode, i), current -> true);
+                }
+            }));
+        }
+        for (int r = 0; r < numReaders; r++) {
+            readers.add(executor.submit(() -> {
+                await(startLatch);
+                long lastVersion = 0;
+                long lastEurVersion = 0;
+                // We check at least one snapshot, even if the writers are done already
+                do {
+                    MarketPriceTable.Snapshot snapshot = table.getSnapshot();
+                    numSnapshots.incrementAndGet();
+                    MarketPrice eur = snapshot.getMarketPrice("EUR");
+                    MarketPrice usd = snapshot.getMarketPrice("USD");
+                    if (eur != null) {
+                        assertEquals(eur.getPrice(), usd.getPrice(), 0);
+                        assertEquals(snapshot.getVersion("EUR"), snapshot.getVersion("USD"));
+                    } else {
+                        assertNull(usd);
+                    }
+                    assertTrue(snapshot.getVersion() >= lastVersion);
+                    assertTrue(snapshot.getVersion("EUR") >= lastEurVersion);
+                    lastVersion = snapshot.getVersion();
+                    lastEurVersion = snapshot.getVersion("EUR");
+                } while (writing.get());
+            }));
+        }
+
+        long ts = System.currentTimeMillis();
+        startLatch.countDown();
+        for (Future<?> writer : writers)
+            writer.get(30, TimeUnit.SECONDS);
+        writing.set(false);
+        for (Future<?> reader : readers)
+            reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        log.info("Applied {} concurrent updates in {} ms, readers checked {} snapshots",
+                numUpdates * (1 + numCryptoWriters), System.currentTimeMillis() - ts, numSnapshots.get());
+        assertTrue(numSnapshots.get() >= numReaders);
+
+        int numChanges = numUpdates * (2 + numCryptoWriters);
+        assertEquals(numUpdates * (1 + numCryptoWriters), table.getVersion());
+        assertEquals(numUpdates, numEurNotifications.get());
+        assertEquals(numChanges, numNotifications.get());
+        assertEquals(numUpdates, table.getMarketPrice("EUR").getPrice(), 0);
+        assertEquals(numUpdates, table.getMarketPrice("USD").getPrice(), 0);
+        assertEquals(table.getVersion("EUR"), table.getVersion("USD"));
+        for (int w = 0; w < numCryptoWriters; w++)
+            assertEquals(numUpdates, table.getMarketPrice("ALT" + w).getPrice(), 0);
+    }
+
+    private static MarketPrice createMarketPrice(String currencyCode, double price) {
+        return new MarketPrice(currencyCode, price, 1, true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
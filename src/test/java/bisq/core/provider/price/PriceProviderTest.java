@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import bisq.network.http.HttpClient;
+
+import bisq.common.util.Tuple2;
+
+import java.io.IOException;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PriceProviderTest {
+    private static final String RESPONSE = "{\"data\":[" +
+            "{\"currencyCode\":\"EUR\",\"price\":6543.21,\"timestampSec\":1.52E9,\"provider\":\"BTCA_L\"}," +
+            "{\"currencyCode\":\"XMR\",\"price\":0.0234,\"timestampSec\":1520000001}," +
+            "{\"currencyCode\":\"USD\",\"price\":null,\"timestampSec\":1520000002}" +
+            "],\"btcAverageTs\":1520000003,\"poloniexTs\":1.520000004E9,\"coinmarketcapTs\":1520000005," +
+            "\"nested\":{\"a\":[1,2,{\"b\":3}]}}";
+
+    private HttpClient httpClient;
+
+    @Before
+    public void setup() {
+        // Stub of the price node
+        httpClient = mock(HttpClient.class);
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        Tuple2<Map<String, Long>, Map<String, MarketPrice>> result = MarketPricesJsonDecoder.decode(RESPONSE);
+
+        assertEquals(1520000003L, (long) result.first.get(MarketPricesJsonDecoder.BTC_AVERAGE_TS));
+        assertEquals(1520000004L, (long) result.first.get(MarketPricesJsonDecoder.POLONIEX_TS));
+        assertEquals(1520000005L, (long) result.first.get(MarketPricesJsonDecoder.COINMARKETCAP_TS));
+
+        // The USD entry is invalid and gets ignored
+        assertEquals(2, result.second.size());
+        assertEquals(new MarketPrice("EUR", 6543.21, 1520000000L, true), result.second.get("EUR"));
+        assertEquals(new MarketPrice("XMR", 0.0234, 1520000001L, true), result.second.get("XMR"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeMissingTimestamp() throws IOException {
+        MarketPricesJsonDecoder.decode("{\"data\":[],\"btcAverageTs\":1,\"poloniexTs\":1}");
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeInvalidJson() throws IOException {
+        MarketPricesJsonDecoder.decode("{\"data\":[{\"currencyCode\":\"EUR\"");
+    }
+
+    @Test
+    public void testUnchangedResponseIsNotDecodedAgain() throws IOException {
+        when(httpClient.requestWithGET(anyString(), any(), any())).thenReturn(RESPONSE);
+        PriceProvider priceProvider = new PriceProvider(httpClient, "http://localhost/");
+        Tuple2<Map<String, Long>, Map<String, MarketPrice>> first = priceProvider.getAll();
+        assertTrue(first.second.containsKey("EUR"));
+        assertSame(first, priceProvider.getAll());
+
+        when(httpClient.requestWithGET(anyString(), any(), any())).thenReturn(RESPONSE.replace("6543.21", "6600"));
+        Tuple2<Map<String, Long>, Map<String, MarketPrice>> second = priceProvider.getAll();
+        assertNotSame(first, second);
+        assertEquals(6600, second.second.get("EUR").getPrice(), 0);
+        assertFalse(second.second.containsKey("USD"));
+    }
+
+    @Test
+    public void testDecodeLargeResponse() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append("{\"currencyCode\":\"C").append(i).append("\",\"price\":").append(1000.125 + i)
+                    .append(",\"timestampSec\":1520000000,\"provider\":\"BTCA_L\"}");
+        }
+        sb.append("],\"btcAverageTs\":1520000003,\"poloniexTs\":1520000004,\"coinmarketcapTs\":1520000005}");
+
+        Map<String, MarketPrice> prices = MarketPricesJsonDecoder.decode(sb.toString()).second;
+        assertEquals(1000, prices.size());
+        assertEquals(new MarketPrice("C999", 1999.125, 1520000000L, true), prices.get("C999"));
+    }
+}
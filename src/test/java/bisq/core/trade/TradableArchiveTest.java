@@ -0,0 +1,252 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.core.offer.Offer;
+
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.storage.Storage;
+
+import io.bisq.generated.protobuffer.PB;
+
+import org.bitcoinj.core.Coin;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TradableArchiveTest {
+    private static final String LEGACY_FILE_NAME = "ClosedTrades";
+    // 2018-01-15 and 2018-02-15 UTC
+    private static final long JANUARY = 1516000000000L;
+    private static final long FEBRUARY = 1518700000000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File storageDir;
+    private File archiveDir;
+    private File legacyFile;
+    private File migratedFile;
+    private PersistenceProtoResolver persistenceProtoResolver;
+    private final List<TradableArchive<Tradable>> archives = new ArrayList<>();
+
+    @Before
+    public void setup() throws IOException {
+        storageDir = temporaryFolder.newFolder();
+        archiveDir = new File(storageDir, LEGACY_FILE_NAME + "_archive");
+        legacyFile = new File(storageDir, LEGACY_FILE_NAME);
+        migratedFile = new File(storageDir, LEGACY_FILE_NAME + "_migrated");
+        persistenceProtoResolver = mock(PersistenceProtoResolver.class);
+        when(persistenceProtoResolver.fromProto(any(PB.PersistableEnvelope.class))).thenAnswer(invocation -> {
+            PB.PersistableEnvelope proto = invocation.getArgument(0);
+            TradableList<Tradable> tradableList = new TradableList<>(mockStorage(), "TradableArchiveTest");
+            proto.getTradableList().getTradableList().forEach(tradableProto -> {
+                PB.OfferPayload offerPayload = tradableProto.getOpenOffer().getOffer().getOfferPayload();
+                tradableList.add(createTradable(offerPayload.getId(), offerPayload.getDate()));
+            });
+            return tradableList;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        archives.forEach(TradableArchive::shutDown);
+    }
+
+    @Test
+    public void testMigrationWritesPartitionsAndIndexBeforeRename() throws IOException {
+        writeLegacyFile(createTradable("a", JANUARY), createTradable("b", FEBRUARY));
+        createArchive().readPersisted();
+
+        // The partitions and the index are on disk before the legacy file got renamed
+        assertFalse(legacyFile.exists());
+        assertTrue(migratedFile.exists());
+        assertTrue(new File(archiveDir, "2018-01").exists());
+        assertTrue(new File(archiveDir, "2018-02").exists());
+        assertTrue(new File(archiveDir, "index").exists());
+
+        TradableArchive<Tradable> archive = createArchive();
+        archive.readPersisted();
+        assertEquals(asSet("a", "b"), getSummaryIds(archive.getSummaries()));
+        assertTrue(archive.getTradableById("b").isPresent());
+    }
+
+    @Test
+    public void testInterruptedMigrationIsRepeatedWithoutDuplicates() throws IOException {
+        writeLegacyFile(createTradable("a", JANUARY), createTradable("b", FEBRUARY));
+        createArchive().readPersisted();
+
+        // We got killed after the partitions got written but before the index got written and the file got renamed
+        assertTrue(migratedFile.renameTo(legacyFile));
+        assertTrue(new File(archiveDir, "index").delete());
+
+        TradableArchive<Tradable> archive = createArchive();
+        archive.readPersisted();
+        assertEquals(asSet("a", "b"), getSummaryIds(archive.getSummaries()));
+        assertEquals(2, archive.getList().size());
+        assertFalse(legacyFile.exists());
+    }
+
+    @Test
+    public void testMigrationSkipsTradablesMissingInOutdatedIndex() throws IOException {
+        TradableArchive<Tradable> emptyArchive = createArchive();
+        emptyArchive.readPersisted();
+        emptyArchive.shutDown();
+        byte[] emptyIndex = Files.readAllBytes(new File(archiveDir, "index").toPath());
+
+        writeLegacyFile(createTradable("a", JANUARY), createTradable("b", FEBRUARY));
+        createArchive().readPersisted();
+
+        // We got killed after the partitions got written but before the new index got written
+        assertTrue(migratedFile.renameTo(legacyFile));
+        Files.write(new File(archiveDir, "index").toPath(), emptyIndex);
+
+        TradableArchive<Tradable> archive = createArchive();
+        archive.readPersisted();
+        assertEquals(asSet("a", "b"), getSummaryIds(archive.getSummaries()));
+        assertEquals(2, archive.getList().size());
+    }
+
+    // ClosedTradableManager.add relies on the archive to drop a tradable if one with the same id is archived already
+    @Test
+    public void testAddIgnoresDuplicateId() {
+        TradableArchive<Tradable> archive = createArchive();
+        archive.readPersisted();
+        Tradable tradable = createTradable("a", JANUARY);
+        archive.add(tradable);
+        archive.add(createTradable("a", FEBRUARY));
+
+        assertEquals(1, archive.getSummaries().size());
+        assertEquals(1, archive.getList().size());
+        assertSame(tradable, archive.getTradableById("a").get());
+    }
+
+    // The managers filter the locked trades by the summaries, so they must see state changes of loaded trades
+    @Test
+    public void testFilterSeesStateChangeOfLoadedTrade() {
+        TradableArchive<Tradable> archive = createArchive();
+        archive.readPersisted();
+        Trade trade = createTrade("a", JANUARY);
+        archive.add(trade);
+        assertEquals(0, archive.getTradables(TradableSummary::isFundsLockedIn).count());
+
+        when(trade.getState()).thenReturn(Trade.State.DEPOSIT_CONFIRMED_IN_BLOCK_CHAIN);
+        when(trade.isFundsLockedIn()).thenReturn(true);
+
+        assertEquals(Collections.singletonList(trade),
+                archive.getTradables(TradableSummary::isFundsLockedIn).collect(Collectors.toList()));
+        TradableSummary summary = archive.getSummaries().iterator().next();
+        assertTrue(summary.isFundsLockedIn());
+        assertEquals(Trade.State.DEPOSIT_CONFIRMED_IN_BLOCK_CHAIN.name(), summary.getState());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private TradableArchive<Tradable> createArchive() {
+        TradableArchive<Tradable> archive = new TradableArchive<>(storageDir, LEGACY_FILE_NAME,
+                persistenceProtoResolver, (tradable, storage) -> {
+        }, 1);
+        archives.add(archive);
+        return archive;
+    }
+
+    private void writeLegacyFile(Tradable... tradables) throws IOException {
+        PB.TradableList.Builder builder = PB.TradableList.newBuilder();
+        Arrays.stream(tradables).forEach(tradable -> builder.addTradable((PB.Tradable) tradable.toProtoMessage()));
+        try (OutputStream outputStream = new FileOutputStream(legacyFile)) {
+            PB.PersistableEnvelope.newBuilder().setTradableList(builder).build().writeDelimitedTo(outputStream);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Storage<TradableList<Tradable>> mockStorage() {
+        return mock(Storage.class);
+    }
+
+    private static Tradable createTradable(String id, long date) {
+        Offer offer = mock(Offer.class);
+        when(offer.getAmount()).thenReturn(Coin.valueOf(100000));
+        when(offer.getCurrencyCode()).thenReturn("EUR");
+
+        Tradable tradable = mock(Tradable.class);
+        when(tradable.getId()).thenReturn(id);
+        when(tradable.getDate()).thenReturn(new Date(date));
+        when(tradable.getOffer()).thenReturn(offer);
+        when(tradable.toProtoMessage()).thenReturn(PB.Tradable.newBuilder()
+                .setOpenOffer(PB.OpenOffer.newBuilder()
+                        .setOffer(PB.Offer.newBuilder()
+                                .setOfferPayload(PB.OfferPayload.newBuilder().setId(id).setDate(date))))
+                .build());
+        return tradable;
+    }
+
+    private static Trade createTrade(String id, long date) {
+        Offer offer = mock(Offer.class);
+        when(offer.getCurrencyCode()).thenReturn("EUR");
+
+        Trade trade = mock(Trade.class);
+        when(trade.getId()).thenReturn(id);
+        when(trade.getDate()).thenReturn(new Date(date));
+        when(trade.getOffer()).thenReturn(offer);
+        when(trade.getState()).thenReturn(Trade.State.PREPARATION);
+        when(trade.toProtoMessage()).thenReturn(PB.Tradable.newBuilder()
+                .setOpenOffer(PB.OpenOffer.newBuilder()
+                        .setOffer(PB.Offer.newBuilder()
+                                .setOfferPayload(PB.OfferPayload.newBuilder().setId(id).setDate(date))))
+                .build());
+        return trade;
+    }
+
+    private static Set<String> getSummaryIds(Collection<TradableSummary> summaries) {
+        return summaries.stream().map(TradableSummary::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<String> asSet(String... ids) {
+        return Arrays.stream(ids).collect(Collectors.toSet());
+    }
+}
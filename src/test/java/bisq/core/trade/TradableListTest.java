@@ -33,7 +33,11 @@ import org.junit.runner.RunWith;
 
 import static io.bisq.generated.protobuffer.PB.PersistableEnvelope.MessageCase.TRADABLE_LIST;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(JMockit.class)
 public class TradableListTest {
@@ -54,4 +58,53 @@ public class TradableListTest {
         assertTrue(message.getMessageCase().equals(TRADABLE_LIST));
         assertEquals(1, message.getTradableList().getTradableList().size());
     }
+
+    @Test
+    public void testIndexById() {
+        TradableList<Tradable> tradableList = new TradableList<>(mockStorage(), "filename");
+        Tradable a = createTradable("a");
+        Tradable b = createTradable("b");
+        tradableList.add(a);
+        tradableList.add(b);
+        assertSame(a, tradableList.getTradableById("a").get());
+        assertSame(b, tradableList.getTradableById("b").get());
+        assertFalse(tradableList.getTradableById("c").isPresent());
+
+        tradableList.remove(a);
+        assertFalse(tradableList.containsId("a"));
+        assertTrue(tradableList.containsId("b"));
+
+        // Changes applied to the list directly are indexed as well
+        tradableList.getList().add(a);
+        assertSame(a, tradableList.getTradableById("a").get());
+        tradableList.getList().clear();
+        assertFalse(tradableList.containsId("a"));
+        assertFalse(tradableList.containsId("b"));
+    }
+
+    @Test
+    public void testIndexWithDuplicateIds() {
+        TradableList<Tradable> tradableList = new TradableList<>(mockStorage(), "filename");
+        Tradable first = createTradable("a");
+        Tradable second = createTradable("a");
+        tradableList.add(first);
+        tradableList.add(second);
+        assertSame(first, tradableList.getTradableById("a").get());
+
+        tradableList.remove(first);
+        assertSame(second, tradableList.getTradableById("a").get());
+        tradableList.remove(second);
+        assertFalse(tradableList.containsId("a"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Storage<TradableList<Tradable>> mockStorage() {
+        return mock(Storage.class);
+    }
+
+    private static Tradable createTradable(String id) {
+        Tradable tradable = mock(Tradable.class);
+        when(tradable.getId()).thenReturn(id);
+        return tradable;
+    }
 }
@@ -0,0 +1,210 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.storage.Storage;
+
+import io.bisq.generated.protobuffer.PB;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TradableRecordStorageTest {
+    private static final String DIR_NAME = "PendingTrades_records";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File storageDir;
+    private PersistenceProtoResolver persistenceProtoResolver;
+    private TradableRecordStorage<Tradable> storage;
+
+    @Before
+    public void setup() throws IOException {
+        storageDir = temporaryFolder.newFolder();
+        persistenceProtoResolver = mock(PersistenceProtoResolver.class);
+        when(persistenceProtoResolver.fromProto(any(PB.PersistableEnvelope.class))).thenAnswer(invocation -> {
+            PB.PersistableEnvelope proto = invocation.getArgument(0);
+            TradableList<Tradable> tradableList = new TradableList<>(mockStorage(), "TradableRecordStorageTest");
+            proto.getTradableList().getTradableList().forEach(tradableProto ->
+                    tradableList.add(createTradable(tradableProto.getOpenOffer().getOffer().getOfferPayload().getId())));
+            return tradableList;
+        });
+        storage = createStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutDown();
+    }
+
+    @Test
+    public void testWrittenRecordsAreRead() {
+        storage.readAll();
+        storage.add(createTradable("a"));
+        storage.add(createTradable("b"));
+        assertTrue(storage.flush());
+
+        assertEquals(asSet("a", "b"), getIds(createStorage().readAll()));
+    }
+
+    @Test
+    public void testRemoveDeletesRecord() {
+        storage.readAll();
+        Tradable tradable = createTradable("a");
+        storage.add(tradable);
+        storage.add(createTradable("b"));
+        assertTrue(storage.flush());
+
+        storage.remove(tradable);
+        assertTrue(storage.flush());
+
+        assertEquals(asSet("b"), getIds(createStorage().readAll()));
+    }
+
+    @Test
+    public void testRecordsOfUnknownTradablesAreNotWritten() {
+        storage.readAll();
+        storage.queueUpForSave(createTradable("a"));
+        assertTrue(storage.flush());
+
+        assertEquals(0, getRecordFiles().length);
+    }
+
+    @Test
+    public void testIdIsNotUsedAsPath() {
+        storage.readAll();
+        String id = "../UserPayload";
+        storage.add(createTradable(id));
+        assertTrue(storage.flush());
+
+        assertFalse(new File(storageDir, "UserPayload").exists());
+        File[] files = getRecordFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].getName().matches("[0-9a-fA-F]{64}"));
+        assertEquals(TradableRecordStorage.getFileName(id), files[0].getName());
+        assertEquals(asSet(id), getIds(createStorage().readAll()));
+    }
+
+    @Test
+    public void testTempFilesAreIgnored() throws IOException {
+        storage.readAll();
+        storage.add(createTradable("a"));
+        assertTrue(storage.flush());
+        File tempFile = new File(new File(storageDir, DIR_NAME), TradableRecordStorage.getFileName("b") + ".tmp");
+        assertTrue(tempFile.createNewFile());
+
+        assertEquals(asSet("a"), getIds(createStorage().readAll()));
+        assertFalse(tempFile.exists());
+    }
+
+    @Test
+    public void testMigrateLegacyFile() throws IOException {
+        File legacyFile = new File(storageDir, "PendingTrades");
+        assertTrue(legacyFile.createNewFile());
+        // A record of "a" is left from a migration which got interrupted before the legacy file got renamed
+        storage.readAll();
+        storage.add(createTradable("a"));
+        assertTrue(storage.flush());
+        storage.shutDown();
+
+        storage = createStorage();
+        TradableList<Tradable> tradableList = new TradableList<>(storage);
+        List<Tradable> legacyTradables = Arrays.asList(createTradable("a"), createTradable("b"));
+        assertTrue(storage.migrateLegacyFile(legacyFile, legacyTradables, tradableList));
+
+        assertEquals(2, tradableList.getList().size());
+        assertEquals(asSet("a", "b"), getIds(tradableList.getList()));
+        assertFalse(legacyFile.exists());
+        assertTrue(new File(storageDir, "PendingTrades_migrated").exists());
+        assertEquals(asSet("a", "b"), getIds(createStorage().readAll()));
+    }
+
+    @Test
+    public void testMigrateLegacyFileKeepsFileIfRecordsCannotBeWritten() throws IOException {
+        File legacyFile = new File(storageDir, "PendingTrades");
+        assertTrue(legacyFile.createNewFile());
+        // A file in place of the records directory lets all writes fail
+        assertTrue(new File(storageDir, DIR_NAME).createNewFile());
+
+        TradableList<Tradable> tradableList = new TradableList<>(storage);
+        assertFalse(storage.migrateLegacyFile(legacyFile, Collections.singletonList(createTradable("a")),
+                tradableList));
+
+        assertTrue(legacyFile.exists());
+        assertFalse(new File(storageDir, "PendingTrades_migrated").exists());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private TradableRecordStorage<Tradable> createStorage() {
+        return new TradableRecordStorage<>(storageDir, DIR_NAME, persistenceProtoResolver, 50);
+    }
+
+    private File[] getRecordFiles() {
+        File[] files = new File(storageDir, DIR_NAME).listFiles();
+        return files != null ? files : new File[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Storage<TradableList<Tradable>> mockStorage() {
+        return mock(Storage.class);
+    }
+
+    private static Tradable createTradable(String id) {
+        Tradable tradable = mock(Tradable.class);
+        when(tradable.getId()).thenReturn(id);
+        when(tradable.toProtoMessage()).thenReturn(PB.Tradable.newBuilder()
+                .setOpenOffer(PB.OpenOffer.newBuilder()
+                        .setOffer(PB.Offer.newBuilder()
+                                .setOfferPayload(PB.OfferPayload.newBuilder().setId(id))))
+                .build());
+        return tradable;
+    }
+
+    private static Set<String> getIds(List<Tradable> tradables) {
+        return tradables.stream().map(Tradable::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<String> asSet(String... ids) {
+        return Arrays.stream(ids).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.protocol;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TradeTaskMetricsTest {
+    private TradeTaskMetrics metrics;
+
+    @Before
+    public void setup() {
+        metrics = new TradeTaskMetrics();
+    }
+
+    @Test
+    public void testTasksAreKeyedByProtocolAndTask() {
+        TradeTimeline timeline = createTimeline();
+        runTask(timeline, "trade1", "MakerProtocol", "TaskA", true);
+        runTask(timeline, "trade1", "MakerProtocol", "TaskA", false);
+        runTask(timeline, "trade1", "TakerProtocol", "TaskA", true);
+
+        Map<String, TradeTaskMetrics.Stats> statsByTask = metrics.getStatsByTask();
+        assertEquals(2, statsByTask.size());
+        assertEquals(2, statsByTask.get("MakerProtocol.TaskA").getCount());
+        assertEquals(1, statsByTask.get("MakerProtocol.TaskA").getFailed());
+        assertEquals(1, statsByTask.get("TakerProtocol.TaskA").getCount());
+        assertEquals(0, statsByTask.get("TakerProtocol.TaskA").getFailed());
+        // Task spans are not counted as runs
+        assertTrue(metrics.getStatsByRun().isEmpty());
+    }
+
+    @Test
+    public void testProtocolStatsCountEachTradeOnce() {
+        // trade1 needs 3 runs, trade2 one run, both with the same protocol
+        TradeTimeline timeline1 = createTimeline();
+        run(timeline1, "trade1", "MakerProtocol", true);
+        run(timeline1, "trade1", "MakerProtocol", false);
+        run(timeline1, "trade1", "MakerProtocol", true);
+        run(createTimeline(), "trade2", "MakerProtocol", true);
+
+        TradeTaskMetrics.Stats runs = metrics.getStatsByRun().get("MakerProtocol");
+        assertEquals(4, runs.getCount());
+        assertEquals(1, runs.getFailed());
+
+        Map<String, TradeTaskMetrics.Stats> statsByTrade = metrics.getStatsByTrade();
+        assertEquals(3, statsByTrade.get("trade1").getCount());
+        assertEquals(1, statsByTrade.get("trade2").getCount());
+
+        TradeTaskMetrics.Stats protocol = metrics.getStatsByProtocol().get("MakerProtocol");
+        assertEquals(2, protocol.getCount());
+        assertEquals(1, protocol.getFailed());
+        // The duration of a trade is the sum of its runs
+        assertEquals(runs.getTotalDuration(), protocol.getTotalDuration());
+        assertEquals(Math.max(statsByTrade.get("trade1").getTotalDuration(), statsByTrade.get("trade2").getTotalDuration()),
+                protocol.getMaxDuration());
+    }
+
+    @Test
+    public void testSpanIsCountedOnce() {
+        TradeTimeline timeline = createTimeline();
+        TradeTimeline.Span span = TradeTimeline.start(timeline, TradeTimeline.Kind.TASK, "TaskA", "trade1", "Role",
+                "MakerProtocol");
+        TradeTimeline.end(span, true);
+        TradeTimeline.end(span, false);
+
+        TradeTaskMetrics.Stats stats = metrics.getStatsByTask().get("MakerProtocol.TaskA");
+        assertEquals(1, stats.getCount());
+        assertEquals(0, stats.getFailed());
+        assertEquals(1, timeline.getSpans().size());
+    }
+
+    @Test
+    public void testTimelineWithoutMetrics() {
+        TradeTimeline timeline = new TradeTimeline();
+        TradeTimeline.Span span = TradeTimeline.start(timeline, TradeTimeline.Kind.RUN, "Run", "trade1", "Role",
+                "MakerProtocol");
+        TradeTimeline.end(span, true);
+
+        assertTrue(span.getDuration() >= 0);
+        assertTrue(metrics.getStatsByRun().isEmpty());
+    }
+
+    @Test
+    public void testOnlyLatestTradesAreKept() {
+        for (int i = 0; i <= TradeTaskMetrics.MAX_TRADES; i++)
+            run(createTimeline(), "trade" + i, "MakerProtocol", true);
+
+        Map<String, TradeTaskMetrics.Stats> statsByTrade = metrics.getStatsByTrade();
+        assertEquals(TradeTaskMetrics.MAX_TRADES, statsByTrade.size());
+        assertNull(statsByTrade.get("trade0"));
+        assertEquals(TradeTaskMetrics.MAX_TRADES, metrics.getStatsByProtocol().get("MakerProtocol").getCount());
+        // The runs are counted independent of the trades
+        assertEquals(TradeTaskMetrics.MAX_TRADES + 1, metrics.getStatsByRun().get("MakerProtocol").getCount());
+    }
+
+    @Test
+    public void testReset() {
+        run(createTimeline(), "trade1", "MakerProtocol", true);
+        metrics.reset();
+
+        assertTrue(metrics.getStatsByRun().isEmpty());
+        assertTrue(metrics.getStatsByTrade().isEmpty());
+        assertTrue(metrics.getStatsByProtocol().isEmpty());
+        assertFalse(metrics.dump().contains("MakerProtocol"));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private TradeTimeline createTimeline() {
+        TradeTimeline timeline = new TradeTimeline();
+        timeline.setMetrics(metrics);
+        return timeline;
+    }
+
+    private static void run(TradeTimeline timeline, String tradeId, String protocol, boolean success) {
+        TradeTimeline.end(TradeTimeline.start(timeline, TradeTimeline.Kind.RUN, "Run", tradeId, "Role", protocol),
+                success);
+    }
+
+    private static void runTask(TradeTimeline timeline, String tradeId, String protocol, String task,
+                                boolean success) {
+        TradeTimeline.end(TradeTimeline.start(timeline, TradeTimeline.Kind.TASK, task, tradeId, "Role", protocol),
+                success);
+    }
+}
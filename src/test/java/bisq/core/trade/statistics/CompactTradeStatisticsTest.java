@@ -0,0 +1,191 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+
+import com.google.common.io.BaseEncoding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompactTradeStatisticsTest {
+
+    @Test
+    public void testRoundTrip() {
+        CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+        List<TradeStatistics2> list = new ArrayList<>();
+        // More than the initial capacity
+        for (int i = 0; i < 3000; i++) {
+            TradeStatistics2 tradeStatistics = create(i, i % 3 == 0 ? "XMR" : "BTC", i % 3 == 0 ? "BTC" : "EUR",
+                    i % 2 == 0 ? "ab01ff" + i : "not hex " + i,
+                    i % 100 == 0 ? Collections.singletonMap("key", "value " + i) : null);
+            list.add(tradeStatistics);
+            assertTrue(compactTradeStatistics.add(tradeStatistics));
+        }
+
+        assertEquals(list.size(), compactTradeStatistics.size());
+        for (int i = 0; i < list.size(); i++)
+            assertEquals(list.get(i), compactTradeStatistics.get(i));
+
+        assertEquals(list.get(7), compactTradeStatistics.getByOfferId("offer-7"));
+        assertNull(compactTradeStatistics.getByOfferId("unknown"));
+    }
+
+    @Test
+    public void testDuplicateOfferId() {
+        CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+        assertTrue(compactTradeStatistics.add(create(1, "BTC", "EUR", "aa", null)));
+        assertFalse(compactTradeStatistics.add(create(1, "BTC", "USD", "bb", null)));
+        assertEquals(1, compactTradeStatistics.size());
+        assertTrue(compactTradeStatistics.containsOfferId("offer-1"));
+    }
+
+    @Test
+    public void testRangeScan() {
+        CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+        for (int i = 0; i < 100; i++)
+            compactTradeStatistics.add(create(i, i % 2 == 0 ? "XMR" : "BTC", i % 2 == 0 ? "BTC" : "EUR", "aa", null));
+
+        // trade dates are 1000 + i
+        List<TradeStatistics2> result = compactTradeStatistics.getTradeStatistics("XMR", 1010, 1020);
+        assertEquals(5, result.size());
+        result.forEach(e -> assertEquals("XMR", e.getCurrencyCode()));
+
+        List<Integer> indices = new ArrayList<>();
+        compactTradeStatistics.forEachIndex("EUR", 0, Long.MAX_VALUE, indices::add);
+        assertEquals(50, indices.size());
+        assertEquals(1, (int) indices.get(0));
+        assertEquals("EUR", compactTradeStatistics.getCurrencyCode(1));
+        assertEquals(1001, compactTradeStatistics.getTradeDate(1));
+
+        assertEquals(0, compactTradeStatistics.getTradeStatistics("USD", 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testAddAfterTrimToSize() {
+        CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+        compactTradeStatistics.trimToSize();
+        List<TradeStatistics2> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(create(i, "BTC", "EUR", "aa", null));
+            compactTradeStatistics.add(list.get(i));
+            compactTradeStatistics.trimToSize();
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), compactTradeStatistics.get(i));
+            assertTrue(compactTradeStatistics.containsOfferId("offer-" + i));
+        }
+        assertFalse(compactTradeStatistics.containsOfferId("offer-10"));
+    }
+
+    @Test
+    public void testMemorySaving() {
+        int numItems = 20_000;
+        long usedHeapBefore = getUsedHeap();
+        List<TradeStatistics2> list = createRealistic(numItems);
+        long objectsHeap = getUsedHeap() - usedHeapBefore;
+
+        CompactTradeStatistics compactTradeStatistics = createCompactTradeStatistics(list);
+        TradeStatistics2 sample = list.get(numItems / 2);
+        //noinspection UnusedAssignment
+        list = null;
+        long compactHeap = getUsedHeap() - usedHeapBefore;
+
+        assertEquals(numItems, compactTradeStatistics.size());
+        assertEquals(sample, compactTradeStatistics.getByOfferId(sample.getOfferId()));
+        // About 400 bytes per object and 200 bytes per compact item on a 64 bit JVM with compressed oops
+        assertTrue("objects: " + objectsHeap + " bytes, compact: " + compactHeap + " bytes",
+                compactHeap * 3 < objectsHeap * 2);
+    }
+
+    // Items with their own strings like the ones we get from the network
+    private static List<TradeStatistics2> createRealistic(int numItems) {
+        Random random = new Random(1);
+        List<TradeStatistics2> list = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            byte[] depositTxId = new byte[32];
+            random.nextBytes(depositTxId);
+            byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            list.add(new TradeStatistics2(OfferPayload.Direction.BUY,
+                    new String("BTC"),
+                    new String(i % 2 == 0 ? "EUR" : "USD"),
+                    new String("SEPA"),
+                    i,
+                    false,
+                    0.01,
+                    100_000,
+                    10_000,
+                    "XKYBA-" + UUID.randomUUID() + "-064",
+                    5_000_000 + i,
+                    50_000,
+                    1000 + i,
+                    BaseEncoding.base16().lowerCase().encode(depositTxId),
+                    hash,
+                    null));
+        }
+        return list;
+    }
+
+    private static CompactTradeStatistics createCompactTradeStatistics(List<TradeStatistics2> list) {
+        CompactTradeStatistics compactTradeStatistics = new CompactTradeStatistics();
+        list.forEach(compactTradeStatistics::add);
+        compactTradeStatistics.trimToSize();
+        return compactTradeStatistics;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static TradeStatistics2 create(int i, String baseCurrency, String counterCurrency, String depositTxId,
+                                           Map<String, String> extraDataMap) {
+        return new TradeStatistics2(i % 2 == 0 ? OfferPayload.Direction.BUY : OfferPayload.Direction.SELL,
+                baseCurrency,
+                counterCurrency,
+                i % 5 == 0 ? "SEPA" : "OK_PAY",
+                i,
+                i % 2 == 0,
+                i / 1000d,
+                100_000 + i,
+                10_000 + i,
+                "offer-" + i,
+                5_000_000 + i,
+                50_000 + i,
+                1000 + i,
+                depositTxId,
+                null,
+                extraDataMap);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MarketCandlesTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    // Wednesday
+    private final long start = ZonedDateTime.of(2018, 3, 14, 10, 15, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    @Test
+    public void testCandleValuesWithOutOfOrderTrades() {
+        MarketCandles marketCandles = new MarketCandles();
+        marketCandles.add("EUR", start + 2000, 110, 3, 30);
+        marketCandles.add("EUR", start, 100, 1, 10);
+        marketCandles.add("EUR", start + 3000, 90, 2, 20);
+        marketCandles.add("EUR", start + 1000, 120, 4, 40);
+        marketCandles.add("USD", start, 1000, 5, 50);
+
+        List<Candle> candles = marketCandles.getCandles("EUR", MarketCandles.Resolution.HOUR, start, start + HOUR);
+        assertEquals(1, candles.size());
+        Candle candle = candles.get(0);
+        assertEquals(start - TimeUnit.MINUTES.toMillis(15), candle.getIntervalStart());
+        assertEquals(100, candle.getOpen());
+        assertEquals(120, candle.getHigh());
+        assertEquals(90, candle.getLow());
+        assertEquals(90, candle.getClose());
+        assertEquals(10, candle.getAmount());
+        assertEquals(100, candle.getVolume());
+        assertEquals(4, candle.getNumTrades());
+    }
+
+    @Test
+    public void testIntervals() {
+        MarketCandles marketCandles = new MarketCandles();
+        for (int i = 0; i < 24 * 40; i++)
+            marketCandles.add("EUR", start + i * HOUR, 100 + i, 1, 1);
+
+        assertEquals(24 * 40, marketCandles.getCandles("EUR", MarketCandles.Resolution.HOUR, 0, Long.MAX_VALUE).size());
+        assertEquals(41, marketCandles.getCandles("EUR", MarketCandles.Resolution.DAY, 0, Long.MAX_VALUE).size());
+
+        List<Candle> weeks = marketCandles.getCandles("EUR", MarketCandles.Resolution.WEEK, 0, Long.MAX_VALUE);
+        assertEquals(7, weeks.size());
+        // Monday 2018-03-12
+        assertEquals(ZonedDateTime.of(2018, 3, 12, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli(),
+                weeks.get(0).getIntervalStart());
+
+        List<Candle> months = marketCandles.getCandles("EUR", MarketCandles.Resolution.MONTH, 0, Long.MAX_VALUE);
+        assertEquals(2, months.size());
+        assertEquals(24 * 40, months.get(0).getNumTrades() + months.get(1).getNumTrades());
+        assertEquals(100, months.get(0).getOpen());
+        assertEquals(100 + 24 * 40 - 1, months.get(1).getClose());
+
+        // The range starts within the first day, so that day is included
+        assertEquals(2, marketCandles.getCandles("EUR", MarketCandles.Resolution.DAY, start + HOUR, start + DAY).size());
+        assertEquals(0, marketCandles.getCandles("USD", MarketCandles.Resolution.DAY, 0, Long.MAX_VALUE).size());
+    }
+
+    // Random trades added in random order must give the same hourly candles as aggregating them in order
+    @Test
+    public void testRandomTradesMatchOrderedAggregation() {
+        Random random = new Random(1);
+        int numTrades = 5_000;
+        List<long[]> trades = new ArrayList<>();
+        // Distinct trade dates, so open and close are well defined
+        for (int i = 0; i < numTrades; i++) {
+            trades.add(new long[]{start + i * 37_000L, 10_000 + random.nextInt(1000), 1 + random.nextInt(1000),
+                    1 + random.nextInt(100)});
+        }
+        List<long[]> shuffled = new ArrayList<>(trades);
+        Collections.shuffle(shuffled, random);
+
+        MarketCandles marketCandles = new MarketCandles();
+        shuffled.forEach(trade -> marketCandles.add("EUR", trade[0], trade[1], trade[2], trade[3]));
+
+        Map<Long, List<long[]>> tradesByHour = new TreeMap<>();
+        trades.forEach(trade -> tradesByHour.computeIfAbsent(trade[0] / HOUR * HOUR, k -> new ArrayList<>()).add(trade));
+
+        List<Candle> candles = marketCandles.getCandles("EUR", MarketCandles.Resolution.HOUR, 0, Long.MAX_VALUE);
+        assertEquals(tradesByHour.size(), candles.size());
+        int index = 0;
+        for (Map.Entry<Long, List<long[]>> entry : tradesByHour.entrySet()) {
+            List<long[]> hourTrades = entry.getValue();
+            Candle candle = candles.get(index++);
+            assertEquals((long) entry.getKey(), candle.getIntervalStart());
+            assertEquals(hourTrades.get(0)[1], candle.getOpen());
+            assertEquals(hourTrades.get(hourTrades.size() - 1)[1], candle.getClose());
+            assertEquals(hourTrades.stream().mapToLong(trade -> trade[1]).max().getAsLong(), candle.getHigh());
+            assertEquals(hourTrades.stream().mapToLong(trade -> trade[1]).min().getAsLong(), candle.getLow());
+            assertEquals(hourTrades.stream().mapToLong(trade -> trade[2]).sum(), candle.getAmount());
+            assertEquals(hourTrades.stream().mapToLong(trade -> trade[3]).sum(), candle.getVolume());
+            assertEquals(hourTrades.size(), candle.getNumTrades());
+        }
+
+        int total = 0;
+        for (Candle candle : marketCandles.getCandles("EUR", MarketCandles.Resolution.MONTH, 0, Long.MAX_VALUE))
+            total += candle.getNumTrades();
+        assertEquals(numTrades, total);
+    }
+}
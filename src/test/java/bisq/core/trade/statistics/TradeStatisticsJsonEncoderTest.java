@@ -0,0 +1,138 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+
+import bisq.common.crypto.Hash;
+import bisq.common.util.Utilities;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TradeStatisticsJsonEncoderTest {
+    private static final String SPECIAL_CHARS = "\"\\\t\b\n\r\f\u0000\u0001\u001f<>&='/ äöü€  😀";
+
+    @Test
+    public void testSameJsonAsGson() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            TradeStatistics2 tradeStatistics = createRandom(random);
+            assertEquals(Utilities.objectToJson(tradeStatistics), TradeStatisticsJsonEncoder.toJson(tradeStatistics));
+        }
+    }
+
+    @Test
+    public void testSameHashAsGson() {
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            TradeStatistics2 tradeStatistics = createRandom(random);
+            // The hash got created while the hash field was still null, so we remove it from the Gson output
+            String json = Utilities.objectToJson(tradeStatistics).replaceFirst(",\n  \"hash\": \\[[^\\]]*\\]", "");
+            assertArrayEquals(Hash.getSha256Ripemd160hash(json.getBytes()), tradeStatistics.getHash());
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        Random random = new Random(3);
+        TradeStatistics2 tradeStatistics = createRandom(random);
+        for (byte[] hash : new byte[][]{null, new byte[0], new byte[]{Byte.MIN_VALUE, 0, Byte.MAX_VALUE}}) {
+            for (Map<String, String> extraDataMap : new Map[]{null, Collections.emptyMap(), Collections.singletonMap("", "")}) {
+                TradeStatistics2 copy = copy(tradeStatistics, hash, extraDataMap);
+                assertEquals(Utilities.objectToJson(copy), TradeStatisticsJsonEncoder.toJson(copy));
+            }
+        }
+        for (double margin : new double[]{0, -0d, 1e-7, 1e7, Double.MIN_VALUE, Double.MAX_VALUE, 0.1 + 0.2}) {
+            TradeStatistics2 copy = new TradeStatistics2(OfferPayload.Direction.SELL, "BTC", "EUR", "SEPA", 1, true,
+                    margin, 2, 3, "id", 4, 5, 6, "txId", null, null);
+            assertEquals(Utilities.objectToJson(copy), TradeStatisticsJsonEncoder.toJson(copy));
+        }
+    }
+
+    private static TradeStatistics2 createRandom(Random random) {
+        Map<String, String> extraDataMap = null;
+        if (random.nextInt(3) > 0) {
+            extraDataMap = random.nextBoolean() ? new HashMap<>() : new LinkedHashMap<>();
+            int size = random.nextInt(4);
+            for (int i = 0; i < size; i++)
+                extraDataMap.put(randomString(random), randomString(random));
+        }
+        return new TradeStatistics2(random.nextBoolean() ? OfferPayload.Direction.BUY : OfferPayload.Direction.SELL,
+                randomString(random),
+                randomString(random),
+                randomString(random),
+                random.nextLong(),
+                random.nextBoolean(),
+                random.nextBoolean() ? random.nextDouble() - 0.5 : random.nextInt(100) / 100d,
+                random.nextLong(),
+                random.nextLong(),
+                randomString(random),
+                random.nextLong(),
+                random.nextLong(),
+                random.nextLong(),
+                randomString(random),
+                null,
+                extraDataMap);
+    }
+
+    private static String randomString(Random random) {
+        int length = random.nextInt(20);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    sb.append(SPECIAL_CHARS.charAt(random.nextInt(SPECIAL_CHARS.length())));
+                    break;
+                case 1:
+                    sb.append((char) random.nextInt(0x80));
+                    break;
+                default:
+                    sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static TradeStatistics2 copy(TradeStatistics2 tradeStatistics, byte[] hash, Map<String, String> extraDataMap) {
+        return new TradeStatistics2(tradeStatistics.getDirection(),
+                tradeStatistics.getBaseCurrency(),
+                tradeStatistics.getCounterCurrency(),
+                tradeStatistics.getOfferPaymentMethod(),
+                tradeStatistics.getOfferDate(),
+                tradeStatistics.isOfferUseMarketBasedPrice(),
+                tradeStatistics.getOfferMarketPriceMargin(),
+                tradeStatistics.getOfferAmount(),
+                tradeStatistics.getOfferMinAmount(),
+                tradeStatistics.getOfferId(),
+                tradeStatistics.getTradePriceValue(),
+                tradeStatistics.getTradeAmountValue(),
+                tradeStatistics.getTradeDate().getTime(),
+                tradeStatistics.getDepositTxId(),
+                hash,
+                extraDataMap);
+    }
+}
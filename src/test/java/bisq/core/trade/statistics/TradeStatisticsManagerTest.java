@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+import bisq.core.provider.price.PriceFeedService;
+
+import bisq.network.p2p.P2PService;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class TradeStatisticsManagerTest {
+    private PriceFeedService priceFeedService;
+    private TradeStatisticsManager tradeStatisticsManager;
+
+    @Before
+    public void setup() {
+        priceFeedService = mock(PriceFeedService.class);
+        tradeStatisticsManager = new TradeStatisticsManager(mock(P2PService.class), priceFeedService, null, false);
+    }
+
+    @Test
+    public void testOnlyPriceOfNewItemIsApplied() {
+        TradeStatistics2 eur = create("offer-1", "EUR", 2000);
+        TradeStatistics2 usd = create("offer-2", "USD", 1000);
+        tradeStatisticsManager.addToMap(eur, true);
+        tradeStatisticsManager.addToMap(usd, true);
+
+        // The EUR price is not applied again when a USD trade gets added
+        verify(priceFeedService).applyBisqMarketPrice(eur);
+        verify(priceFeedService).applyBisqMarketPrice(usd);
+        verifyNoMoreInteractions(priceFeedService);
+    }
+
+    @Test
+    public void testPriceOfOlderTradeIsNotApplied() {
+        TradeStatistics2 latest = create("offer-1", "EUR", 2000);
+        tradeStatisticsManager.addToMap(latest, true);
+        tradeStatisticsManager.addToMap(create("offer-2", "EUR", 1000), true);
+
+        verify(priceFeedService).applyBisqMarketPrice(latest);
+        verifyNoMoreInteractions(priceFeedService);
+
+        TradeStatistics2 newer = create("offer-3", "EUR", 3000);
+        tradeStatisticsManager.addToMap(newer, true);
+        verify(priceFeedService).applyBisqMarketPrice(newer);
+    }
+
+    @Test
+    public void testDuplicateOfferIdIsNotApplied() {
+        tradeStatisticsManager.addToMap(create("offer-1", "EUR", 1000), true);
+        // The peer published the statistics of the same trade
+        TradeStatistics2 duplicate = create("offer-1", "EUR", 2000);
+        tradeStatisticsManager.addToMap(duplicate, true);
+
+        verify(priceFeedService, never()).applyBisqMarketPrice(duplicate);
+        assertEquals(1, tradeStatisticsManager.getObservableTradeStatisticsSet().size());
+    }
+
+    @Test
+    public void testPriceIsNotAppliedForItemsNotStoredLocally() {
+        tradeStatisticsManager.addToMap(create("offer-1", "EUR", 1000), false);
+
+        verify(priceFeedService, never()).applyBisqMarketPrice(any());
+    }
+
+    @Test
+    public void testRangeQuery() {
+        tradeStatisticsManager.addToMap(create("offer-1", "EUR", 1000), false);
+        tradeStatisticsManager.addToMap(create("offer-2", "EUR", 2000), false);
+        tradeStatisticsManager.addToMap(create("offer-3", "USD", 2000), false);
+        tradeStatisticsManager.addToMap(create("offer-4", "EUR", 3000), false);
+
+        List<TradeStatistics2> result = tradeStatisticsManager.getTradeStatistics("EUR", new Date(1500), new Date(3000));
+        assertEquals(1, result.size());
+        assertEquals("offer-2", result.get(0).getOfferId());
+        assertEquals(3, tradeStatisticsManager.getNumTrades("EUR", new Date(0), new Date(4000)));
+        assertEquals(0, tradeStatisticsManager.getNumTrades("XMR", new Date(0), new Date(4000)));
+    }
+
+    private static TradeStatistics2 create(String offerId, String counterCurrency, long tradeDate) {
+        return new TradeStatistics2(OfferPayload.Direction.BUY,
+                "BTC",
+                counterCurrency,
+                "SEPA",
+                tradeDate,
+                false,
+                0,
+                100_000,
+                10_000,
+                offerId,
+                5_000_000,
+                50_000,
+                tradeDate,
+                "aa",
+                null,
+                null);
+    }
+}
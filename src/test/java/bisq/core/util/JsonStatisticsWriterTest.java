@@ -0,0 +1,172 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.util;
+
+import bisq.common.Timer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class JsonStatisticsWriterTest {
+    private static final long INTERVAL = 5000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(100_000);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Timer> timers = new ArrayList<>();
+    private File dir;
+
+    public static class Item {
+        public final String name;
+        public final long value;
+        public final String skipped = null;
+
+        Item(String name, long value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setup() throws IOException {
+        dir = temporaryFolder.newFolder();
+    }
+
+    @Test
+    public void testWriteReplacesFile() throws IOException {
+        File file = new File(dir, "items.json");
+        Files.write(file.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+
+        JsonStatisticsWriter writer = createWriter();
+        writer.requestWrite("items", () -> Arrays.asList(new Item("a", 1), new Item("b", 2)));
+        writer.shutDown();
+
+        JsonNode json = new ObjectMapper().readTree(file);
+        assertEquals(2, json.size());
+        assertEquals("a", json.get(0).get("name").asText());
+        assertEquals(2, json.get(1).get("value").asLong());
+        // Null values are skipped
+        assertFalse(json.get(0).has("skipped"));
+        assertFalse(new File(dir, "items.tmp").exists());
+    }
+
+    @Test
+    public void testFailedWriteKeepsPreviousFile() throws IOException {
+        File file = new File(dir, "items.json");
+        Files.write(file.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+
+        JsonStatisticsWriter writer = createWriter();
+        writer.requestWrite("items", () -> Arrays.asList(new Item("a", 1), new Item("b", 2)), item -> {
+            if (item.name.equals("b"))
+                throw new IllegalStateException("Mapping failed");
+            return item;
+        });
+        writer.shutDown();
+
+        // The partially written temp file never replaces the complete previous file
+        assertEquals("[]", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        assertFalse(new File(dir, "items.tmp").exists());
+    }
+
+    @Test
+    public void testRequestsWithinIntervalAreCoalesced() throws IOException {
+        JsonStatisticsWriter writer = createWriter();
+        AtomicInteger numSnapshots = new AtomicInteger();
+
+        // The first request is written at once
+        writer.requestWrite("items", () -> snapshot(numSnapshots, "first"));
+        assertEquals(1, numSnapshots.get());
+        assertTrue(scheduled.isEmpty());
+
+        // Requests within the interval are delayed, the later ones replace the pending one
+        now.addAndGet(1000);
+        writer.requestWrite("items", () -> snapshot(numSnapshots, "second"));
+        writer.requestWrite("items", () -> snapshot(numSnapshots, "third"));
+        assertEquals(1, numSnapshots.get());
+        assertEquals(1, scheduled.size());
+
+        // Other files have their own interval
+        writer.requestWrite("other", () -> snapshot(numSnapshots, "other"));
+        assertEquals(2, numSnapshots.get());
+        assertEquals(1, scheduled.size());
+
+        now.addAndGet(INTERVAL);
+        scheduled.get(0).run();
+        assertEquals(3, numSnapshots.get());
+        writer.shutDown();
+        assertEquals(3, numSnapshots.get());
+
+        assertEquals("third", new ObjectMapper().readTree(new File(dir, "items.json")).get(0).get("name").asText());
+    }
+
+    @Test
+    public void testShutDownWritesPendingRequest() throws IOException {
+        JsonStatisticsWriter writer = createWriter();
+        writer.requestWrite("items", () -> Collections.singletonList(new Item("first", 1)));
+        writer.requestWrite("items", () -> Collections.singletonList(new Item("pending", 2)));
+        assertEquals(1, timers.size());
+
+        writer.shutDown();
+
+        verify(timers.get(0)).stop();
+        assertEquals("pending", new ObjectMapper().readTree(new File(dir, "items.json")).get(0).get("name").asText());
+        // Requests after the shut down are ignored
+        writer.requestWrite("late", () -> Collections.singletonList(new Item("late", 3)));
+        assertFalse(new File(dir, "late.json").exists());
+    }
+
+    private JsonStatisticsWriter createWriter() {
+        return new JsonStatisticsWriter(dir, INTERVAL, (runnable, delayMs) -> {
+            scheduled.add(runnable);
+            Timer timer = mock(Timer.class);
+            timers.add(timer);
+            return timer;
+        }, now::get);
+    }
+
+    private static List<Item> snapshot(AtomicInteger numSnapshots, String name) {
+        numSnapshots.incrementAndGet();
+        return Collections.singletonList(new Item(name, numSnapshots.get()));
+    }
+}